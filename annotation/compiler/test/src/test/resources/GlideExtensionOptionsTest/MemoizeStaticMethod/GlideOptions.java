@@ -494,6 +494,13 @@ public final class GlideOptions extends RequestOptions implements Cloneable {
     return (GlideOptions) super.timeout(value);
   }
 
+  @Override
+  @NonNull
+  @CheckResult
+  public GlideOptions deadline(@IntRange(from = 0) long deadlineMs) {
+    return (GlideOptions) super.deadline(deadlineMs);
+  }
+
   @Override
   @NonNull
   @CheckResult
@@ -294,6 +294,15 @@ public class GlideRequest<TranscodeType> extends RequestBuilder<TranscodeType> i
     return (GlideRequest<TranscodeType>) super.timeout(value);
   }
 
+  /**
+   * @see GlideOptions#deadline(long)
+   */
+  @NonNull
+  @CheckResult
+  public GlideRequest<TranscodeType> deadline(@IntRange(from = 0) long deadlineMs) {
+    return (GlideRequest<TranscodeType>) super.deadline(deadlineMs);
+  }
+
   /**
    * @see GlideOptions#optionalCenterCrop()
    */
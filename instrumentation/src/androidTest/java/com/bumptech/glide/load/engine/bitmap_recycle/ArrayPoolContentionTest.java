@@ -0,0 +1,107 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.util.Log;
+import androidx.test.runner.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares how many get and put cycles per second {@link LruArrayPool} and
+ * {@link SizeClassArrayPool} can handle with 8 decode threads.
+ *
+ * <p>Each cycle obtains and returns the arrays a single decode typically uses: a stream buffer
+ * and a buffer for the decoder's options, a buffer for Exif data and a small exact size array for
+ * a cache key.
+ *
+ * <p>Results are logged with the tag {@code ArrayPoolContention}, for example:
+ * {@code adb logcat -s ArrayPoolContention}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArrayPoolContentionTest {
+  private static final String TAG = "ArrayPoolContention";
+  private static final int THREADS = 8;
+  private static final int POOL_SIZE = 4 * 1024 * 1024;
+  private static final int EXIF_SIZE = 3000;
+  private static final long DURATION_MS = 1000;
+  private static final int WARMUP_RUNS = 2;
+
+  @Test
+  public void getAndPut_withLruArrayPool() throws InterruptedException {
+    long cyclesPerSecond = measure(new PoolFactory() {
+      @Override
+      public ArrayPool create() {
+        return new LruArrayPool(POOL_SIZE);
+      }
+    });
+    Log.i(TAG, THREADS + " threads, LruArrayPool: " + cyclesPerSecond + " cycles/s");
+  }
+
+  @Test
+  public void getAndPut_withSizeClassArrayPool() throws InterruptedException {
+    long cyclesPerSecond = measure(new PoolFactory() {
+      @Override
+      public ArrayPool create() {
+        return new SizeClassArrayPool(POOL_SIZE);
+      }
+    });
+    Log.i(TAG, THREADS + " threads, SizeClassArrayPool: " + cyclesPerSecond + " cycles/s");
+  }
+
+  private long measure(PoolFactory factory) throws InterruptedException {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      measureOnce(factory.create());
+    }
+    return measureOnce(factory.create());
+  }
+
+  private long measureOnce(final ArrayPool pool) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicLong total = new AtomicLong();
+    final long[] endTime = new long[1];
+    List<Thread> threads = new ArrayList<>(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          long count = 0;
+          while (System.nanoTime() < endTime[0]) {
+            byte[] streamBuffer = pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+            byte[] optionsBuffer = pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+            byte[] exif = pool.get(EXIF_SIZE, byte[].class);
+            byte[] dimensions = pool.getExact(8, byte[].class);
+            pool.put(dimensions);
+            pool.put(exif);
+            pool.put(optionsBuffer);
+            pool.put(streamBuffer);
+            count++;
+          }
+          total.addAndGet(count);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    endTime[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    pool.clearMemory();
+    return total.get() * 1000 / DURATION_MS;
+  }
+
+  private interface PoolFactory {
+    ArrayPool create();
+  }
+}
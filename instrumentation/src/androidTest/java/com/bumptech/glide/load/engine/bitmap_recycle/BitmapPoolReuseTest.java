@@ -0,0 +1,88 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+import androidx.test.runner.AndroidJUnit4;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares how often the default {@link LruBitmapPool} and a pool returned by
+ * {@link LruBitmapPool#newBestFitPool(long, float)} re-use {@link Bitmap}s, and how many bytes
+ * the re-used Bitmaps waste, while scrolling a grid of images with mixed aspect ratios and configs.
+ *
+ * <p>Each step requests a Bitmap for the item scrolled onto the screen and returns the Bitmap of
+ * the item scrolled off the screen to the pool.
+ *
+ * <p>Results are logged with the tag {@code BitmapPoolReuse}, for example:
+ * {@code adb logcat -s BitmapPoolReuse}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BitmapPoolReuseTest {
+  private static final String TAG = "BitmapPoolReuse";
+  // Enough for a few screens of items, so the pool is full of Bitmaps that may not fit.
+  private static final long POOL_SIZE = 4 * 1024 * 1024;
+  private static final float[] MAX_WASTE_RATIOS = new float[] { 0.25f, 0.5f, 1f };
+  private static final int VISIBLE_ITEMS = 12;
+  private static final int STEPS = 2000;
+  private static final long SEED = 1;
+  private static final int WIDTH = 360;
+  private static final int[] HEIGHTS = new int[] { 240, 270, 300, 360, 405, 480, 540 };
+  private static final Bitmap.Config[] CONFIGS =
+      new Bitmap.Config[] { Bitmap.Config.ARGB_8888, Bitmap.Config.RGB_565 };
+
+  @Test
+  public void scrollGrid_withDefaultPool() {
+    log("default pool", scrollGrid(new LruBitmapPool(POOL_SIZE)));
+  }
+
+  @Test
+  public void scrollGrid_withBestFitPool() {
+    for (float maxWasteRatio : MAX_WASTE_RATIOS) {
+      log("best fit pool, max waste ratio " + maxWasteRatio,
+          scrollGrid(LruBitmapPool.newBestFitPool(POOL_SIZE, maxWasteRatio)));
+    }
+  }
+
+  private static Result scrollGrid(LruBitmapPool pool) {
+    Random random = new Random(SEED);
+    Deque<Bitmap> visible = new ArrayDeque<>(VISIBLE_ITEMS + 1);
+    Result result = new Result();
+    for (int i = 0; i < STEPS; i++) {
+      int height = HEIGHTS[random.nextInt(HEIGHTS.length)];
+      Bitmap.Config config = CONFIGS[random.nextInt(CONFIGS.length)];
+      int requestedBytes = Util.getBitmapByteSize(WIDTH, height, config);
+
+      int hitCount = pool.getHitCount();
+      Bitmap bitmap = pool.getDirty(WIDTH, height, config);
+      if (pool.getHitCount() > hitCount) {
+        result.hits++;
+        result.hitBytes += requestedBytes;
+        result.wastedBytes += Util.getBitmapByteSize(bitmap) - requestedBytes;
+      }
+
+      visible.addLast(bitmap);
+      if (visible.size() > VISIBLE_ITEMS) {
+        pool.put(visible.removeFirst());
+      }
+    }
+    pool.clearMemory();
+    return result;
+  }
+
+  private static void log(String name, Result result) {
+    Log.i(TAG, name + ": hit rate " + (100f * result.hits / STEPS) + "%, wasted "
+        + result.wastedBytes + " bytes, " + (100f * result.wastedBytes / result.hitBytes)
+        + "% of re-used bytes");
+  }
+
+  private static final class Result {
+    int hits;
+    long hitBytes;
+    long wastedBytes;
+  }
+}
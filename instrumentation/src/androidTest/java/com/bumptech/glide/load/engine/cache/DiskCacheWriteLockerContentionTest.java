@@ -0,0 +1,107 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.util.Log;
+import androidx.test.runner.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how many acquire and release pairs per second {@link DiskCacheWriteLocker} can handle
+ * with 16 writer threads.
+ *
+ * <p>Writers either use keys that no other thread uses, which measures the cost of the locker
+ * itself, or share a small set of keys, which also measures contention on the per key locks.
+ *
+ * <p>Results are logged with the tag {@code WriteLockerContention}, for example:
+ * {@code adb logcat -s WriteLockerContention}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DiskCacheWriteLockerContentionTest {
+  private static final String TAG = "WriteLockerContention";
+  private static final int WRITER_THREADS = 16;
+  private static final int SHARED_KEY_COUNT = 4;
+  private static final int KEYS_PER_THREAD = 64;
+  private static final long DURATION_MS = 1000;
+  private static final int WARMUP_RUNS = 2;
+
+  @Test
+  public void acquireAndRelease_withDistinctKeys() throws InterruptedException {
+    long pairsPerSecond = measure(false /*shareKeys*/);
+    Log.i(TAG, WRITER_THREADS + " writers, distinct keys: " + pairsPerSecond + " pairs/s");
+  }
+
+  @Test
+  public void acquireAndRelease_withSharedKeys() throws InterruptedException {
+    long pairsPerSecond = measure(true /*shareKeys*/);
+    Log.i(TAG, WRITER_THREADS + " writers, " + SHARED_KEY_COUNT + " shared keys: "
+        + pairsPerSecond + " pairs/s");
+  }
+
+  private long measure(boolean shareKeys) throws InterruptedException {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      measureOnce(shareKeys);
+    }
+    return measureOnce(shareKeys);
+  }
+
+  private long measureOnce(boolean shareKeys) throws InterruptedException {
+    final DiskCacheWriteLocker locker = new DiskCacheWriteLocker();
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicLong total = new AtomicLong();
+    final long[] endTime = new long[1];
+    List<Thread> threads = new ArrayList<>(WRITER_THREADS);
+    for (int i = 0; i < WRITER_THREADS; i++) {
+      final String[] keys = createKeys(i, shareKeys);
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          long count = 0;
+          while (System.nanoTime() < endTime[0]) {
+            String key = keys[(int) (count % keys.length)];
+            locker.acquire(key);
+            locker.release(key);
+            count++;
+          }
+          total.addAndGet(count);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    endTime[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(locker.getLockCount()).isEqualTo(0);
+    return total.get() * 1000 / DURATION_MS;
+  }
+
+  private static String[] createKeys(int thread, boolean shareKeys) {
+    if (shareKeys) {
+      String[] result = new String[SHARED_KEY_COUNT];
+      for (int i = 0; i < SHARED_KEY_COUNT; i++) {
+        result[i] = "shared" + i;
+      }
+      return result;
+    }
+    String[] result = new String[KEYS_PER_THREAD];
+    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+      result[i] = "thread" + thread + "key" + i;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,106 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import androidx.test.runner.AndroidJUnit4;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how many keys per second {@link SafeKeyGenerator} and {@link FastSafeKeyGenerator} can
+ * generate with different numbers of threads.
+ *
+ * <p>Keys are drawn from a set of urls that's a few times larger than the generators' caches with
+ * a skewed distribution, so most keys are cache hits and some are misses, as they would be for a
+ * disk cache.
+ *
+ * <p>Results are logged with the tag {@code SafeKeyThroughput}, for example:
+ * {@code adb logcat -s SafeKeyThroughput}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SafeKeyGeneratorThroughputTest {
+  private static final String TAG = "SafeKeyThroughput";
+  private static final int KEY_COUNT = 4096;
+  private static final int SAMPLE_COUNT = 1 << 16;
+  private static final int[] THREAD_COUNTS = new int[] { 1, 2, 4, 8 };
+  private static final long DURATION_MS = 1000;
+  private static final int WARMUP_RUNS = 2;
+
+  private final Key[] samples = createSamples();
+
+  @Test
+  public void getSafeKey_withDefaultAndFastGenerators_logsKeysPerSecond() throws Exception {
+    for (int threads : THREAD_COUNTS) {
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+        measureKeysPerSecond(new SafeKeyGenerator(), threads);
+        measureKeysPerSecond(new FastSafeKeyGenerator(), threads);
+      }
+      long defaultKeysPerSecond = measureKeysPerSecond(new SafeKeyGenerator(), threads);
+      long fastKeysPerSecond = measureKeysPerSecond(new FastSafeKeyGenerator(), threads);
+      Log.i(TAG, threads + " thread(s), SafeKeyGenerator: " + defaultKeysPerSecond
+          + " keys/s, FastSafeKeyGenerator: " + fastKeysPerSecond + " keys/s");
+    }
+  }
+
+  private long measureKeysPerSecond(final SafeKeyGenerator generator, int threadCount)
+      throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    final AtomicLong total = new AtomicLong();
+    final long[] endTime = new long[1];
+    List<Thread> threads = new ArrayList<>(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      final int offset = i * (SAMPLE_COUNT / threadCount);
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          long count = 0;
+          int index = offset;
+          while (System.nanoTime() < endTime[0]) {
+            generator.getSafeKey(samples[index]);
+            index = (index + 1) & (SAMPLE_COUNT - 1);
+            count++;
+          }
+          total.addAndGet(count);
+          done.countDown();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    endTime[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+    start.countDown();
+    done.await();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return total.get() * 1000 / DURATION_MS;
+  }
+
+  private static Key[] createSamples() {
+    Key[] keys = new Key[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = new ObjectKey("https://www.example.com/images/" + i + "/original.jpg");
+    }
+    Random random = new Random(0);
+    Key[] result = new Key[SAMPLE_COUNT];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      // Skew the distribution so that a small set of keys is requested most often.
+      result[i] = keys[(int) (KEY_COUNT * Math.pow(random.nextDouble(), 4))];
+    }
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.util.Log;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how long it takes to open a full {@link SegmentDiskCache} with and without its index
+ * snapshot.
+ *
+ * <p>Opening the cache without a snapshot includes writing a new snapshot, as it would the first
+ * time the cache is used after the snapshot was lost.
+ *
+ * <p>Timings are logged with the tag {@code SegmentStartup}, for example:
+ * {@code adb logcat -s SegmentStartup}. Timings vary too much between devices and runs to be
+ * asserted on, only that every open finds the cache's entries is checked.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SegmentDiskCacheStartupTest {
+  private static final String TAG = "SegmentStartup";
+  private static final int ENTRY_COUNT = 10000;
+  private static final int ENTRY_SIZE = 4 * 1024;
+  private static final long MAX_SIZE = 64 * 1024 * 1024;
+  private static final int RUNS = 5;
+
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = new File(InstrumentationRegistry.getTargetContext().getCacheDir(), "segment_startup");
+    ByteBufferDiskCache cache = (ByteBufferDiskCache) SegmentDiskCache.create(dir, MAX_SIZE);
+    cache.clear();
+    ByteBuffer data = ByteBuffer.allocate(ENTRY_SIZE);
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+      cache.putBuffer(new ObjectKey(i), data);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    SegmentDiskCache.create(dir, MAX_SIZE).clear();
+  }
+
+  @Test
+  public void open_withAndWithoutSnapshot_logsTimings() {
+    File snapshot = new File(dir, SegmentDiskCache.SNAPSHOT_FILE);
+    long[] withSnapshot = new long[RUNS];
+    long[] withoutSnapshot = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      withSnapshot[i] = timeOpen();
+      assertThat(snapshot.delete()).isTrue();
+      // Rebuilding the index writes a new snapshot.
+      withoutSnapshot[i] = timeOpen();
+      assertThat(snapshot.exists()).isTrue();
+    }
+
+    long medianWithSnapshot = median(withSnapshot);
+    long medianWithoutSnapshot = median(withoutSnapshot);
+    Log.i(TAG, "Opened " + ENTRY_COUNT + " entries with snapshot in: " + medianWithSnapshot
+        + "us, by rebuilding index in: " + medianWithoutSnapshot + "us");
+  }
+
+  /**
+   * Returns the time in microseconds it takes to open a new cache and read an entry from it, after
+   * checking that entries from both the oldest and newest segments are found.
+   */
+  private long timeOpen() {
+    ByteBufferDiskCache cache = (ByteBufferDiskCache) SegmentDiskCache.create(dir, MAX_SIZE);
+    Key first = new ObjectKey(0);
+    Key last = new ObjectKey(ENTRY_COUNT - 1);
+
+    long start = System.nanoTime();
+    ByteBuffer firstData = cache.getBuffer(first);
+    long elapsed = System.nanoTime() - start;
+
+    assertThat(firstData).isNotNull();
+    assertThat(cache.getBuffer(last)).isNotNull();
+    return elapsed / 1000;
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = Arrays.copyOf(values, values.length);
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+}
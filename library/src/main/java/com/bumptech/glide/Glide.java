@@ -28,8 +28,10 @@ import com.bumptech.glide.load.data.InputStreamRewinder;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.MemoryBudget;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.prefill.BitmapPreFiller;
+import com.bumptech.glide.load.engine.prefill.DecodeHistogram;
 import com.bumptech.glide.load.engine.prefill.PreFillType;
 import com.bumptech.glide.load.model.AssetUriLoader;
 import com.bumptech.glide.load.model.ByteArrayLoader;
@@ -57,6 +59,9 @@ import com.bumptech.glide.load.resource.bitmap.ByteBufferBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.DefaultImageHeaderParser;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.load.resource.bitmap.ExifInterfaceImageHeaderParser;
+import com.bumptech.glide.load.resource.bitmap.Lz4BlockCompressor;
+import com.bumptech.glide.load.resource.bitmap.RawBitmapDecoder;
+import com.bumptech.glide.load.resource.bitmap.RawBitmapEncoder;
 import com.bumptech.glide.load.resource.bitmap.ResourceBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.StreamBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.UnitBitmapDecoder;
@@ -113,6 +118,10 @@ public class Glide implements ComponentCallbacks2 {
   private final GlideContext glideContext;
   private final Registry registry;
   private final ArrayPool arrayPool;
+  @Nullable
+  private final MemoryBudget memoryBudget;
+  @Nullable
+  private final DecodeHistogram decodeHistogram;
   private final RequestManagerRetriever requestManagerRetriever;
   private final ConnectivityMonitorFactory connectivityMonitorFactory;
   private final List<RequestManager> managers = new ArrayList<>();
@@ -215,6 +224,9 @@ public class Glide implements ComponentCallbacks2 {
           .getApplicationContext()
           .unregisterComponentCallbacks(glide);
       glide.engine.shutdown();
+      if (glide.memoryBudget != null) {
+        glide.memoryBudget.stop();
+      }
     }
     glide = null;
   }
@@ -317,6 +329,8 @@ public class Glide implements ComponentCallbacks2 {
       @NonNull MemoryCache memoryCache,
       @NonNull BitmapPool bitmapPool,
       @NonNull ArrayPool arrayPool,
+      @Nullable MemoryBudget memoryBudget,
+      @Nullable DecodeHistogram decodeHistogram,
       @NonNull RequestManagerRetriever requestManagerRetriever,
       @NonNull ConnectivityMonitorFactory connectivityMonitorFactory,
       int logLevel,
@@ -326,12 +340,17 @@ public class Glide implements ComponentCallbacks2 {
     this.engine = engine;
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
+    this.memoryBudget = memoryBudget;
+    this.decodeHistogram = decodeHistogram;
     this.memoryCache = memoryCache;
     this.requestManagerRetriever = requestManagerRetriever;
     this.connectivityMonitorFactory = connectivityMonitorFactory;
 
     DecodeFormat decodeFormat = defaultRequestOptions.getOptions().get(Downsampler.DECODE_FORMAT);
     bitmapPreFiller = new BitmapPreFiller(memoryCache, bitmapPool, decodeFormat);
+    if (decodeHistogram != null) {
+      decodeHistogram.preFill(bitmapPreFiller);
+    }
 
     final Resources resources = context.getResources();
 
@@ -368,7 +387,11 @@ public class Glide implements ComponentCallbacks2 {
         new ResourceLoader.FileDescriptorFactory(resources);
     ResourceLoader.AssetFileDescriptorFactory resourceLoaderAssetFileDescriptorFactory =
         new ResourceLoader.AssetFileDescriptorFactory(resources);
-    BitmapEncoder bitmapEncoder = new BitmapEncoder(arrayPool);
+    Lz4BlockCompressor blockCompressor = new Lz4BlockCompressor(arrayPool);
+    RawBitmapDecoder rawBitmapDecoder =
+        new RawBitmapDecoder(bitmapPool, arrayPool, blockCompressor);
+    BitmapEncoder bitmapEncoder =
+        new BitmapEncoder(arrayPool, new RawBitmapEncoder(arrayPool, blockCompressor));
 
     BitmapBytesTranscoder bitmapBytesTranscoder = new BitmapBytesTranscoder();
     GifDrawableBytesTranscoder gifDrawableBytesTranscoder = new GifDrawableBytesTranscoder();
@@ -379,6 +402,7 @@ public class Glide implements ComponentCallbacks2 {
         .append(ByteBuffer.class, new ByteBufferEncoder())
         .append(InputStream.class, new StreamEncoder(arrayPool))
         /* Bitmaps */
+        .append(Registry.BUCKET_BITMAP, ByteBuffer.class, Bitmap.class, rawBitmapDecoder)
         .append(Registry.BUCKET_BITMAP, ByteBuffer.class, Bitmap.class, byteBufferBitmapDecoder)
         .append(Registry.BUCKET_BITMAP, InputStream.class, Bitmap.class, streamBitmapDecoder)
         .append(
@@ -396,6 +420,11 @@ public class Glide implements ComponentCallbacks2 {
             Registry.BUCKET_BITMAP, Bitmap.class, Bitmap.class, new UnitBitmapDecoder())
         .append(Bitmap.class, bitmapEncoder)
         /* BitmapDrawables */
+        .append(
+            Registry.BUCKET_BITMAP_DRAWABLE,
+            ByteBuffer.class,
+            BitmapDrawable.class,
+            new BitmapDrawableDecoder<>(resources, rawBitmapDecoder))
         .append(
             Registry.BUCKET_BITMAP_DRAWABLE,
             ByteBuffer.class,
@@ -522,7 +551,8 @@ public class Glide implements ComponentCallbacks2 {
             defaultTransitionOptions,
             defaultRequestListeners,
             engine,
-            logLevel);
+            logLevel,
+            decodeHistogram);
   }
 
   /**
@@ -624,6 +654,12 @@ public class Glide implements ComponentCallbacks2 {
   public void trimMemory(int level) {
     // Engine asserts this anyway when removing resources, fail faster and consistently
     Util.assertMainThread();
+    if (memoryBudget != null) {
+      memoryBudget.trimMemory(level);
+    }
+    if (decodeHistogram != null) {
+      decodeHistogram.trimMemory(level);
+    }
     // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
     memoryCache.trimMemory(level);
     bitmapPool.trimMemory(level);
@@ -669,9 +705,13 @@ public class Glide implements ComponentCallbacks2 {
   public MemoryCategory setMemoryCategory(@NonNull MemoryCategory memoryCategory) {
     // Engine asserts this anyway when removing resources, fail faster and consistently
     Util.assertMainThread();
-    // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
-    memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
-    bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    if (memoryBudget != null) {
+      memoryBudget.setSizeMultiplier(memoryCategory.getMultiplier());
+    } else {
+      // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
+      memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
+      bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    }
     MemoryCategory oldCategory = this.memoryCategory;
     this.memoryCategory = memoryCategory;
     return oldCategory;
@@ -825,6 +865,7 @@ public class Glide implements ComponentCallbacks2 {
       }
       managers.add(requestManager);
     }
+    maybeRebalanceMemory();
   }
 
   void unregisterRequestManager(RequestManager requestManager) {
@@ -834,6 +875,16 @@ public class Glide implements ComponentCallbacks2 {
       }
       managers.remove(requestManager);
     }
+    maybeRebalanceMemory();
+  }
+
+  // Screens are started and stopped as RequestManagers are registered and unregistered, which is
+  // when the hit rates of the memory cache and pools are most likely to change. MemoryBudget also
+  // rebalances periodically once it's been called, until the UI is hidden.
+  private void maybeRebalanceMemory() {
+    if (memoryBudget != null && Util.isOnMainThread()) {
+      memoryBudget.rebalance();
+    }
   }
 
   @Override
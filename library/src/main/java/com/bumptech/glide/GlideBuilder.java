@@ -8,6 +8,7 @@ import android.support.v4.util.ArrayMap;
 import android.util.Log;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.EngineOptions;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
@@ -17,9 +18,11 @@ import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryBudget;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.prefill.DecodeHistogram;
 import com.bumptech.glide.manager.ConnectivityMonitorFactory;
 import com.bumptech.glide.manager.DefaultConnectivityMonitorFactory;
 import com.bumptech.glide.manager.RequestManagerRetriever;
@@ -36,6 +39,8 @@ import java.util.Map;
  * A builder class for setting default structural classes for Glide to use.
  */
 public final class GlideBuilder {
+  private static final String TAG = "GlideBuilder";
+
   private final Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions = new ArrayMap<>();
   private Engine engine;
   private BitmapPool bitmapPool;
@@ -51,7 +56,10 @@ public final class GlideBuilder {
   @Nullable
   private RequestManagerFactory requestManagerFactory;
   private GlideExecutor animationExecutor;
+  private final EngineOptions engineOptions = new EngineOptions();
   private boolean isActiveResourceRetentionAllowed;
+  private boolean isMemoryBudgetAdaptive;
+  private boolean isDecodeHistogramPreFillEnabled;
   @Nullable
   private List<RequestListener<Object>> defaultRequestListeners;
 
@@ -200,6 +208,33 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets the {@link GlideExecutor} to use to decode and transform data retrieved from source.
+   *
+   * <p>Defaults to {@code null}, in which case data is decoded and transformed on the source
+   * executor thread that retrieved it.
+   *
+   * <p>When set, the source executor only retrieves data and each load is handed off to this
+   * executor once its data is available. Slow network requests then no longer hold up threads that
+   * could otherwise be decoding data that's already been retrieved. Because its threads mostly wait
+   * on I/O, the source executor can be given more threads than there are cores, for example with
+   * {@link GlideExecutor#newWorkStealingSourceExecutor()}, while the decode executor is sized for
+   * the number of cores.
+   *
+   * <p>Use the {@link GlideExecutor#newDecodeExecutor()} methods to create a decode executor.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to decode on the source
+   *                executor.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setDecodeExecutor(@Nullable GlideExecutor service) {
+    engineOptions.setDecodeExecutor(service);
+    return this;
+  }
+
   /**
    * Sets the default {@link RequestOptions} to use for all loads across the app.
    *
@@ -380,6 +415,155 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * If set to {@code true}, allows {@link Engine#load} to be called on any thread.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>When enabled, loads started on background threads build their cache keys, check active
+   * resources, check the memory cache and start new jobs without touching the main thread. Only
+   * loads that are satisfied from memory or that join an existing job are handed to the main
+   * thread to acquire the resource or register their callback. All callbacks are still notified on
+   * the main thread.
+   *
+   * <p>The {@link MemoryCache} must be thread safe if this is set to {@code true}.
+   * {@link LruResourceCache} is thread safe.
+   *
+   * <p>Glide's own requests start their loads on the main thread. When this is set to
+   * {@code true}, building their keys and checking memory and in progress loads is moved to a
+   * background thread, so requests are notified in a later main thread message even if the
+   * resource is in memory.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsLoadOffMainThreadAllowed(boolean isLoadOffMainThreadAllowed) {
+    engineOptions.setLoadOffMainThreadAllowed(isLoadOffMainThreadAllowed);
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, active resources that are garbage collected without being released are
+   * cleaned up in batches on the main thread.
+   *
+   * <p>Defaults to {@code false}, in which case a dedicated thread waits for collected resources
+   * and posts one message per resource to the main thread.
+   *
+   * <p>When enabled, no thread is started and no messages are posted. Instead collected resources
+   * are cleaned up when loads are started, when resources are released and whenever the main
+   * thread is idle. This avoids flooding the main thread with messages when many resources are
+   * collected at once.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsActiveResourceQueueDrainedInBatches(
+      boolean isActiveResourceQueueDrainedInBatches) {
+    engineOptions.setActiveResourceQueueDrainedInBatches(isActiveResourceQueueDrainedInBatches);
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, loads that finish within the same frame notify their targets together
+   * in a single pass on the main thread at the start of the next frame.
+   *
+   * <p>Defaults to {@code false}, in which case every load posts its own message to the main
+   * thread when it finishes.
+   *
+   * <p>When many loads finish at once, for example when a page of thumbnails is decoded during a
+   * fast scroll, batching avoids a separate layout and invalidate pass for each load and can reduce
+   * the number of dropped frames. Loads within a batch are delivered in priority order. On API
+   * levels below 16, each batch is delivered in a single main thread message instead.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsCompletionBatchedPerFrame(boolean isCompletionBatchedPerFrame) {
+    engineOptions.setCompletionBatchedPerFrame(isCompletionBatchedPerFrame);
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, loads of the same model and signature that are in progress at the same
+   * time share a single fetch of their source data, even if they differ in size, transformations
+   * or options.
+   *
+   * <p>Defaults to {@code false}, in which case a model shown at three different sizes at once is
+   * fetched three times.
+   *
+   * <p>Only applies to source data that the
+   * {@link com.bumptech.glide.load.engine.DiskCacheStrategy} writes to the disk cache, for example
+   * remote data with {@link com.bumptech.glide.load.engine.DiskCacheStrategy#AUTOMATIC}. The first
+   * load fetches and writes the data. The other loads wait for the write to finish and then decode
+   * the data from the disk cache at their own sizes. If the first load fails or is cancelled, the
+   * waiting loads fetch the data themselves.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsSourceFetchShared(boolean isSourceFetchShared) {
+    engineOptions.setSourceFetchShared(isSourceFetchShared);
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, Glide moves memory between the memory cache, the {@link BitmapPool}
+   * and the {@link ArrayPool} based on their recent miss rates, see
+   * {@link com.bumptech.glide.load.engine.cache.MemoryBudget}.
+   *
+   * <p>Defaults to {@code false}, in which case the sizes calculated by the
+   * {@link MemorySizeCalculator} are kept for as long as Glide is used.
+   *
+   * <p>The total memory used by the three never exceeds the sum of their initial sizes. Memory is
+   * moved when {@link RequestManager}s for Activities and Fragments are created and destroyed,
+   * which is when the app moves between screens that may show very different images, and
+   * periodically while the app is visible. Only applies if the default {@link LruResourceCache},
+   * {@link LruBitmapPool} and {@link LruArrayPool} are used, a warning is logged and sizes are
+   * kept fixed if any of them are replaced, for example by a
+   * {@link com.bumptech.glide.load.engine.bitmap_recycle.ShardedBitmapPool} or a
+   * {@link com.bumptech.glide.load.engine.bitmap_recycle.SizeClassArrayPool}.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsMemoryBudgetAdaptive(boolean isMemoryBudgetAdaptive) {
+    this.isMemoryBudgetAdaptive = isMemoryBudgetAdaptive;
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, Glide counts the sizes and {@link Bitmap.Config}s of the
+   * {@link Bitmap}s it decodes and transforms, saves them in the app's cache directory when the
+   * app's UI is hidden and pre-fills the {@link BitmapPool} with the most common of them the next
+   * time Glide is created, see {@link DecodeHistogram}.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>Like {@link Glide#preFillBitmapPool}, pre-filling allocates enough {@link Bitmap}s to fill
+   * the {@link BitmapPool}, which is wasteful if the app shows images of very different sizes from
+   * one run to the next. Pre-filling is skipped if the app calls {@link Glide#preFillBitmapPool}
+   * before the saved sizes are loaded.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsDecodeHistogramPreFillEnabled(boolean isEnabled) {
+    this.isDecodeHistogramPreFillEnabled = isEnabled;
+    return this;
+  }
+
   /**
    * Adds a global {@link RequestListener} that will be added to every request started with Glide.
    *
@@ -468,7 +652,8 @@ public final class GlideBuilder {
               sourceExecutor,
               GlideExecutor.newUnlimitedSourceExecutor(),
               GlideExecutor.newAnimationExecutor(),
-              isActiveResourceRetentionAllowed);
+              isActiveResourceRetentionAllowed,
+              engineOptions);
     }
 
     if (defaultRequestListeners == null) {
@@ -477,6 +662,26 @@ public final class GlideBuilder {
       defaultRequestListeners = Collections.unmodifiableList(defaultRequestListeners);
     }
 
+    MemoryBudget memoryBudget = null;
+    if (isMemoryBudgetAdaptive) {
+      if (memoryCache instanceof LruResourceCache
+          && bitmapPool instanceof LruBitmapPool
+          && arrayPool instanceof LruArrayPool) {
+        memoryBudget = new MemoryBudget(
+            (LruResourceCache) memoryCache, (LruBitmapPool) bitmapPool, (LruArrayPool) arrayPool);
+      } else if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Adaptive memory budget requires LruResourceCache, LruBitmapPool and"
+            + " LruArrayPool, keeping fixed sizes for: " + memoryCache.getClass().getSimpleName()
+            + ", " + bitmapPool.getClass().getSimpleName() + ", "
+            + arrayPool.getClass().getSimpleName());
+      }
+    }
+
+    DecodeHistogram decodeHistogram = null;
+    if (isDecodeHistogramPreFillEnabled) {
+      decodeHistogram = new DecodeHistogram(context, diskCacheExecutor);
+    }
+
     RequestManagerRetriever requestManagerRetriever =
         new RequestManagerRetriever(requestManagerFactory);
 
@@ -486,6 +691,8 @@ public final class GlideBuilder {
         memoryCache,
         bitmapPool,
         arrayPool,
+        memoryBudget,
+        decodeHistogram,
         requestManagerRetriever,
         connectivityMonitorFactory,
         logLevel,
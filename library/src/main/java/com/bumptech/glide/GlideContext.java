@@ -5,11 +5,13 @@ import android.content.ContextWrapper;
 import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.widget.ImageView;
 
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.prefill.DecodeHistogram;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.ImageViewTargetFactory;
@@ -36,6 +38,8 @@ public class GlideContext extends ContextWrapper {
     private final Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions;
     private final Engine engine;
     private final int logLevel;
+    @Nullable
+    private final DecodeHistogram decodeHistogram;
 
     public GlideContext(
             @NonNull Context context,
@@ -47,6 +51,30 @@ public class GlideContext extends ContextWrapper {
             @NonNull List<RequestListener<Object>> defaultRequestListeners,
             @NonNull Engine engine,
             int logLevel) {
+        this(
+                context,
+                arrayPool,
+                registry,
+                imageViewTargetFactory,
+                defaultRequestOptions,
+                defaultTransitionOptions,
+                defaultRequestListeners,
+                engine,
+                logLevel,
+                null /*decodeHistogram*/);
+    }
+
+    public GlideContext(
+            @NonNull Context context,
+            @NonNull ArrayPool arrayPool,
+            @NonNull Registry registry,
+            @NonNull ImageViewTargetFactory imageViewTargetFactory,
+            @NonNull RequestOptions defaultRequestOptions,
+            @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
+            @NonNull List<RequestListener<Object>> defaultRequestListeners,
+            @NonNull Engine engine,
+            int logLevel,
+            @Nullable DecodeHistogram decodeHistogram) {
         super(context.getApplicationContext());
         this.arrayPool = arrayPool;
         this.registry = registry;
@@ -56,6 +84,7 @@ public class GlideContext extends ContextWrapper {
         this.defaultTransitionOptions = defaultTransitionOptions;
         this.engine = engine;
         this.logLevel = logLevel;
+        this.decodeHistogram = decodeHistogram;
 
         mainHandler = new Handler(Looper.getMainLooper());
     }
@@ -114,4 +143,13 @@ public class GlideContext extends ContextWrapper {
     public ArrayPool getArrayPool() {
         return arrayPool;
     }
+
+    /**
+     * Returns the {@link DecodeHistogram} decoded and transformed resources should be counted in,
+     * or {@code null} if they shouldn't be counted.
+     */
+    @Nullable
+    public DecodeHistogram getDecodeHistogram() {
+        return decodeHistogram;
+    }
 }
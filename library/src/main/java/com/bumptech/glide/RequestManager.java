@@ -634,6 +634,24 @@ public class RequestManager implements LifecycleListener,
         }
     }
 
+    /**
+     * Changes the priority of the load started for the given target by this RequestManager, if the
+     * load hasn't finished, for example to lower the priority of loads for views that have
+     * scrolled off screen and raise it again when they become visible.
+     *
+     * <p>Thumbnail and error requests keep their priority relative to the request they belong to.
+     *
+     * <p>Must be called on the main thread.
+     *
+     * @param target   The Target whose load should be reprioritized.
+     * @param priority The new priority.
+     * @see com.bumptech.glide.request.Reprioritizable
+     */
+    public void setPriority(@NonNull Target<?> target, @NonNull Priority priority) {
+        Util.assertMainThread();
+        requestTracker.setPriority(target.getRequest(), priority);
+    }
+
     boolean untrack(@NonNull Target<?> target) {
         Request request = target.getRequest();
         // If the Target doesn't have a request, it's already been cleared.
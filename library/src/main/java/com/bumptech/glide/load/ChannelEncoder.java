@@ -0,0 +1,24 @@
+package com.bumptech.glide.load;
+
+import android.support.annotation.NonNull;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An {@link Encoder} that can also write data directly to a {@link WritableByteChannel}, which
+ * allows {@link com.bumptech.glide.load.engine.cache.ByteBufferDiskCache}s to write the data
+ * without first writing it to a {@link java.io.File}.
+ *
+ * @param <T> The type of the data that will be written.
+ */
+public interface ChannelEncoder<T> extends Encoder<T> {
+  /**
+   * Writes the given data to the given channel and returns True if the write completed
+   * successfully and should be committed.
+   *
+   * @param data    The data to write.
+   * @param channel The channel to write the data to, which must not be closed by the encoder.
+   * @param options The set of options to apply when encoding.
+   */
+  boolean encode(
+      @NonNull T data, @NonNull WritableByteChannel channel, @NonNull Options options);
+}
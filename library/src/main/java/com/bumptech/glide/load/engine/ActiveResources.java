@@ -4,6 +4,7 @@ import android.os.Handler;
 import android.os.Handler.Callback;
 import android.os.Looper;
 import android.os.Message;
+import android.os.MessageQueue;
 import android.os.Process;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -15,14 +16,16 @@ import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 final class ActiveResources {
   private static final int MSG_CLEAN_REF = 1;
 
   private final boolean isActiveResourceRetentionAllowed;
+  private final boolean isReferenceQueueDrainedInBatches;
   private final Handler mainHandler = new Handler(Looper.getMainLooper(), new Callback() {
     @Override
     public boolean handleMessage(Message msg) {
@@ -33,8 +36,9 @@ final class ActiveResources {
       return false;
     }
   });
+  // Concurrent so that Engine#load can look up active resources off of the main thread.
   @VisibleForTesting
-  final Map<Key, ResourceWeakReference> activeEngineResources = new HashMap<>();
+  final Map<Key, ResourceWeakReference> activeEngineResources = new ConcurrentHashMap<>();
 
   private ResourceListener listener;
 
@@ -50,9 +54,31 @@ final class ActiveResources {
   private volatile boolean isShutdown;
   @Nullable
   private volatile DequeuedResourceCallback cb;
+  private final AtomicBoolean isIdleHandlerAdded = new AtomicBoolean();
+  private final MessageQueue.IdleHandler idleHandler = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      drainReferenceQueue();
+      return shouldKeepIdleHandler();
+    }
+  };
+  // Only accessed on the main thread.
+  private boolean isDraining;
 
   ActiveResources(boolean isActiveResourceRetentionAllowed) {
+    this(isActiveResourceRetentionAllowed, /*isReferenceQueueDrainedInBatches=*/ false);
+  }
+
+  /**
+   * @param isReferenceQueueDrainedInBatches {@code true} to clean up cleared references in batches
+   *                                         on the main thread in {@link #drainReferenceQueue()}
+   *                                         instead of dequeueing them on a dedicated thread and
+   *                                         posting one main thread message per reference.
+   */
+  ActiveResources(
+      boolean isActiveResourceRetentionAllowed, boolean isReferenceQueueDrainedInBatches) {
     this.isActiveResourceRetentionAllowed = isActiveResourceRetentionAllowed;
+    this.isReferenceQueueDrainedInBatches = isReferenceQueueDrainedInBatches;
   }
 
   void setListener(ResourceListener listener) {
@@ -71,6 +97,9 @@ final class ActiveResources {
     if (removed != null) {
       removed.reset();
     }
+    if (isReferenceQueueDrainedInBatches) {
+      addIdleHandler();
+    }
   }
 
   void deactivate(Key key) {
@@ -88,7 +117,9 @@ final class ActiveResources {
     }
 
     EngineResource<?> active = activeRef.get();
-    if (active == null) {
+    // Cleanup must happen on the main thread. Off of the main thread we can rely on the reference
+    // queue to hand the cleared reference to the main thread for us.
+    if (active == null && Util.isOnMainThread()) {
       cleanupActiveReference(activeRef);
     }
     return active;
@@ -108,9 +139,79 @@ final class ActiveResources {
     listener.onResourceReleased(ref.key, newResource);
   }
 
-  private ReferenceQueue<EngineResource<?>> getReferenceQueue() {
+  /**
+   * Cleans up every reference that is currently in the reference queue if references are drained
+   * in batches, otherwise does nothing.
+   *
+   * <p>Called opportunistically by the {@link Engine} and whenever the main thread goes idle while
+   * there are active resources, so cleared references are handled without a dedicated thread and
+   * without a message per reference. Must be called on the main thread.
+   */
+  void drainReferenceQueue() {
+    if (!isReferenceQueueDrainedInBatches || isDraining) {
+      return;
+    }
+    Util.assertMainThread();
+
+    ReferenceQueue<EngineResource<?>> queue;
+    synchronized (this) {
+      queue = resourceReferenceQueue;
+    }
+    if (queue == null) {
+      return;
+    }
+
+    // Cleaning up a reference releases its resource to the Engine, which may call us again.
+    isDraining = true;
+    try {
+      ResourceWeakReference ref;
+      while ((ref = (ResourceWeakReference) queue.poll()) != null) {
+        cleanupActiveReference(ref);
+      }
+    } finally {
+      isDraining = false;
+    }
+  }
+
+  /**
+   * Adds the idle handler that drains the reference queue if it isn't already added.
+   *
+   * <p>Only references to active resources can be enqueued, so the handler removes itself once
+   * there are no active resources left and is added again when the next resource is activated.
+   */
+  private void addIdleHandler() {
+    if (isShutdown || !isIdleHandlerAdded.compareAndSet(false, true)) {
+      return;
+    }
+    if (Util.isOnMainThread()) {
+      Looper.myQueue().addIdleHandler(idleHandler);
+    } else {
+      mainHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          Looper.myQueue().addIdleHandler(idleHandler);
+        }
+      });
+    }
+  }
+
+  @Synthetic
+  boolean shouldKeepIdleHandler() {
+    isIdleHandlerAdded.set(false);
+    // Resources activated after the flag is cleared add the handler again, so only keep it if
+    // there were already active resources and no other thread has added it in the meantime.
+    return !isShutdown
+        && !activeEngineResources.isEmpty()
+        && isIdleHandlerAdded.compareAndSet(false, true);
+  }
+
+  // Synchronized because resources may be activated off of the main thread by Engine#load.
+  private synchronized ReferenceQueue<EngineResource<?>> getReferenceQueue() {
     if (resourceReferenceQueue == null) {
       resourceReferenceQueue = new ReferenceQueue<>();
+      if (isReferenceQueueDrainedInBatches) {
+        return resourceReferenceQueue;
+      }
       cleanReferenceQueueThread = new Thread(new Runnable() {
         @SuppressWarnings("InfiniteLoopStatement")
         @Override
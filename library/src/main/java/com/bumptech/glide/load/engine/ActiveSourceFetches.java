@@ -0,0 +1,103 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks in progress fetches of source data that will be written to the disk cache so that
+ * concurrent loads of the same source share a single fetch.
+ *
+ * <p>{@link EngineKey}s include the size, transformations and options of a load, so loads of the
+ * same model at different sizes each start their own {@link EngineJob}. Fetches are instead keyed
+ * by the {@link DataCacheKey} of the source data, which only includes the source key and the
+ * signature. The first load to fetch a given source becomes responsible for fetching it and
+ * writing it to the disk cache. Any other load that tries to fetch the same source while that
+ * fetch is in progress waits until it finishes and then decodes the data from the disk cache at
+ * its own size.
+ */
+final class ActiveSourceFetches {
+  private final Map<Key, SourceFetch> fetches = new HashMap<>();
+
+  /**
+   * Starts a fetch for the given key if one isn't already in progress, or otherwise adds the given
+   * waiter to the fetch that is in progress.
+   *
+   * @return The started fetch, which must be passed to {@link #finish(SourceFetch)} once its data
+   * has been written to the disk cache or has failed to load, or {@code null} if the waiter was
+   * added to an existing fetch and will be notified when it finishes.
+   */
+  @Nullable
+  synchronized SourceFetch startOrWait(Key key, Waiter waiter) {
+    SourceFetch existing = fetches.get(key);
+    if (existing != null) {
+      existing.waiters.add(waiter);
+      return null;
+    }
+    SourceFetch started = new SourceFetch(key);
+    fetches.put(key, started);
+    return started;
+  }
+
+  /**
+   * Removes the given waiter from the fetch for the given key, if any.
+   *
+   * @return {@code true} if the waiter was removed and will not be notified.
+   */
+  synchronized boolean removeWaiter(Key key, Waiter waiter) {
+    SourceFetch fetch = fetches.get(key);
+    return fetch != null && fetch.waiters.remove(waiter);
+  }
+
+  /**
+   * Marks the given fetch as finished and notifies every load that was waiting on it.
+   *
+   * <p>Finishing the same fetch more than once has no effect.
+   */
+  void finish(SourceFetch fetch) {
+    List<Waiter> toNotify;
+    synchronized (this) {
+      if (fetches.get(fetch.key) != fetch) {
+        return;
+      }
+      fetches.remove(fetch.key);
+      toNotify = new ArrayList<>(fetch.waiters);
+      fetch.waiters.clear();
+    }
+    for (Waiter waiter : toNotify) {
+      waiter.onSourceFetchFinished();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized boolean isFetching(Key key) {
+    return fetches.containsKey(key);
+  }
+
+  /**
+   * A load waiting for another load to fetch the source data it needs.
+   */
+  interface Waiter {
+    /**
+     * Called on the thread that finished the fetch, whether or not the fetched data was written to
+     * the disk cache.
+     */
+    void onSourceFetchFinished();
+  }
+
+  /**
+   * A single in progress fetch and the loads waiting on it.
+   */
+  static final class SourceFetch {
+    final Key key;
+    final List<Waiter> waiters = new ArrayList<>();
+
+    SourceFetch(Key key) {
+      this.key = key;
+    }
+  }
+}
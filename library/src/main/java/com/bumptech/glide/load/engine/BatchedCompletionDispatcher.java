@@ -0,0 +1,130 @@
+package com.bumptech.glide.load.engine;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Coalesces {@link EngineJob}s that finish on background threads and notifies all of them in a
+ * single pass on the main thread at the start of the next frame.
+ *
+ * <p>Without batching, every job posts its own message to the main thread, so a page of thumbnails
+ * that finish decoding within the same frame are each delivered in separate messages that may each
+ * trigger a layout and invalidate. Batched jobs are notified in priority order, in the order the
+ * {@link DecodeJob}s would have been run, before the frame is laid out and drawn.
+ *
+ * <p>On API levels without {@link Choreographer}, each batch is delivered in a single main thread
+ * message instead.
+ */
+final class BatchedCompletionDispatcher {
+  private static final Comparator<EngineJob<?>> PRIORITY_ORDER = new Comparator<EngineJob<?>>() {
+    @Override
+    public int compare(EngineJob<?> first, EngineJob<?> second) {
+      return first.comparePriority(second);
+    }
+  };
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable dispatchOnMainThread = new Runnable() {
+    @Override
+    public void run() {
+      dispatchOnMainThread();
+    }
+  };
+  private final Runnable scheduleFrameOnMainThread = new Runnable() {
+    @Override
+    public void run() {
+      FrameScheduler current = frameScheduler;
+      if (current == null) {
+        current = new FrameScheduler(BatchedCompletionDispatcher.this);
+        frameScheduler = current;
+      }
+      current.scheduleFrame();
+    }
+  };
+  // Guarded by pending.
+  private final List<EngineJob<?>> pending = new ArrayList<>();
+  private boolean isDispatchScheduled;
+  // Only accessed on the main thread.
+  private final List<EngineJob<?>> dispatching = new ArrayList<>();
+  // Created on the main thread, but frames may be scheduled from any thread.
+  @Nullable
+  @Synthetic volatile FrameScheduler frameScheduler;
+
+  /**
+   * Adds the given job, which has either a resource or an exception, to the next batch.
+   */
+  void dispatch(EngineJob<?> job) {
+    boolean shouldSchedule;
+    synchronized (pending) {
+      pending.add(job);
+      shouldSchedule = !isDispatchScheduled;
+      isDispatchScheduled = true;
+    }
+    if (shouldSchedule) {
+      scheduleDispatch();
+    }
+  }
+
+  private void scheduleDispatch() {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+      mainHandler.post(dispatchOnMainThread);
+      return;
+    }
+    FrameScheduler current = frameScheduler;
+    if (current != null) {
+      current.scheduleFrame();
+    } else {
+      // Choreographers are per thread, so the main thread's instance has to be obtained there.
+      mainHandler.post(scheduleFrameOnMainThread);
+    }
+  }
+
+  @Synthetic
+  void dispatchOnMainThread() {
+    Util.assertMainThread();
+    synchronized (pending) {
+      dispatching.addAll(pending);
+      pending.clear();
+      isDispatchScheduled = false;
+    }
+    Collections.sort(dispatching, PRIORITY_ORDER);
+    try {
+      //noinspection ForLoopReplaceableByForEach to improve perf
+      for (int i = 0, size = dispatching.size(); i < size; i++) {
+        dispatching.get(i).handleCompletionOnMainThread();
+      }
+    } finally {
+      dispatching.clear();
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private static final class FrameScheduler implements Choreographer.FrameCallback {
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final BatchedCompletionDispatcher dispatcher;
+
+    @Synthetic
+    FrameScheduler(BatchedCompletionDispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    void scheduleFrame() {
+      choreographer.postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      dispatcher.dispatchOnMainThread();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.data.DataFetcher;
+import java.nio.ByteBuffer;
+
+/**
+ * Returns a {@link ByteBuffer} obtained from a
+ * {@link com.bumptech.glide.load.engine.cache.ByteBufferDiskCache}.
+ */
+final class ByteBufferCacheFetcher implements DataFetcher<ByteBuffer> {
+  private final ByteBuffer data;
+  private final DataSource dataSource;
+
+  ByteBufferCacheFetcher(ByteBuffer data, DataSource dataSource) {
+    this.data = data;
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void loadData(@NonNull Priority priority,
+      @NonNull DataCallback<? super ByteBuffer> callback) {
+    callback.onDataReady(data);
+  }
+
+  @Override
+  public void cleanup() {
+    // Do nothing.
+  }
+
+  @Override
+  public void cancel() {
+    // Do nothing.
+  }
+
+  @NonNull
+  @Override
+  public Class<ByteBuffer> getDataClass() {
+    return ByteBuffer.class;
+  }
+
+  @NonNull
+  @Override
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+}
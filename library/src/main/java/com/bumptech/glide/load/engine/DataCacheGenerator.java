@@ -7,6 +7,7 @@ import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -29,6 +30,9 @@ class DataCacheGenerator implements DataFetcherGenerator,
   // multiple calls to startNext.
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
+  // The key whose ByteBuffer from the ByteBufferDiskCache is being decoded, if any.
+  private Key bufferKey;
+  private boolean isBufferTried;
 
   DataCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this(helper.getCacheKeys(), helper, cb);
@@ -45,6 +49,13 @@ class DataCacheGenerator implements DataFetcherGenerator,
   @Override
   public boolean startNext() {
     while (modelLoaders == null || !hasNextModelLoader()) {
+      if (bufferKey != null) {
+        // The ByteBuffer couldn't be decoded, fall back to the File model loaders for the same
+        // key, some data can only be decoded from a File or a file descriptor.
+        setCacheFile(bufferKey, true /*isBufferTried*/);
+        bufferKey = null;
+        continue;
+      }
       sourceIdIndex++;
       if (sourceIdIndex >= cacheKeys.size()) {
         return false;
@@ -55,12 +66,17 @@ class DataCacheGenerator implements DataFetcherGenerator,
       // and the actions it performs are much more expensive than a single allocation.
       @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
       Key originalKey = new DataCacheKey(sourceId, helper.getSignature());
-      cacheFile = helper.getDiskCache().get(originalKey);
-      if (cacheFile != null) {
-        this.sourceKey = sourceId;
-        modelLoaders = helper.getModelLoaders(cacheFile);
-        modelLoaderIndex = 0;
+      ByteBuffer cacheBuffer = helper.getDiskCacheBuffer(originalKey);
+      if (cacheBuffer != null) {
+        sourceKey = sourceId;
+        bufferKey = originalKey;
+        loadData = new LoadData<>(originalKey,
+            new ByteBufferCacheFetcher(cacheBuffer, DataSource.DATA_DISK_CACHE));
+        loadData.fetcher.loadData(helper.getPriority(), this);
+        return true;
       }
+      sourceKey = sourceId;
+      setCacheFile(originalKey, false /*isBufferTried*/);
     }
 
     loadData = null;
@@ -70,7 +86,8 @@ class DataCacheGenerator implements DataFetcherGenerator,
       loadData =
           modelLoader.buildLoadData(cacheFile, helper.getWidth(), helper.getHeight(),
               helper.getOptions());
-      if (loadData != null && helper.hasLoadPath(loadData.fetcher.getDataClass())) {
+      if (loadData != null && helper.hasLoadPath(loadData.fetcher.getDataClass())
+          && !(isBufferTried && ByteBuffer.class.equals(loadData.fetcher.getDataClass()))) {
         started = true;
         loadData.fetcher.loadData(helper.getPriority(), this);
       }
@@ -78,6 +95,15 @@ class DataCacheGenerator implements DataFetcherGenerator,
     return started;
   }
 
+  private void setCacheFile(Key originalKey, boolean isBufferTried) {
+    cacheFile = helper.getDiskCache().get(originalKey);
+    if (cacheFile != null) {
+      this.isBufferTried = isBufferTried;
+      modelLoaders = helper.getModelLoaders(cacheFile);
+      modelLoaderIndex = 0;
+    }
+  }
+
   private boolean hasNextModelLoader() {
     return modelLoaderIndex < modelLoaders.size();
   }
@@ -0,0 +1,22 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DeduplicatingDiskCache;
+
+/**
+ * Deduplicates original data written to the disk cache with {@link DiskCacheStrategy#DATA}.
+ *
+ * <p>The same original data is often served at more than one url, for example with different
+ * cache busting query parameters. Transformed resources are written under keys that include the
+ * transformation and rarely match other keys' data, so they aren't worth hashing.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class DataCacheKeyFilter implements DeduplicatingDiskCache.KeyFilter {
+
+  @Override
+  public boolean shouldDeduplicate(@NonNull Key key) {
+    return key instanceof DataCacheKey;
+  }
+}
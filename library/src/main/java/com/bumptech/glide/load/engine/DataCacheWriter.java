@@ -1,10 +1,16 @@
 package com.bumptech.glide.load.engine;
 
 import android.support.annotation.NonNull;
+import com.bumptech.glide.load.ChannelEncoder;
 import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.model.ByteBufferEncoder;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Writes original source data or downsampled/transformed resource data to cache using the
@@ -15,7 +21,7 @@ import java.io.File;
  * @param <DataType> The type of data that will be encoded (InputStream, ByteBuffer,
  *                  Resource<Bitmap> etc).
  */
-class DataCacheWriter<DataType> implements DiskCache.Writer {
+class DataCacheWriter<DataType> implements DiskCache.Writer, ByteBufferDiskCache.ChannelWriter {
   private final Encoder<DataType> encoder;
   private final DataType data;
   private final Options options;
@@ -30,4 +36,29 @@ class DataCacheWriter<DataType> implements DiskCache.Writer {
   public boolean write(@NonNull File file) {
     return encoder.encode(data, file, options);
   }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public boolean write(@NonNull WritableByteChannel channel) {
+    return ((ChannelEncoder<DataType>) encoder).encode(data, channel, options);
+  }
+
+  /**
+   * Writes the data to the given key in the given disk cache, without writing it to a
+   * {@link File} first if the disk cache is a {@link ByteBufferDiskCache} and the encoder supports
+   * it.
+   */
+  void writeTo(DiskCache diskCache, Key key) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      ByteBufferDiskCache byteBufferDiskCache = (ByteBufferDiskCache) diskCache;
+      if (encoder instanceof ByteBufferEncoder) {
+        byteBufferDiskCache.putBuffer(key, (ByteBuffer) data);
+        return;
+      } else if (encoder instanceof ChannelEncoder) {
+        byteBufferDiskCache.putChannel(key, this);
+        return;
+      }
+    }
+    diskCache.put(key, this);
+  }
 }
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine;
 
+import android.support.annotation.Nullable;
 import com.bumptech.glide.GlideContext;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
@@ -10,11 +11,13 @@ import com.bumptech.glide.load.ResourceEncoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DecodeJob.DiskCacheProvider;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.UnitTransformation;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -31,13 +34,15 @@ final class DecodeHelper<Transcode> {
   private int height;
   private Class<?> resourceClass;
   private DecodeJob.DiskCacheProvider diskCacheProvider;
+  @Nullable
+  private ActiveSourceFetches activeSourceFetches;
   private Options options;
   private Map<Class<?>, Transformation<?>> transformations;
   private Class<Transcode> transcodeClass;
   private boolean isLoadDataSet;
   private boolean isCacheKeysSet;
   private Key signature;
-  private Priority priority;
+  private volatile Priority priority;
   private DiskCacheStrategy diskCacheStrategy;
   private boolean isTransformationRequired;
   private boolean isScaleOnlyOrNoTransform;
@@ -57,7 +62,8 @@ final class DecodeHelper<Transcode> {
       Map<Class<?>, Transformation<?>> transformations,
       boolean isTransformationRequired,
       boolean isScaleOnlyOrNoTransform,
-      DiskCacheProvider diskCacheProvider) {
+      DiskCacheProvider diskCacheProvider,
+      @Nullable ActiveSourceFetches activeSourceFetches) {
     this.glideContext = glideContext;
     this.model = model;
     this.signature = signature;
@@ -66,6 +72,7 @@ final class DecodeHelper<Transcode> {
     this.diskCacheStrategy = diskCacheStrategy;
     this.resourceClass = resourceClass;
     this.diskCacheProvider = diskCacheProvider;
+    this.activeSourceFetches = activeSourceFetches;
     this.transcodeClass = (Class<Transcode>) transcodeClass;
     this.priority = priority;
     this.options = options;
@@ -96,10 +103,35 @@ final class DecodeHelper<Transcode> {
     return diskCacheProvider.getDiskCache();
   }
 
+  /**
+   * Returns the data at the given key in the disk cache as a {@link ByteBuffer} if the disk cache
+   * is a {@link ByteBufferDiskCache} and the data can be decoded from a {@link ByteBuffer}, or
+   * {@code null} otherwise.
+   */
+  @Nullable
+  ByteBuffer getDiskCacheBuffer(Key key) {
+    DiskCache diskCache = getDiskCache();
+    return diskCache instanceof ByteBufferDiskCache && hasLoadPath(ByteBuffer.class)
+        ? ((ByteBufferDiskCache) diskCache).getBuffer(key) : null;
+  }
+
+  /**
+   * Returns the fetches shared between loads of the same source, or {@code null} if every load
+   * fetches its own source data.
+   */
+  @Nullable
+  ActiveSourceFetches getActiveSourceFetches() {
+    return activeSourceFetches;
+  }
+
   DiskCacheStrategy getDiskCacheStrategy() {
     return diskCacheStrategy;
   }
 
+  void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
   Priority getPriority() {
     return priority;
   }
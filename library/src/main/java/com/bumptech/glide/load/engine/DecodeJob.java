@@ -1,7 +1,9 @@
 package com.bumptech.glide.load.engine;
 
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import android.util.Log;
 import com.bumptech.glide.GlideContext;
@@ -16,6 +18,7 @@ import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.data.DataRewinder;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.prefill.DecodeHistogram;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
@@ -40,18 +43,25 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     Comparable<DecodeJob<?>>,
     Poolable {
   private static final String TAG = "DecodeJob";
+  /**
+   * The deadline of jobs that never expire.
+   */
+  static final long NO_DEADLINE = Long.MAX_VALUE;
 
   private final DecodeHelper<R> decodeHelper = new DecodeHelper<>();
   private final List<Throwable> throwables = new ArrayList<>();
   private final StateVerifier stateVerifier = StateVerifier.newInstance();
   private final DiskCacheProvider diskCacheProvider;
   private final Pools.Pool<DecodeJob<?>> pool;
+  @Nullable
+  private final ActiveSourceFetches activeSourceFetches;
   private final DeferredEncodeManager<?> deferredEncodeManager = new DeferredEncodeManager<>();
   private final ReleaseManager releaseManager = new ReleaseManager();
 
   private GlideContext glideContext;
   private Key signature;
-  private Priority priority;
+  // Read by other threads to order this job in executor queues and may be changed while queued.
+  private volatile Priority priority;
   private EngineKey loadKey;
   private int width;
   private int height;
@@ -75,10 +85,26 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private volatile DataFetcherGenerator currentGenerator;
   private volatile boolean isCallbackNotified;
   private volatile boolean isCancelled;
+  // The time, in SystemClock#uptimeMillis, after which we fail instead of starting, if we haven't
+  // started yet.
+  private volatile long deadlineMs = NO_DEADLINE;
+  // True once run() has been called at least once, after which we must run again if we're queued
+  // so that we can clean up.
+  private volatile boolean hasRun;
 
   DecodeJob(DiskCacheProvider diskCacheProvider, Pools.Pool<DecodeJob<?>> pool) {
+    this(diskCacheProvider, pool, /*activeSourceFetches=*/ null);
+  }
+
+  /**
+   * @param activeSourceFetches If non-null, used to share fetches of source data with other jobs
+   *                            that load the same source at the same time.
+   */
+  DecodeJob(DiskCacheProvider diskCacheProvider, Pools.Pool<DecodeJob<?>> pool,
+      @Nullable ActiveSourceFetches activeSourceFetches) {
     this.diskCacheProvider = diskCacheProvider;
     this.pool = pool;
+    this.activeSourceFetches = activeSourceFetches;
   }
 
   DecodeJob<R> init(
@@ -97,6 +123,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       boolean isScaleOnlyOrNoTransform,
       boolean onlyRetrieveFromCache,
       Options options,
+      long deadlineMs,
       Callback<R> callback,
       int order) {
     decodeHelper.init(
@@ -113,7 +140,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
         transformations,
         isTransformationRequired,
         isScaleOnlyOrNoTransform,
-        diskCacheProvider);
+        diskCacheProvider,
+        activeSourceFetches);
     this.glideContext = glideContext;
     this.signature = signature;
     this.priority = priority;
@@ -123,6 +151,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     this.diskCacheStrategy = diskCacheStrategy;
     this.onlyRetrieveFromCache = onlyRetrieveFromCache;
     this.options = options;
+    this.deadlineMs = deadlineMs;
     this.callback = callback;
     this.order = order;
     this.runReason = RunReason.INITIALIZE;
@@ -190,6 +219,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     currentFetcher = null;
     startFetchTime = 0L;
     isCancelled = false;
+    deadlineMs = NO_DEADLINE;
+    hasRun = false;
     model = null;
     throwables.clear();
     pool.release(this);
@@ -208,6 +239,37 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     return priority.ordinal();
   }
 
+  /**
+   * Changes the priority used to order this job and to start any fetches it hasn't started yet.
+   *
+   * <p>Queues don't reorder jobs whose priority changes while they're queued, so callers must
+   * remove this job from its queue before calling this method and queue it again afterwards.
+   */
+  void setPriority(Priority priority) {
+    this.priority = priority;
+    decodeHelper.setPriority(priority);
+  }
+
+  /**
+   * Moves the deadline after which this job fails instead of starting to the given time if it's
+   * later than the current deadline.
+   *
+   * <p>Must only be called on the main thread.
+   */
+  void extendDeadline(long deadlineMs) {
+    if (deadlineMs > this.deadlineMs) {
+      this.deadlineMs = deadlineMs;
+    }
+  }
+
+  /**
+   * Returns {@code true} if this job has been run by an executor at least once, in which case it
+   * must be allowed to run again if it's queued so that it can clean up after itself.
+   */
+  boolean hasRun() {
+    return hasRun;
+  }
+
   public void cancel() {
     isCancelled = true;
     DataFetcherGenerator local = currentGenerator;
@@ -225,11 +287,19 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     // Methods in the try statement can invalidate currentFetcher, so set a local variable here to
     // ensure that the fetcher is cleaned up either way.
     DataFetcher<?> localFetcher = currentFetcher;
+    hasRun = true;
     try {
       if (isCancelled) {
         notifyFailed();
         return;
       }
+      // Only drop jobs that haven't started, there's nothing to clean up for them and we can't
+      // safely abandon data that other stages have already retrieved.
+      if (runReason == RunReason.INITIALIZE && SystemClock.uptimeMillis() > deadlineMs) {
+        throwables.add(new GlideException("Deadline passed before the load started"));
+        notifyFailed();
+        return;
+      }
       runWrapped();
     } catch (Throwable t) {
       // Catch Throwable and not Exception to handle OOMs. Throwables are swallowed by our
@@ -272,6 +342,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
         runGenerators();
         break;
       case DECODE_DATA:
+      case SWITCH_TO_DECODE_SERVICE:
         decodeFromRetrievedData();
         break;
       default:
@@ -370,7 +441,12 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     this.currentFetcher = fetcher;
     this.currentDataSource = dataSource;
     this.currentAttemptingKey = attemptedKey;
-    if (Thread.currentThread() != currentThread) {
+    if (stage == Stage.SOURCE && callback.isSourceDecodedSeparately()) {
+      // Free up the source executor, which may be waiting on other slow network requests, and
+      // decode on an executor sized for CPU bound work instead.
+      runReason = RunReason.SWITCH_TO_DECODE_SERVICE;
+      callback.rescheduleDecode(this);
+    } else if (Thread.currentThread() != currentThread) {
       runReason = RunReason.DECODE_DATA;
       callback.reschedule(this);
     } else {
@@ -414,6 +490,9 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     }
     if (resource != null) {
       notifyEncodeAndRelease(resource, currentDataSource);
+    } else if (runReason == RunReason.SWITCH_TO_DECODE_SERVICE) {
+      // Any remaining fetches should run on the source executor, not the decode executor.
+      reschedule();
     } else {
       runGenerators();
     }
@@ -540,6 +619,13 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       transformed = appliedTransformation.transform(glideContext, decoded, width, height);
     }
     // TODO: Make this the responsibility of the Transformation.
+    DecodeHistogram decodeHistogram = glideContext.getDecodeHistogram();
+    if (decodeHistogram != null) {
+      decodeHistogram.record(decoded.get());
+      if (!decoded.equals(transformed)) {
+        decodeHistogram.record(transformed.get());
+      }
+    }
     if (!decoded.equals(transformed)) {
       decoded.recycle();
     }
@@ -665,8 +751,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     void encode(DiskCacheProvider diskCacheProvider, Options options) {
       GlideTrace.beginSection("DecodeJob.encode");
       try {
-        diskCacheProvider.getDiskCache().put(key,
-            new DataCacheWriter<>(encoder, toEncode, options));
+        new DataCacheWriter<>(encoder, toEncode, options)
+            .writeTo(diskCacheProvider.getDiskCache(), key);
       } finally {
         toEncode.unlock();
         GlideTrace.endSection();
@@ -691,6 +777,17 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     void onLoadFailed(GlideException e);
 
     void reschedule(DecodeJob<?> job);
+
+    /**
+     * Returns {@code true} if data retrieved from source should be decoded on a separate executor
+     * using {@link #rescheduleDecode(DecodeJob)} rather than on the thread that retrieved it.
+     */
+    boolean isSourceDecodedSeparately();
+
+    /**
+     * Runs the given job on the executor used to decode data retrieved from source.
+     */
+    void rescheduleDecode(DecodeJob<?> job);
   }
 
   interface DiskCacheProvider {
@@ -712,6 +809,11 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
      * process the data.
      */
     DECODE_DATA,
+    /**
+     * We retrieved data from source and want to switch to the decode executor to decode and
+     * transform it so that the source executor is free to retrieve other data.
+     */
+    SWITCH_TO_DECODE_SERVICE,
   }
 
   /**
@@ -0,0 +1,29 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.CostAwareDiskCache;
+
+/**
+ * Estimates the cost of recreating entries in Glide's disk cache from the type of their keys.
+ *
+ * <p>Original data is usually only written to the disk cache for remote sources, so recreating it
+ * requires a network request. Transformed resources can usually be recreated from the original
+ * data, either locally or from the disk cache, so they're treated as much cheaper to recreate.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class DiskCacheCostFunction implements CostAwareDiskCache.CostFunction {
+  /** The cost of recreating original data, written with {@link DiskCacheStrategy#DATA}. */
+  public static final int DATA_COST = 10;
+  /**
+   * The cost of recreating transformed resources, written with {@link DiskCacheStrategy#RESOURCE},
+   * and any other entries.
+   */
+  public static final int RESOURCE_COST = 1;
+
+  @Override
+  public int getCost(@NonNull Key key) {
+    return key instanceof DataCacheKey ? DATA_COST : RESOURCE_COST;
+  }
+}
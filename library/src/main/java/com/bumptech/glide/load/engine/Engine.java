@@ -1,5 +1,8 @@
 package com.bumptech.glide.load.engine;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -24,6 +27,7 @@ import com.bumptech.glide.util.pool.FactoryPools;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Responsible for starting loads and managing active and cached resources.
@@ -42,6 +46,10 @@ public class Engine implements EngineJobListener,
   private final LazyDiskCacheProvider diskCacheProvider;
   private final DecodeJobFactory decodeJobFactory;
   private final ActiveResources activeResources;
+  private final boolean isLoadOffMainThreadAllowed;
+  @Nullable
+  private final GlideExecutor loadExecutor;
+  @Synthetic final Handler mainHandler = new Handler(Looper.getMainLooper());
 
   public Engine(
       MemoryCache memoryCache,
@@ -51,6 +59,29 @@ public class Engine implements EngineJobListener,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
       boolean isActiveResourceRetentionAllowed) {
+    this(
+        memoryCache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        isActiveResourceRetentionAllowed,
+        new EngineOptions());
+  }
+
+  /**
+   * @param options Optional behavior, read once when the engine is created.
+   */
+  public Engine(
+      MemoryCache memoryCache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      boolean isActiveResourceRetentionAllowed,
+      @NonNull EngineOptions options) {
     this(
         memoryCache,
         diskCacheFactory,
@@ -64,7 +95,8 @@ public class Engine implements EngineJobListener,
         /*engineJobFactory=*/ null,
         /*decodeJobFactory=*/ null,
         /*resourceRecycler=*/ null,
-        isActiveResourceRetentionAllowed);
+        isActiveResourceRetentionAllowed,
+        options);
   }
 
   @VisibleForTesting
@@ -81,11 +113,52 @@ public class Engine implements EngineJobListener,
       DecodeJobFactory decodeJobFactory,
       ResourceRecycler resourceRecycler,
       boolean isActiveResourceRetentionAllowed) {
+    this(
+        cache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        jobs,
+        keyFactory,
+        activeResources,
+        engineJobFactory,
+        decodeJobFactory,
+        resourceRecycler,
+        isActiveResourceRetentionAllowed,
+        new EngineOptions());
+  }
+
+  @VisibleForTesting
+  Engine(MemoryCache cache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      Jobs jobs,
+      EngineKeyFactory keyFactory,
+      ActiveResources activeResources,
+      EngineJobFactory engineJobFactory,
+      DecodeJobFactory decodeJobFactory,
+      ResourceRecycler resourceRecycler,
+      boolean isActiveResourceRetentionAllowed,
+      EngineOptions options) {
     this.cache = cache;
+    this.isLoadOffMainThreadAllowed = options.isLoadOffMainThreadAllowed;
+    if (!isLoadOffMainThreadAllowed) {
+      loadExecutor = null;
+    } else if (options.loadExecutor != null) {
+      loadExecutor = options.loadExecutor;
+    } else {
+      loadExecutor = GlideExecutor.newLoadExecutor();
+    }
     this.diskCacheProvider = new LazyDiskCacheProvider(diskCacheFactory);
 
     if (activeResources == null) {
-      activeResources = new ActiveResources(isActiveResourceRetentionAllowed);
+      activeResources = new ActiveResources(
+          isActiveResourceRetentionAllowed, options.isActiveResourceQueueDrainedInBatches);
     }
     this.activeResources = activeResources;
     activeResources.setListener(this);
@@ -103,12 +176,23 @@ public class Engine implements EngineJobListener,
     if (engineJobFactory == null) {
       engineJobFactory =
           new EngineJobFactory(
-              diskCacheExecutor, sourceExecutor, sourceUnlimitedExecutor, animationExecutor, this);
+              diskCacheExecutor,
+              sourceExecutor,
+              sourceUnlimitedExecutor,
+              animationExecutor,
+              this,
+              /*isThreadSafe=*/ options.isLoadOffMainThreadAllowed,
+              options.isCompletionBatchedPerFrame ? new BatchedCompletionDispatcher() : null,
+              options.decodeExecutor);
     }
     this.engineJobFactory = engineJobFactory;
 
     if (decodeJobFactory == null) {
-      decodeJobFactory = new DecodeJobFactory(diskCacheProvider);
+      decodeJobFactory =
+          new DecodeJobFactory(
+              diskCacheProvider,
+              /*isThreadSafe=*/ options.isLoadOffMainThreadAllowed,
+              options.isSourceFetchShared ? new ActiveSourceFetches() : null);
     }
     this.decodeJobFactory = decodeJobFactory;
 
@@ -123,7 +207,14 @@ public class Engine implements EngineJobListener,
   /**
    * Starts a load for the given arguments.
    *
-   * <p>Must be called on the main thread.
+   * <p>Must be called on the main thread unless the engine was created with
+   * {@link EngineOptions#setLoadOffMainThreadAllowed(boolean)} set to {@code true}. When called on
+   * a background thread, the key is built and the active resources, memory cache and in progress
+   * jobs are checked on the calling thread. Only loads that can be satisfied from memory or joined
+   * to an existing job are handed off to the main thread, where the given callback is always
+   * notified. When called on the main thread, the same work is moved to the engine's load
+   * executor, so the callback is notified in a later main thread message even if the resource is
+   * in memory.
    *
    * <p>The flow for any request is as follows:
    * <ul>
@@ -165,12 +256,187 @@ public class Engine implements EngineJobListener,
       boolean useAnimationPool,
       boolean onlyRetrieveFromCache,
       ResourceCallback cb) {
-    Util.assertMainThread();
+    return load(
+        glideContext,
+        model,
+        signature,
+        width,
+        height,
+        resourceClass,
+        transcodeClass,
+        priority,
+        diskCacheStrategy,
+        transformations,
+        isTransformationRequired,
+        isScaleOnlyOrNoTransform,
+        options,
+        isMemoryCacheable,
+        useUnlimitedSourceExecutorPool,
+        useAnimationPool,
+        onlyRetrieveFromCache,
+        /*deadlineMs=*/ 0,
+        cb);
+  }
+
+  /**
+   * Starts a load for the given arguments that fails instead of starting if it's still queued
+   * after the given deadline.
+   *
+   * @param deadlineMs The time in milliseconds from now after which the load fails instead of
+   *                   starting if it hasn't started yet, or {@code 0} if the load never expires. A
+   *                   load shared by multiple callbacks only expires once every callback's
+   *                   deadline has passed.
+   * @see #load(GlideContext, Object, Key, int, int, Class, Class, Priority, DiskCacheStrategy, Map,
+   * boolean, boolean, Options, boolean, boolean, boolean, boolean, ResourceCallback)
+   */
+  public <R> LoadStatus load(
+      final GlideContext glideContext,
+      final Object model,
+      final Key signature,
+      final int width,
+      final int height,
+      final Class<?> resourceClass,
+      final Class<R> transcodeClass,
+      final Priority priority,
+      final DiskCacheStrategy diskCacheStrategy,
+      final Map<Class<?>, Transformation<?>> transformations,
+      final boolean isTransformationRequired,
+      final boolean isScaleOnlyOrNoTransform,
+      final Options options,
+      final boolean isMemoryCacheable,
+      final boolean useUnlimitedSourceExecutorPool,
+      final boolean useAnimationPool,
+      final boolean onlyRetrieveFromCache,
+      final long deadlineMs,
+      ResourceCallback cb) {
+    if (!isLoadOffMainThreadAllowed) {
+      Util.assertMainThread();
+    }
+    if (loadExecutor == null || !Util.isOnMainThread()) {
+      return startLoad(glideContext, model, signature, width, height, resourceClass,
+          transcodeClass, priority, diskCacheStrategy, transformations, isTransformationRequired,
+          isScaleOnlyOrNoTransform, options, isMemoryCacheable, useUnlimitedSourceExecutorPool,
+          useAnimationPool, onlyRetrieveFromCache, deadlineMs, cb);
+    }
+
+    // Glide's requests start their loads on the main thread, so move the key building and lookups
+    // to the load executor and only come back to the main thread to notify the callback.
+    DeferredLoad deferredLoad = new DeferredLoad(cb) {
+      @Nullable
+      @Override
+      LoadStatus startLoad(ResourceCallback cb) {
+        return Engine.this.startLoad(glideContext, model, signature, width, height, resourceClass,
+            transcodeClass, priority, diskCacheStrategy, transformations, isTransformationRequired,
+            isScaleOnlyOrNoTransform, options, isMemoryCacheable, useUnlimitedSourceExecutorPool,
+            useAnimationPool, onlyRetrieveFromCache, deadlineMs, cb);
+      }
+    };
+    loadExecutor.execute(deferredLoad);
+    return deferredLoad;
+  }
+
+  @Nullable
+  @Synthetic
+  <R> LoadStatus startLoad(
+      GlideContext glideContext,
+      Object model,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      long deadlineMs,
+      ResourceCallback cb) {
     long startTime = VERBOSE_IS_LOGGABLE ? LogTime.getLogTime() : 0;
+    long deadlineUptimeMs =
+        deadlineMs > 0 ? SystemClock.uptimeMillis() + deadlineMs : DecodeJob.NO_DEADLINE;
 
     EngineKey key = keyFactory.buildKey(model, signature, width, height, transformations,
         resourceClass, transcodeClass, options);
 
+    if (!Util.isOnMainThread()) {
+      return loadOffMainThread(
+          glideContext,
+          model,
+          key,
+          signature,
+          width,
+          height,
+          resourceClass,
+          transcodeClass,
+          priority,
+          diskCacheStrategy,
+          transformations,
+          isTransformationRequired,
+          isScaleOnlyOrNoTransform,
+          options,
+          isMemoryCacheable,
+          useUnlimitedSourceExecutorPool,
+          useAnimationPool,
+          onlyRetrieveFromCache,
+          deadlineUptimeMs,
+          cb,
+          startTime);
+    }
+    return loadOnMainThread(
+        glideContext,
+        model,
+        key,
+        signature,
+        width,
+        height,
+        resourceClass,
+        transcodeClass,
+        priority,
+        diskCacheStrategy,
+        transformations,
+        isTransformationRequired,
+        isScaleOnlyOrNoTransform,
+        options,
+        isMemoryCacheable,
+        useUnlimitedSourceExecutorPool,
+        useAnimationPool,
+        onlyRetrieveFromCache,
+        deadlineUptimeMs,
+        cb,
+        startTime);
+  }
+
+  @Nullable
+  @Synthetic
+  <R> LoadStatus loadOnMainThread(
+      GlideContext glideContext,
+      Object model,
+      EngineKey key,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      long deadlineUptimeMs,
+      ResourceCallback cb,
+      long startTime) {
+    activeResources.drainReferenceQueue();
     EngineResource<?> active = loadFromActiveResources(key, isMemoryCacheable);
     if (active != null) {
       cb.onResourceReady(active, DataSource.MEMORY_CACHE);
@@ -192,6 +458,7 @@ public class Engine implements EngineJobListener,
     EngineJob<?> current = jobs.get(key, onlyRetrieveFromCache);
     if (current != null) {
       current.addCallback(cb);
+      current.extendDeadline(deadlineUptimeMs);
       if (VERBOSE_IS_LOGGABLE) {
         logWithTimeAndKey("Added to existing load", startTime, key);
       }
@@ -223,9 +490,20 @@ public class Engine implements EngineJobListener,
             isScaleOnlyOrNoTransform,
             onlyRetrieveFromCache,
             options,
+            deadlineUptimeMs,
             engineJob);
 
-    jobs.put(key, engineJob);
+    // Loads started off of the main thread may have added a job for this key since we checked.
+    current = jobs.putIfAbsent(key, engineJob);
+    if (current != null) {
+      engineJob.releaseUnstarted(decodeJob);
+      current.addCallback(cb);
+      current.extendDeadline(deadlineUptimeMs);
+      if (VERBOSE_IS_LOGGABLE) {
+        logWithTimeAndKey("Added to existing load", startTime, key);
+      }
+      return new LoadStatus(cb, current);
+    }
 
     engineJob.addCallback(cb);
     engineJob.start(decodeJob);
@@ -236,6 +514,140 @@ public class Engine implements EngineJobListener,
     return new LoadStatus(cb, engineJob);
   }
 
+  private <R> LoadStatus loadOffMainThread(
+      final GlideContext glideContext,
+      final Object model,
+      final EngineKey key,
+      final Key signature,
+      final int width,
+      final int height,
+      final Class<?> resourceClass,
+      final Class<R> transcodeClass,
+      final Priority priority,
+      final DiskCacheStrategy diskCacheStrategy,
+      final Map<Class<?>, Transformation<?>> transformations,
+      final boolean isTransformationRequired,
+      final boolean isScaleOnlyOrNoTransform,
+      final Options options,
+      final boolean isMemoryCacheable,
+      final boolean useUnlimitedSourceExecutorPool,
+      final boolean useAnimationPool,
+      final boolean onlyRetrieveFromCache,
+      final long deadlineUptimeMs,
+      final ResourceCallback cb,
+      final long startTime) {
+    MainThreadLoad mainThreadLoad = null;
+    if (isMemoryCacheable) {
+      EngineResource<?> active = activeResources.get(key);
+      if (active != null) {
+        // Resources can only be acquired on the main thread, so look the resource up again there,
+        // but keep a strong reference until then so that it isn't collected in the meantime.
+        mainThreadLoad = new MainThreadLoad(cb, active) {
+          @Override
+          LoadStatus loadOnMainThread() {
+            return Engine.this.loadOnMainThread(glideContext, model, key, signature, width,
+                height, resourceClass, transcodeClass, priority, diskCacheStrategy,
+                transformations, isTransformationRequired, isScaleOnlyOrNoTransform, options,
+                isMemoryCacheable, useUnlimitedSourceExecutorPool, useAnimationPool,
+                onlyRetrieveFromCache, deadlineUptimeMs, cb, startTime);
+          }
+        };
+      } else {
+        final EngineResource<?> cached = getEngineResourceFromCache(key);
+        if (cached != null) {
+          // We own the resource we removed from the cache, so it's safe to hand it to the main
+          // thread directly.
+          mainThreadLoad = new MainThreadLoad(cb, cached) {
+            @Override
+            LoadStatus loadOnMainThread() {
+              onCacheLoadOnMainThread(key, cached, cb, startTime);
+              return null;
+            }
+
+            @Override
+            void onCancelledBeforeLoad() {
+              onCacheLoadCancelledOnMainThread(key, cached);
+            }
+          };
+        }
+      }
+    }
+
+    if (mainThreadLoad == null) {
+      if (jobs.get(key, onlyRetrieveFromCache) == null) {
+        EngineJob<R> engineJob =
+            engineJobFactory.build(
+                key,
+                isMemoryCacheable,
+                useUnlimitedSourceExecutorPool,
+                useAnimationPool,
+                onlyRetrieveFromCache);
+
+        DecodeJob<R> decodeJob =
+            decodeJobFactory.build(
+                glideContext,
+                model,
+                key,
+                signature,
+                width,
+                height,
+                resourceClass,
+                transcodeClass,
+                priority,
+                diskCacheStrategy,
+                transformations,
+                isTransformationRequired,
+                isScaleOnlyOrNoTransform,
+                onlyRetrieveFromCache,
+                options,
+                deadlineUptimeMs,
+                engineJob);
+
+        engineJob.prepareOffMainThread(decodeJob, cb);
+        if (jobs.putIfAbsent(key, engineJob) == null) {
+          engineJob.start(decodeJob);
+          if (VERBOSE_IS_LOGGABLE) {
+            logWithTimeAndKey("Started new load off of the main thread", startTime, key);
+          }
+          return new LoadStatus(cb, engineJob);
+        }
+        // Another load published a job for this key first, join it on the main thread instead.
+        engineJob.releaseUnstarted(decodeJob);
+      }
+
+      // Callbacks can only be added to published jobs on the main thread.
+      mainThreadLoad = new MainThreadLoad(cb, /*resource=*/ null) {
+        @Override
+        LoadStatus loadOnMainThread() {
+          return Engine.this.loadOnMainThread(glideContext, model, key, signature, width,
+              height, resourceClass, transcodeClass, priority, diskCacheStrategy,
+              transformations, isTransformationRequired, isScaleOnlyOrNoTransform, options,
+              isMemoryCacheable, useUnlimitedSourceExecutorPool, useAnimationPool,
+              onlyRetrieveFromCache, deadlineUptimeMs, cb, startTime);
+        }
+      };
+    }
+
+    mainHandler.post(mainThreadLoad);
+    return mainThreadLoad;
+  }
+
+  @Synthetic
+  void onCacheLoadOnMainThread(
+      EngineKey key, EngineResource<?> cached, ResourceCallback cb, long startTime) {
+    cached.acquire();
+    activeResources.activate(key, cached);
+    cb.onResourceReady(cached, DataSource.MEMORY_CACHE);
+    if (VERBOSE_IS_LOGGABLE) {
+      logWithTimeAndKey("Loaded resource from cache", startTime, key);
+    }
+  }
+
+  @Synthetic
+  void onCacheLoadCancelledOnMainThread(EngineKey key, EngineResource<?> cached) {
+    cache.put(key, cached);
+  }
+
   private static void logWithTimeAndKey(String log, long startTime, Key key) {
     Log.v(TAG, log + " in " + LogTime.getElapsedMillis(startTime) + "ms, key: " + key);
   }
@@ -322,6 +734,7 @@ public class Engine implements EngineJobListener,
   @Override
   public void onResourceReleased(Key cacheKey, EngineResource<?> resource) {
     Util.assertMainThread();
+    activeResources.drainReferenceQueue();
     activeResources.deactivate(cacheKey);
     if (resource.isCacheable()) {
       cache.put(cacheKey, resource);
@@ -337,6 +750,9 @@ public class Engine implements EngineJobListener,
   @VisibleForTesting
   public void shutdown() {
     engineJobFactory.shutdown();
+    if (loadExecutor != null) {
+      EngineJobFactory.shutdownAndAwaitTermination(loadExecutor);
+    }
     diskCacheProvider.clearDiskCacheIfCreated();
     activeResources.shutdown();
   }
@@ -356,6 +772,169 @@ public class Engine implements EngineJobListener,
     public void cancel() {
       engineJob.removeCallback(cb);
     }
+
+    /**
+     * Changes the priority of the load, which is shared with any other callbacks waiting on it.
+     */
+    public void setPriority(Priority priority) {
+      engineJob.setPriority(priority);
+    }
+  }
+
+  /**
+   * The part of a load started off of the main thread that has to be finished on the main thread
+   * because it either acquires a resource or adds a callback to an existing job.
+   */
+  private abstract static class MainThreadLoad extends LoadStatus implements Runnable {
+    // Keeps weakly held active resources from being collected before we reach the main thread.
+    @SuppressWarnings({"unused", "FieldCanBeLocal"})
+    @Nullable private EngineResource<?> resource;
+    @Nullable private LoadStatus delegate;
+    // Set if our priority is changed before we've been loaded on the main thread.
+    @Nullable private Priority priority;
+    private volatile boolean isCancelled;
+
+    MainThreadLoad(ResourceCallback cb, @Nullable EngineResource<?> resource) {
+      super(cb, /*engineJob=*/ null);
+      this.resource = resource;
+    }
+
+    @Nullable
+    abstract LoadStatus loadOnMainThread();
+
+    void onCancelledBeforeLoad() {
+      // Do nothing by default.
+    }
+
+    @Override
+    public void run() {
+      if (isCancelled) {
+        onCancelledBeforeLoad();
+      } else {
+        delegate = loadOnMainThread();
+        if (delegate != null && priority != null) {
+          delegate.setPriority(priority);
+        }
+      }
+      resource = null;
+      priority = null;
+    }
+
+    @Override
+    public void cancel() {
+      Util.assertMainThread();
+      isCancelled = true;
+      if (delegate != null) {
+        delegate.cancel();
+        delegate = null;
+      }
+    }
+
+    @Override
+    public void setPriority(Priority priority) {
+      Util.assertMainThread();
+      if (delegate != null) {
+        delegate.setPriority(priority);
+      } else {
+        this.priority = priority;
+      }
+    }
+  }
+
+  /**
+   * A load started on the main thread that builds its key and checks memory and in progress jobs
+   * on the load executor.
+   *
+   * <p>The load is started with this object as its callback, so that a load cancelled while it's
+   * being started on the load executor never notifies the original callback. Other than
+   * {@link #run()}, all methods are called on the main thread.
+   */
+  private abstract class DeferredLoad extends LoadStatus implements Runnable, ResourceCallback {
+    private final ResourceCallback cb;
+    private volatile boolean isCancelled;
+    private boolean isDone;
+    @Nullable private LoadStatus delegate;
+    // Set if our priority is changed before the load is started.
+    @Nullable private Priority priority;
+
+    DeferredLoad(ResourceCallback cb) {
+      super(cb, /*engineJob=*/ null);
+      this.cb = cb;
+    }
+
+    @Nullable
+    abstract LoadStatus startLoad(ResourceCallback cb);
+
+    @Override
+    public void run() {
+      if (isCancelled) {
+        return;
+      }
+      final LoadStatus status = startLoad(this);
+      if (status != null) {
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            onLoadStarted(status);
+          }
+        });
+      }
+    }
+
+    @Synthetic
+    void onLoadStarted(LoadStatus status) {
+      if (!isDone) {
+        if (isCancelled) {
+          status.cancel();
+        } else {
+          delegate = status;
+          if (priority != null) {
+            status.setPriority(priority);
+          }
+        }
+      }
+      priority = null;
+    }
+
+    @Override
+    public void onResourceReady(Resource<?> resource, DataSource dataSource) {
+      isDone = true;
+      delegate = null;
+      if (isCancelled) {
+        release(resource);
+      } else {
+        cb.onResourceReady(resource, dataSource);
+      }
+    }
+
+    @Override
+    public void onLoadFailed(GlideException e) {
+      isDone = true;
+      delegate = null;
+      if (!isCancelled) {
+        cb.onLoadFailed(e);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      Util.assertMainThread();
+      isCancelled = true;
+      if (delegate != null) {
+        delegate.cancel();
+        delegate = null;
+      }
+    }
+
+    @Override
+    public void setPriority(Priority priority) {
+      Util.assertMainThread();
+      if (delegate != null) {
+        delegate.setPriority(priority);
+      } else {
+        this.priority = priority;
+      }
+    }
   }
 
   private static class LazyDiskCacheProvider implements DecodeJob.DiskCacheProvider {
@@ -394,18 +973,27 @@ public class Engine implements EngineJobListener,
   @VisibleForTesting
   static class DecodeJobFactory {
     @Synthetic final DecodeJob.DiskCacheProvider diskCacheProvider;
-    @Synthetic final Pools.Pool<DecodeJob<?>> pool =
-        FactoryPools.simple(JOB_POOL_SIZE,
-            new FactoryPools.Factory<DecodeJob<?>>() {
-          @Override
-          public DecodeJob<?> create() {
-            return new DecodeJob<>(diskCacheProvider, pool);
-          }
-        });
-    private int creationOrder;
+    @Synthetic final Pools.Pool<DecodeJob<?>> pool;
+    private final AtomicInteger creationOrder = new AtomicInteger();
 
     DecodeJobFactory(DecodeJob.DiskCacheProvider diskCacheProvider) {
+      this(diskCacheProvider, /*isThreadSafe=*/ false, /*activeSourceFetches=*/ null);
+    }
+
+    DecodeJobFactory(
+        final DecodeJob.DiskCacheProvider diskCacheProvider,
+        boolean isThreadSafe,
+        @Nullable final ActiveSourceFetches activeSourceFetches) {
       this.diskCacheProvider = diskCacheProvider;
+      FactoryPools.Factory<DecodeJob<?>> factory = new FactoryPools.Factory<DecodeJob<?>>() {
+        @Override
+        public DecodeJob<?> create() {
+          return new DecodeJob<>(diskCacheProvider, pool, activeSourceFetches);
+        }
+      };
+      pool = isThreadSafe
+          ? FactoryPools.threadSafe(JOB_POOL_SIZE, factory)
+          : FactoryPools.simple(JOB_POOL_SIZE, factory);
     }
 
     @SuppressWarnings("unchecked")
@@ -424,6 +1012,7 @@ public class Engine implements EngineJobListener,
         boolean isScaleOnlyOrNoTransform,
         boolean onlyRetrieveFromCache,
         Options options,
+        long deadlineUptimeMs,
         DecodeJob.Callback<R> callback) {
       DecodeJob<R> result = Preconditions.checkNotNull((DecodeJob<R>) pool.acquire());
       return result.init(
@@ -442,8 +1031,9 @@ public class Engine implements EngineJobListener,
           isScaleOnlyOrNoTransform,
           onlyRetrieveFromCache,
           options,
+          deadlineUptimeMs,
           callback,
-          creationOrder++);
+          creationOrder.getAndIncrement());
     }
   }
 
@@ -454,21 +1044,9 @@ public class Engine implements EngineJobListener,
     @Synthetic final GlideExecutor sourceUnlimitedExecutor;
     @Synthetic final GlideExecutor animationExecutor;
     @Synthetic final EngineJobListener listener;
-    @Synthetic final Pools.Pool<EngineJob<?>> pool =
-        FactoryPools.simple(
-            JOB_POOL_SIZE,
-            new FactoryPools.Factory<EngineJob<?>>() {
-              @Override
-              public EngineJob<?> create() {
-                return new EngineJob<>(
-                    diskCacheExecutor,
-                    sourceExecutor,
-                    sourceUnlimitedExecutor,
-                    animationExecutor,
-                    listener,
-                    pool);
-              }
-            });
+    @Synthetic final Pools.Pool<EngineJob<?>> pool;
+    @Nullable
+    @Synthetic final GlideExecutor decodeExecutor;
 
     EngineJobFactory(
         GlideExecutor diskCacheExecutor,
@@ -476,11 +1054,49 @@ public class Engine implements EngineJobListener,
         GlideExecutor sourceUnlimitedExecutor,
         GlideExecutor animationExecutor,
         EngineJobListener listener) {
+      this(
+          diskCacheExecutor,
+          sourceExecutor,
+          sourceUnlimitedExecutor,
+          animationExecutor,
+          listener,
+          /*isThreadSafe=*/ false,
+          /*completionDispatcher=*/ null,
+          /*decodeExecutor=*/ null);
+    }
+
+    EngineJobFactory(
+        final GlideExecutor diskCacheExecutor,
+        final GlideExecutor sourceExecutor,
+        final GlideExecutor sourceUnlimitedExecutor,
+        final GlideExecutor animationExecutor,
+        final EngineJobListener listener,
+        boolean isThreadSafe,
+        @Nullable final BatchedCompletionDispatcher completionDispatcher,
+        @Nullable final GlideExecutor decodeExecutor) {
       this.diskCacheExecutor = diskCacheExecutor;
       this.sourceExecutor = sourceExecutor;
       this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
       this.animationExecutor = animationExecutor;
       this.listener = listener;
+      this.decodeExecutor = decodeExecutor;
+      FactoryPools.Factory<EngineJob<?>> factory = new FactoryPools.Factory<EngineJob<?>>() {
+        @Override
+        public EngineJob<?> create() {
+          return new EngineJob<>(
+              diskCacheExecutor,
+              sourceExecutor,
+              sourceUnlimitedExecutor,
+              animationExecutor,
+              listener,
+              pool,
+              completionDispatcher,
+              decodeExecutor);
+        }
+      };
+      pool = isThreadSafe
+          ? FactoryPools.threadSafe(JOB_POOL_SIZE, factory)
+          : FactoryPools.simple(JOB_POOL_SIZE, factory);
     }
 
     @VisibleForTesting
@@ -489,6 +1105,9 @@ public class Engine implements EngineJobListener,
       shutdownAndAwaitTermination(sourceExecutor);
       shutdownAndAwaitTermination(sourceUnlimitedExecutor);
       shutdownAndAwaitTermination(animationExecutor);
+      if (decodeExecutor != null) {
+        shutdownAndAwaitTermination(decodeExecutor);
+      }
     }
 
     @SuppressWarnings("unchecked")
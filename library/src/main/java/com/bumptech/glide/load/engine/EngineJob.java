@@ -4,12 +4,15 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools.Poolable;
@@ -42,6 +45,10 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private final GlideExecutor sourceExecutor;
   private final GlideExecutor sourceUnlimitedExecutor;
   private final GlideExecutor animationExecutor;
+  @Nullable
+  private final BatchedCompletionDispatcher completionDispatcher;
+  @Nullable
+  private final GlideExecutor decodeExecutor;
 
   private Key key;
   private boolean isCacheable;
@@ -76,7 +83,29 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
         animationExecutor,
         listener,
         pool,
-        DEFAULT_FACTORY);
+        DEFAULT_FACTORY,
+        /*completionDispatcher=*/ null);
+  }
+
+  EngineJob(
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      EngineJobListener listener,
+      Pools.Pool<EngineJob<?>> pool,
+      @Nullable BatchedCompletionDispatcher completionDispatcher,
+      @Nullable GlideExecutor decodeExecutor) {
+    this(
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        listener,
+        pool,
+        DEFAULT_FACTORY,
+        completionDispatcher,
+        decodeExecutor);
   }
 
   @VisibleForTesting
@@ -88,6 +117,54 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       EngineJobListener listener,
       Pools.Pool<EngineJob<?>> pool,
       EngineResourceFactory engineResourceFactory) {
+    this(
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        listener,
+        pool,
+        engineResourceFactory,
+        /*completionDispatcher=*/ null);
+  }
+
+  @VisibleForTesting
+  EngineJob(
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      EngineJobListener listener,
+      Pools.Pool<EngineJob<?>> pool,
+      EngineResourceFactory engineResourceFactory,
+      @Nullable BatchedCompletionDispatcher completionDispatcher) {
+    this(
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        listener,
+        pool,
+        engineResourceFactory,
+        completionDispatcher,
+        /*decodeExecutor=*/ null);
+  }
+
+  /**
+   * @param decodeExecutor If non-null, the executor used to decode and transform data retrieved
+   *                       from source, see {@link #isSourceDecodedSeparately()}.
+   */
+  @VisibleForTesting
+  EngineJob(
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      EngineJobListener listener,
+      Pools.Pool<EngineJob<?>> pool,
+      EngineResourceFactory engineResourceFactory,
+      @Nullable BatchedCompletionDispatcher completionDispatcher,
+      @Nullable GlideExecutor decodeExecutor) {
     this.diskCacheExecutor = diskCacheExecutor;
     this.sourceExecutor = sourceExecutor;
     this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
@@ -95,6 +172,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     this.listener = listener;
     this.pool = pool;
     this.engineResourceFactory = engineResourceFactory;
+    this.completionDispatcher = completionDispatcher;
+    this.decodeExecutor = decodeExecutor;
   }
 
   @VisibleForTesting
@@ -120,6 +199,18 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     executor.execute(decodeJob);
   }
 
+  /**
+   * Sets the {@link DecodeJob} and the first callback for a job that was built off of the main
+   * thread, before the job is made visible to any other thread.
+   *
+   * <p>Once the job has been published, callbacks must only be added or removed on the main thread.
+   */
+  void prepareOffMainThread(DecodeJob<R> decodeJob, ResourceCallback cb) {
+    stateVerifier.throwIfRecycled();
+    this.decodeJob = decodeJob;
+    cbs.add(cb);
+  }
+
   void addCallback(ResourceCallback cb) {
     Util.assertMainThread();
     stateVerifier.throwIfRecycled();
@@ -149,6 +240,57 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     return onlyRetrieveFromCache;
   }
 
+  /**
+   * Changes the priority of our {@link DecodeJob} and, if it's queued, queues it again so that it's
+   * ordered by its new priority.
+   */
+  void setPriority(Priority priority) {
+    Util.assertMainThread();
+    stateVerifier.throwIfRecycled();
+    if (hasResource || hasLoadFailed || isCancelled) {
+      return;
+    }
+    // Priority queues order jobs when they're added, so the job has to be removed before its
+    // priority changes and added again afterwards.
+    GlideExecutor executor = removeFromQueue();
+    decodeJob.setPriority(priority);
+    if (executor != null) {
+      executor.execute(decodeJob);
+    }
+  }
+
+  /**
+   * Moves the deadline after which our {@link DecodeJob} fails instead of starting to the given
+   * time if it's later than the current deadline, see {@link DecodeJob#extendDeadline(long)}.
+   */
+  void extendDeadline(long deadlineMs) {
+    Util.assertMainThread();
+    stateVerifier.throwIfRecycled();
+    if (hasResource || hasLoadFailed || isCancelled) {
+      return;
+    }
+    decodeJob.extendDeadline(deadlineMs);
+  }
+
+  /**
+   * Removes our {@link DecodeJob} from whichever of our executors it's queued on and returns that
+   * executor, or returns {@code null} if the job isn't queued.
+   */
+  @Nullable
+  private GlideExecutor removeFromQueue() {
+    if (diskCacheExecutor.remove(decodeJob)) {
+      return diskCacheExecutor;
+    }
+    GlideExecutor sourceExecutor = getActiveSourceExecutor();
+    if (sourceExecutor.remove(decodeJob)) {
+      return sourceExecutor;
+    }
+    if (decodeExecutor != null && decodeExecutor.remove(decodeJob)) {
+      return decodeExecutor;
+    }
+    return null;
+  }
+
   private GlideExecutor getActiveSourceExecutor() {
     return useUnlimitedSourceGeneratorPool
         ? sourceUnlimitedExecutor : (useAnimationPool ? animationExecutor : sourceExecutor);
@@ -180,9 +322,19 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
 
     isCancelled = true;
     decodeJob.cancel();
-    // TODO: Consider trying to remove jobs that have never been run before from executor queues.
-    // Removing jobs that have run before can break things. See #1996.
     listener.onEngineJobCancelled(this, key);
+
+    // Drop jobs that have never run from their queues rather than leaving them ahead of other jobs
+    // until they're run just to notice that they've been cancelled. Jobs that have run before have
+    // to run again to clean up, see #1996.
+    GlideExecutor executor = removeFromQueue();
+    if (executor != null) {
+      if (decodeJob.hasRun()) {
+        executor.execute(decodeJob);
+      } else {
+        release(true /*isRemovedFromQueue*/);
+      }
+    }
   }
 
   // Exposed for testing.
@@ -224,6 +376,25 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     release(false /*isRemovedFromQueue*/);
   }
 
+  /**
+   * Notifies callbacks of either the resource or the exception this job finished with.
+   */
+  void handleCompletionOnMainThread() {
+    if (exception != null) {
+      handleExceptionOnMainThread();
+    } else {
+      handleResultOnMainThread();
+    }
+  }
+
+  /**
+   * Compares the priority of the {@link DecodeJob}s of this and the given job, see
+   * {@link DecodeJob#compareTo(DecodeJob)}.
+   */
+  int comparePriority(EngineJob<?> other) {
+    return decodeJob.compareTo(other.decodeJob);
+  }
+
   @Synthetic
   void handleCancelledOnMainThread() {
     stateVerifier.throwIfRecycled();
@@ -234,8 +405,26 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     release(false /*isRemovedFromQueue*/);
   }
 
+  /**
+   * Returns a job that was built but never published or started, along with the given
+   * {@link DecodeJob}, to their pools.
+   *
+   * <p>Unlike other methods, this may be called on any thread because the job was never visible
+   * to any other thread.
+   */
+  void releaseUnstarted(DecodeJob<R> decodeJob) {
+    stateVerifier.throwIfRecycled();
+    this.decodeJob = decodeJob;
+    // The decode job was never queued, so there is nothing to wait for before releasing it.
+    releaseInternal(true /*isRemovedFromQueue*/);
+  }
+
   private void release(boolean isRemovedFromQueue) {
     Util.assertMainThread();
+    releaseInternal(isRemovedFromQueue);
+  }
+
+  private void releaseInternal(boolean isRemovedFromQueue) {
     cbs.clear();
     key = null;
     engineResource = null;
@@ -257,13 +446,21 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   public void onResourceReady(Resource<R> resource, DataSource dataSource) {
     this.resource = resource;
     this.dataSource = dataSource;
-    MAIN_THREAD_HANDLER.obtainMessage(MSG_COMPLETE, this).sendToTarget();
+    if (completionDispatcher != null) {
+      completionDispatcher.dispatch(this);
+    } else {
+      MAIN_THREAD_HANDLER.obtainMessage(MSG_COMPLETE, this).sendToTarget();
+    }
   }
 
   @Override
   public void onLoadFailed(GlideException e) {
     this.exception = e;
-    MAIN_THREAD_HANDLER.obtainMessage(MSG_EXCEPTION, this).sendToTarget();
+    if (completionDispatcher != null) {
+      completionDispatcher.dispatch(this);
+    } else {
+      MAIN_THREAD_HANDLER.obtainMessage(MSG_EXCEPTION, this).sendToTarget();
+    }
   }
 
   @Override
@@ -273,6 +470,21 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     getActiveSourceExecutor().execute(job);
   }
 
+  /**
+   * Returns {@code true} if a decode executor was provided and this job doesn't use the animation
+   * executor, which is kept separate to limit the number of animation frames decoded at once.
+   */
+  @Override
+  public boolean isSourceDecodedSeparately() {
+    return decodeExecutor != null && !useAnimationPool;
+  }
+
+  @Override
+  public void rescheduleDecode(DecodeJob<?> job) {
+    // Like reschedule, the job has to run even if it's cancelled so that it can clean itself up.
+    Preconditions.checkNotNull(decodeExecutor).execute(job);
+  }
+
   @Synthetic
   void handleExceptionOnMainThread() {
     stateVerifier.throwIfRecycled();
@@ -0,0 +1,99 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+
+/**
+ * Optional behavior for an {@link Engine}, all of which is disabled by default.
+ *
+ * <p>Options are read when the {@link Engine} is created, changing them afterwards has no effect
+ * on that {@link Engine}.
+ *
+ * @see com.bumptech.glide.GlideBuilder
+ */
+public final class EngineOptions {
+  boolean isLoadOffMainThreadAllowed;
+  boolean isActiveResourceQueueDrainedInBatches;
+  boolean isCompletionBatchedPerFrame;
+  @Nullable GlideExecutor decodeExecutor;
+  @Nullable GlideExecutor loadExecutor;
+  boolean isSourceFetchShared;
+
+  /**
+   * @param isLoadOffMainThreadAllowed {@code true} to allow {@link Engine#load} to be called on any
+   *                                   thread. Requires a thread safe
+   *                                   {@link com.bumptech.glide.load.engine.cache.MemoryCache}.
+   *                                   Loads started on the main thread, including all of
+   *                                   Glide's requests, build their keys and check memory on a
+   *                                   background thread. Callbacks are always notified on the
+   *                                   main thread.
+   */
+  @NonNull
+  public EngineOptions setLoadOffMainThreadAllowed(boolean isLoadOffMainThreadAllowed) {
+    this.isLoadOffMainThreadAllowed = isLoadOffMainThreadAllowed;
+    return this;
+  }
+
+  /**
+   * @param isActiveResourceQueueDrainedInBatches {@code true} to clean up active resources that
+   *                                              were garbage collected in batches on the main
+   *                                              thread instead of on a dedicated thread that
+   *                                              posts one main thread message per resource.
+   */
+  @NonNull
+  public EngineOptions setActiveResourceQueueDrainedInBatches(
+      boolean isActiveResourceQueueDrainedInBatches) {
+    this.isActiveResourceQueueDrainedInBatches = isActiveResourceQueueDrainedInBatches;
+    return this;
+  }
+
+  /**
+   * @param isCompletionBatchedPerFrame {@code true} to notify callbacks of all loads that finish
+   *                                    within a frame in a single main thread pass at the start
+   *                                    of the next frame, in priority order, rather than posting
+   *                                    one main thread message per load.
+   */
+  @NonNull
+  public EngineOptions setCompletionBatchedPerFrame(boolean isCompletionBatchedPerFrame) {
+    this.isCompletionBatchedPerFrame = isCompletionBatchedPerFrame;
+    return this;
+  }
+
+  /**
+   * @param decodeExecutor If non-null, data retrieved from source is decoded and transformed on
+   *                       this executor rather than on the thread that retrieved it, so that the
+   *                       source executor only has to retrieve data and can be sized for blocking
+   *                       I/O.
+   */
+  @NonNull
+  public EngineOptions setDecodeExecutor(@Nullable GlideExecutor decodeExecutor) {
+    this.decodeExecutor = decodeExecutor;
+    return this;
+  }
+
+  /**
+   * @param isSourceFetchShared {@code true} to share a single fetch of source data that will be
+   *                            written to the disk cache between all loads of the same source
+   *                            that are in progress at the same time, regardless of their sizes,
+   *                            transformations and options.
+   */
+  @NonNull
+  public EngineOptions setSourceFetchShared(boolean isSourceFetchShared) {
+    this.isSourceFetchShared = isSourceFetchShared;
+    return this;
+  }
+
+  /**
+   * @param loadExecutor The executor loads started on the main thread are moved to when loads are
+   *                     allowed off of the main thread, or {@code null} to use a new
+   *                     {@link GlideExecutor#newLoadExecutor()}.
+   */
+  @VisibleForTesting
+  @NonNull
+  EngineOptions setLoadExecutor(@Nullable GlideExecutor loadExecutor) {
+    this.loadExecutor = loadExecutor;
+    return this;
+  }
+}
@@ -1,14 +1,22 @@
 package com.bumptech.glide.load.engine;
 
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.load.Key;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Tracks in progress {@link EngineJob}s by key.
+ *
+ * <p>Backed by concurrent maps so that jobs can be looked up and published from any thread when
+ * {@link Engine#load} is allowed to run off of the main thread.
+ */
 final class Jobs {
-  private final Map<Key, EngineJob<?>> jobs = new HashMap<>();
-  private final Map<Key, EngineJob<?>> onlyCacheJobs = new HashMap<>();
+  private final ConcurrentMap<Key, EngineJob<?>> jobs = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Key, EngineJob<?>> onlyCacheJobs = new ConcurrentHashMap<>();
 
   @VisibleForTesting
   Map<Key, EngineJob<?>> getAll() {
@@ -23,14 +31,21 @@ final class Jobs {
     getJobMap(job.onlyRetrieveFromCache()).put(key, job);
   }
 
+  /**
+   * Adds the given job if no other job is currently registered for the given key.
+   *
+   * @return The job already registered for the key, or {@code null} if the given job was added.
+   */
+  @Nullable
+  EngineJob<?> putIfAbsent(Key key, EngineJob<?> job) {
+    return getJobMap(job.onlyRetrieveFromCache()).putIfAbsent(key, job);
+  }
+
   void removeIfCurrent(Key key, EngineJob<?> expected) {
-    Map<Key, EngineJob<?>> jobMap = getJobMap(expected.onlyRetrieveFromCache());
-    if (expected.equals(jobMap.get(key))) {
-      jobMap.remove(key);
-    }
+    getJobMap(expected.onlyRetrieveFromCache()).remove(key, expected);
   }
 
-  private Map<Key, EngineJob<?>> getJobMap(boolean onlyRetrieveFromCache) {
+  private ConcurrentMap<Key, EngineJob<?>> getJobMap(boolean onlyRetrieveFromCache) {
     return onlyRetrieveFromCache ? onlyCacheJobs : jobs;
   }
 }
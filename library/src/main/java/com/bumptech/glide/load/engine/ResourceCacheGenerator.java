@@ -8,6 +8,7 @@ import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -31,6 +32,9 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
   private ResourceCacheKey currentKey;
+  // Whether the ByteBuffer for currentKey from the ByteBufferDiskCache is being decoded.
+  private boolean isDecodingBuffer;
+  private boolean isBufferTried;
 
   ResourceCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this.helper = helper;
@@ -55,6 +59,13 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
              + helper.getTranscodeClass());
     }
     while (modelLoaders == null || !hasNextModelLoader()) {
+      if (isDecodingBuffer) {
+        // The ByteBuffer couldn't be decoded, fall back to the File model loaders for the same
+        // key, some data can only be decoded from a File or a file descriptor.
+        isDecodingBuffer = false;
+        setCacheFile(true /*isBufferTried*/);
+        continue;
+      }
       resourceClassIndex++;
       if (resourceClassIndex >= resourceClasses.size()) {
         sourceIdIndex++;
@@ -80,12 +91,17 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
               transformation,
               resourceClass,
               helper.getOptions());
-      cacheFile = helper.getDiskCache().get(currentKey);
-      if (cacheFile != null) {
+      ByteBuffer cacheBuffer = helper.getDiskCacheBuffer(currentKey);
+      if (cacheBuffer != null) {
         sourceKey = sourceId;
-        modelLoaders = helper.getModelLoaders(cacheFile);
-        modelLoaderIndex = 0;
+        isDecodingBuffer = true;
+        loadData = new LoadData<>(currentKey,
+            new ByteBufferCacheFetcher(cacheBuffer, DataSource.RESOURCE_DISK_CACHE));
+        loadData.fetcher.loadData(helper.getPriority(), this);
+        return true;
       }
+      sourceKey = sourceId;
+      setCacheFile(false /*isBufferTried*/);
     }
 
     loadData = null;
@@ -94,7 +110,8 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
       ModelLoader<File, ?> modelLoader = modelLoaders.get(modelLoaderIndex++);
       loadData = modelLoader.buildLoadData(cacheFile,
           helper.getWidth(), helper.getHeight(), helper.getOptions());
-      if (loadData != null && helper.hasLoadPath(loadData.fetcher.getDataClass())) {
+      if (loadData != null && helper.hasLoadPath(loadData.fetcher.getDataClass())
+          && !(isBufferTried && ByteBuffer.class.equals(loadData.fetcher.getDataClass()))) {
         started = true;
         loadData.fetcher.loadData(helper.getPriority(), this);
       }
@@ -103,6 +120,15 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
     return started;
   }
 
+  private void setCacheFile(boolean isBufferTried) {
+    cacheFile = helper.getDiskCache().get(currentKey);
+    if (cacheFile != null) {
+      this.isBufferTried = isBufferTried;
+      modelLoaders = helper.getModelLoaders(cacheFile);
+      modelLoaderIndex = 0;
+    }
+  }
+
   private boolean hasNextModelLoader() {
     return modelLoaderIndex < modelLoaders.size();
   }
@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.engine;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Encoder;
@@ -18,10 +19,15 @@ import java.util.Collections;
  *
  * <p> Depending on the disk cache strategy, source data may first be written to disk and then
  * loaded from the cache file rather than returned directly. </p>
+ *
+ * <p> If source data will be written to disk and another load is already fetching the same source,
+ * this generator waits for that fetch to finish and then loads the data from the cache file
+ * instead of fetching it again, see {@link ActiveSourceFetches}. </p>
  */
 class SourceGenerator implements DataFetcherGenerator,
     DataFetcher.DataCallback<Object>,
-    DataFetcherGenerator.FetcherReadyCallback {
+    DataFetcherGenerator.FetcherReadyCallback,
+    ActiveSourceFetches.Waiter {
   private static final String TAG = "SourceGenerator";
 
   private final DecodeHelper<?> helper;
@@ -32,6 +38,13 @@ class SourceGenerator implements DataFetcherGenerator,
   private Object dataToCache;
   private volatile ModelLoader.LoadData<?> loadData;
   private DataCacheKey originalKey;
+  // The fetch this generator is responsible for and that other loads may be waiting on.
+  @Nullable
+  private volatile ActiveSourceFetches.SourceFetch startedSourceFetch;
+  // The key of the fetch this generator is waiting on, if any.
+  @Nullable
+  private volatile Key awaitedSourceFetchKey;
+  private boolean isSourceFetchAwaited;
 
   SourceGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this.helper = helper;
@@ -51,6 +64,21 @@ class SourceGenerator implements DataFetcherGenerator,
     }
     sourceCacheGenerator = null;
 
+    if (isSourceFetchAwaited) {
+      // Another load fetched our source data, so try to load it from the cache file it wrote.
+      isSourceFetchAwaited = false;
+      awaitedSourceFetchKey = null;
+      sourceCacheGenerator =
+          new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
+      if (sourceCacheGenerator.startNext()) {
+        return true;
+      }
+      // The other fetch failed or wasn't written to the cache, so fetch the data ourselves.
+      sourceCacheGenerator = null;
+      startLoad(loadData);
+      return true;
+    }
+
     loadData = null;
     boolean started = false;
     while (!started && hasNextModelLoader()) {
@@ -59,12 +87,53 @@ class SourceGenerator implements DataFetcherGenerator,
           && (helper.getDiskCacheStrategy().isDataCacheable(loadData.fetcher.getDataSource())
           || helper.hasLoadPath(loadData.fetcher.getDataClass()))) {
         started = true;
-        loadData.fetcher.loadData(helper.getPriority(), this);
+        startLoad(loadData);
       }
     }
     return started;
   }
 
+  /**
+   * Starts the given load, or waits for another load that is already fetching the same source data
+   * if the data will be written to the disk cache.
+   */
+  private void startLoad(LoadData<?> toStart) {
+    ActiveSourceFetches activeSourceFetches = helper.getActiveSourceFetches();
+    if (activeSourceFetches != null
+        && helper.getDiskCacheStrategy().isDataCacheable(toStart.fetcher.getDataSource())) {
+      DataCacheKey key = new DataCacheKey(toStart.sourceKey, helper.getSignature());
+      // Set before calling startOrWait because we may be rescheduled on another thread before it
+      // returns.
+      isSourceFetchAwaited = true;
+      awaitedSourceFetchKey = key;
+      ActiveSourceFetches.SourceFetch started = activeSourceFetches.startOrWait(key, this);
+      if (started == null) {
+        return;
+      }
+      isSourceFetchAwaited = false;
+      awaitedSourceFetchKey = null;
+      startedSourceFetch = started;
+    }
+    toStart.fetcher.loadData(helper.getPriority(), this);
+  }
+
+  /**
+   * Notifies any loads waiting on the fetch this generator started, if any.
+   */
+  private void finishSourceFetch() {
+    ActiveSourceFetches.SourceFetch started = startedSourceFetch;
+    if (started != null) {
+      startedSourceFetch = null;
+      helper.getActiveSourceFetches().finish(started);
+    }
+  }
+
+  @Override
+  public void onSourceFetchFinished() {
+    // We're called back on the thread that finished the fetch, so get back onto Glide's thread.
+    cb.reschedule();
+  }
+
   private boolean hasNextModelLoader() {
     return loadDataListIndex < helper.getLoadData().size();
   }
@@ -76,7 +145,7 @@ class SourceGenerator implements DataFetcherGenerator,
       DataCacheWriter<Object> writer =
           new DataCacheWriter<>(encoder, dataToCache, helper.getOptions());
       originalKey = new DataCacheKey(loadData.sourceKey, helper.getSignature());
-      helper.getDiskCache().put(originalKey, writer);
+      writer.writeTo(helper.getDiskCache(), originalKey);
       if (Log.isLoggable(TAG, Log.VERBOSE)) {
         Log.v(TAG, "Finished encoding source to cache"
             + ", key: " + originalKey
@@ -86,6 +155,8 @@ class SourceGenerator implements DataFetcherGenerator,
       }
     } finally {
       loadData.fetcher.cleanup();
+      // Loads waiting on this fetch can now load the data from the cache file.
+      finishSourceFetch();
     }
 
     sourceCacheGenerator =
@@ -98,6 +169,16 @@ class SourceGenerator implements DataFetcherGenerator,
     if (local != null) {
       local.fetcher.cancel();
     }
+    // Other loads shouldn't wait on a cancelled fetch, they can fetch the source themselves.
+    finishSourceFetch();
+    Key awaitedKey = awaitedSourceFetchKey;
+    ActiveSourceFetches activeSourceFetches = helper.getActiveSourceFetches();
+    if (awaitedKey != null && activeSourceFetches != null
+        && activeSourceFetches.removeWaiter(awaitedKey, this)) {
+      // We won't be notified when the fetch finishes, so reschedule now so that our job can clean
+      // itself up.
+      cb.reschedule();
+    }
   }
 
   @Override
@@ -109,6 +190,7 @@ class SourceGenerator implements DataFetcherGenerator,
       // reschedule to get back onto Glide's thread.
       cb.reschedule();
     } else {
+      finishSourceFetch();
       cb.onDataFetcherReady(loadData.sourceKey, data, loadData.fetcher,
           loadData.fetcher.getDataSource(), originalKey);
     }
@@ -116,6 +198,7 @@ class SourceGenerator implements DataFetcherGenerator,
 
   @Override
   public void onLoadFailed(@NonNull Exception e) {
+    finishSourceFetch();
     cb.onDataFetcherFailed(originalKey, e, loadData.fetcher, loadData.fetcher.getDataSource());
   }
 
@@ -0,0 +1,175 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.NavigableMap;
+
+/**
+ * Keys {@link android.graphics.Bitmap Bitmaps} only by
+ * {@link android.graphics.Bitmap#getAllocationByteCount()} and returns the pooled
+ * {@link android.graphics.Bitmap} with the smallest allocation that fits the requested dimensions
+ * and {@link android.graphics.Bitmap.Config}, reconfigured with
+ * {@link Bitmap#reconfigure(int, int, Bitmap.Config)}.
+ *
+ * <p>{@link SizeConfigStrategy} only re-uses {@link android.graphics.Bitmap Bitmaps} with the same
+ * number of bytes per pixel and {@link AttributeStrategy} requires exact dimensions, so grids of
+ * images with mixed aspect ratios or configs tend to miss even when the pool is full of Bitmaps
+ * that are slightly too large. This strategy ignores the dimensions and config of pooled Bitmaps
+ * entirely, but only returns a Bitmap if the bytes it wastes are at most the given ratio of the
+ * bytes requested, so that small requests don't hold on to much larger Bitmaps.
+ *
+ * <p> Requires {@link Build.VERSION_CODES#KITKAT KitKat} or higher. </p>
+ */
+@RequiresApi(Build.VERSION_CODES.KITKAT)
+final class BestFitStrategy implements LruPoolStrategy {
+  private final KeyPool keyPool = new KeyPool();
+  private final GroupedLinkedMap<Key, Bitmap> groupedMap = new GroupedLinkedMap<>();
+  private final NavigableMap<Integer, Integer> sortedSizes = new PrettyPrintTreeMap<>();
+  private final float maxWasteRatio;
+
+  /**
+   * @param maxWasteRatio The maximum number of unused bytes in a returned Bitmap, as a ratio of
+   *                      the number of bytes requested.
+   */
+  BestFitStrategy(float maxWasteRatio) {
+    Preconditions.checkArgument(maxWasteRatio >= 0, "Max waste ratio must be >= 0");
+    this.maxWasteRatio = maxWasteRatio;
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    int size = Util.getBitmapByteSize(bitmap);
+    Key key = keyPool.get(size);
+
+    groupedMap.put(key, bitmap);
+
+    Integer current = sortedSizes.get(size);
+    sortedSizes.put(size, current == null ? 1 : current + 1);
+  }
+
+  @Override
+  @Nullable
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    int size = Util.getBitmapByteSize(width, height, config);
+    Integer possibleSize = sortedSizes.ceilingKey(size);
+    int bestSize = possibleSize != null && possibleSize - size <= (long) (size * maxWasteRatio)
+        ? possibleSize : size;
+    // Do a get even if we know we don't have a bitmap so that the key moves to the front in the
+    // lru pool.
+    Bitmap result = groupedMap.get(keyPool.get(bestSize));
+    if (result != null) {
+      // Decrement must be called before reconfigure.
+      decrementBitmapOfSize(bestSize);
+      result.reconfigure(width, height, config);
+    }
+    return result;
+  }
+
+  @Override
+  @Nullable
+  public Bitmap removeLast() {
+    Bitmap removed = groupedMap.removeLast();
+    if (removed != null) {
+      decrementBitmapOfSize(Util.getBitmapByteSize(removed));
+    }
+    return removed;
+  }
+
+  private void decrementBitmapOfSize(int size) {
+    Integer current = sortedSizes.get(size);
+    if (current == null) {
+      throw new NullPointerException("Tried to decrement empty size"
+          + ", size: " + size
+          + ", this: " + this);
+    }
+    if (current == 1) {
+      sortedSizes.remove(size);
+    } else {
+      sortedSizes.put(size, current - 1);
+    }
+  }
+
+  @Override
+  public String logBitmap(Bitmap bitmap) {
+    return getBitmapString(Util.getBitmapByteSize(bitmap));
+  }
+
+  @Override
+  public String logBitmap(int width, int height, Bitmap.Config config) {
+    return getBitmapString(Util.getBitmapByteSize(width, height, config));
+  }
+
+  @Override
+  public int getSize(Bitmap bitmap) {
+    return Util.getBitmapByteSize(bitmap);
+  }
+
+  @Override
+  public String toString() {
+    return "BestFitStrategy:\n  " + groupedMap + "\n" + "  SortedSizes" + sortedSizes;
+  }
+
+  @Synthetic
+  static String getBitmapString(int size) {
+    return "[" + size + "]";
+  }
+
+  @VisibleForTesting
+  static class KeyPool extends BaseKeyPool<Key> {
+
+    public Key get(int size) {
+      Key result = super.get();
+      result.init(size);
+      return result;
+    }
+
+    @Override
+    protected Key create() {
+      return new Key(this);
+    }
+  }
+
+  @VisibleForTesting
+  static final class Key implements Poolable {
+    private final KeyPool pool;
+    @Synthetic int size;
+
+    Key(KeyPool pool) {
+      this.pool = pool;
+    }
+
+    public void init(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Key) {
+        Key other = (Key) o;
+        return size == other.size;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return getBitmapString(size);
+    }
+
+    @Override
+    public void offer() {
+      pool.offer(this);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.EvictionHistory;
 import com.bumptech.glide.util.Synthetic;
 import java.util.HashMap;
 import java.util.Map;
@@ -26,16 +27,24 @@ public final class LruArrayPool implements ArrayPool {
   static final int MAX_OVER_SIZE_MULTIPLE = 8;
   /** Used to calculate the maximum % of the total pool size a single byte array may consume. */
   private static final int SINGLE_ARRAY_MAX_SIZE_DIVISOR = 2;
+  private static final int EVICTION_HISTORY_SIZE = 100;
 
   private final GroupedLinkedMap<Key, Object> groupedMap = new GroupedLinkedMap<>();
   private final KeyPool keyPool = new KeyPool();
   private final Map<Class<?>, NavigableMap<Integer, Integer>> sortedSizes = new HashMap<>();
   private final Map<Class<?>, ArrayAdapterInterface<?>> adapters = new HashMap<>();
-  private final int maxSize;
+  // The classes and lengths of evicted arrays, see getEvictionId.
+  private final EvictionHistory evictedArrays = new EvictionHistory(EVICTION_HISTORY_SIZE);
+  private final int initialMaxSize;
+  private int maxSize;
   private int currentSize;
+  private int hits;
+  private int misses;
+  private int evictedMisses;
 
   @VisibleForTesting
   public LruArrayPool() {
+    initialMaxSize = DEFAULT_SIZE;
     maxSize = DEFAULT_SIZE;
   }
 
@@ -45,9 +54,52 @@ public final class LruArrayPool implements ArrayPool {
    * @param maxSize The maximum size in integers of the pool.
    */
   public LruArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
     this.maxSize = maxSize;
   }
 
+  /**
+   * Sets a size multiplier that is applied to the size provided in the constructor to set the new
+   * maximum size of the pool. If the new size is less than the current size, arrays are evicted
+   * until the current size is less than or equal to the new size.
+   *
+   * @param multiplier The multiplier to apply.
+   */
+  public synchronized void setSizeMultiplier(float multiplier) {
+    Preconditions.checkArgument(multiplier >= 0, "Multiplier must be >= 0");
+    maxSize = Math.round(initialMaxSize * multiplier);
+    evict();
+  }
+
+  /**
+   * Returns the current maximum size of the pool in bytes.
+   */
+  public synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of gets that returned an array from the pool.
+   */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of gets that had to allocate a new array.
+   */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of gets that had to allocate a new array of the same type and length as an
+   * array that was recently evicted to keep the pool within its maximum size.
+   */
+  public synchronized int getEvictedMissCount() {
+    return evictedMisses;
+  }
+
   @Deprecated
   @Override
   public <T> void put(T array, Class<T> arrayClass) {
@@ -97,11 +149,16 @@ public final class LruArrayPool implements ArrayPool {
     ArrayAdapterInterface<T> arrayAdapter = getAdapterFromType(arrayClass);
     T result = getArrayForKey(key);
     if (result != null) {
+      hits++;
       currentSize -= arrayAdapter.getArrayLength(result) * arrayAdapter.getElementSizeInBytes();
       decrementArrayOfSize(arrayAdapter.getArrayLength(result), arrayClass);
     }
 
     if (result == null) {
+      misses++;
+      if (evictedArrays.remove(getEvictionId(arrayClass, key.size))) {
+        evictedMisses++;
+      }
       if (Log.isLoggable(arrayAdapter.getTag(), Log.VERBOSE)) {
         Log.v(arrayAdapter.getTag(), "Allocated " + key.size + " bytes");
       }
@@ -134,6 +191,8 @@ public final class LruArrayPool implements ArrayPool {
   @Override
   public synchronized void clearMemory() {
     evictToSize(0);
+    // Arrays cleared to free memory weren't evicted because of the pool's maximum size.
+    evictedArrays.clear();
   }
 
   @Override
@@ -157,12 +216,17 @@ public final class LruArrayPool implements ArrayPool {
       ArrayAdapterInterface<Object> arrayAdapter = getAdapterFromObject(evicted);
       currentSize -= arrayAdapter.getArrayLength(evicted) * arrayAdapter.getElementSizeInBytes();
       decrementArrayOfSize(arrayAdapter.getArrayLength(evicted), evicted.getClass());
+      evictedArrays.add(getEvictionId(evicted.getClass(), arrayAdapter.getArrayLength(evicted)));
       if (Log.isLoggable(arrayAdapter.getTag(), Log.VERBOSE)) {
         Log.v(arrayAdapter.getTag(), "evicted: " + arrayAdapter.getArrayLength(evicted));
       }
     }
   }
 
+  private static int getEvictionId(Class<?> arrayClass, int length) {
+    return 31 * arrayClass.hashCode() + length;
+  }
+
   private void decrementArrayOfSize(int size, Class<?> arrayClass) {
     NavigableMap<Integer, Integer> sizes = getSizesForAdapter(arrayClass);
     Integer current = sizes.get(size);
@@ -8,7 +8,9 @@ import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
+import com.bumptech.glide.util.EvictionHistory;
 import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -23,16 +25,20 @@ import java.util.Set;
 public class LruBitmapPool implements BitmapPool {
   private static final String TAG = "LruBitmapPool";
   private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+  private static final int EVICTION_HISTORY_SIZE = 100;
 
   private final LruPoolStrategy strategy;
   private final Set<Bitmap.Config> allowedConfigs;
   private final long initialMaxSize;
   private final BitmapTracker tracker;
+  // The sizes in bytes of evicted Bitmaps.
+  private final EvictionHistory evicted = new EvictionHistory(EVICTION_HISTORY_SIZE);
 
   private long maxSize;
   private long currentSize;
   private int hits;
   private int misses;
+  private int evictedMisses;
   private int puts;
   private int evictions;
 
@@ -68,11 +74,61 @@ public class LruBitmapPool implements BitmapPool {
     this(maxSize, getDefaultStrategy(), allowedConfigs);
   }
 
+  /**
+   * Returns a new LruBitmapPool that, on KitKat and above, returns the pooled {@link Bitmap} with
+   * the smallest allocation that fits each request, regardless of the pooled Bitmap's dimensions
+   * and {@link android.graphics.Bitmap.Config}.
+   *
+   * <p>The default pool only re-uses Bitmaps with the same number of bytes per pixel, so it misses
+   * more often when the app shows images with many different aspect ratios or configs. Below
+   * KitKat, Bitmaps can't be reconfigured and the returned pool behaves like the default pool.
+   *
+   * @param maxSize       The initial maximum size of the pool in bytes.
+   * @param maxWasteRatio The maximum number of bytes a returned Bitmap may have in excess of the
+   *                      number of bytes requested, as a ratio of the number of bytes requested.
+   *                      For example {@code 0.5f} allows a request for a 100KB Bitmap to re-use a
+   *                      pooled Bitmap of up to 150KB.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public static LruBitmapPool newBestFitPool(long maxSize, float maxWasteRatio) {
+    final LruPoolStrategy strategy;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      strategy = new BestFitStrategy(maxWasteRatio);
+    } else {
+      strategy = new AttributeStrategy();
+    }
+    return new LruBitmapPool(maxSize, strategy, getDefaultAllowedConfigs());
+  }
+
   @Override
   public long getMaxSize() {
     return maxSize;
   }
 
+  /**
+   * Returns the number of gets that returned a Bitmap from the pool.
+   */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of gets that had to allocate a new Bitmap.
+   */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of gets that had to allocate a new Bitmap with the same size in bytes as a
+   * Bitmap that was recently evicted to keep the pool within its maximum size.
+   */
+  public synchronized int getEvictedMissCount() {
+    return evictedMisses;
+  }
+
   @Override
   public synchronized void setSizeMultiplier(float sizeMultiplier) {
     maxSize = Math.round(initialMaxSize * sizeMultiplier);
@@ -175,6 +231,10 @@ public class LruBitmapPool implements BitmapPool {
         Log.d(TAG, "Missing bitmap=" + strategy.logBitmap(width, height, config));
       }
       misses++;
+      if (evicted.remove(
+          Util.getBitmapByteSize(width, height, config != null ? config : DEFAULT_CONFIG))) {
+        evictedMisses++;
+      }
     } else {
       hits++;
       currentSize -= strategy.getSize(result);
@@ -209,6 +269,10 @@ public class LruBitmapPool implements BitmapPool {
       Log.d(TAG, "clearMemory");
     }
     trimToSize(0);
+    synchronized (this) {
+      // Bitmaps cleared to free memory weren't evicted because of the pool's maximum size.
+      evicted.clear();
+    }
   }
 
   @SuppressLint("InlinedApi")
@@ -240,6 +304,7 @@ public class LruBitmapPool implements BitmapPool {
       tracker.remove(removed);
       currentSize -= strategy.getSize(removed);
       evictions++;
+      evicted.add(strategy.getSize(removed));
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Evicting bitmap=" + strategy.logBitmap(removed));
       }
@@ -270,7 +335,7 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static Set<Bitmap.Config> getDefaultAllowedConfigs() {
+  static Set<Bitmap.Config> getDefaultAllowedConfigs() {
     Set<Bitmap.Config> configs = new HashSet<>(Arrays.asList(Bitmap.Config.values()));
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
       // GIFs, among other types, end up with a native Bitmap config that doesn't map to a java
@@ -0,0 +1,357 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link BitmapPool} that splits {@link Bitmap}s into shards by {@link Bitmap.Config} and size
+ * class, each with its own lock.
+ *
+ * <p>{@link LruBitmapPool} synchronizes every operation on a single monitor, so decode threads
+ * that obtain or return Bitmaps at the same time contend with each other even if they use
+ * Bitmaps of entirely different sizes. This implementation puts each Bitmap in the shard for its
+ * config and the power of two that its size in bytes rounds up to. Each shard has its own
+ * {@link LruPoolStrategy} and only that shard's lock is held, and only while the strategy is
+ * updated. On KitKat and above, where Bitmaps can be reconfigured, gets look in the shards for
+ * each config the requested config can be reused from and for up to three larger size classes,
+ * which covers the same Bitmaps {@link SizeConfigStrategy} would return.
+ *
+ * <p>Sizes are tracked across all shards, so the pool is still bounded by a single maximum size.
+ * When the pool is over its maximum size, the least recently used Bitmap of the least recently
+ * used shard is evicted, which approximates the LRU order of {@link LruBitmapPool}. Only the
+ * shards that have been created are compared, which is usually a handful of config and size
+ * class combinations rather than every possible shard.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public class ShardedBitmapPool implements BitmapPool {
+  private static final String TAG = "ShardedBitmapPool";
+  private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+  private static final Bitmap.Config[] CONFIGS = Bitmap.Config.values();
+  // Sizes in bytes are ints, so there are at most 32 power of two size classes.
+  private static final int SIZE_CLASS_COUNT = 32;
+  // SizeConfigStrategy reuses Bitmaps up to eight, or 2^3, times larger than requested.
+  private static final int MAX_SIZE_CLASS_DISTANCE = 3;
+
+  private final Set<Bitmap.Config> allowedConfigs;
+  private final long initialMaxSize;
+  // Shards are created when the first Bitmap is put in them. Null configs use index 0.
+  private final AtomicReferenceArray<Shard> shards =
+      new AtomicReferenceArray<>((CONFIGS.length + 1) * SIZE_CLASS_COUNT);
+  // The shards in the array above, so that eviction doesn't have to look at every index.
+  private final CopyOnWriteArrayList<Shard> createdShards = new CopyOnWriteArrayList<>();
+  private final AtomicLong currentSize = new AtomicLong();
+  private final Lock evictionLock = new ReentrantLock();
+  private volatile long maxSize;
+
+  // Exposed for testing only.
+  ShardedBitmapPool(long maxSize, Set<Bitmap.Config> allowedConfigs) {
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+    this.allowedConfigs = allowedConfigs;
+  }
+
+  /**
+   * Constructor for ShardedBitmapPool.
+   *
+   * @param maxSize The initial maximum size of the pool in bytes.
+   */
+  public ShardedBitmapPool(long maxSize) {
+    this(maxSize, LruBitmapPool.getDefaultAllowedConfigs());
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @VisibleForTesting
+  long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    trimToSize(maxSize);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    if (bitmap == null) {
+      throw new NullPointerException("Bitmap must not be null");
+    }
+    if (bitmap.isRecycled()) {
+      throw new IllegalStateException("Cannot pool recycled bitmap");
+    }
+    int size = Util.getBitmapByteSize(bitmap);
+    if (!bitmap.isMutable() || size > maxSize || !allowedConfigs.contains(bitmap.getConfig())) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Reject bitmap from pool"
+                + ", size: " + size
+                + ", is mutable: " + bitmap.isMutable()
+                + ", is allowed config: " + allowedConfigs.contains(bitmap.getConfig()));
+      }
+      bitmap.recycle();
+      return;
+    }
+
+    Shard shard = getOrCreateShard(getShardIndex(bitmap.getConfig(), getSizeClass(size)));
+    synchronized (shard) {
+      shard.strategy.put(bitmap);
+      shard.count++;
+      shard.lastUsed = System.nanoTime();
+    }
+    currentSize.addAndGet(size);
+
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Put bitmap in pool=" + shard.strategy.logBitmap(bitmap));
+    }
+    evict();
+  }
+
+  private void evict() {
+    // Only one thread needs to evict, the others can return immediately.
+    while (currentSize.get() > maxSize && evictionLock.tryLock()) {
+      try {
+        trimToSizeLocked(maxSize);
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  @NonNull
+  @Override
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result != null) {
+      // Bitmaps in the pool contain random data that in some cases must be cleared for an image
+      // to be rendered correctly. See issue #131.
+      result.eraseColor(Color.TRANSPARENT);
+    } else {
+      result = createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result == null) {
+      result = createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  private static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
+    return Bitmap.createBitmap(width, height, config != null ? config : DEFAULT_CONFIG);
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  private static void assertNotHardwareConfig(Bitmap.Config config) {
+    // Avoid short circuiting on sdk int since it breaks on some versions of Android.
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+      return;
+    }
+
+    if (config == Bitmap.Config.HARDWARE) {
+      throw new IllegalArgumentException("Cannot create a mutable Bitmap with config: " + config
+          + ". Consider setting Downsampler#ALLOW_HARDWARE_CONFIG to false in your RequestOptions"
+          + " and/or in GlideBuilder.setDefaultRequestOptions");
+    }
+  }
+
+  @Nullable
+  private Bitmap getDirtyOrNull(int width, int height, @Nullable Bitmap.Config config) {
+    assertNotHardwareConfig(config);
+    // Config will be null for non public config types, see issue #194.
+    Bitmap.Config requested = config != null ? config : DEFAULT_CONFIG;
+    int sizeClass = getSizeClass(Util.getBitmapByteSize(width, height, requested));
+    boolean canReconfigure = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    Bitmap.Config[] inConfigs =
+        canReconfigure ? getInConfigs(requested) : new Bitmap.Config[] { requested };
+    int maxSizeClass = canReconfigure
+        ? Math.min(sizeClass + MAX_SIZE_CLASS_DISTANCE, SIZE_CLASS_COUNT - 1) : sizeClass;
+
+    for (Bitmap.Config inConfig : inConfigs) {
+      for (int i = sizeClass; i <= maxSizeClass; i++) {
+        Shard shard = shards.get(getShardIndex(inConfig, i));
+        if (shard == null || shard.count == 0) {
+          continue;
+        }
+        Bitmap result;
+        synchronized (shard) {
+          result = shard.strategy.get(width, height, requested);
+          if (result != null) {
+            shard.count--;
+            shard.lastUsed = System.nanoTime();
+          }
+        }
+        if (result != null) {
+          currentSize.addAndGet(-Util.getBitmapByteSize(result));
+          normalize(result);
+          return result;
+        }
+      }
+    }
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Missing bitmap=" + SizeConfigStrategy.getBitmapString(
+          Util.getBitmapByteSize(width, height, requested), config));
+    }
+    return null;
+  }
+
+  @TargetApi(Build.VERSION_CODES.KITKAT)
+  private static Bitmap.Config[] getInConfigs(Bitmap.Config requested) {
+    return SizeConfigStrategy.getInConfigs(requested);
+  }
+
+  // Setting these two values provides Bitmaps that are essentially equivalent to those returned
+  // from Bitmap.createBitmap.
+  private static void normalize(Bitmap bitmap) {
+    bitmap.setHasAlpha(true);
+    maybeSetPreMultiplied(bitmap);
+  }
+
+  @TargetApi(Build.VERSION_CODES.KITKAT)
+  private static void maybeSetPreMultiplied(Bitmap bitmap) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      bitmap.setPremultiplied(true);
+    }
+  }
+
+  @Override
+  public void clearMemory() {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "clearMemory");
+    }
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "trimMemory, level=" + level);
+    }
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  private void trimToSize(long size) {
+    evictionLock.lock();
+    try {
+      trimToSizeLocked(size);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void trimToSizeLocked(long size) {
+    while (currentSize.get() > size) {
+      Shard shard = getLeastRecentlyUsedShard();
+      if (shard == null) {
+        // Another thread may have put a Bitmap in a shard, but not yet added its size.
+        return;
+      }
+      Bitmap removed;
+      synchronized (shard) {
+        removed = shard.strategy.removeLast();
+        if (removed != null) {
+          shard.count--;
+        }
+      }
+      // Another thread may have emptied the shard since we looked at it.
+      if (removed == null) {
+        continue;
+      }
+      currentSize.addAndGet(-Util.getBitmapByteSize(removed));
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Evicting bitmap=" + shard.strategy.logBitmap(removed));
+      }
+      removed.recycle();
+    }
+  }
+
+  @Nullable
+  private Shard getLeastRecentlyUsedShard() {
+    Shard result = null;
+    for (Shard shard : createdShards) {
+      if (shard.count > 0
+          && (result == null || shard.lastUsed - result.lastUsed < 0)) {
+        result = shard;
+      }
+    }
+    return result;
+  }
+
+  private Shard getOrCreateShard(int index) {
+    Shard shard = shards.get(index);
+    if (shard == null) {
+      Shard newShard = new Shard();
+      if (shards.compareAndSet(index, null, newShard)) {
+        createdShards.add(newShard);
+        shard = newShard;
+      } else {
+        shard = shards.get(index);
+      }
+    }
+    return shard;
+  }
+
+  private static int getShardIndex(@Nullable Bitmap.Config config, int sizeClass) {
+    int configIndex = config == null ? 0 : config.ordinal() + 1;
+    return configIndex * SIZE_CLASS_COUNT + sizeClass;
+  }
+
+  /**
+   * Returns the exponent of the smallest power of two greater than or equal to the given size.
+   */
+  private static int getSizeClass(int size) {
+    return size <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  private static LruPoolStrategy createStrategy() {
+    final LruPoolStrategy strategy;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      strategy = new SizeConfigStrategy();
+    } else {
+      strategy = new AttributeStrategy();
+    }
+    return strategy;
+  }
+
+  private static final class Shard {
+    // Guarded by this.
+    @Synthetic final LruPoolStrategy strategy = createStrategy();
+    // Written while holding this, but read without it to skip empty shards.
+    @Synthetic volatile int count;
+    @Synthetic volatile long lastUsed;
+
+    @Synthetic
+    Shard() { }
+  }
+}
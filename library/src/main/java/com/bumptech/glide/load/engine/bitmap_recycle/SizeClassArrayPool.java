@@ -0,0 +1,327 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * A fixed size Array Pool that rounds array lengths up to powers of two and keeps a small cache
+ * of arrays for each thread in front of a shared, LRU evicted pool.
+ *
+ * <p>{@link LruArrayPool} synchronizes every get and put on a single monitor and looks up the
+ * smallest available length in a sorted map. Streams and decoders obtain and return arrays
+ * several times for each image, from every decode thread. This pool instead only allocates arrays
+ * whose lengths are powers of two, so each array length is its own size class and a get is a
+ * single lookup. Each thread first gets and puts arrays of up to
+ * {@link #MAX_MAGAZINE_ARRAY_SIZE_BYTES} in its own magazine of at most
+ * {@link #MAGAZINE_CAPACITY} arrays per size class, and only falls back to the shared depot when
+ * its magazine is empty or full. Magazines are only locked by other threads when the pool is
+ * cleared or trimmed, so their locks are almost never contended.
+ *
+ * <p>The maximum size applies to the shared depot. Each thread's magazine holds at most
+ * {@link #MAX_MAGAZINE_SIZE_BYTES} in addition, which is released when the pool is trimmed or the
+ * thread exits. Arrays with lengths that aren't powers of two, like arrays returned by
+ * {@link #getExact(int, Class)} for other lengths, are never pooled.
+ *
+ * <p>Use {@link com.bumptech.glide.GlideBuilder#setArrayPool(ArrayPool)} to use this pool.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class SizeClassArrayPool implements ArrayPool {
+  // 4MB.
+  private static final int DEFAULT_SIZE = 4 * 1024 * 1024;
+  /** Used to calculate the maximum % of the total pool size a single byte array may consume. */
+  private static final int SINGLE_ARRAY_MAX_SIZE_DIVISOR = 2;
+  // Array lengths are positive ints, so 2^30 is the largest power of two length.
+  private static final int SIZE_CLASS_COUNT = 31;
+  private static final ArrayAdapterInterface<?>[] ADAPTERS =
+      new ArrayAdapterInterface<?>[] { new ByteArrayAdapter(), new IntegerArrayAdapter() };
+
+  @VisibleForTesting
+  static final int MAGAZINE_CAPACITY = 4;
+  @VisibleForTesting
+  static final int MAX_MAGAZINE_ARRAY_SIZE_BYTES = STANDARD_BUFFER_SIZE_BYTES;
+  @VisibleForTesting
+  static final int MAX_MAGAZINE_SIZE_BYTES = 2 * STANDARD_BUFFER_SIZE_BYTES;
+
+  private final Key[] keys = new Key[ADAPTERS.length * SIZE_CLASS_COUNT];
+  private final GroupedLinkedMap<Key, Object> depot = new GroupedLinkedMap<>();
+  private final Set<Magazine> magazines =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Magazine, Boolean>()));
+  private final ThreadLocal<Magazine> threadMagazine = new ThreadLocal<Magazine>() {
+    @Override
+    protected Magazine initialValue() {
+      Magazine magazine = new Magazine(keys.length);
+      magazines.add(magazine);
+      return magazine;
+    }
+  };
+  private final int maxSize;
+  // Guarded by depot.
+  private int currentSize;
+
+  public SizeClassArrayPool() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Constructor for a new pool.
+   *
+   * @param maxSize The maximum size in bytes of the shared part of the pool.
+   */
+  public SizeClassArrayPool(int maxSize) {
+    this.maxSize = maxSize;
+    for (int adapter = 0; adapter < ADAPTERS.length; adapter++) {
+      for (int sizeClass = 0; sizeClass < SIZE_CLASS_COUNT; sizeClass++) {
+        int index = adapter * SIZE_CLASS_COUNT + sizeClass;
+        int length = 1 << sizeClass;
+        keys[index] = new Key(index, length, length * ADAPTERS[adapter].getElementSizeInBytes());
+      }
+    }
+  }
+
+  @Deprecated
+  @Override
+  public <T> void put(T array, Class<T> arrayClass) {
+    put(array);
+  }
+
+  @Override
+  public <T> void put(T array) {
+    @SuppressWarnings("unchecked")
+    Class<T> arrayClass = (Class<T>) array.getClass();
+    int adapterIndex = getAdapterIndex(arrayClass);
+    ArrayAdapterInterface<T> adapter = getAdapter(adapterIndex);
+    int length = adapter.getArrayLength(array);
+    if (!isPowerOfTwo(length) || !isSmallEnoughForReuse(length, adapter)) {
+      return;
+    }
+    Key key = keys[adapterIndex * SIZE_CLASS_COUNT + getSizeClass(length)];
+    if (key.byteSize <= MAX_MAGAZINE_ARRAY_SIZE_BYTES
+        && threadMagazine.get().push(key, array)) {
+      return;
+    }
+    synchronized (depot) {
+      depot.put(key, array);
+      currentSize += key.byteSize;
+      evictToSize(maxSize);
+    }
+  }
+
+  @Override
+  public <T> T get(int size, Class<T> arrayClass) {
+    int adapterIndex = getAdapterIndex(arrayClass);
+    ArrayAdapterInterface<T> adapter = getAdapter(adapterIndex);
+    if (size > 1 << (SIZE_CLASS_COUNT - 1)) {
+      return adapter.newArray(size);
+    }
+    int sizeClass = getSizeClass(size);
+    int length = 1 << sizeClass;
+    if (!isSmallEnoughForReuse(length, adapter)) {
+      return adapter.newArray(size);
+    }
+    return getForKey(keys[adapterIndex * SIZE_CLASS_COUNT + sizeClass], adapter);
+  }
+
+  @Override
+  public <T> T getExact(int size, Class<T> arrayClass) {
+    int adapterIndex = getAdapterIndex(arrayClass);
+    ArrayAdapterInterface<T> adapter = getAdapter(adapterIndex);
+    if (!isPowerOfTwo(size) || !isSmallEnoughForReuse(size, adapter)) {
+      return adapter.newArray(size);
+    }
+    return getForKey(keys[adapterIndex * SIZE_CLASS_COUNT + getSizeClass(size)], adapter);
+  }
+
+  // Our cast is safe because the Key is based on the type.
+  @SuppressWarnings("unchecked")
+  private <T> T getForKey(Key key, ArrayAdapterInterface<T> adapter) {
+    Object result = key.byteSize <= MAX_MAGAZINE_ARRAY_SIZE_BYTES
+        ? threadMagazine.get().pop(key) : null;
+    if (result == null) {
+      synchronized (depot) {
+        result = depot.get(key);
+        if (result != null) {
+          currentSize -= key.byteSize;
+        }
+      }
+    }
+    if (result == null) {
+      if (Log.isLoggable(adapter.getTag(), Log.VERBOSE)) {
+        Log.v(adapter.getTag(), "Allocated " + key.length + " bytes");
+      }
+      result = adapter.newArray(key.length);
+    }
+    return (T) result;
+  }
+
+  private boolean isSmallEnoughForReuse(int length, ArrayAdapterInterface<?> adapter) {
+    return length <= maxSize / SINGLE_ARRAY_MAX_SIZE_DIVISOR / adapter.getElementSizeInBytes();
+  }
+
+  @Override
+  public void clearMemory() {
+    clearMagazines();
+    synchronized (depot) {
+      evictToSize(0);
+    }
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      clearMagazines();
+      synchronized (depot) {
+        evictToSize(maxSize / 2);
+      }
+    }
+  }
+
+  private void clearMagazines() {
+    List<Magazine> toClear;
+    synchronized (magazines) {
+      toClear = new ArrayList<>(magazines);
+    }
+    for (Magazine magazine : toClear) {
+      magazine.clear();
+    }
+  }
+
+  // Must be called while holding the depot lock.
+  private void evictToSize(int size) {
+    while (currentSize > size) {
+      Object evicted = depot.removeLast();
+      if (evicted == null) {
+        break;
+      }
+      ArrayAdapterInterface<Object> adapter = getAdapter(getAdapterIndex(evicted.getClass()));
+      int length = adapter.getArrayLength(evicted);
+      currentSize -= length * adapter.getElementSizeInBytes();
+      if (Log.isLoggable(adapter.getTag(), Log.VERBOSE)) {
+        Log.v(adapter.getTag(), "evicted: " + length);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int getCurrentSize() {
+    synchronized (depot) {
+      return currentSize;
+    }
+  }
+
+  @VisibleForTesting
+  int getMagazineSize() {
+    return threadMagazine.get().getSize();
+  }
+
+  private static boolean isPowerOfTwo(int length) {
+    return length > 0 && (length & (length - 1)) == 0;
+  }
+
+  /**
+   * Returns the exponent of the smallest power of two greater than or equal to the given size.
+   */
+  private static int getSizeClass(int size) {
+    return size <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  private static int getAdapterIndex(Class<?> arrayClass) {
+    if (arrayClass.equals(byte[].class)) {
+      return 0;
+    } else if (arrayClass.equals(int[].class)) {
+      return 1;
+    }
+    throw new IllegalArgumentException("No array pool found for: " + arrayClass.getSimpleName());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> ArrayAdapterInterface<T> getAdapter(int adapterIndex) {
+    return (ArrayAdapterInterface<T>) ADAPTERS[adapterIndex];
+  }
+
+  /**
+   * A small cache of arrays used by a single thread.
+   */
+  private static final class Magazine {
+    // Indexed by Key#index, guarded by this.
+    private final Object[][] stacks;
+    private final int[] counts;
+    private int size;
+
+    @Synthetic
+    Magazine(int keyCount) {
+      stacks = new Object[keyCount][];
+      counts = new int[keyCount];
+    }
+
+    synchronized boolean push(Key key, Object array) {
+      int index = key.index;
+      if (counts[index] == MAGAZINE_CAPACITY || size + key.byteSize > MAX_MAGAZINE_SIZE_BYTES) {
+        return false;
+      }
+      if (stacks[index] == null) {
+        stacks[index] = new Object[MAGAZINE_CAPACITY];
+      }
+      stacks[index][counts[index]++] = array;
+      size += key.byteSize;
+      return true;
+    }
+
+    @Nullable
+    synchronized Object pop(Key key) {
+      int index = key.index;
+      if (counts[index] == 0) {
+        return null;
+      }
+      Object[] stack = stacks[index];
+      Object result = stack[--counts[index]];
+      stack[counts[index]] = null;
+      size -= key.byteSize;
+      return result;
+    }
+
+    synchronized void clear() {
+      for (int i = 0; i < stacks.length; i++) {
+        stacks[i] = null;
+        counts[i] = 0;
+      }
+      size = 0;
+    }
+
+    synchronized int getSize() {
+      return size;
+    }
+  }
+
+  private static final class Key implements Poolable {
+    @Synthetic final int index;
+    @Synthetic final int length;
+    @Synthetic final int byteSize;
+
+    Key(int index, int length, int byteSize) {
+      this.index = index;
+      this.length = length;
+      this.byteSize = byteSize;
+    }
+
+    @Override
+    public void offer() {
+      // Keys are created once per size class and never released.
+    }
+
+    @Override
+    public String toString() {
+      return "Key{" + "length=" + length + ", byteSize=" + byteSize + '}';
+    }
+  }
+}
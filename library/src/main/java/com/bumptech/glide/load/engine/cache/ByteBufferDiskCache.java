@@ -0,0 +1,71 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link DiskCache} that can return the data of its entries as {@link ByteBuffer}s and accept
+ * data as {@link ByteBuffer}s or written to a channel, avoiding the cost of opening a file and
+ * copying data through streams for each entry.
+ *
+ * <p>When the disk cache is a {@code ByteBufferDiskCache}, loads from the disk cache pass the
+ * returned buffers directly to the {@link ByteBuffer} decoders and only fall back to
+ * {@link #get(Key)} if no {@link ByteBuffer} decoder can produce the requested resource or if
+ * decoding the buffer fails. Implementations must therefore still return a File from
+ * {@link #get(Key)} for every entry they return a buffer for. Data encoded by
+ * {@link com.bumptech.glide.load.model.ByteBufferEncoder} is written with
+ * {@link #putBuffer(Key, ByteBuffer)} and data encoded by other
+ * {@link com.bumptech.glide.load.ChannelEncoder}s is written with
+ * {@link #putChannel(Key, ChannelWriter)}.
+ */
+public interface ByteBufferDiskCache extends DiskCache {
+
+  /**
+   * An interface to write data to a key in the disk cache using a channel.
+   */
+  interface ChannelWriter {
+    /**
+     * Writes data to the channel and returns true if the write was successful and should be
+     * committed, and false if the write should be aborted.
+     *
+     * @param channel The channel the ChannelWriter should write to, which must not be closed by the
+     *                ChannelWriter.
+     */
+    boolean write(@NonNull WritableByteChannel channel);
+  }
+
+  /**
+   * Returns a read only {@link ByteBuffer} containing the data at the given key, or {@code null}
+   * if the key isn't in the cache.
+   *
+   * <p>The returned buffer's position is zero and its limit is the length of the data. The buffer
+   * remains readable and its contents remain unchanged even if the entry is later evicted or
+   * deleted.
+   *
+   * @param key The key in the cache.
+   */
+  @Nullable
+  ByteBuffer getBuffer(Key key);
+
+  /**
+   * Write to a key in the cache using a {@link ChannelWriter}.
+   *
+   * @param key    The key to write to.
+   * @param writer An interface that will write data given a channel for the key.
+   * @see #put(Key, Writer)
+   */
+  void putChannel(Key key, ChannelWriter writer);
+
+  /**
+   * Write the contents of the given buffer, from zero to its limit, to a key in the cache without
+   * changing the buffer's position.
+   *
+   * @param key  The key to write to.
+   * @param data The data to write.
+   * @see #put(Key, Writer)
+   */
+  void putBuffer(Key key, ByteBuffer data);
+}
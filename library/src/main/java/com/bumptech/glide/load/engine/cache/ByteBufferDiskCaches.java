@@ -0,0 +1,148 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads and writes {@link ByteBuffer}s and {@link ByteBufferDiskCache.ChannelWriter}s to any
+ * {@link DiskCache}, using the {@link ByteBufferDiskCache} methods if they're available and
+ * {@link File}s otherwise, and shares the file handling used by the {@link ByteBufferDiskCache}
+ * implementations.
+ */
+final class ByteBufferDiskCaches {
+  private static final String TAG = "ByteBufferDiskCaches";
+
+  private ByteBufferDiskCaches() {
+    // Utility class.
+  }
+
+  /**
+   * Returns the data at the given key, or {@code null} if the key isn't in the cache or its file
+   * couldn't be read.
+   */
+  @Nullable
+  static ByteBuffer readBuffer(DiskCache diskCache, Key key) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      return ((ByteBufferDiskCache) diskCache).getBuffer(key);
+    }
+    File file = diskCache.get(key);
+    return file != null ? readFile(file) : null;
+  }
+
+  /**
+   * Returns the contents of the given cache file, or {@code null} if it couldn't be read.
+   */
+  @Nullable
+  static ByteBuffer readFile(File file) {
+    try {
+      return ByteBufferUtil.fromFile(file);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Writes the contents of the given buffer, from zero to its limit, to the given key.
+   */
+  static void writeBuffer(DiskCache diskCache, Key key, ByteBuffer data) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      ((ByteBufferDiskCache) diskCache).putBuffer(key, data);
+    } else {
+      diskCache.put(key, ChannelFileWriter.forBuffer(data));
+    }
+  }
+
+  /**
+   * Writes the data written by the given {@link ByteBufferDiskCache.ChannelWriter} to the given
+   * key.
+   */
+  static void writeChannel(
+      DiskCache diskCache, Key key, ByteBufferDiskCache.ChannelWriter writer) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      ((ByteBufferDiskCache) diskCache).putChannel(key, writer);
+    } else {
+      diskCache.put(key, new ChannelFileWriter(writer));
+    }
+  }
+
+  /**
+   * Writes the given data to {@code temp} without holding {@code lock} and then, holding
+   * {@code lock}, renames it to {@code destination} unless {@code generation} has changed from
+   * {@code expectedGeneration}.
+   *
+   * <p>Caches use this to rewrite their index or statistics files without blocking reads and
+   * writes, and increment their generation when they're cleared so that a file created before
+   * the cache was cleared doesn't replace one created after. {@code temp} is always deleted.
+   */
+  static void replaceFile(ByteBuffer data, File temp, File destination, Object lock,
+      AtomicInteger generation, int expectedGeneration) throws IOException {
+    try {
+      writeFile(data, temp);
+      synchronized (lock) {
+        if (generation.get() == expectedGeneration && !temp.renameTo(destination)) {
+          throw new IOException("Failed to rename: " + temp + " to: " + destination);
+        }
+      }
+    } finally {
+      deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Replaces the contents of the given file with the given data from its position to its limit,
+   * creating the file's parent directory if it doesn't exist.
+   */
+  static void writeFile(ByteBuffer source, File file) throws IOException {
+    File parent = file.getParentFile();
+    if (!parent.mkdirs() && !parent.isDirectory()) {
+      throw new IOException("Failed to create directory: " + parent);
+    }
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      randomAccessFile.setLength(0);
+      FileChannel channel = randomAccessFile.getChannel();
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    } finally {
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the files in the given directory, but not its subdirectories' contents.
+   */
+  static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      deleteIfExists(file);
+    }
+  }
+
+  static void deleteIfExists(File file) {
+    if (!file.delete() && file.exists() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Failed to delete: " + file);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Adapts a {@link ByteBufferDiskCache.ChannelWriter} to a {@link DiskCache.Writer} for caches that
+ * write each entry to its own {@link File}.
+ */
+final class ChannelFileWriter implements DiskCache.Writer {
+  private static final String TAG = "ChannelFileWriter";
+
+  private final ByteBufferDiskCache.ChannelWriter writer;
+
+  ChannelFileWriter(ByteBufferDiskCache.ChannelWriter writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * Returns a {@link DiskCache.Writer} that writes the contents of the given buffer, from zero to
+   * its limit.
+   */
+  static DiskCache.Writer forBuffer(final ByteBuffer data) {
+    return new ChannelFileWriter(new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        try {
+          ByteBufferUtil.toChannel(data, channel);
+          return true;
+        } catch (IOException e) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Failed to write data", e);
+          }
+          return false;
+        }
+      }
+    });
+  }
+
+  @Override
+  public boolean write(@NonNull File file) {
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      FileChannel channel = randomAccessFile.getChannel();
+      channel.truncate(0);
+      return writer.write(channel);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to open channel for: " + file, e);
+      }
+      return false;
+    } finally {
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+}
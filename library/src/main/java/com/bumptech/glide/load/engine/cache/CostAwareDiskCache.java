@@ -0,0 +1,502 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ByteBufferDiskCache} that writes a file per entry like {@link DiskLruCacheWrapper}, but
+ * evicts entries based on their size, how often they're read and how expensive they are to
+ * recreate rather than only on how recently they were read.
+ *
+ * <p>Eviction uses the Greedy Dual Size Frequency algorithm. Each entry has a priority of
+ * {@code L + hits * cost / size}, where {@code L} starts at zero and is raised to the priority of
+ * each evicted entry, so entries that haven't been read recently age out. The entry with the
+ * lowest priority is evicted first. Small entries that are read often, like thumbnails, are kept
+ * in favor of large entries that are read rarely, like the original data of full size images,
+ * unless the large entries are much more expensive to recreate. The cost of each entry is given
+ * by a {@link CostFunction} when the entry is written.
+ *
+ * <p>The size, cost, hit count and priority of each entry are kept in a statistics file that's
+ * rewritten periodically, so that they're retained across process restarts. Entries whose
+ * statistics weren't written before the process was stopped are treated as new entries the next
+ * time the cache is opened.
+ *
+ * <p>There must be no more than one active instance for a given directory at a time.
+ */
+public final class CostAwareDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "CostAwareDiskCache";
+  @VisibleForTesting
+  static final String STATS_FILE = "stats";
+  private static final String TEMP_DIRECTORY = "tmp";
+  // Entries that were written without statistics are assumed to be cheap to recreate.
+  private static final int UNKNOWN_COST = 1;
+  private static final int MAX_HITS = Integer.MAX_VALUE / 2;
+  private static final int MAX_KEY_LENGTH = 256;
+
+  // The statistics file starts with a magic number, a version, L, and the number of entries,
+  // followed by the key length, key, size, cost, hit count and priority of each entry.
+  private static final int STATS_MAGIC = 0x47445346;
+  private static final int STATS_VERSION = 1;
+  private static final int STATS_HEADER_SIZE = 20;
+  private static final int STATS_ENTRY_SIZE = 28;
+  // The statistics are rewritten after this many changes, or after a change for every eighth
+  // entry in larger caches, so that the cost of rewriting them is spread across many changes.
+  private static final int MIN_STATS_WRITE_INTERVAL = 100;
+  private static final int STATS_WRITE_INTERVAL_DIVISOR = 8;
+
+  private static final Comparator<Entry> PRIORITY_ORDER = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry first, Entry second) {
+      int result = Double.compare(first.priority, second.priority);
+      if (result != 0) {
+        return result;
+      }
+      return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+    }
+  };
+
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final TreeSet<Entry> evictionOrder = new TreeSet<>(PRIORITY_ORDER);
+  private final File directory;
+  private final File tempDirectory;
+  private final long maxSize;
+  private final CostFunction costFunction;
+  private long currentSize;
+  private double inflation;
+  private long nextSequence;
+  private int changesSinceStatsWritten;
+  // Incremented when the cache is cleared so that statistics taken before it was cleared are
+  // discarded.
+  private final AtomicInteger statsGeneration = new AtomicInteger();
+  private boolean isOpen;
+
+  /**
+   * Estimates how expensive it would be to recreate the data written to the cache for a given
+   * {@link Key}.
+   */
+  public interface CostFunction {
+
+    /**
+     * Returns the relative cost of recreating the data for the given key, which must be at least
+     * one.
+     */
+    int getCost(@NonNull Key key);
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size.
+   *
+   * @param directory    The directory for the disk cache
+   * @param maxSize      The max size for the disk cache
+   * @param costFunction Estimates the cost of recreating each entry.
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize, CostFunction costFunction) {
+    return new CostAwareDiskCache(directory, maxSize, costFunction);
+  }
+
+  private CostAwareDiskCache(File directory, long maxSize, CostFunction costFunction) {
+    Preconditions.checkArgument(maxSize > 0, "Max size must be > 0");
+    this.directory = directory;
+    this.tempDirectory = new File(directory, TEMP_DIRECTORY);
+    this.maxSize = maxSize;
+    this.costFunction = Preconditions.checkNotNull(costFunction);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    File file = get(key);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    Entry entry;
+    synchronized (this) {
+      try {
+        openIfNeeded();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to get from disk cache", e);
+        }
+        return null;
+      }
+      entry = entries.get(safeKey);
+      if (entry == null) {
+        return null;
+      }
+      recordHit(entry);
+    }
+    // Check the file without holding the lock, it's rarely missing and the check may block on
+    // slow storage.
+    File result = getFile(safeKey);
+    if (!result.exists()) {
+      synchronized (this) {
+        // The file was deleted outside of the cache.
+        if (entries.get(safeKey) == entry) {
+          remove(entry);
+        }
+      }
+      result = null;
+    }
+    writeStatsIfNeeded();
+    return result;
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    put(key, new ChannelFileWriter(writer));
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    put(key, ChannelFileWriter.forBuffer(data));
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    // We want to make sure that puts block so that data is available when put completes. We may
+    // actually not write any data if we find that data is written by the time we acquire the lock.
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    writeLocker.acquire(safeKey);
+    File temp = new File(tempDirectory, safeKey);
+    try {
+      synchronized (this) {
+        openIfNeeded();
+        if (entries.containsKey(safeKey)) {
+          return;
+        }
+      }
+      if (!writer.write(temp) || !temp.exists()) {
+        return;
+      }
+      long size = temp.length();
+      int cost = Math.max(1, costFunction.getCost(key));
+      synchronized (this) {
+        if (size > maxSize) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Entry for: " + safeKey + " is larger than the cache, size: " + size);
+          }
+          return;
+        }
+        File file = getFile(safeKey);
+        if (!temp.renameTo(file)) {
+          throw new IOException("Failed to rename: " + temp + " to: " + file);
+        }
+        Entry entry = new Entry(safeKey, size, cost, 1 /*hits*/, nextSequence++);
+        entry.priority = getPriority(entry);
+        add(entry);
+        trimToSize(entry);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to put to disk cache", e);
+      }
+    } finally {
+      ByteBufferDiskCaches.deleteIfExists(temp);
+      writeLocker.release(safeKey);
+    }
+    writeStatsIfNeeded();
+  }
+
+  @Override
+  public synchronized void delete(Key key) {
+    try {
+      openIfNeeded();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to delete from disk cache", e);
+      }
+      return;
+    }
+    Entry entry = entries.get(safeKeyGenerator.getSafeKey(key));
+    if (entry != null) {
+      remove(entry);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    statsGeneration.incrementAndGet();
+    // Delete every file in the directory rather than only the known entries, the cache may not
+    // have been opened yet in this process. Files in the temp directory belong to puts that are
+    // still in progress.
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!file.equals(tempDirectory)) {
+          ByteBufferDiskCaches.deleteIfExists(file);
+        }
+      }
+    }
+    entries.clear();
+    evictionOrder.clear();
+    currentSize = 0;
+    inflation = 0;
+    changesSinceStatsWritten = 0;
+    // Re-list the directory the next time the cache is used, in case any files couldn't be
+    // deleted.
+    isOpen = false;
+  }
+
+  @VisibleForTesting
+  synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  /**
+   * Writes the statistics of every entry to disk.
+   */
+  @VisibleForTesting
+  void flushStats() {
+    writeStats(true /*force*/);
+  }
+
+  private void openIfNeeded() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Failed to create directory: " + directory);
+    }
+    if (!tempDirectory.mkdirs() && !tempDirectory.isDirectory()) {
+      throw new IOException("Failed to create directory: " + tempDirectory);
+    }
+    ByteBufferDiskCaches.deleteContents(tempDirectory);
+    entries.clear();
+    evictionOrder.clear();
+    currentSize = 0;
+    inflation = 0;
+
+    Map<String, Entry> stats = readStats();
+    String[] names = directory.list();
+    if (names != null) {
+      for (String name : names) {
+        if (name.equals(STATS_FILE) || name.equals(TEMP_DIRECTORY)) {
+          continue;
+        }
+        Entry entry = stats.get(name);
+        if (entry == null) {
+          long size = getFile(name).length();
+          entry = new Entry(name, size, UNKNOWN_COST, 1 /*hits*/, 0 /*sequence*/);
+          entry.priority = getPriority(entry);
+        }
+        entry.sequence = nextSequence++;
+        add(entry);
+      }
+    }
+    isOpen = true;
+    // The maximum size may have been reduced since the entries were written.
+    trimToSize(null /*keep*/);
+  }
+
+  /**
+   * Reads the statistics file and sets L, or returns an empty map if the file is missing or
+   * corrupt.
+   */
+  private Map<String, Entry> readStats() {
+    Map<String, Entry> result = new HashMap<>();
+    File file = getStatsFile();
+    if (!file.exists()) {
+      return result;
+    }
+    try {
+      ByteBuffer stats = ByteBufferUtil.fromFile(file);
+      if (stats.getInt() != STATS_MAGIC || stats.getInt() != STATS_VERSION) {
+        throw new IOException("Unrecognized statistics");
+      }
+      double savedInflation = stats.getDouble();
+      int count = stats.getInt();
+      for (int i = 0; i < count; i++) {
+        int keyLength = stats.getInt();
+        if (keyLength <= 0 || keyLength > MAX_KEY_LENGTH) {
+          throw new IOException("Corrupt statistics");
+        }
+        byte[] keyBytes = new byte[keyLength];
+        stats.get(keyBytes);
+        long size = stats.getLong();
+        int cost = stats.getInt();
+        int hits = stats.getInt();
+        double priority = stats.getDouble();
+        if (size < 0 || cost < 1 || hits < 1 || Double.isNaN(priority)) {
+          throw new IOException("Corrupt statistics");
+        }
+        String safeKey = new String(keyBytes, Key.CHARSET);
+        Entry entry = new Entry(safeKey, size, cost, hits, 0 /*sequence*/);
+        entry.priority = priority;
+        result.put(safeKey, entry);
+      }
+      inflation = savedInflation;
+    } catch (IOException | RuntimeException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to read statistics, treating all entries as new", e);
+      }
+      result.clear();
+      ByteBufferDiskCaches.deleteIfExists(file);
+    }
+    return result;
+  }
+
+  private void writeStatsIfNeeded() {
+    writeStats(false /*force*/);
+  }
+
+  private void writeStats(boolean force) {
+    byte[] stats;
+    int generation;
+    synchronized (this) {
+      int interval =
+          Math.max(MIN_STATS_WRITE_INTERVAL, entries.size() / STATS_WRITE_INTERVAL_DIVISOR);
+      if (!isOpen || (!force && changesSinceStatsWritten < interval)) {
+        return;
+      }
+      changesSinceStatsWritten = 0;
+      stats = createStats();
+      generation = statsGeneration.get();
+    }
+    // Write the statistics without holding the lock, they're replaced atomically when complete.
+    File temp = new File(tempDirectory, STATS_FILE + "." + Thread.currentThread().getId());
+    try {
+      ByteBufferDiskCaches.replaceFile(ByteBuffer.wrap(stats), temp, getStatsFile(),
+          this /*lock*/, statsGeneration, generation);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to write statistics", e);
+      }
+    }
+  }
+
+  private byte[] createStats() {
+    int size = STATS_HEADER_SIZE;
+    byte[][] keys = new byte[entries.size()][];
+    int i = 0;
+    for (Entry entry : entries.values()) {
+      keys[i] = entry.safeKey.getBytes(Key.CHARSET);
+      size += STATS_ENTRY_SIZE + keys[i].length;
+      i++;
+    }
+    ByteBuffer stats = ByteBuffer.allocate(size);
+    stats.putInt(STATS_MAGIC)
+        .putInt(STATS_VERSION)
+        .putDouble(inflation)
+        .putInt(entries.size());
+    i = 0;
+    for (Entry entry : entries.values()) {
+      stats.putInt(keys[i].length)
+          .put(keys[i])
+          .putLong(entry.size)
+          .putInt(entry.cost)
+          .putInt(entry.hits)
+          .putDouble(entry.priority);
+      i++;
+    }
+    return stats.array();
+  }
+
+  private double getPriority(Entry entry) {
+    return inflation + (double) entry.hits * entry.cost / Math.max(1, entry.size);
+  }
+
+  private void recordHit(Entry entry) {
+    evictionOrder.remove(entry);
+    entry.hits = Math.min(MAX_HITS, entry.hits + 1);
+    entry.priority = getPriority(entry);
+    evictionOrder.add(entry);
+    changesSinceStatsWritten++;
+  }
+
+  private void add(Entry entry) {
+    Entry previous = entries.put(entry.safeKey, entry);
+    if (previous != null) {
+      evictionOrder.remove(previous);
+      currentSize -= previous.size;
+    }
+    evictionOrder.add(entry);
+    currentSize += entry.size;
+    changesSinceStatsWritten++;
+  }
+
+  private void remove(Entry entry) {
+    entries.remove(entry.safeKey);
+    evictionOrder.remove(entry);
+    currentSize -= entry.size;
+    ByteBufferDiskCaches.deleteIfExists(getFile(entry.safeKey));
+    changesSinceStatsWritten++;
+  }
+
+  /**
+   * Evicts the entries with the lowest priority until the cache is no larger than its maximum
+   * size, skipping the given entry so that data is available when put completes.
+   */
+  private void trimToSize(@Nullable Entry keep) {
+    while (currentSize > maxSize) {
+      Entry lowest = evictionOrder.first();
+      if (lowest == keep) {
+        lowest = evictionOrder.higher(keep);
+        if (lowest == null) {
+          break;
+        }
+      }
+      inflation = Math.max(inflation, lowest.priority);
+      remove(lowest);
+    }
+  }
+
+  private File getFile(String safeKey) {
+    return new File(directory, safeKey);
+  }
+
+  private File getStatsFile() {
+    return new File(directory, STATS_FILE);
+  }
+
+  /**
+   * The statistics of a single entry, guarded by the cache's lock.
+   */
+  private static final class Entry {
+    @Synthetic final String safeKey;
+    @Synthetic final long size;
+    @Synthetic final int cost;
+    @Synthetic int hits;
+    @Synthetic double priority;
+    // Breaks ties between entries with the same priority, in the order they were added.
+    @Synthetic long sequence;
+
+    Entry(String safeKey, long size, int cost, int hits, long sequence) {
+      this.safeKey = safeKey;
+      this.size = size;
+      this.cost = cost;
+      this.hits = hits;
+      this.sequence = sequence;
+    }
+  }
+}
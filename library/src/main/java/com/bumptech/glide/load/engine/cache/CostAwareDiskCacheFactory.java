@@ -0,0 +1,60 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.engine.DiskCacheCostFunction;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory.CacheDirectoryGetter;
+import java.io.File;
+
+/**
+ * Creates a {@link CostAwareDiskCache} in the specified disk cache directory.
+ *
+ * <p>Use a different directory than any cache previously created with {@link DiskLruCacheFactory}
+ * or one of its subclasses, otherwise the files written by the previous cache will be treated as
+ * entries.
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class CostAwareDiskCacheFactory implements DiskCache.Factory {
+  private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final long diskCacheSize;
+  private final CostAwareDiskCache.CostFunction costFunction;
+
+  public CostAwareDiskCacheFactory(final String diskCacheFolder, long diskCacheSize) {
+    this(new CacheDirectoryGetter() {
+      @Override
+      public File getCacheDirectory() {
+        return new File(diskCacheFolder);
+      }
+    }, diskCacheSize, new DiskCacheCostFunction());
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache.
+   * @param costFunction         Estimates the cost of recreating each entry, see
+   *                             {@link DiskCacheCostFunction}.
+   */
+  public CostAwareDiskCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize,
+      CostAwareDiskCache.CostFunction costFunction) {
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.diskCacheSize = diskCacheSize;
+    this.costFunction = costFunction;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    return CostAwareDiskCache.create(cacheDir, diskCacheSize, costFunction);
+  }
+}
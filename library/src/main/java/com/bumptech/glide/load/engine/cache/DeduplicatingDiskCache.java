@@ -0,0 +1,398 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.LruCache;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A {@link ByteBufferDiskCache} that stores identical data written to different keys only once in
+ * another {@link DiskCache}.
+ *
+ * <p>Data written to keys accepted by a {@link KeyFilter} is stored under a new unique key and
+ * hashed with SHA-256 while it's written. Small entries mapping the digest and the original key to
+ * the unique key are written alongside it. If the same bytes were already stored for another key,
+ * for example because a CDN serves the same image at multiple urls, the new copy is deleted and
+ * the original key is mapped to the existing data instead. Recently used mappings are also kept in
+ * memory so that most reads only look up the data.
+ *
+ * <p>SHA-256 is used, rather than a faster non-cryptographic hash, because data is shared between
+ * keys: a collision would allow data from one url to be returned for another.
+ *
+ * <p>Only data written with {@link #putBuffer(Key, ByteBuffer)} or
+ * {@link #putChannel(Key, ChannelWriter)} is deduplicated, because {@link Writer}s write directly
+ * to files that can't be hashed as they're written. Data written with {@link #put(Key, Writer)}
+ * and data written before the cache was wrapped is stored under its own key and is still returned.
+ * Deleting a key only deletes its mapping, the data may be used by other keys and is eventually
+ * evicted by the wrapped cache.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class DeduplicatingDiskCache implements ByteBufferDiskCache {
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int ALIAS_CACHE_SIZE = 1000;
+
+  private final DiskCache delegate;
+  private final KeyFilter keyFilter;
+  private final LruCache<Key, DataKey> aliases = new LruCache<>(ALIAS_CACHE_SIZE);
+
+  /**
+   * Decides which keys' data is deduplicated.
+   */
+  public interface KeyFilter {
+    /**
+     * Returns {@code true} if data written to the given key should be stored by its content.
+     */
+    boolean shouldDeduplicate(@NonNull Key key);
+  }
+
+  /**
+   * Constructor for DeduplicatingDiskCache.
+   *
+   * @param delegate  The cache data and aliases are written to.
+   * @param keyFilter Decides which keys' data is deduplicated, see
+   *                  {@link com.bumptech.glide.load.engine.DataCacheKeyFilter}.
+   */
+  public DeduplicatingDiskCache(DiskCache delegate, KeyFilter keyFilter) {
+    this.delegate = Preconditions.checkNotNull(delegate);
+    this.keyFilter = Preconditions.checkNotNull(keyFilter);
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    DataKey dataKey = getDataKey(key);
+    if (dataKey != null) {
+      File file = delegate.get(dataKey);
+      if (file != null) {
+        return file;
+      }
+      removeAlias(key);
+    }
+    return delegate.get(key);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    DataKey dataKey = getDataKey(key);
+    if (dataKey != null) {
+      ByteBuffer data = ByteBufferDiskCaches.readBuffer(delegate, dataKey);
+      if (data != null) {
+        return data;
+      }
+      removeAlias(key);
+    }
+    return ByteBufferDiskCaches.readBuffer(delegate, key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    delegate.put(key, writer);
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    if (!keyFilter.shouldDeduplicate(key)) {
+      ByteBufferDiskCaches.writeChannel(delegate, key, writer);
+      return;
+    }
+    DataKey written = DataKey.create();
+    DigestingChannelWriter digestingWriter = new DigestingChannelWriter(writer);
+    ByteBufferDiskCaches.writeChannel(delegate, written, digestingWriter);
+    byte[] digest = digestingWriter.getDigest();
+    if (digest == null) {
+      return;
+    }
+
+    ContentKey contentKey = new ContentKey(digest);
+    DataKey dataKey = getStoredDataKey(contentKey);
+    if (dataKey == null) {
+      dataKey = written;
+      writeReference(contentKey, dataKey);
+    } else {
+      delegate.delete(written);
+    }
+    putAlias(key, dataKey);
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    if (!keyFilter.shouldDeduplicate(key)) {
+      ByteBufferDiskCaches.writeBuffer(delegate, key, data);
+      return;
+    }
+    ContentKey contentKey = new ContentKey(digest(data));
+    DataKey dataKey = getStoredDataKey(contentKey);
+    if (dataKey == null) {
+      dataKey = DataKey.create();
+      ByteBufferDiskCaches.writeBuffer(delegate, dataKey, data);
+      writeReference(contentKey, dataKey);
+    }
+    putAlias(key, dataKey);
+  }
+
+  @Override
+  public void delete(Key key) {
+    removeAlias(key);
+    delegate.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    aliases.clearMemory();
+    delegate.clear();
+  }
+
+  /**
+   * Returns the key of the data previously stored with the given digest, or {@code null} if no
+   * data with the digest is stored or if the data has since been evicted.
+   */
+  @Nullable
+  private DataKey getStoredDataKey(ContentKey contentKey) {
+    DataKey result = readReference(contentKey);
+    // Read the data rather than getting its file, some caches can only return files by copying
+    // their data to a new file.
+    return result != null && ByteBufferDiskCaches.readBuffer(delegate, result) != null
+        ? result : null;
+  }
+
+  private void putAlias(Key key, DataKey dataKey) {
+    writeReference(new AliasKey(key), dataKey);
+    aliases.put(key, dataKey);
+  }
+
+  @Nullable
+  private DataKey getDataKey(Key key) {
+    if (!keyFilter.shouldDeduplicate(key)) {
+      return null;
+    }
+    DataKey result = aliases.get(key);
+    if (result != null) {
+      return result;
+    }
+    result = readReference(new AliasKey(key));
+    if (result != null) {
+      aliases.put(key, result);
+    }
+    return result;
+  }
+
+  private void removeAlias(Key key) {
+    if (!keyFilter.shouldDeduplicate(key)) {
+      return;
+    }
+    aliases.remove(key);
+    delegate.delete(new AliasKey(key));
+  }
+
+  @Nullable
+  private DataKey readReference(Key from) {
+    ByteBuffer reference = ByteBufferDiskCaches.readBuffer(delegate, from);
+    if (reference == null || reference.limit() != DataKey.ID_LENGTH) {
+      return null;
+    }
+    return new DataKey(ByteBufferUtil.toBytes(reference));
+  }
+
+  private void writeReference(Key from, DataKey to) {
+    // Caches skip writes to keys that already have data, so remove any stale reference first.
+    delegate.delete(from);
+    ByteBufferDiskCaches.writeBuffer(delegate, from, ByteBuffer.wrap(to.id));
+  }
+
+  @Synthetic
+  static MessageDigest newMessageDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static byte[] digest(ByteBuffer data) {
+    MessageDigest messageDigest = newMessageDigest();
+    ByteBuffer toDigest = data.duplicate();
+    toDigest.position(0);
+    messageDigest.update(toDigest);
+    return messageDigest.digest();
+  }
+
+  /**
+   * Hashes the data written by a {@link ChannelWriter} as it's written to the wrapped cache.
+   */
+  private static final class DigestingChannelWriter implements ChannelWriter {
+    private final ChannelWriter writer;
+    @Nullable
+    private byte[] digest;
+
+    DigestingChannelWriter(ChannelWriter writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public boolean write(@NonNull WritableByteChannel channel) {
+      DigestingChannel digestingChannel = new DigestingChannel(channel);
+      boolean isWritten = writer.write(digestingChannel);
+      if (isWritten) {
+        digest = digestingChannel.messageDigest.digest();
+      }
+      return isWritten;
+    }
+
+    /**
+     * Returns the digest of the data, or {@code null} if the data wasn't written.
+     */
+    @Nullable
+    byte[] getDigest() {
+      return digest;
+    }
+  }
+
+  private static final class DigestingChannel implements WritableByteChannel {
+    @Synthetic final MessageDigest messageDigest = newMessageDigest();
+    private final WritableByteChannel channel;
+
+    DigestingChannel(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      ByteBuffer toDigest = src.duplicate();
+      int written = channel.write(src);
+      toDigest.limit(toDigest.position() + written);
+      messageDigest.update(toDigest);
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+      // The wrapped cache owns the channel.
+    }
+  }
+
+  /**
+   * The unique key data is stored under.
+   */
+  private static final class DataKey implements Key {
+    static final int ID_LENGTH = 16;
+    private static final byte[] PREFIX = "data:".getBytes(CHARSET);
+    @Synthetic final byte[] id;
+
+    DataKey(byte[] id) {
+      this.id = id;
+    }
+
+    static DataKey create() {
+      UUID uuid = UUID.randomUUID();
+      return new DataKey(ByteBuffer.allocate(ID_LENGTH)
+          .putLong(uuid.getMostSignificantBits())
+          .putLong(uuid.getLeastSignificantBits())
+          .array());
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(PREFIX);
+      messageDigest.update(id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof DataKey && Arrays.equals(id, ((DataKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+      return "DataKey{id=" + Arrays.toString(id) + '}';
+    }
+  }
+
+  /**
+   * The key the unique key of data with a given digest is stored under.
+   */
+  private static final class ContentKey implements Key {
+    private static final byte[] PREFIX = "content:".getBytes(CHARSET);
+    private final byte[] digest;
+
+    ContentKey(byte[] digest) {
+      this.digest = digest;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(PREFIX);
+      messageDigest.update(digest);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ContentKey && Arrays.equals(digest, ((ContentKey) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(digest);
+    }
+
+    @Override
+    public String toString() {
+      return "ContentKey{digest=" + Arrays.toString(digest) + '}';
+    }
+  }
+
+  /**
+   * The key the unique key of the data written to a key is stored under.
+   */
+  private static final class AliasKey implements Key {
+    private static final byte[] PREFIX = "alias:".getBytes(CHARSET);
+    private final Key key;
+
+    AliasKey(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(PREFIX);
+      key.updateDiskCacheKey(messageDigest);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof AliasKey && key.equals(((AliasKey) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * key.hashCode() + 1;
+    }
+
+    @Override
+    public String toString() {
+      return "AliasKey{key=" + key + '}';
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.engine.DataCacheKeyFilter;
+
+/**
+ * Wraps the disk cache built by another {@link DiskCache.Factory} in a
+ * {@link DeduplicatingDiskCache} so that identical original data written to different keys is
+ * only stored once.
+ *
+ * <p>For example, to deduplicate data in the default disk cache:
+ * <pre>
+ *   builder.setDiskCache(
+ *       new DeduplicatingDiskCacheFactory(new InternalCacheDiskCacheFactory(context)));
+ * </pre>
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class DeduplicatingDiskCacheFactory implements DiskCache.Factory {
+  private final DiskCache.Factory factory;
+  private final DeduplicatingDiskCache.KeyFilter keyFilter;
+
+  public DeduplicatingDiskCacheFactory(DiskCache.Factory factory) {
+    this(factory, new DataCacheKeyFilter());
+  }
+
+  /**
+   * @param factory   The factory that builds the disk cache data is written to.
+   * @param keyFilter Decides which keys' data is deduplicated.
+   */
+  public DeduplicatingDiskCacheFactory(
+      DiskCache.Factory factory, DeduplicatingDiskCache.KeyFilter keyFilter) {
+    this.factory = factory;
+    this.keyFilter = keyFilter;
+  }
+
+  @Nullable
+  @Override
+  public DiskCache build() {
+    DiskCache diskCache = factory.build();
+    if (diskCache == null) {
+      return null;
+    }
+    return new DeduplicatingDiskCache(diskCache, keyFilter);
+  }
+}
@@ -1,11 +1,10 @@
 package com.bumptech.glide.load.engine.cache;
 
+import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.util.Preconditions;
-import com.bumptech.glide.util.Synthetic;
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -16,81 +15,76 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p> This class will be accessed by multiple threads in a thread pool and ensures that the
  *  number of threads interested in each lock is updated atomically so that when the count reaches
  *  0, the lock can safely be removed from the map. </p>
+ *
+ * <p>Locks are held in a {@link ConcurrentMap} and each lock counts its interested threads itself,
+ * so threads writing different keys never wait on a shared monitor. A lock whose count has reached
+ * 0 is retired and never reused, threads that race with its removal retry with a new lock.
+ * Retired locks aren't pooled because a thread may still hold a reference to a retired lock and
+ * must not be able to revive it for a different key.
  */
 final class DiskCacheWriteLocker {
-  private final Map<String, WriteLock> locks = new HashMap<>();
-  private final WriteLockPool writeLockPool = new WriteLockPool();
+  private final ConcurrentMap<String, WriteLock> locks = new ConcurrentHashMap<>();
 
   void acquire(String safeKey) {
-    WriteLock writeLock;
-    synchronized (this) {
-      writeLock = locks.get(safeKey);
+    WriteLock writeLock = locks.get(safeKey);
+    WriteLock newLock = null;
+    while (writeLock == null || !writeLock.retain()) {
+      if (newLock == null) {
+        newLock = new WriteLock();
+      }
+      // A retired lock may still be in the map until its last thread removes it, so keep trying
+      // until either our lock or a live lock is found.
+      writeLock = locks.putIfAbsent(safeKey, newLock);
       if (writeLock == null) {
-        writeLock = writeLockPool.obtain();
-        locks.put(safeKey, writeLock);
+        writeLock = newLock;
+        break;
       }
-      writeLock.interestedThreads++;
     }
 
     writeLock.lock.lock();
   }
 
   void release(String safeKey) {
-    WriteLock writeLock;
-    synchronized (this) {
-      writeLock = Preconditions.checkNotNull(locks.get(safeKey));
-      if (writeLock.interestedThreads < 1) {
-        throw new IllegalStateException("Cannot release a lock that is not held"
-            + ", safeKey: " + safeKey
-            + ", interestedThreads: " + writeLock.interestedThreads);
-      }
+    WriteLock writeLock = Preconditions.checkNotNull(locks.get(safeKey));
+    int interestedThreads = writeLock.interestedThreads.decrementAndGet();
+    if (interestedThreads < 0) {
+      throw new IllegalStateException("Cannot release a lock that is not held"
+          + ", safeKey: " + safeKey
+          + ", interestedThreads: " + (interestedThreads + 1));
+    }
 
-      writeLock.interestedThreads--;
-      if (writeLock.interestedThreads == 0) {
-        WriteLock removed = locks.remove(safeKey);
-        if (!removed.equals(writeLock)) {
-          throw new IllegalStateException("Removed the wrong lock"
-              + ", expected to remove: " + writeLock
-              + ", but actually removed: " + removed
-              + ", safeKey: " + safeKey);
-        }
-        writeLockPool.offer(removed);
-      }
+    if (interestedThreads == 0 && !locks.remove(safeKey, writeLock)) {
+      throw new IllegalStateException("Removed the wrong lock"
+          + ", expected to remove: " + writeLock
+          + ", but actually found: " + locks.get(safeKey)
+          + ", safeKey: " + safeKey);
     }
 
     writeLock.lock.unlock();
   }
 
-  private static class WriteLock  {
-    final Lock lock = new ReentrantLock();
-    int interestedThreads;
-
-    @Synthetic
-    WriteLock() { }
+  @VisibleForTesting
+  int getLockCount() {
+    return locks.size();
   }
 
-  private static class WriteLockPool {
-    private static final int MAX_POOL_SIZE = 10;
-    private final Queue<WriteLock> pool = new ArrayDeque<>();
-
-    @Synthetic
-    WriteLockPool() { }
-
-    WriteLock obtain() {
-      WriteLock result;
-      synchronized (pool) {
-        result = pool.poll();
-      }
-      if (result == null) {
-        result = new WriteLock();
-      }
-      return result;
-    }
+  private static class WriteLock  {
+    final Lock lock = new ReentrantLock();
+    // Starts at 1 for the thread that creates the lock.
+    final AtomicInteger interestedThreads = new AtomicInteger(1);
 
-    void offer(WriteLock writeLock) {
-      synchronized (pool) {
-        if (pool.size() < MAX_POOL_SIZE) {
-          pool.offer(writeLock);
+    /**
+     * Registers another interested thread and returns {@code true}, or returns {@code false} if
+     * the lock has already been released by all interested threads and must not be used.
+     */
+    boolean retain() {
+      while (true) {
+        int current = interestedThreads.get();
+        if (current <= 0) {
+          return false;
+        }
+        if (interestedThreads.compareAndSet(current, current + 1)) {
+          return true;
         }
       }
     }
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine.cache;
 
+import android.support.annotation.Nullable;
 import java.io.File;
 
 /**
@@ -14,6 +15,7 @@ import java.io.File;
 public class DiskLruCacheFactory implements DiskCache.Factory {
   private final long diskCacheSize;
   private final CacheDirectoryGetter cacheDirectoryGetter;
+  @Nullable private final SafeKeyGenerator safeKeyGenerator;
 
   /**
    * Interface called out of UI thread to get the cache folder.
@@ -51,8 +53,28 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this(cacheDirectoryGetter, diskCacheSize, null /*safeKeyGenerator*/);
+  }
+
+  /**
+   * Creates a factory whose disk caches generate file names for keys with the given
+   * {@link SafeKeyGenerator}, for example {@link FastSafeKeyGenerator}.
+   *
+   * <p>The same type of {@link SafeKeyGenerator} must be used every time a cache is opened in a
+   * given directory, entries written with a different type will not be found.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the LRU disk cache.
+   * @param safeKeyGenerator     The generator to use to create file names for keys, or
+   *                             {@code null} to use the default {@link SafeKeyGenerator}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize,
+      @Nullable SafeKeyGenerator safeKeyGenerator) {
     this.diskCacheSize = diskCacheSize;
     this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.safeKeyGenerator = safeKeyGenerator;
   }
 
   @Override
@@ -67,6 +89,9 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
       return null;
     }
 
+    if (safeKeyGenerator != null) {
+      return DiskLruCacheWrapper.create(cacheDir, diskCacheSize, safeKeyGenerator);
+    }
     return DiskLruCacheWrapper.create(cacheDir, diskCacheSize);
   }
 }
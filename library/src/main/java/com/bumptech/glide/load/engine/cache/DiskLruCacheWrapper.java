@@ -4,12 +4,15 @@
 
 package com.bumptech.glide.load.engine.cache;
 
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.disklrucache.DiskLruCache;
 import com.bumptech.glide.disklrucache.DiskLruCache.Value;
 import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The default DiskCache implementation. There must be no more than one active instance for a given
@@ -17,7 +20,7 @@ import java.io.IOException;
  *
  * @see #get(java.io.File, long)
  */
-public class DiskLruCacheWrapper implements DiskCache {
+public class DiskLruCacheWrapper implements ByteBufferDiskCache {
   private static final String TAG = "DiskLruCacheWrapper";
 
   private static final int APP_VERSION = 1;
@@ -64,6 +67,26 @@ public class DiskLruCacheWrapper implements DiskCache {
     return new DiskLruCacheWrapper(directory, maxSize);
   }
 
+  /**
+   * Create a new DiskCache in the given directory with a specified max size that generates file
+   * names for {@link Key}s with the given {@link SafeKeyGenerator}.
+   *
+   * <p>Caches in the same directory must always use the same type of {@link SafeKeyGenerator},
+   * entries written with a different type will not be found.
+   *
+   * @param directory        The directory for the disk cache
+   * @param maxSize          The max size for the disk cache
+   * @param safeKeyGenerator The generator to use to create file names for keys, for example
+   *                         {@link FastSafeKeyGenerator}
+   * @return The new disk cache with the given arguments
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static DiskCache create(
+      File directory, long maxSize, SafeKeyGenerator safeKeyGenerator) {
+    return new DiskLruCacheWrapper(directory, maxSize, safeKeyGenerator);
+  }
+
   /**
    * @deprecated Do not extend this class.
    */
@@ -71,9 +94,13 @@ public class DiskLruCacheWrapper implements DiskCache {
   // Deprecated public API.
   @SuppressWarnings({"WeakerAccess", "DeprecatedIsStillUsed"})
   protected DiskLruCacheWrapper(File directory, long maxSize) {
+    this(directory, maxSize, new SafeKeyGenerator());
+  }
+
+  private DiskLruCacheWrapper(File directory, long maxSize, SafeKeyGenerator safeKeyGenerator) {
     this.directory = directory;
     this.maxSize = maxSize;
-    this.safeKeyGenerator = new SafeKeyGenerator();
+    this.safeKeyGenerator = safeKeyGenerator;
   }
 
   private synchronized DiskLruCache getDiskCache() throws IOException {
@@ -85,7 +112,11 @@ public class DiskLruCacheWrapper implements DiskCache {
 
   @Override
   public File get(Key key) {
-    String safeKey = safeKeyGenerator.getSafeKey(key);
+    return get(safeKeyGenerator.getSafeKey(key), key);
+  }
+
+  @Nullable
+  File get(String safeKey, Key key) {
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
       Log.v(TAG, "Get: Obtained: " + safeKey + " for for Key: " + key);
     }
@@ -106,11 +137,46 @@ public class DiskLruCacheWrapper implements DiskCache {
     return result;
   }
 
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    return getBuffer(safeKeyGenerator.getSafeKey(key), key);
+  }
+
+  @Nullable
+  ByteBuffer getBuffer(String safeKey, Key key) {
+    File file = get(safeKey, key);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    put(key, new ChannelFileWriter(writer));
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    put(key, ChannelFileWriter.forBuffer(data));
+  }
+
   @Override
   public void put(Key key, Writer writer) {
+    put(safeKeyGenerator.getSafeKey(key), key, writer);
+  }
+
+  void put(String safeKey, Key key, Writer writer) {
     // We want to make sure that puts block so that data is available when put completes. We may
     // actually not write any data if we find that data is written by the time we acquire the lock.
-    String safeKey = safeKeyGenerator.getSafeKey(key);
     writeLocker.acquire(safeKey);
     try {
       if (Log.isLoggable(TAG, Log.VERBOSE)) {
@@ -149,7 +215,10 @@ public class DiskLruCacheWrapper implements DiskCache {
 
   @Override
   public void delete(Key key) {
-    String safeKey = safeKeyGenerator.getSafeKey(key);
+    delete(safeKeyGenerator.getSafeKey(key));
+  }
+
+  void delete(String safeKey) {
     try {
       getDiskCache().remove(safeKey);
     } catch (IOException e) {
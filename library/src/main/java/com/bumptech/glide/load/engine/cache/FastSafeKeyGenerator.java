@@ -0,0 +1,89 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link SafeKeyGenerator} that generates file names from a 128 bit MurmurHash3 of each
+ * {@link Key} and caches them without locking.
+ *
+ * <p>{@link SafeKeyGenerator} calculates a SHA-256 digest for each {@link Key} and takes a lock
+ * twice on every call to read and update its cache. SHA-256 isn't needed to generate unique file
+ * names, MurmurHash3 is much faster and 128 bits is enough to make accidental collisions
+ * vanishingly unlikely. Keys are cached in a fixed size table indexed by their hash codes, so
+ * concurrent lookups never block each other, at the cost of occasionally recalculating a key
+ * that was displaced by another key with a colliding hash code.
+ *
+ * <p>File names are 32 lowercase hexadecimal characters and differ from those generated by
+ * {@link SafeKeyGenerator}, so switching an existing disk cache to this generator will cause
+ * entries written with the old generator to be missed until they're evicted.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class FastSafeKeyGenerator extends SafeKeyGenerator {
+  private static final int DEFAULT_CACHE_SIZE = 1024;
+  private static final char[] HEX_CHAR_ARRAY = "0123456789abcdef".toCharArray();
+
+  private final AtomicReferenceArray<Entry> cache;
+  private final int mask;
+
+  public FastSafeKeyGenerator() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param cacheSize The number of keys to cache, rounded up to the next power of two.
+   */
+  public FastSafeKeyGenerator(int cacheSize) {
+    super(false /*isDigestNeeded*/);
+    Preconditions.checkArgument(cacheSize > 0, "Cache size must be positive");
+    int size = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+    cache = new AtomicReferenceArray<>(size);
+    mask = size - 1;
+  }
+
+  @Override
+  public String getSafeKey(Key key) {
+    int index = spread(key.hashCode()) & mask;
+    Entry entry = cache.get(index);
+    if (entry != null && entry.key.equals(key)) {
+      return entry.safeKey;
+    }
+    String safeKey = calculateHexStringHash(key);
+    cache.lazySet(index, new Entry(key, safeKey));
+    return safeKey;
+  }
+
+  private static String calculateHexStringHash(Key key) {
+    Murmur3MessageDigest digest = new Murmur3MessageDigest();
+    key.updateDiskCacheKey(digest);
+    byte[] bytes = digest.digest();
+    char[] hexChars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int v = bytes[i] & 0xFF;
+      hexChars[i * 2] = HEX_CHAR_ARRAY[v >>> 4];
+      hexChars[i * 2 + 1] = HEX_CHAR_ARRAY[v & 0x0F];
+    }
+    return new String(hexChars);
+  }
+
+  /**
+   * Mixes the high bits of the hash code into the low bits so that keys whose hash codes only
+   * differ in their high bits don't all end up in the same slot.
+   */
+  private static int spread(int hashCode) {
+    return hashCode ^ (hashCode >>> 16);
+  }
+
+  private static final class Entry {
+    @Synthetic final Key key;
+    @Synthetic final String safeKey;
+
+    Entry(Key key, String safeKey) {
+      this.key = key;
+      this.safeKey = safeKey;
+    }
+  }
+}
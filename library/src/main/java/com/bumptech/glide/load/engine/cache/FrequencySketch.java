@@ -0,0 +1,132 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A probabilistic, fixed memory estimate of how often each key has been seen recently, used by
+ * {@link TinyLfuResourceCache} to decide which resources are worth keeping.
+ *
+ * <p>This is a count-min sketch with four rows of 4-bit counters packed sixteen to a {@code long}.
+ * Counters saturate at 15. Once the number of increments reaches ten times the width of the table,
+ * every counter is halved so that the sketch favors recent history over old history.
+ */
+final class FrequencySketch {
+  private static final int MIN_TABLE_SIZE = 16;
+  private static final int MAX_TABLE_SIZE = 1 << 20;
+  private static final int SAMPLE_SIZE_MULTIPLIER = 10;
+  private static final int MAX_COUNT = 15;
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long[] SEEDS = new long[] {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int additions;
+
+  FrequencySketch() {
+    this(MIN_TABLE_SIZE);
+  }
+
+  /**
+   * @param expectedKeys The number of keys the sketch should be able to accurately track.
+   */
+  FrequencySketch(int expectedKeys) {
+    int size = tableSizeFor(expectedKeys);
+    table = new long[size];
+    tableMask = size - 1;
+    sampleSize = SAMPLE_SIZE_MULTIPLIER * size;
+  }
+
+  /**
+   * Grows the sketch so that it can accurately track about the given number of keys.
+   *
+   * <p>Keys are mapped to a counter in each row by the low bits of their hash, so doubling a row
+   * maps each key to either its old index or its old index plus the old size. Copying each row
+   * into both halves of the new row therefore keeps every previously recorded frequency. Counters
+   * shared by keys that are split apart by the larger table still overestimate their frequencies,
+   * like any other collision, until they're aged out by later resets.
+   */
+  void ensureCapacity(int expectedKeys) {
+    int size = tableSizeFor(expectedKeys);
+    if (table.length >= size) {
+      return;
+    }
+    long[] grown = new long[size];
+    for (int i = 0; i < size; i += table.length) {
+      System.arraycopy(table, 0, grown, i, table.length);
+    }
+    table = grown;
+    tableMask = size - 1;
+    sampleSize = SAMPLE_SIZE_MULTIPLIER * size;
+  }
+
+  /**
+   * Returns the estimated number of times the given key has been seen, up to a maximum of 15.
+   */
+  int frequency(@NonNull Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNT;
+    for (long seed : SEEDS) {
+      int index = indexOf(hash, seed);
+      int offset = offsetOf(hash, seed);
+      frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an occurrence of the given key.
+   */
+  void increment(@NonNull Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (long seed : SEEDS) {
+      int index = indexOf(hash, seed);
+      int offset = offsetOf(hash, seed);
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halves every counter.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, long seed) {
+    long h = (hash + seed) * seed;
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  private static int tableSizeFor(int expectedKeys) {
+    int size = MIN_TABLE_SIZE;
+    while (size < expectedKeys && size < MAX_TABLE_SIZE) {
+      size <<= 1;
+    }
+    return size;
+  }
+
+  private static int offsetOf(int hash, long seed) {
+    // Each long holds sixteen counters, so pick one of the sixteen nibbles.
+    return (int) (((hash * seed) >>> 60) << 2);
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
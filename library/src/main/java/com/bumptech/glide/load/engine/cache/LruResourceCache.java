@@ -5,13 +5,21 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.EvictionHistory;
 import com.bumptech.glide.util.LruCache;
 
 /**
  * An LRU in memory cache for {@link com.bumptech.glide.load.engine.Resource}s.
  */
 public class LruResourceCache extends LruCache<Key, Resource<?>> implements MemoryCache {
+  private static final int EVICTION_HISTORY_SIZE = 1000;
+
+  // Guarded by this.
+  private final EvictionHistory evicted = new EvictionHistory(EVICTION_HISTORY_SIZE);
   private ResourceRemovedListener listener;
+  private int hits;
+  private int misses;
+  private int evictedMisses;
 
   /**
    * Constructor for LruResourceCache.
@@ -22,6 +30,52 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
     super(size);
   }
 
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    Resource<?> removed = super.remove(key);
+    if (removed != null) {
+      hits++;
+    } else {
+      misses++;
+      if (evicted.remove(key.hashCode())) {
+        evictedMisses++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the number of times {@link #remove(Key)} found a resource, which is how
+   * {@link com.bumptech.glide.load.engine.Engine} looks up resources in the cache.
+   */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of times {@link #remove(Key)} didn't find a resource.
+   */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of times {@link #remove(Key)} didn't find a resource that was recently
+   * evicted to keep the cache within its maximum size, which excludes the first load of each
+   * resource.
+   */
+  public synchronized int getEvictedMissCount() {
+    return evictedMisses;
+  }
+
+  @Override
+  public synchronized void clearMemory() {
+    super.clearMemory();
+    // Resources cleared to free memory weren't evicted because of the cache's maximum size.
+    evicted.clear();
+  }
+
   @Override
   public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
     this.listener = listener;
@@ -29,6 +83,7 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
 
   @Override
   protected void onItemEvicted(@NonNull Key key, @Nullable Resource<?> item) {
+    evicted.add(key.hashCode());
     if (listener != null && item != null) {
       listener.onResourceRemoved(item);
     }
@@ -0,0 +1,315 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+
+/**
+ * Moves memory between an {@link LruResourceCache}, an {@link LruBitmapPool} and an
+ * {@link LruArrayPool} based on their recent miss rates, while keeping the sum of their maximum
+ * sizes fixed.
+ *
+ * <p>{@link MemorySizeCalculator} splits Glide's memory between the three once, when Glide is
+ * created, but the best split depends on what the app shows. A screen of small thumbnails mostly
+ * hits the memory cache, while a screen of full size photos misses the memory cache and reuses
+ * large Bitmaps from the pool. Each time {@link #rebalance()} is called, the miss rate of each
+ * component since its counts were last used is compared. If the highest and lowest miss rates
+ * differ by enough, a sixteenth of the total moves from the component with the lowest miss rate to
+ * the component with the highest. Components with too few gets since their counts were last used
+ * are left alone. Each component keeps between half and twice its initial size.
+ *
+ * <p>All three components measure misses the same way: only misses for an item that the
+ * component recently evicted to stay within its maximum size are counted, because those are the
+ * misses more memory would have avoided. The first load of each resource misses the memory cache
+ * however large it is, and so isn't counted.
+ *
+ * <p>Once {@link #rebalance()} has been called, it's called again every
+ * {@link #REBALANCE_INTERVAL_MS} so that memory is moved while the user stays on one screen. When
+ * the app's UI is hidden, or the system is critically low on memory, the components are reset to
+ * their initial sizes, the counts collected so far are discarded and the periodic calls stop
+ * until {@link #rebalance()} is called again.
+ *
+ * <p>Only the {@link LruResourceCache}, {@link LruBitmapPool} and {@link LruArrayPool} count
+ * evicted misses and can be resized. Other implementations, like
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.ShardedBitmapPool} and
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.SizeClassArrayPool}, aren't supported.
+ *
+ * <p>All methods must be called on the main thread.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class MemoryBudget {
+  private static final String TAG = "MemoryBudget";
+  private static final int STEP_DIVISOR = 16;
+  @VisibleForTesting
+  static final int MIN_REQUESTS = 20;
+  private static final float MIN_MISS_RATE_DIFFERENCE = 0.1f;
+  private static final float MIN_SIZE_MULTIPLIER = 0.5f;
+  private static final float MAX_SIZE_MULTIPLIER = 2f;
+  @VisibleForTesting
+  static final int MEMORY_CACHE = 0;
+  @VisibleForTesting
+  static final int BITMAP_POOL = 1;
+  @VisibleForTesting
+  static final int ARRAY_POOL = 2;
+  @VisibleForTesting
+  static final long REBALANCE_INTERVAL_MS = 30 * 1000;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable rebalanceRunnable = new Runnable() {
+    @Override
+    public void run() {
+      isRebalanceScheduled = false;
+      rebalance();
+    }
+  };
+  private final Component[] components;
+  private final long step;
+  private float sizeMultiplier = 1f;
+  @Synthetic boolean isRebalanceScheduled;
+
+  /**
+   * Constructor for MemoryBudget.
+   *
+   * <p>The current maximum sizes of the given components are used as their initial sizes.
+   */
+  public MemoryBudget(
+      final LruResourceCache memoryCache,
+      final LruBitmapPool bitmapPool,
+      final LruArrayPool arrayPool) {
+    components = new Component[] {
+        new Component("memoryCache", memoryCache.getMaxSize()) {
+          @Override
+          int getHitCount() {
+            return memoryCache.getHitCount();
+          }
+
+          @Override
+          int getMissCount() {
+            return memoryCache.getMissCount();
+          }
+
+          @Override
+          int getEvictedMissCount() {
+            return memoryCache.getEvictedMissCount();
+          }
+
+          @Override
+          void setSizeMultiplier(float multiplier) {
+            memoryCache.setSizeMultiplier(multiplier);
+          }
+        },
+        new Component("bitmapPool", bitmapPool.getMaxSize()) {
+          @Override
+          int getHitCount() {
+            return bitmapPool.getHitCount();
+          }
+
+          @Override
+          int getMissCount() {
+            return bitmapPool.getMissCount();
+          }
+
+          @Override
+          int getEvictedMissCount() {
+            return bitmapPool.getEvictedMissCount();
+          }
+
+          @Override
+          void setSizeMultiplier(float multiplier) {
+            bitmapPool.setSizeMultiplier(multiplier);
+          }
+        },
+        new Component("arrayPool", arrayPool.getMaxSize()) {
+          @Override
+          int getHitCount() {
+            return arrayPool.getHitCount();
+          }
+
+          @Override
+          int getMissCount() {
+            return arrayPool.getMissCount();
+          }
+
+          @Override
+          int getEvictedMissCount() {
+            return arrayPool.getEvictedMissCount();
+          }
+
+          @Override
+          void setSizeMultiplier(float multiplier) {
+            arrayPool.setSizeMultiplier(multiplier);
+          }
+        }
+    };
+    long total = 0;
+    for (Component component : components) {
+      total += component.initialSize;
+    }
+    step = total / STEP_DIVISOR;
+  }
+
+  /**
+   * Moves memory from the component with the lowest recent miss rate to the component with the
+   * highest recent miss rate, if they differ by enough, and schedules the next periodic call if
+   * it isn't already scheduled.
+   */
+  public void rebalance() {
+    Util.assertMainThread();
+    if (!isRebalanceScheduled) {
+      isRebalanceScheduled = true;
+      mainHandler.postDelayed(rebalanceRunnable, REBALANCE_INTERVAL_MS);
+    }
+    Component needy = null;
+    Component donor = null;
+    for (Component component : components) {
+      if (!component.updateMissRate()) {
+        continue;
+      }
+      if (component.budget < component.getMaxBudget()
+          && (needy == null || component.missRate > needy.missRate)) {
+        needy = component;
+      }
+      if (component.budget > component.getMinBudget()
+          && (donor == null || component.missRate < donor.missRate)) {
+        donor = component;
+      }
+    }
+    if (needy == null || donor == null || needy == donor
+        || needy.missRate - donor.missRate < MIN_MISS_RATE_DIFFERENCE) {
+      return;
+    }
+
+    long moved = Math.min(step, Math.min(
+        needy.getMaxBudget() - needy.budget, donor.budget - donor.getMinBudget()));
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Moving " + moved + " bytes from " + donor.name + " (miss rate "
+          + donor.missRate + ") to " + needy.name + " (miss rate " + needy.missRate + ")");
+    }
+    // Shrink first so that the total is never exceeded.
+    donor.budget -= moved;
+    donor.apply(sizeMultiplier);
+    needy.budget += moved;
+    needy.apply(sizeMultiplier);
+  }
+
+  /**
+   * Applies the given multiplier, for example from a
+   * {@link com.bumptech.glide.MemoryCategory}, to the budget of every component.
+   */
+  public void setSizeMultiplier(float multiplier) {
+    Util.assertMainThread();
+    sizeMultiplier = multiplier;
+    for (Component component : components) {
+      component.apply(sizeMultiplier);
+    }
+  }
+
+  /**
+   * Resets the budgets to their initial sizes and stops the periodic calls to {@link #rebalance()}
+   * if the given level means the app's UI is hidden or memory is critically low.
+   *
+   * @param level A trim level specified in {@link ComponentCallbacks2}.
+   */
+  @SuppressLint("InlinedApi")
+  public void trimMemory(int level) {
+    Util.assertMainThread();
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      stop();
+      for (Component component : components) {
+        component.reset();
+        component.apply(sizeMultiplier);
+      }
+    }
+  }
+
+  /**
+   * Stops the periodic calls to {@link #rebalance()} until it's called again.
+   */
+  public void stop() {
+    mainHandler.removeCallbacks(rebalanceRunnable);
+    isRebalanceScheduled = false;
+  }
+
+  @VisibleForTesting
+  long getBudget(int component) {
+    return components[component].budget;
+  }
+
+  private abstract static class Component {
+    @Synthetic final String name;
+    @Synthetic final long initialSize;
+    @Synthetic long budget;
+    @Synthetic float missRate;
+    private int lastHits;
+    private int lastMisses;
+    private int lastEvictedMisses;
+
+    @Synthetic
+    Component(String name, long initialSize) {
+      this.name = name;
+      this.initialSize = initialSize;
+      budget = initialSize;
+    }
+
+    abstract int getHitCount();
+
+    abstract int getMissCount();
+
+    abstract int getEvictedMissCount();
+
+    abstract void setSizeMultiplier(float multiplier);
+
+    long getMinBudget() {
+      return (long) (initialSize * MIN_SIZE_MULTIPLIER);
+    }
+
+    long getMaxBudget() {
+      return (long) (initialSize * MAX_SIZE_MULTIPLIER);
+    }
+
+    /**
+     * Updates the miss rate from the gets since the counts were last used and returns
+     * {@code true} if there were enough gets for the miss rate to be meaningful.
+     *
+     * <p>Only misses for recently evicted items count towards the miss rate, but every get
+     * counts towards the number of gets.
+     */
+    boolean updateMissRate() {
+      int hits = getHitCount();
+      int misses = getMissCount();
+      int evictedMisses = getEvictedMissCount();
+      int newHits = hits - lastHits;
+      int newMisses = misses - lastMisses;
+      if (newHits + newMisses < MIN_REQUESTS) {
+        return false;
+      }
+      missRate = (evictedMisses - lastEvictedMisses) / (float) (newHits + newMisses);
+      lastHits = hits;
+      lastMisses = misses;
+      lastEvictedMisses = evictedMisses;
+      return true;
+    }
+
+    void reset() {
+      budget = initialSize;
+      lastHits = getHitCount();
+      lastMisses = getMissCount();
+      lastEvictedMisses = getEvictedMissCount();
+    }
+
+    void apply(float sizeMultiplier) {
+      if (initialSize > 0) {
+        setSizeMultiplier(sizeMultiplier * budget / initialSize);
+      }
+    }
+  }
+}
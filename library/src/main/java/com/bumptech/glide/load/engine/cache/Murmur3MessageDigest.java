@@ -0,0 +1,165 @@
+package com.bumptech.glide.load.engine.cache;
+
+import java.security.MessageDigest;
+
+/**
+ * A {@link MessageDigest} that calculates the 128 bit x64 variant of MurmurHash3 with a seed of
+ * zero.
+ *
+ * <p>MurmurHash3 is not a cryptographic hash, but it is much cheaper to calculate than SHA-256
+ * and its output is well distributed, so it's suitable for generating disk cache file names from
+ * {@link com.bumptech.glide.load.Key}s, which only need to be unique, not hard to forge.
+ *
+ * <p>The digest is the first half of the hash followed by the second half, each in little endian
+ * order, which matches the output of other common implementations.
+ *
+ * <p>This class is not thread safe.
+ */
+final class Murmur3MessageDigest extends MessageDigest {
+  private static final String ALGORITHM = "MURMUR3-128";
+  private static final int BLOCK_SIZE = 16;
+  private static final int DIGEST_LENGTH = 16;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final byte[] buffer = new byte[BLOCK_SIZE];
+  private int bufferLength;
+  private long length;
+  private long h1;
+  private long h2;
+
+  Murmur3MessageDigest() {
+    super(ALGORITHM);
+  }
+
+  @Override
+  protected int engineGetDigestLength() {
+    return DIGEST_LENGTH;
+  }
+
+  @Override
+  protected void engineUpdate(byte input) {
+    buffer[bufferLength++] = input;
+    length++;
+    if (bufferLength == BLOCK_SIZE) {
+      processBlock(buffer, 0);
+      bufferLength = 0;
+    }
+  }
+
+  @Override
+  protected void engineUpdate(byte[] input, int offset, int len) {
+    length += len;
+    int end = offset + len;
+    if (bufferLength > 0) {
+      int toCopy = Math.min(BLOCK_SIZE - bufferLength, len);
+      System.arraycopy(input, offset, buffer, bufferLength, toCopy);
+      bufferLength += toCopy;
+      offset += toCopy;
+      if (bufferLength < BLOCK_SIZE) {
+        return;
+      }
+      processBlock(buffer, 0);
+      bufferLength = 0;
+    }
+    while (end - offset >= BLOCK_SIZE) {
+      processBlock(input, offset);
+      offset += BLOCK_SIZE;
+    }
+    bufferLength = end - offset;
+    System.arraycopy(input, offset, buffer, 0, bufferLength);
+  }
+
+  @Override
+  protected byte[] engineDigest() {
+    processTail();
+
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix(h1);
+    h2 = fmix(h2);
+    h1 += h2;
+    h2 += h1;
+
+    byte[] result = new byte[DIGEST_LENGTH];
+    for (int i = 0; i < 8; i++) {
+      result[i] = (byte) (h1 >>> (i * 8));
+      result[i + 8] = (byte) (h2 >>> (i * 8));
+    }
+    engineReset();
+    return result;
+  }
+
+  @Override
+  protected void engineReset() {
+    bufferLength = 0;
+    length = 0;
+    h1 = 0;
+    h2 = 0;
+  }
+
+  private void processBlock(byte[] input, int offset) {
+    long k1 = getLongLittleEndian(input, offset);
+    long k2 = getLongLittleEndian(input, offset + 8);
+
+    h1 ^= mixK1(k1);
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    h2 ^= mixK2(k2);
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  private void processTail() {
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = bufferLength - 1; i >= 8; i--) {
+      k2 ^= (buffer[i] & 0xFFL) << ((i - 8) * 8);
+    }
+    for (int i = Math.min(bufferLength, 8) - 1; i >= 0; i--) {
+      k1 ^= (buffer[i] & 0xFFL) << (i * 8);
+    }
+    if (bufferLength > 8) {
+      h2 ^= mixK2(k2);
+    }
+    if (bufferLength > 0) {
+      h1 ^= mixK1(k1);
+    }
+  }
+
+  private static long getLongLittleEndian(byte[] input, int offset) {
+    long result = 0;
+    for (int i = 7; i >= 0; i--) {
+      result = result << 8 | (input[offset + i] & 0xFFL);
+    }
+    return result;
+  }
+
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    return k1;
+  }
+
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    return k2;
+  }
+
+  private static long fmix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.engine.cache;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.util.LruCache;
@@ -19,20 +20,30 @@ import java.security.NoSuchAlgorithmException;
 // Public API.
 @SuppressWarnings("WeakerAccess")
 public class SafeKeyGenerator {
-  private final LruCache<Key, String> loadIdToSafeHash = new LruCache<>(1000);
-  private final Pools.Pool<PoolableDigestContainer> digestPool = FactoryPools.threadSafe(10,
-      new FactoryPools.Factory<PoolableDigestContainer>() {
-        @Override
-        public PoolableDigestContainer create() {
-          try {
-            return new PoolableDigestContainer(MessageDigest.getInstance("SHA-256"));
-          } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-          }
-        }
-      });
+  @Nullable private final LruCache<Key, String> loadIdToSafeHash;
+  @Nullable private final Pools.Pool<PoolableDigestContainer> digestPool;
+
+  public SafeKeyGenerator() {
+    this(true /*isDigestNeeded*/);
+  }
+
+  /**
+   * Constructor for subclasses.
+   *
+   * @param isDigestNeeded {@code false} if the subclass overrides {@link #getSafeKey(Key)} without
+   *                       calling this class's implementation, so that the cache and SHA-256
+   *                       digests it would use aren't allocated.
+   */
+  protected SafeKeyGenerator(boolean isDigestNeeded) {
+    loadIdToSafeHash = isDigestNeeded ? new LruCache<Key, String>(1000) : null;
+    digestPool = isDigestNeeded ? createDigestPool() : null;
+  }
 
   public String getSafeKey(Key key) {
+    if (loadIdToSafeHash == null) {
+      throw new UnsupportedOperationException("Subclasses that don't need a digest must override"
+          + " getSafeKey");
+    }
     String safeKey;
     synchronized (loadIdToSafeHash) {
       safeKey = loadIdToSafeHash.get(key);
@@ -47,16 +58,30 @@ public class SafeKeyGenerator {
   }
 
   private String calculateHexStringDigest(Key key) {
-    PoolableDigestContainer container = Preconditions.checkNotNull(digestPool.acquire());
+    Pools.Pool<PoolableDigestContainer> pool = Preconditions.checkNotNull(digestPool);
+    PoolableDigestContainer container = Preconditions.checkNotNull(pool.acquire());
     try {
       key.updateDiskCacheKey(container.messageDigest);
       // calling digest() will automatically reset()
       return Util.sha256BytesToHex(container.messageDigest.digest());
     } finally {
-      digestPool.release(container);
+      pool.release(container);
     }
   }
 
+  private static Pools.Pool<PoolableDigestContainer> createDigestPool() {
+    return FactoryPools.threadSafe(10, new FactoryPools.Factory<PoolableDigestContainer>() {
+      @Override
+      public PoolableDigestContainer create() {
+        try {
+          return new PoolableDigestContainer(MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+  }
+
   private static final class PoolableDigestContainer implements FactoryPools.Poolable {
 
     @Synthetic final MessageDigest messageDigest;
@@ -0,0 +1,926 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link ByteBufferDiskCache} that packs entries into a small number of large memory mapped
+ * segment files rather than writing a file per entry.
+ *
+ * <p>Entries are appended to the newest segment along with a small header containing their key.
+ * An in memory index of every entry is loaded when the cache is first used, so hits don't need any
+ * system calls and {@link #getBuffer(Key)} returns a slice of the mapped segment that can be
+ * decoded without copying it. Data written with
+ * {@link #putBuffer(Key, ByteBuffer)} is copied directly into its segment, other data is written
+ * to a temporary file first.
+ *
+ * <p>The index is loaded from a snapshot that's written each time a segment is filled, so opening
+ * the cache only reads the snapshot and the entries written since it was taken rather than every
+ * entry's header. Entries loaded from the snapshot are checked against their headers the first
+ * time they're used, in case they were deleted after the snapshot was taken. If the snapshot is
+ * missing or doesn't match the segments, the index is rebuilt from the headers instead.
+ *
+ * <p>Segments aren't synced to disk when entries are written, so after a crash an entry may be
+ * marked as committed before all of its data reached the disk. Each header therefore contains a
+ * CRC32 of the entry's data that's checked the first time an entry written by an earlier instance
+ * is used.
+ *
+ * <p>When the cache is full, the oldest segment is deleted. Entries from that segment that have
+ * been read since they were written are first copied to the newest segment if there's room, so
+ * frequently used entries are kept in an order that approximates LRU. Readers may continue using
+ * buffers from deleted segments, the mapping isn't released until the buffers are garbage
+ * collected.
+ *
+ * <p>{@link #get(Key)} is supported for loads that require a {@link File}, but copies the entry to
+ * its own file the first time it's called for each entry. Those files are not counted towards the
+ * maximum size and are deleted along with their entries.
+ *
+ * <p>Every segment is mapped into memory, so the maximum size should be kept small enough that
+ * the cache doesn't exhaust the address space of 32 bit processes. There must be no more than one
+ * active instance for a given directory at a time.
+ */
+public final class SegmentDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "SegmentDiskCache";
+  /** Large enough for most thumbnails, small enough that evicting a segment evicts few entries. */
+  public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+  private static final String SEGMENT_PREFIX = "segment_";
+  private static final String FILES_DIRECTORY = "files";
+  private static final String TEMP_DIRECTORY = "tmp";
+  @VisibleForTesting
+  static final String SNAPSHOT_FILE = "index";
+
+  // Each entry starts with a header containing its state, the length of its key, the length of its
+  // data and the CRC32 of its data, followed by the key and the data. Segments are zero filled, so
+  // a zero state marks the end of the written part of a segment.
+  private static final int HEADER_SIZE = 16;
+  private static final int MAX_KEY_LENGTH = 256;
+  private static final int STATE_END = 0;
+  private static final int STATE_WRITING = 0x57524954;
+  private static final int STATE_COMMITTED = 0x434f4d4d;
+  private static final int STATE_DELETED = 0x44454c45;
+  private static final int CHECKSUM_CHUNK_SIZE = 8 * 1024;
+
+  // The snapshot starts with a header containing a magic number, a version, the number of segments
+  // and the number of entries. The header is followed by the id, capacity and write position of
+  // each segment, and then by the index of the segment, offset, key length and data length of each
+  // entry, followed by its key.
+  private static final int SNAPSHOT_MAGIC = 0x534e4150;
+  private static final int SNAPSHOT_VERSION = 2;
+  private static final int SNAPSHOT_HEADER_SIZE = 16;
+  private static final int SNAPSHOT_SEGMENT_SIZE = 12;
+  private static final int SNAPSHOT_ENTRY_SIZE = 16;
+
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  private final Map<String, Entry> index = new HashMap<>();
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private final File directory;
+  private final File filesDirectory;
+  private final File tempRootDirectory;
+  private final long maxSize;
+  private final int segmentSize;
+  private long currentSize;
+  private int nextSegmentId;
+  private boolean isOpen;
+  private boolean hasOpened;
+  private boolean isSnapshotNeeded;
+  // Incremented when the cache is cleared so that snapshots taken before it was cleared are
+  // discarded and so that temporary files written before it was cleared aren't deleted while
+  // they're still being written.
+  private final AtomicInteger generation = new AtomicInteger();
+  // The directory temporary files for the current generation are written to.
+  private File tempDirectory;
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize) {
+    return create(directory, maxSize, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size and segment size.
+   *
+   * @param directory   The directory for the disk cache
+   * @param maxSize     The max size for the disk cache
+   * @param segmentSize The size of each segment file, entries larger than this size are written to
+   *                    their own segment.
+   * @return The new disk cache with the given arguments
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static DiskCache create(File directory, long maxSize, int segmentSize) {
+    return new SegmentDiskCache(directory, maxSize, segmentSize);
+  }
+
+  private SegmentDiskCache(File directory, long maxSize, int segmentSize) {
+    Preconditions.checkArgument(maxSize > 0, "Max size must be > 0");
+    Preconditions.checkArgument(segmentSize > HEADER_SIZE, "Segment size must be > " + HEADER_SIZE);
+    this.directory = directory;
+    this.filesDirectory = new File(directory, FILES_DIRECTORY);
+    this.tempRootDirectory = new File(directory, TEMP_DIRECTORY);
+    this.tempDirectory = new File(tempRootDirectory, String.valueOf(generation.get()));
+    this.maxSize = maxSize;
+    this.segmentSize = (int) Math.min(segmentSize, maxSize);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    Entry entry = getEntry(safeKeyGenerator.getSafeKey(key));
+    return entry != null ? entry.getData() : null;
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    Entry entry = getEntry(safeKey);
+    if (entry == null) {
+      return null;
+    }
+    File file = new File(filesDirectory, safeKey);
+    if (entry.isCopiedToFile) {
+      return file;
+    }
+    // Every put for a key writes the same data, so concurrent copies of the same entry are
+    // harmless, whichever finishes last replaces the other.
+    File temp = newTempFile(safeKey + "." + Thread.currentThread().getId());
+    try {
+      ByteBufferDiskCaches.writeFile(entry.getData(), temp);
+      if (!filesDirectory.mkdirs() && !filesDirectory.isDirectory()) {
+        throw new IOException("Failed to create directory: " + filesDirectory);
+      }
+      if (!temp.renameTo(file)) {
+        throw new IOException("Failed to rename: " + temp + " to: " + file);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to copy entry from disk cache", e);
+      }
+      return null;
+    } finally {
+      ByteBufferDiskCaches.deleteIfExists(temp);
+    }
+    synchronized (this) {
+      if (index.get(safeKey) != entry) {
+        // The entry was deleted or evicted while we were copying it.
+        ByteBufferDiskCaches.deleteIfExists(file);
+        return null;
+      }
+      entry.isCopiedToFile = true;
+    }
+    return file;
+  }
+
+  @Nullable
+  private Entry getEntry(String safeKey) {
+    Entry entry;
+    synchronized (this) {
+      try {
+        openIfNeeded();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to get from disk cache", e);
+        }
+        return null;
+      }
+      entry = findEntry(safeKey);
+    }
+    if (entry != null) {
+      entry.isAccessed = true;
+    }
+    // Write a snapshot straight away if the index had to be rebuilt, so the next time the cache is
+    // opened it doesn't have to be rebuilt again.
+    writeSnapshotIfNeeded();
+    return entry;
+  }
+
+  /**
+   * Returns the entry for the given key from the index, first checking its header if it was loaded
+   * from a snapshot.
+   */
+  @Nullable
+  private Entry findEntry(String safeKey) {
+    Entry entry = index.get(safeKey);
+    if (entry != null && entry.isUnverified) {
+      if (matchesHeader(safeKey, entry)) {
+        entry.isUnverified = false;
+      } else {
+        index.remove(safeKey);
+        entry = null;
+      }
+    }
+    return entry;
+  }
+
+  private static boolean matchesHeader(String safeKey, Entry entry) {
+    ByteBuffer buffer = entry.segment.buffer;
+    if (buffer.getInt(entry.offset) != STATE_COMMITTED
+        || buffer.getInt(entry.offset + 4) != entry.keyLength
+        || buffer.getInt(entry.offset + 8) != entry.dataLength) {
+      return false;
+    }
+    byte[] keyBytes = new byte[entry.keyLength];
+    ByteBuffer key = buffer.duplicate();
+    key.position(entry.offset + HEADER_SIZE);
+    key.get(keyBytes);
+    if (!Arrays.equals(keyBytes, safeKey.getBytes(Key.CHARSET))) {
+      return false;
+    }
+    // The state may have reached the disk before the data did.
+    if (buffer.getInt(entry.offset + 12) != checksum(entry.getData())) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Found entry with invalid checksum in: " + entry.segment.file);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private static int checksum(ByteBuffer data) {
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[(int) Math.min(data.remaining(), CHECKSUM_CHUNK_SIZE)];
+    ByteBuffer source = data.duplicate();
+    while (source.hasRemaining()) {
+      int length = Math.min(source.remaining(), chunk.length);
+      source.get(chunk, 0, length);
+      crc.update(chunk, 0, length);
+    }
+    return (int) crc.getValue();
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    put(key, writer, null /*data*/);
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    put(key, new ChannelFileWriter(writer), null /*data*/);
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    // Buffers are copied directly into their segment, without writing a temporary file.
+    put(key, null /*writer*/, data);
+  }
+
+  private void put(Key key, @Nullable Writer writer, @Nullable ByteBuffer data) {
+    // We want to make sure that puts block so that data is available when put completes. We may
+    // actually not write any data if we find that data is written by the time we acquire the lock.
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    writeLocker.acquire(safeKey);
+    try {
+      File temp = null;
+      Entry entry = null;
+      boolean isCommitted = false;
+      try {
+        synchronized (this) {
+          openIfNeeded();
+          if (findEntry(safeKey) != null) {
+            return;
+          }
+          temp = new File(tempDirectory, safeKey);
+        }
+        long length;
+        if (data != null) {
+          length = data.limit();
+        } else if (Preconditions.checkNotNull(writer).write(temp) && temp.exists()) {
+          length = temp.length();
+        } else {
+          return;
+        }
+        synchronized (this) {
+          entry = reserve(safeKey, length);
+        }
+        if (entry == null) {
+          return;
+        }
+        if (data != null) {
+          ByteBuffer source = data.duplicate();
+          source.position(0);
+          entry.getWritableData().put(source);
+        } else {
+          readFile(temp, entry.getWritableData());
+        }
+        int checksum = checksum(entry.getData());
+        synchronized (this) {
+          commit(safeKey, entry, checksum);
+        }
+        isCommitted = true;
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to put to disk cache", e);
+        }
+      } finally {
+        if (entry != null && !isCommitted) {
+          synchronized (this) {
+            markDeleted(entry);
+          }
+        }
+        if (temp != null) {
+          ByteBufferDiskCaches.deleteIfExists(temp);
+        }
+      }
+    } finally {
+      writeLocker.release(safeKey);
+    }
+    writeSnapshotIfNeeded();
+  }
+
+  @Override
+  public synchronized void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    Entry entry = index.remove(safeKey);
+    if (entry != null) {
+      markDeleted(entry);
+      deleteCopiedFile(safeKey, entry);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    tempDirectory = new File(tempRootDirectory, String.valueOf(generation.incrementAndGet()));
+    isSnapshotNeeded = false;
+    ByteBufferDiskCaches.deleteIfExists(getSnapshotFile());
+    for (Segment segment : segments) {
+      segment.isEvicted = true;
+      ByteBufferDiskCaches.deleteIfExists(segment.file);
+    }
+    segments.clear();
+    index.clear();
+    currentSize = 0;
+    ByteBufferDiskCaches.deleteContents(filesDirectory);
+    // Re-list the directory the next time the cache is used, in case any segments couldn't be
+    // deleted.
+    isOpen = false;
+  }
+
+  private synchronized File newTempFile(String name) {
+    return new File(tempDirectory, name);
+  }
+
+  @VisibleForTesting
+  synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  private void openIfNeeded() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Failed to create directory: " + directory);
+    }
+    if (!hasOpened) {
+      // Temporary files left behind by an earlier instance. Writes started before the cache was
+      // cleared may still be using the directories of earlier generations, so they're only
+      // deleted when the cache is first opened.
+      File[] generations = tempRootDirectory.listFiles();
+      if (generations != null) {
+        for (File file : generations) {
+          ByteBufferDiskCaches.deleteContents(file);
+          ByteBufferDiskCaches.deleteIfExists(file);
+        }
+      }
+      hasOpened = true;
+    }
+    if (!tempDirectory.mkdirs() && !tempDirectory.isDirectory()) {
+      throw new IOException("Failed to create directory: " + tempDirectory);
+    }
+    // Files copied from entries are cheap to recreate and may not match the rebuilt index.
+    ByteBufferDiskCaches.deleteContents(filesDirectory);
+
+    int[] ids = listSegmentIds();
+    if (!readSnapshot(ids)) {
+      resetIndex();
+      for (int id : ids) {
+        Segment segment = openSegment(id);
+        if (segment != null) {
+          scan(segment, 0 /*position*/);
+          addSegment(segment);
+        }
+      }
+      isSnapshotNeeded = true;
+    }
+    nextSegmentId = ids.length > 0 ? ids[ids.length - 1] + 1 : 0;
+    isOpen = true;
+
+    // The maximum size may have been reduced since the segments were written.
+    while (currentSize > maxSize && !segments.isEmpty()) {
+      evictOldestSegment(null /*target*/);
+    }
+  }
+
+  private void resetIndex() {
+    index.clear();
+    segments.clear();
+    currentSize = 0;
+  }
+
+  private void addSegment(Segment segment) {
+    segments.addLast(segment);
+    currentSize += segment.capacity;
+  }
+
+  /**
+   * Maps the segment with the given id, or deletes it and returns {@code null} if it can't be
+   * mapped.
+   */
+  @Nullable
+  private Segment openSegment(int id) {
+    File file = getSegmentFile(id);
+    long length = file.length();
+    if (length <= HEADER_SIZE || length > Integer.MAX_VALUE) {
+      ByteBufferDiskCaches.deleteIfExists(file);
+      return null;
+    }
+    try {
+      return new Segment(file, map(file, (int) length));
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to open segment: " + file, e);
+      }
+      ByteBufferDiskCaches.deleteIfExists(file);
+      return null;
+    }
+  }
+
+  /**
+   * Loads the index from the snapshot and the headers of entries written since it was taken and
+   * returns {@code true}, or returns {@code false} if the snapshot is missing or doesn't match the
+   * given segments.
+   */
+  private boolean readSnapshot(int[] ids) {
+    File file = getSnapshotFile();
+    if (!file.exists()) {
+      return false;
+    }
+    resetIndex();
+    try {
+      ByteBuffer snapshot = ByteBufferUtil.fromFile(file);
+      if (snapshot.getInt() != SNAPSHOT_MAGIC || snapshot.getInt() != SNAPSHOT_VERSION) {
+        throw new IOException("Unrecognized snapshot");
+      }
+      int segmentCount = snapshot.getInt();
+      int entryCount = snapshot.getInt();
+      if (segmentCount < 0 || entryCount < 0) {
+        throw new IOException("Corrupt snapshot");
+      }
+
+      // Segments that were evicted after the snapshot was taken are skipped, along with their
+      // entries.
+      Segment[] snapshotSegments = new Segment[segmentCount];
+      int openedCount = 0;
+      int lastId = -1;
+      for (int i = 0; i < segmentCount; i++) {
+        int id = snapshot.getInt();
+        int capacity = snapshot.getInt();
+        int writePosition = snapshot.getInt();
+        if (id <= lastId || writePosition < 0 || writePosition > capacity) {
+          throw new IOException("Corrupt snapshot");
+        }
+        lastId = id;
+        if (Arrays.binarySearch(ids, id) < 0) {
+          continue;
+        }
+        Segment segment = openSegment(id);
+        if (segment == null || segment.capacity != capacity) {
+          throw new IOException("Segment: " + id + " doesn't match snapshot");
+        }
+        segment.writePosition = writePosition;
+        snapshotSegments[i] = segment;
+        openedCount++;
+      }
+
+      for (int i = 0; i < entryCount; i++) {
+        int segmentIndex = snapshot.getInt();
+        int offset = snapshot.getInt();
+        int keyLength = snapshot.getInt();
+        int dataLength = snapshot.getInt();
+        if (segmentIndex < 0 || segmentIndex >= segmentCount || offset < 0 || keyLength <= 0
+            || keyLength > MAX_KEY_LENGTH || dataLength < 0) {
+          throw new IOException("Corrupt snapshot");
+        }
+        byte[] keyBytes = new byte[keyLength];
+        snapshot.get(keyBytes);
+        Segment segment = snapshotSegments[segmentIndex];
+        if (segment == null) {
+          continue;
+        }
+        if ((long) offset + HEADER_SIZE + keyLength + dataLength > segment.writePosition) {
+          throw new IOException("Corrupt snapshot");
+        }
+        String safeKey = new String(keyBytes, Key.CHARSET);
+        Entry entry = new Entry(segment, offset, keyLength, dataLength);
+        entry.isUnverified = true;
+        index.put(safeKey, entry);
+        segment.keys.add(safeKey);
+      }
+
+      for (Segment segment : snapshotSegments) {
+        if (segment != null) {
+          // Entries may have been written to the newest segment after the snapshot was taken.
+          scan(segment, segment.writePosition);
+          addSegment(segment);
+        }
+      }
+      // Segments added after the snapshot was taken have to be scanned, but segments missing from
+      // the snapshot that are older than the segments in it mean the snapshot is out of date.
+      int olderCount = 0;
+      for (int id : ids) {
+        if (id <= lastId) {
+          olderCount++;
+          continue;
+        }
+        Segment segment = openSegment(id);
+        if (segment != null) {
+          scan(segment, 0 /*position*/);
+          addSegment(segment);
+        }
+      }
+      if (olderCount != openedCount) {
+        throw new IOException("Found segments missing from snapshot");
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to read snapshot, rebuilding index", e);
+      }
+      resetIndex();
+      ByteBufferDiskCaches.deleteIfExists(file);
+      return false;
+    }
+  }
+
+  /**
+   * Writes a snapshot of the index if a segment has been filled or the index has been rebuilt
+   * since the last snapshot was written.
+   */
+  private void writeSnapshotIfNeeded() {
+    byte[] snapshot;
+    int snapshotGeneration;
+    File temp;
+    synchronized (this) {
+      if (!isOpen || !isSnapshotNeeded) {
+        return;
+      }
+      isSnapshotNeeded = false;
+      snapshot = createSnapshot();
+      snapshotGeneration = generation.get();
+      temp = new File(tempDirectory, SNAPSHOT_FILE + "." + Thread.currentThread().getId());
+    }
+    // Write the snapshot without holding the lock, it's replaced atomically when it's complete.
+    try {
+      ByteBufferDiskCaches.replaceFile(ByteBuffer.wrap(snapshot), temp, getSnapshotFile(),
+          this /*lock*/, generation, snapshotGeneration);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to write snapshot", e);
+      }
+    }
+  }
+
+  private byte[] createSnapshot() {
+    int size = SNAPSHOT_HEADER_SIZE + segments.size() * SNAPSHOT_SEGMENT_SIZE;
+    for (Entry entry : index.values()) {
+      size += SNAPSHOT_ENTRY_SIZE + entry.keyLength;
+    }
+    ByteBuffer snapshot = ByteBuffer.allocate(size);
+    snapshot.putInt(SNAPSHOT_MAGIC)
+        .putInt(SNAPSHOT_VERSION)
+        .putInt(segments.size())
+        .putInt(index.size());
+    Map<Segment, Integer> segmentIndices = new HashMap<>();
+    for (Segment segment : segments) {
+      segmentIndices.put(segment, segmentIndices.size());
+      snapshot.putInt(getSegmentId(segment))
+          .putInt(segment.capacity)
+          .putInt(segment.writePosition);
+    }
+    for (Map.Entry<String, Entry> mapEntry : index.entrySet()) {
+      Entry entry = mapEntry.getValue();
+      snapshot.putInt(segmentIndices.get(entry.segment))
+          .putInt(entry.offset)
+          .putInt(entry.keyLength)
+          .putInt(entry.dataLength)
+          .put(mapEntry.getKey().getBytes(Key.CHARSET));
+    }
+    return snapshot.array();
+  }
+
+  private File getSnapshotFile() {
+    return new File(directory, SNAPSHOT_FILE);
+  }
+
+  private static int getSegmentId(Segment segment) {
+    return Integer.parseInt(segment.file.getName().substring(SEGMENT_PREFIX.length()));
+  }
+
+  private int[] listSegmentIds() {
+    String[] names = directory.list();
+    if (names == null) {
+      return new int[0];
+    }
+    int[] ids = new int[names.length];
+    int count = 0;
+    for (String name : names) {
+      if (!name.startsWith(SEGMENT_PREFIX)) {
+        continue;
+      }
+      try {
+        ids[count++] = Integer.parseInt(name.substring(SEGMENT_PREFIX.length()));
+      } catch (NumberFormatException e) {
+        count--;
+      }
+    }
+    ids = Arrays.copyOf(ids, count);
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  private File getSegmentFile(int id) {
+    return new File(directory, SEGMENT_PREFIX + id);
+  }
+
+  /**
+   * Adds every committed entry in the given segment starting at the given position to the index
+   * and finds the end of the written part of the segment.
+   */
+  private void scan(Segment segment, int position) {
+    ByteBuffer buffer = segment.buffer;
+    while (position + HEADER_SIZE <= segment.capacity) {
+      int state = buffer.getInt(position);
+      if (state == STATE_END) {
+        break;
+      }
+      int keyLength = buffer.getInt(position + 4);
+      int dataLength = buffer.getInt(position + 8);
+      if ((state != STATE_WRITING && state != STATE_COMMITTED && state != STATE_DELETED)
+          || keyLength <= 0 || keyLength > MAX_KEY_LENGTH || dataLength < 0
+          || (long) position + HEADER_SIZE + keyLength + dataLength > segment.capacity) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Found corrupt entry in: " + segment.file + " at: " + position);
+        }
+        position = segment.capacity;
+        break;
+      }
+      if (state == STATE_COMMITTED) {
+        byte[] keyBytes = new byte[keyLength];
+        ByteBuffer key = buffer.duplicate();
+        key.position(position + HEADER_SIZE);
+        key.get(keyBytes);
+        String safeKey = new String(keyBytes, Key.CHARSET);
+        Entry entry = new Entry(segment, position, keyLength, dataLength);
+        // The checksum is only checked once the entry is used, so that opening the cache doesn't
+        // read every entry's data.
+        entry.isUnverified = true;
+        // Entries in newer segments replace those in older segments.
+        index.put(safeKey, entry);
+        segment.keys.add(safeKey);
+      }
+      position += HEADER_SIZE + keyLength + dataLength;
+    }
+    segment.writePosition = position;
+  }
+
+  /**
+   * Writes the header of a new entry for the given key to the newest segment, adding a segment if
+   * necessary, and returns the entry or {@code null} if the data is too large for the cache.
+   */
+  @Nullable
+  private Entry reserve(String safeKey, long dataLength) throws IOException {
+    byte[] keyBytes = safeKey.getBytes(Key.CHARSET);
+    long entrySize = HEADER_SIZE + keyBytes.length + dataLength;
+    if (entrySize > maxSize || entrySize > Integer.MAX_VALUE) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Entry for: " + safeKey + " is larger than the cache, size: " + entrySize);
+      }
+      return null;
+    }
+
+    Segment segment = segments.peekLast();
+    boolean isNewSegment = false;
+    if (segment == null || segment.writePosition + entrySize > segment.capacity) {
+      int id = nextSegmentId++;
+      File file = getSegmentFile(id);
+      int capacity = (int) Math.max(segmentSize, entrySize);
+      segment = new Segment(file, map(file, capacity));
+      addSegment(segment);
+      isNewSegment = true;
+      // The previous segment is full, so it's a good time to take a snapshot.
+      isSnapshotNeeded = true;
+    }
+
+    Entry entry = new Entry(segment, segment.writePosition, keyBytes.length, (int) dataLength);
+    ByteBuffer header = segment.buffer.duplicate();
+    header.position(entry.offset);
+    header.putInt(STATE_WRITING)
+        .putInt(keyBytes.length)
+        .putInt((int) dataLength)
+        .putInt(0 /*checksum*/)
+        .put(keyBytes);
+    segment.writePosition += entrySize;
+
+    if (isNewSegment) {
+      while (currentSize > maxSize && segments.size() > 1) {
+        evictOldestSegment(segment);
+      }
+    }
+    return entry;
+  }
+
+  private void commit(String safeKey, Entry entry, int checksum) {
+    if (entry.segment.isEvicted) {
+      // The segment was evicted while the data was being written, so we treat the entry as
+      // though it was evicted immediately after it was written.
+      return;
+    }
+    entry.segment.buffer.putInt(entry.offset + 12, checksum);
+    entry.segment.buffer.putInt(entry.offset, STATE_COMMITTED);
+    entry.segment.keys.add(safeKey);
+    Entry previous = index.put(safeKey, entry);
+    if (previous != null) {
+      markDeleted(previous);
+      deleteCopiedFile(safeKey, previous);
+    }
+  }
+
+  private void markDeleted(Entry entry) {
+    if (!entry.segment.isEvicted) {
+      entry.segment.buffer.putInt(entry.offset, STATE_DELETED);
+    }
+  }
+
+  /**
+   * Removes the oldest segment, first copying any entries that have been read since they were
+   * written to the given segment if it has room for them.
+   */
+  private void evictOldestSegment(@Nullable Segment target) {
+    Segment evicted = segments.removeFirst();
+    evicted.isEvicted = true;
+    currentSize -= evicted.capacity;
+    for (String safeKey : evicted.keys) {
+      Entry entry = index.get(safeKey);
+      if (entry == null || entry.segment != evicted) {
+        continue;
+      }
+      int entrySize = entry.getSize();
+      if (target != null && entry.isAccessed
+          && target.writePosition + entrySize <= target.capacity) {
+        ByteBuffer source = evicted.buffer.duplicate();
+        source.position(entry.offset);
+        source.limit(entry.offset + entrySize);
+        ByteBuffer destination = target.buffer.duplicate();
+        destination.position(target.writePosition);
+        destination.put(source);
+        Entry moved = new Entry(target, target.writePosition, entry.keyLength, entry.dataLength);
+        moved.isCopiedToFile = entry.isCopiedToFile;
+        moved.isUnverified = entry.isUnverified;
+        target.writePosition += entrySize;
+        target.keys.add(safeKey);
+        index.put(safeKey, moved);
+      } else {
+        index.remove(safeKey);
+        deleteCopiedFile(safeKey, entry);
+      }
+    }
+    evicted.keys.clear();
+    ByteBufferDiskCaches.deleteIfExists(evicted.file);
+  }
+
+  private void deleteCopiedFile(String safeKey, Entry entry) {
+    if (entry.isCopiedToFile) {
+      entry.isCopiedToFile = false;
+      ByteBufferDiskCaches.deleteIfExists(new File(filesDirectory, safeKey));
+    }
+  }
+
+  private static MappedByteBuffer map(File file, int capacity) throws IOException {
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      if (randomAccessFile.length() != capacity) {
+        randomAccessFile.setLength(capacity);
+      }
+      // The mapping remains valid after the file is closed.
+      return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } finally {
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  private static void readFile(File file, ByteBuffer destination) throws IOException {
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "r");
+      FileChannel channel = randomAccessFile.getChannel();
+      while (destination.hasRemaining()) {
+        if (channel.read(destination) == -1) {
+          throw new EOFException("Unexpected end of: " + file);
+        }
+      }
+    } finally {
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  /**
+   * A single memory mapped segment file.
+   *
+   * <p>All fields other than the final fields are guarded by the cache's lock. The mapped buffer's
+   * position and limit are never changed, all reads and writes use absolute offsets or duplicates.
+   */
+  private static final class Segment {
+    @Synthetic final File file;
+    @Synthetic final MappedByteBuffer buffer;
+    @Synthetic final int capacity;
+    @Synthetic final List<String> keys = new ArrayList<>();
+    @Synthetic int writePosition;
+    @Synthetic boolean isEvicted;
+
+    Segment(File file, MappedByteBuffer buffer) {
+      this.file = file;
+      this.buffer = buffer;
+      this.capacity = buffer.capacity();
+    }
+  }
+
+  /**
+   * The location of a single entry in a segment.
+   */
+  private static final class Entry {
+    @Synthetic final Segment segment;
+    @Synthetic final int offset;
+    @Synthetic final int keyLength;
+    @Synthetic final int dataLength;
+    // Set without holding the cache's lock when the entry is read.
+    @Synthetic volatile boolean isAccessed;
+    // Only set while holding the cache's lock, but read without it.
+    @Synthetic volatile boolean isCopiedToFile;
+    // Set for entries loaded from a snapshot until their header has been checked. Guarded by the
+    // cache's lock.
+    @Synthetic boolean isUnverified;
+
+    Entry(Segment segment, int offset, int keyLength, int dataLength) {
+      this.segment = segment;
+      this.offset = offset;
+      this.keyLength = keyLength;
+      this.dataLength = dataLength;
+    }
+
+    int getSize() {
+      return HEADER_SIZE + keyLength + dataLength;
+    }
+
+    ByteBuffer getData() {
+      return getWritableData().asReadOnlyBuffer();
+    }
+
+    ByteBuffer getWritableData() {
+      int dataOffset = offset + HEADER_SIZE + keyLength;
+      ByteBuffer data = segment.buffer.duplicate();
+      data.position(dataOffset);
+      data.limit(dataOffset + dataLength);
+      return data.slice();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory.CacheDirectoryGetter;
+import java.io.File;
+
+/**
+ * Creates a {@link SegmentDiskCache} in the specified disk cache directory.
+ *
+ * <p>Use a different directory than any cache previously created with {@link DiskLruCacheFactory}
+ * or one of its subclasses, otherwise the entries written by the previous cache will be left on
+ * disk.
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class SegmentDiskCacheFactory implements DiskCache.Factory {
+  private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final long diskCacheSize;
+  private final int segmentSize;
+
+  public SegmentDiskCacheFactory(final String diskCacheFolder, long diskCacheSize) {
+    this(new CacheDirectoryGetter() {
+      @Override
+      public File getCacheDirectory() {
+        return new File(diskCacheFolder);
+      }
+    }, diskCacheSize, SegmentDiskCache.DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache.
+   * @param segmentSize          The size in bytes of each segment file.
+   */
+  public SegmentDiskCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize, int segmentSize) {
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.diskCacheSize = diskCacheSize;
+    this.segmentSize = segmentSize;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    return SegmentDiskCache.create(cacheDir, diskCacheSize, segmentSize);
+  }
+}
@@ -0,0 +1,90 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory.CacheDirectoryGetter;
+import java.io.File;
+
+/**
+ * Creates a {@link ShardedDiskLruCacheWrapper} in the specified disk cache directory.
+ *
+ * <p>Use a different directory than any cache previously created with {@link DiskLruCacheFactory}
+ * or one of its subclasses, otherwise the entries written by the previous cache will be left on
+ * disk.
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ShardedDiskLruCacheFactory implements DiskCache.Factory {
+  /** Enough shards for the default disk cache and source executors to rarely share a journal. */
+  public static final int DEFAULT_SHARD_COUNT = 4;
+
+  private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final long diskCacheSize;
+  private final int shardCount;
+  @Nullable private final SafeKeyGenerator safeKeyGenerator;
+
+  public ShardedDiskLruCacheFactory(final String diskCacheFolder, long diskCacheSize) {
+    this(new CacheDirectoryGetter() {
+      @Override
+      public File getCacheDirectory() {
+        return new File(diskCacheFolder);
+      }
+    }, diskCacheSize, DEFAULT_SHARD_COUNT);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache, divided equally between
+   *                             shards.
+   * @param shardCount           The number of shards to use, rounded up to the nearest power of
+   *                             two.
+   */
+  public ShardedDiskLruCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize, int shardCount) {
+    this(cacheDirectoryGetter, diskCacheSize, shardCount, null /*safeKeyGenerator*/);
+  }
+
+  /**
+   * Creates a factory whose disk caches generate file names for keys with the given
+   * {@link SafeKeyGenerator}, for example {@link FastSafeKeyGenerator}.
+   *
+   * <p>The same type of {@link SafeKeyGenerator} must be used every time a cache is opened in a
+   * given directory, entries written with a different type will not be found.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache, divided equally between
+   *                             shards.
+   * @param shardCount           The number of shards to use, rounded up to the nearest power of
+   *                             two.
+   * @param safeKeyGenerator     The generator to use to create file names for keys, or
+   *                             {@code null} to use the default {@link SafeKeyGenerator}.
+   */
+  public ShardedDiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize,
+      int shardCount, @Nullable SafeKeyGenerator safeKeyGenerator) {
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.diskCacheSize = diskCacheSize;
+    this.shardCount = shardCount;
+    this.safeKeyGenerator = safeKeyGenerator;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    if (safeKeyGenerator != null) {
+      return ShardedDiskLruCacheWrapper.create(
+          cacheDir, diskCacheSize, shardCount, safeKeyGenerator);
+    }
+    return ShardedDiskLruCacheWrapper.create(cacheDir, diskCacheSize, shardCount);
+  }
+}
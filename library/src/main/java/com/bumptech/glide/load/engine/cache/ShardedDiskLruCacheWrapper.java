@@ -0,0 +1,141 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Preconditions;
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ByteBufferDiskCache} that splits its entries across a number of independent
+ * {@link com.bumptech.glide.disklrucache.DiskLruCache}s.
+ *
+ * <p>{@link DiskLruCacheWrapper} writes every entry to a single journal that is guarded by a
+ * single lock, so puts from the disk cache and source executors serialize on journal appends. This
+ * implementation picks a shard using the hash code of each key's safe key and stores each shard in
+ * its own sub directory with its own journal, lock and an equal share of the maximum size. Shards
+ * are opened lazily the first time they're used.
+ *
+ * <p>Because each shard evicts independently, entries are evicted in approximately LRU order and
+ * the cache may be evicting from one shard while another is under its share of the maximum size.
+ *
+ * <p>There must be no more than one active instance for a given directory at a time. The directory
+ * should not be shared with an unsharded cache, a cache with a different number of shards or a
+ * cache that uses a different type of {@link SafeKeyGenerator}.
+ */
+public final class ShardedDiskLruCacheWrapper implements ByteBufferDiskCache {
+  private static final String SHARD_DIRECTORY_PREFIX = "shard_";
+  private static final int MAX_SHARD_COUNT = 256;
+
+  private final SafeKeyGenerator safeKeyGenerator;
+  private final DiskLruCacheWrapper[] shards;
+  private final int shardMask;
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size.
+   *
+   * @param directory  The directory for the disk cache, each shard will be stored in its own sub
+   *                   directory.
+   * @param maxSize    The max size for the disk cache, divided equally between shards.
+   * @param shardCount The number of shards to use, rounded up to the nearest power of two.
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize, int shardCount) {
+    return create(directory, maxSize, shardCount, new SafeKeyGenerator());
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size that generates file
+   * names for {@link Key}s with the given {@link SafeKeyGenerator}.
+   *
+   * @param directory        The directory for the disk cache, each shard will be stored in its own
+   *                         sub directory.
+   * @param maxSize          The max size for the disk cache, divided equally between shards.
+   * @param shardCount       The number of shards to use, rounded up to the nearest power of two.
+   * @param safeKeyGenerator The generator to use to create file names for keys, for example
+   *                         {@link FastSafeKeyGenerator}.
+   * @return The new disk cache with the given arguments
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static DiskCache create(
+      File directory, long maxSize, int shardCount, SafeKeyGenerator safeKeyGenerator) {
+    return new ShardedDiskLruCacheWrapper(directory, maxSize, shardCount, safeKeyGenerator);
+  }
+
+  @SuppressWarnings("deprecation")
+  private ShardedDiskLruCacheWrapper(
+      File directory, long maxSize, int shardCount, SafeKeyGenerator safeKeyGenerator) {
+    Preconditions.checkArgument(shardCount > 0 && shardCount <= MAX_SHARD_COUNT,
+        "Shard count must be > 0 and <= " + MAX_SHARD_COUNT);
+    this.safeKeyGenerator = Preconditions.checkNotNull(safeKeyGenerator);
+    int count = Integer.highestOneBit(shardCount);
+    if (count < shardCount) {
+      count <<= 1;
+    }
+    shards = new DiskLruCacheWrapper[count];
+    long shardMaxSize = Math.max(1, maxSize / count);
+    for (int i = 0; i < count; i++) {
+      shards[i] =
+          new DiskLruCacheWrapper(new File(directory, SHARD_DIRECTORY_PREFIX + i), shardMaxSize);
+    }
+    shardMask = count - 1;
+  }
+
+  @VisibleForTesting
+  int getShardCount() {
+    return shards.length;
+  }
+
+  @VisibleForTesting
+  int getShardIndex(String safeKey) {
+    // Safe keys aren't necessarily hex encoded hashes, so mix the high bits of the hash code into
+    // the low bits the mask keeps.
+    int hashCode = safeKey.hashCode();
+    return (hashCode ^ (hashCode >>> 16)) & shardMask;
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    return shards[getShardIndex(safeKey)].get(safeKey, key);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    return shards[getShardIndex(safeKey)].getBuffer(safeKey, key);
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    put(key, new ChannelFileWriter(writer));
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    put(key, ChannelFileWriter.forBuffer(data));
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    shards[getShardIndex(safeKey)].put(safeKey, key, writer);
+  }
+
+  @Override
+  public void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    shards[getShardIndex(safeKey)].delete(safeKey);
+  }
+
+  @Override
+  public void clear() {
+    for (DiskLruCacheWrapper shard : shards) {
+      shard.clear();
+    }
+  }
+}
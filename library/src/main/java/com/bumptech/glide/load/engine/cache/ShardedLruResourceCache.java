@@ -0,0 +1,272 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Preconditions;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An approximately LRU in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that
+ * splits its entries across a number of independently locked shards.
+ *
+ * <p>{@link LruResourceCache} synchronizes every operation on a single monitor, which becomes a
+ * point of contention when many decode threads put resources while the main thread removes them.
+ * This implementation only holds the lock of the shard a key hashes to and only for the duration
+ * of the map operation. Sizes are tracked across all shards, so the total byte size of the cache
+ * is still bounded by a single maximum size. Each entry records when it was last put, so when the
+ * cache is over its maximum size the least recently used entry of the shard whose least recently
+ * used entry is oldest is evicted, which preserves a global LRU order as long as no other thread
+ * is modifying the cache at the same time.
+ *
+ * <p>{@link ResourceRemovedListener}s are always called without holding any locks.
+ */
+public class ShardedLruResourceCache implements MemoryCache {
+  private static final int DEFAULT_SHARD_COUNT = 8;
+
+  private final Shard[] shards;
+  private final int shardMask;
+  private final long initialMaxSize;
+  private final AtomicLong currentSize = new AtomicLong();
+  // A logical clock used to order entries across shards.
+  private final AtomicLong clock = new AtomicLong();
+  private volatile long maxSize;
+  @Nullable
+  private volatile ResourceRemovedListener listener;
+
+  /**
+   * Constructor for ShardedLruResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public ShardedLruResourceCache(long size) {
+    this(size, DEFAULT_SHARD_COUNT);
+  }
+
+  /**
+   * Constructor for ShardedLruResourceCache.
+   *
+   * @param size       The maximum size in bytes the in memory cache can use.
+   * @param shardCount The number of shards to use, rounded up to the nearest power of two.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public ShardedLruResourceCache(long size, int shardCount) {
+    Preconditions.checkArgument(shardCount > 0, "Shard count must be > 0");
+    int count = Integer.highestOneBit(shardCount);
+    if (count < shardCount) {
+      count <<= 1;
+    }
+    shards = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard();
+    }
+    shardMask = count - 1;
+    initialMaxSize = size;
+    maxSize = size;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    trimToSize(maxSize, /*justAdded=*/ null);
+  }
+
+  /**
+   * Returns true if there is a value for the given key in the cache.
+   *
+   * @param key The key to check.
+   */
+  public boolean contains(@NonNull Key key) {
+    Shard shard = getShard(key);
+    synchronized (shard) {
+      return shard.entries.containsKey(key);
+    }
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> remove(@NonNull Key key) {
+    Shard shard = getShard(key);
+    Entry removed;
+    synchronized (shard) {
+      removed = shard.entries.remove(key);
+    }
+    if (removed == null) {
+      return null;
+    }
+    currentSize.addAndGet(-removed.resource.getSize());
+    return removed.resource;
+  }
+
+  /**
+   * Adds the given resource to the cache with the given key and returns any previous entry for the
+   * given key that may have already been in the cache.
+   *
+   * <p>If the size of the resource is larger than the total cache size, the resource will not be
+   * added to the cache and the {@link ResourceRemovedListener} will instead be called synchronously
+   * with the given resource. Putting a {@code null} resource removes any existing entry.
+   */
+  @Nullable
+  @Override
+  public Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    if (resource == null) {
+      Resource<?> old = remove(key);
+      notifyRemoved(old);
+      return old;
+    }
+
+    int size = resource.getSize();
+    if (size >= maxSize) {
+      notifyRemoved(resource);
+      return null;
+    }
+
+    Shard shard = getShard(key);
+    Resource<?> old;
+    synchronized (shard) {
+      Entry oldEntry = shard.entries.put(key, new Entry(resource, clock.incrementAndGet()));
+      old = oldEntry != null ? oldEntry.resource : null;
+    }
+    currentSize.addAndGet(old == null ? size : size - old.getSize());
+    if (old != null && !old.equals(resource)) {
+      notifyRemoved(old);
+    }
+    trimToSize(maxSize, key);
+    return old;
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0, /*justAdded=*/ null);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2, /*justAdded=*/ null);
+    }
+  }
+
+  /**
+   * Evicts the oldest least recently used entry across all shards until the current size is less
+   * than or equal to the given size.
+   *
+   * <p>An entry for {@code justAdded} is never evicted so that a put into an otherwise empty shard
+   * doesn't immediately evict the new entry. Since every entry is smaller than the maximum size,
+   * the new entry always fits once everything else has been evicted.
+   */
+  private void trimToSize(long size, @Nullable Key justAdded) {
+    while (currentSize.get() > size) {
+      Shard oldest = null;
+      long oldestAccessTime = Long.MAX_VALUE;
+      for (Shard shard : shards) {
+        long accessTime = shard.getEldestAccessTime(justAdded);
+        if (accessTime < oldestAccessTime) {
+          oldest = shard;
+          oldestAccessTime = accessTime;
+        }
+      }
+      if (oldest == null) {
+        return;
+      }
+
+      Resource<?> evicted = oldest.removeEldest(justAdded);
+      if (evicted != null) {
+        currentSize.addAndGet(-evicted.getSize());
+        notifyRemoved(evicted);
+      }
+    }
+  }
+
+  private void notifyRemoved(@Nullable Resource<?> removed) {
+    ResourceRemovedListener current = listener;
+    if (current != null && removed != null) {
+      current.onResourceRemoved(removed);
+    }
+  }
+
+  private Shard getShard(Key key) {
+    int hash = key.hashCode();
+    return shards[(hash ^ (hash >>> 16)) & shardMask];
+  }
+
+  private static final class Shard {
+    final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Returns the time the least recently used entry other than {@code justAdded} was put, or
+     * {@link Long#MAX_VALUE} if there is no such entry.
+     */
+    synchronized long getEldestAccessTime(@Nullable Key justAdded) {
+      Map.Entry<Key, Entry> eldest = getEldest(justAdded);
+      return eldest != null ? eldest.getValue().accessTime : Long.MAX_VALUE;
+    }
+
+    @Nullable
+    synchronized Resource<?> removeEldest(@Nullable Key justAdded) {
+      Map.Entry<Key, Entry> eldest = getEldest(justAdded);
+      if (eldest == null) {
+        return null;
+      }
+      entries.remove(eldest.getKey());
+      return eldest.getValue().resource;
+    }
+
+    @Nullable
+    private Map.Entry<Key, Entry> getEldest(@Nullable Key justAdded) {
+      Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      Map.Entry<Key, Entry> eldest = iterator.next();
+      if (eldest.getKey().equals(justAdded)) {
+        // Any later entries were put by other threads after the entry we just added.
+        return iterator.hasNext() ? iterator.next() : null;
+      }
+      return eldest;
+    }
+  }
+
+  private static final class Entry {
+    final Resource<?> resource;
+    final long accessTime;
+
+    Entry(Resource<?> resource, long accessTime) {
+      this.resource = resource;
+      this.accessTime = accessTime;
+    }
+  }
+}
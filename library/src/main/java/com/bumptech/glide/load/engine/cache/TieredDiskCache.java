@@ -0,0 +1,208 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Preconditions;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ByteBufferDiskCache} that keeps a small set of frequently read entries in a fast hot
+ * {@link DiskCache}, typically on internal storage, and everything else in a large cold
+ * {@link DiskCache}, typically on external storage, which may be much slower on devices where it's
+ * backed by an SD card.
+ *
+ * <p>New entries are written to the cold cache. Reads are counted in a {@link FrequencySketch}
+ * and once an entry in the cold cache has been read {@link #PROMOTION_FREQUENCY} times, it's
+ * copied to the hot cache, so that small entries that are read over and over again, like resource
+ * cache thumbnails, are read from fast storage. Entries larger than an eighth of the hot cache are
+ * never promoted.
+ *
+ * <p>When the hot cache is full, the least recently read promoted entries are demoted to make room
+ * for the new entry, but only if the new entry has been read more often than each of them.
+ * Demoted entries are copied back to the cold cache if the cold cache no longer has them and then
+ * deleted from the hot cache.
+ *
+ * <p>Entries are only tracked while the cache is open. Entries promoted by an earlier instance
+ * remain readable from the hot cache and are eventually evicted by the hot cache itself.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class TieredDiskCache implements ByteBufferDiskCache {
+  /** The number of reads after which an entry in the cold cache is promoted to the hot cache. */
+  public static final int PROMOTION_FREQUENCY = 2;
+  private static final int MAX_PROMOTED_SIZE_DIVISOR = 8;
+  private static final int EXPECTED_KEYS = 4096;
+
+  private final DiskCache hot;
+  private final DiskCache cold;
+  private final long hotMaxSize;
+  private final FrequencySketch sketch = new FrequencySketch(EXPECTED_KEYS);
+  // Promoted keys and their sizes in order of access, guarded by this.
+  private final LinkedHashMap<Key, Long> promoted = new LinkedHashMap<>(16, 0.75f, true);
+  private long promotedBytes;
+
+  /**
+   * Constructor for TieredDiskCache.
+   *
+   * @param hot        The small, fast cache frequently read entries are promoted to.
+   * @param hotMaxSize The maximum size in bytes of {@code hot}.
+   * @param cold       The large cache new entries are written to.
+   */
+  public TieredDiskCache(DiskCache hot, long hotMaxSize, DiskCache cold) {
+    this.hot = Preconditions.checkNotNull(hot);
+    this.cold = Preconditions.checkNotNull(cold);
+    this.hotMaxSize = hotMaxSize;
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    File hotFile = hot.get(key);
+    recordRead(key, hotFile != null);
+    if (hotFile != null) {
+      return hotFile;
+    }
+
+    File coldFile = cold.get(key);
+    if (coldFile == null || !shouldPromote(key, coldFile.length())) {
+      return coldFile;
+    }
+    ByteBuffer data = ByteBufferDiskCaches.readFile(coldFile);
+    if (data != null && promote(key, data)) {
+      File promotedFile = hot.get(key);
+      if (promotedFile != null) {
+        return promotedFile;
+      }
+    }
+    return coldFile;
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    ByteBuffer hotData = ByteBufferDiskCaches.readBuffer(hot, key);
+    recordRead(key, hotData != null);
+    if (hotData != null) {
+      return hotData;
+    }
+
+    ByteBuffer coldData = ByteBufferDiskCaches.readBuffer(cold, key);
+    if (coldData != null && shouldPromote(key, coldData.limit())) {
+      promote(key, coldData);
+    }
+    return coldData;
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    cold.put(key, writer);
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    ByteBufferDiskCaches.writeChannel(cold, key, writer);
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    ByteBufferDiskCaches.writeBuffer(cold, key, data);
+  }
+
+  @Override
+  public void delete(Key key) {
+    synchronized (this) {
+      removePromoted(key);
+    }
+    hot.delete(key);
+    cold.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this) {
+      promoted.clear();
+      promotedBytes = 0;
+    }
+    hot.clear();
+    cold.clear();
+  }
+
+  @VisibleForTesting
+  synchronized long getPromotedBytes() {
+    return promotedBytes;
+  }
+
+  private synchronized void recordRead(Key key, boolean isHot) {
+    sketch.increment(key);
+    if (isHot) {
+      // Moves the key to the end of the access order.
+      promoted.get(key);
+    } else {
+      // The hot cache evicted or lost the entry, so it no longer takes up space there.
+      removePromoted(key);
+    }
+  }
+
+  private synchronized boolean shouldPromote(Key key, long size) {
+    return sketch.frequency(key) >= PROMOTION_FREQUENCY
+        && size <= hotMaxSize / MAX_PROMOTED_SIZE_DIVISOR;
+  }
+
+  /**
+   * Copies the given entry to the hot cache, demoting other promoted entries if necessary, and
+   * returns {@code true} if the entry was promoted.
+   */
+  private boolean promote(Key key, ByteBuffer data) {
+    long size = data.limit();
+    List<Key> toDemote = new ArrayList<>();
+    synchronized (this) {
+      if (promoted.containsKey(key)) {
+        return false;
+      }
+      int frequency = sketch.frequency(key);
+      long freed = 0;
+      Iterator<Map.Entry<Key, Long>> iterator = promoted.entrySet().iterator();
+      while (promotedBytes - freed + size > hotMaxSize && iterator.hasNext()) {
+        Map.Entry<Key, Long> candidate = iterator.next();
+        if (sketch.frequency(candidate.getKey()) >= frequency) {
+          return false;
+        }
+        toDemote.add(candidate.getKey());
+        freed += candidate.getValue();
+      }
+      for (Key demoted : toDemote) {
+        removePromoted(demoted);
+      }
+      promoted.put(key, size);
+      promotedBytes += size;
+    }
+
+    for (Key demoted : toDemote) {
+      demote(demoted);
+    }
+    ByteBufferDiskCaches.writeBuffer(hot, key, data);
+    return true;
+  }
+
+  private void demote(Key key) {
+    ByteBuffer data = ByteBufferDiskCaches.readBuffer(hot, key);
+    if (data != null && cold.get(key) == null) {
+      ByteBufferDiskCaches.writeBuffer(cold, key, data);
+    }
+    hot.delete(key);
+  }
+
+  private void removePromoted(Key key) {
+    Long size = promoted.remove(key);
+    if (size != null) {
+      promotedBytes -= size;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+/**
+ * Creates a {@link TieredDiskCache} with a small hot cache and a large cold cache built by other
+ * {@link DiskCache.Factory}s.
+ *
+ * <p>By default, the hot cache is on internal storage and the cold cache is on external storage,
+ * falling back to internal storage if no external storage is available. For example:
+ * <pre>
+ *   builder.setDiskCache(new TieredDiskCacheFactory(context));
+ * </pre>
+ *
+ * <p><b>Images can be read by everyone when using external disk cache.</b>
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class TieredDiskCacheFactory implements DiskCache.Factory {
+  /** 25 MB of internal storage for frequently read entries. */
+  public static final long DEFAULT_HOT_DISK_CACHE_SIZE = 25 * 1024 * 1024;
+  public static final String DEFAULT_HOT_DISK_CACHE_DIR = "image_manager_disk_cache_hot";
+
+  private final DiskCache.Factory hotFactory;
+  private final long hotDiskCacheSize;
+  private final DiskCache.Factory coldFactory;
+
+  public TieredDiskCacheFactory(Context context) {
+    this(context, DEFAULT_HOT_DISK_CACHE_SIZE, DiskCache.Factory.DEFAULT_DISK_CACHE_SIZE);
+  }
+
+  /**
+   * @param hotDiskCacheSize  The maximum size in bytes of the hot cache on internal storage.
+   * @param coldDiskCacheSize The maximum size in bytes of the cold cache on external storage.
+   */
+  public TieredDiskCacheFactory(
+      Context context, long hotDiskCacheSize, long coldDiskCacheSize) {
+    this(new InternalCacheDiskCacheFactory(context, DEFAULT_HOT_DISK_CACHE_DIR, hotDiskCacheSize),
+        hotDiskCacheSize,
+        new ExternalPreferredCacheDiskCacheFactory(context, coldDiskCacheSize));
+  }
+
+  /**
+   * @param hotFactory       The factory that builds the small, fast cache.
+   * @param hotDiskCacheSize The maximum size in bytes of the cache built by {@code hotFactory}.
+   * @param coldFactory      The factory that builds the large cache.
+   */
+  public TieredDiskCacheFactory(
+      DiskCache.Factory hotFactory, long hotDiskCacheSize, DiskCache.Factory coldFactory) {
+    this.hotFactory = hotFactory;
+    this.hotDiskCacheSize = hotDiskCacheSize;
+    this.coldFactory = coldFactory;
+  }
+
+  @Nullable
+  @Override
+  public DiskCache build() {
+    DiskCache hot = hotFactory.build();
+    DiskCache cold = coldFactory.build();
+    if (hot == null) {
+      return cold;
+    }
+    if (cold == null) {
+      return hot;
+    }
+    return new TieredDiskCache(hot, hotDiskCacheSize, cold);
+  }
+}
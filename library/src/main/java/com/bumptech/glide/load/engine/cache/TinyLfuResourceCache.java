@@ -0,0 +1,272 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Preconditions;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that uses recent
+ * access frequency to decide which resources are worth keeping (W-TinyLFU).
+ *
+ * <p>Resources that have been requested only once are added to a small LRU window. Resources
+ * that fall out of the window become candidates for the main region and are only admitted if they
+ * have been requested more often than the least recently used resource in the probation segment
+ * of the main region, which is evicted in their place. Otherwise the candidate itself is evicted.
+ * Resources that have been requested more than once are put directly into the protected segment
+ * of the main region and are moved to the probation segment when the protected segment is full.
+ * Request frequencies are estimated with a {@link FrequencySketch}. As a result, a long scan
+ * through resources that are each requested only once, like a fling through a feed, cycles
+ * through the window without evicting resources that are requested repeatedly, like avatars and
+ * icons.
+ *
+ * <p>The {@link com.bumptech.glide.load.engine.Engine} removes resources from the memory cache
+ * when they are requested and puts them back when they are released, so each call to
+ * {@link #remove(Key)} is counted as a request for the given key.
+ *
+ * <p>Unlike general purpose caches, memory cache entries are large and few, so the window
+ * defaults to a relatively large fraction of the cache to give recently loaded resources a
+ * chance to be requested again before they have to compete for admission.
+ */
+public class TinyLfuResourceCache implements MemoryCache {
+  private static final float DEFAULT_WINDOW_FRACTION = 0.2f;
+  private static final float PROTECTED_FRACTION = 0.8f;
+
+  private final Region window = new Region();
+  private final Region probation = new Region();
+  private final Region protectedRegion = new Region();
+  private final ArrayDeque<Key> candidates = new ArrayDeque<>();
+  private final FrequencySketch sketch = new FrequencySketch();
+  private final long initialMaxSize;
+  private final float windowFraction;
+  private long maxSize;
+  private ResourceRemovedListener listener;
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public TinyLfuResourceCache(long size) {
+    this(size, DEFAULT_WINDOW_FRACTION);
+  }
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size           The maximum size in bytes the in memory cache can use.
+   * @param windowFraction The fraction of the maximum size, between 0 and 1, used by the LRU
+   *                       window that new resources are added to.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public TinyLfuResourceCache(long size, float windowFraction) {
+    Preconditions.checkArgument(
+        windowFraction >= 0 && windowFraction <= 1, "Window fraction must be in [0, 1]");
+    this.initialMaxSize = size;
+    this.maxSize = size;
+    this.windowFraction = windowFraction;
+  }
+
+  @Override
+  public synchronized long getCurrentSize() {
+    return window.size + probation.size + protectedRegion.size;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public synchronized void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    evict();
+  }
+
+  /**
+   * Returns true if there is a value for the given key in the cache.
+   *
+   * @param key The key to check.
+   */
+  public synchronized boolean contains(@NonNull Key key) {
+    return window.entries.containsKey(key)
+        || probation.entries.containsKey(key)
+        || protectedRegion.entries.containsKey(key);
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    sketch.increment(key);
+    return removeEntry(key);
+  }
+
+  /**
+   * Adds the given resource to the cache with the given key and returns any previous entry for the
+   * given key that may have already been in the cache.
+   *
+   * <p>If the size of the resource is larger than the total cache size, or if the resource isn't
+   * admitted to the main region of the cache, the {@link ResourceRemovedListener} will be called
+   * synchronously with the given resource.
+   */
+  @Nullable
+  @Override
+  public synchronized Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    Resource<?> old = removeEntry(key);
+    if (old != null && !old.equals(resource)) {
+      notifyRemoved(old);
+    }
+    if (resource == null) {
+      return old;
+    }
+
+    if (resource.getSize() >= maxSize) {
+      notifyRemoved(resource);
+      return old;
+    }
+
+    if (sketch.frequency(key) > 1) {
+      protectedRegion.put(key, resource);
+    } else {
+      window.put(key, resource);
+    }
+    sketch.ensureCapacity(
+        window.entries.size() + probation.entries.size() + protectedRegion.entries.size());
+    evict();
+    return old;
+  }
+
+  @Override
+  public synchronized void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public synchronized void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /**
+   * Moves resources that no longer fit in the window or the protected segment to the probation
+   * segment and then evicts either the candidates from the window or the least recently used
+   * resources in the probation segment, whichever have been requested less frequently, until the
+   * cache fits within its maximum size.
+   */
+  private void evict() {
+    long windowMaxSize = (long) (maxSize * windowFraction);
+    long protectedMaxSize = (long) ((maxSize - windowMaxSize) * PROTECTED_FRACTION);
+    while (protectedRegion.size > protectedMaxSize) {
+      Key eldest = protectedRegion.eldestKey();
+      probation.put(eldest, protectedRegion.remove(eldest));
+    }
+    while (window.size > windowMaxSize) {
+      Key eldest = window.eldestKey();
+      probation.put(eldest, window.remove(eldest));
+      candidates.add(eldest);
+    }
+
+    while (getCurrentSize() > maxSize && !probation.entries.isEmpty()) {
+      Key victim = probation.eldestKey();
+      Key candidate = candidates.peek();
+      if (candidate == null) {
+        notifyRemoved(probation.remove(victim));
+      } else if (candidate.equals(victim) || !admit(candidate, victim)) {
+        candidates.poll();
+        notifyRemoved(probation.remove(candidate));
+      } else {
+        // Resources vary in size, so the candidate has to win against every victim that is evicted
+        // to make room for it, not just the first.
+        notifyRemoved(probation.remove(victim));
+      }
+    }
+    candidates.clear();
+    trimToSize(maxSize);
+  }
+
+  private boolean admit(Key candidate, Key victim) {
+    return sketch.frequency(candidate) > sketch.frequency(victim);
+  }
+
+  /**
+   * Evicts resources from the window, then from the probation segment and then from the protected
+   * segment, each in least recently used order, until the current size is less than or equal to
+   * the given size.
+   */
+  private void trimToSize(long size) {
+    Region[] regions = new Region[] { window, probation, protectedRegion };
+    for (Region region : regions) {
+      while (getCurrentSize() > size && !region.entries.isEmpty()) {
+        notifyRemoved(region.remove(region.eldestKey()));
+      }
+    }
+  }
+
+  @Nullable
+  private Resource<?> removeEntry(Key key) {
+    Resource<?> removed = window.remove(key);
+    if (removed == null) {
+      removed = probation.remove(key);
+    }
+    if (removed == null) {
+      removed = protectedRegion.remove(key);
+    }
+    return removed;
+  }
+
+  private void notifyRemoved(Resource<?> removed) {
+    if (listener != null) {
+      listener.onResourceRemoved(removed);
+    }
+  }
+
+  /**
+   * An LRU ordered group of entries whose total size is tracked.
+   */
+  private static final class Region {
+    final Map<Key, Resource<?>> entries = new LinkedHashMap<>();
+    long size;
+
+    void put(Key key, Resource<?> resource) {
+      entries.put(key, resource);
+      size += resource.getSize();
+    }
+
+    @Nullable
+    Resource<?> remove(Key key) {
+      Resource<?> removed = entries.remove(key);
+      if (removed != null) {
+        size -= removed.getSize();
+      }
+      return removed;
+    }
+
+    Key eldestKey() {
+      return entries.keySet().iterator().next();
+    }
+  }
+}
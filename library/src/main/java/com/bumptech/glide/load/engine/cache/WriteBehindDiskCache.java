@@ -0,0 +1,352 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.os.Process;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ByteBufferDiskCache} that writes data to another {@link DiskCache} on a dedicated
+ * background thread, so that loads don't wait for data to be written to disk before decoding it.
+ *
+ * <p>Data written with {@link #putBuffer(Key, ByteBuffer)} is queued as is, and data written with
+ * {@link #putChannel(Key, ChannelWriter)} is written to memory and then queued. Until it's
+ * written, queued data is returned from {@link #getBuffer(Key)}, so loads that read data from the
+ * cache immediately after writing it decode it from memory. {@link #get(Key)} needs a file, so it
+ * writes any data queued for the given key before returning.
+ *
+ * <p>The total size of the queued data is bounded. When the queue is full, data is written to the
+ * wrapped cache on the calling thread instead. Data written with
+ * {@link #putChannel(Key, ChannelWriter)} can only be written once, so if the queue has room when
+ * the write starts, the data is written to memory even if it turns out to be too large for the
+ * queue, in which case the data is then written on the calling thread. {@link #put(Key, Writer)}
+ * always writes on the calling thread because {@link Writer}s write directly to files.
+ *
+ * <p>The background thread is started when data is first queued and stopped by {@link #clear()},
+ * which {@link com.bumptech.glide.load.engine.Engine} calls when it's shut down.
+ *
+ * <p>Buffers passed to {@link #putBuffer(Key, ByteBuffer)} must not be modified after they're
+ * written to the cache.
+ */
+public final class WriteBehindDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "WriteBehindDiskCache";
+  private static final String WRITER_THREAD_NAME = "glide-disk-cache-writer";
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+  /** 8 MB, enough for a handful of large images to be queued at once. */
+  public static final long DEFAULT_MAX_QUEUED_BYTES = 8 * 1024 * 1024;
+
+  private final DiskCache delegate;
+  private final long maxQueuedBytes;
+  private final Map<Key, QueuedWrite> queuedWrites = new HashMap<>();
+  private final ArrayDeque<QueuedWrite> queue = new ArrayDeque<>();
+  private long queuedBytes;
+  @Nullable
+  private Thread writerThread;
+
+  /**
+   * Constructor for WriteBehindDiskCache.
+   *
+   * @param delegate       The cache data is written to.
+   * @param maxQueuedBytes The maximum total size in bytes of the data waiting to be written.
+   */
+  public WriteBehindDiskCache(DiskCache delegate, long maxQueuedBytes) {
+    this.delegate = Preconditions.checkNotNull(delegate);
+    this.maxQueuedBytes = maxQueuedBytes;
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    QueuedWrite queued;
+    synchronized (this) {
+      queued = queuedWrites.get(key);
+    }
+    if (queued != null) {
+      return queued.data.asReadOnlyBuffer();
+    }
+    return ByteBufferDiskCaches.readBuffer(delegate, key);
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    QueuedWrite toWrite = null;
+    synchronized (this) {
+      QueuedWrite queued = queuedWrites.get(key);
+      if (queued != null) {
+        if (queued.isWriting) {
+          awaitWrite(queued);
+        } else {
+          // Rather than waiting for the writer thread, write the data ourselves.
+          queue.remove(queued);
+          queued.isWriting = true;
+          toWrite = queued;
+        }
+      }
+    }
+    if (toWrite != null) {
+      write(toWrite);
+    }
+    return delegate.get(key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    if (!isQueued(key)) {
+      delegate.put(key, writer);
+    }
+  }
+
+  @Override
+  public void putChannel(Key key, ChannelWriter writer) {
+    if (isQueued(key)) {
+      return;
+    }
+    boolean isFull;
+    synchronized (this) {
+      isFull = queuedBytes >= maxQueuedBytes;
+    }
+    if (isFull) {
+      ByteBufferDiskCaches.writeChannel(delegate, key, writer);
+      return;
+    }
+
+    BufferChannel channel = new BufferChannel();
+    boolean isWritten;
+    try {
+      isWritten = writer.write(channel);
+    } finally {
+      channel.close();
+    }
+    if (isWritten) {
+      queueOrWrite(key, channel.toByteBuffer());
+    }
+  }
+
+  @Override
+  public void putBuffer(Key key, ByteBuffer data) {
+    if (isQueued(key)) {
+      return;
+    }
+    ByteBuffer toQueue = data.duplicate();
+    toQueue.position(0);
+    queueOrWrite(key, toQueue);
+  }
+
+  @Override
+  public void delete(Key key) {
+    synchronized (this) {
+      QueuedWrite queued = queuedWrites.get(key);
+      if (queued != null) {
+        if (queued.isWriting) {
+          awaitWrite(queued);
+        } else {
+          queue.remove(queued);
+          onWriteFinished(queued);
+        }
+      }
+    }
+    delegate.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this) {
+      while (!queue.isEmpty()) {
+        onWriteFinished(queue.poll());
+      }
+      // Stops the writer thread, a new one is started if more data is queued.
+      writerThread = null;
+      notifyAll();
+      // Anything left is being written.
+      while (!queuedWrites.isEmpty()) {
+        if (!waitUninterruptibly()) {
+          break;
+        }
+      }
+    }
+    delegate.clear();
+  }
+
+  @VisibleForTesting
+  synchronized long getQueuedBytes() {
+    return queuedBytes;
+  }
+
+  @VisibleForTesting
+  @Nullable
+  synchronized Thread getWriterThread() {
+    return writerThread;
+  }
+
+  private synchronized boolean isQueued(Key key) {
+    // Every put for a key writes the same data, so there's no need to replace queued data.
+    return queuedWrites.containsKey(key);
+  }
+
+  private void queueOrWrite(Key key, ByteBuffer data) {
+    QueuedWrite write = new QueuedWrite(key, data);
+    synchronized (this) {
+      if (queuedBytes + write.size <= maxQueuedBytes && !queuedWrites.containsKey(key)) {
+        queuedWrites.put(key, write);
+        queue.offer(write);
+        queuedBytes += write.size;
+        startWriterThreadIfNeeded();
+        notifyAll();
+        return;
+      }
+    }
+    writeToDelegate(key, data);
+  }
+
+  private void startWriterThreadIfNeeded() {
+    if (writerThread != null) {
+      return;
+    }
+    writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        writeQueued();
+      }
+    }, WRITER_THREAD_NAME);
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Synthetic
+  void writeQueued() {
+    while (true) {
+      QueuedWrite next;
+      synchronized (this) {
+        while (writerThread == Thread.currentThread() && queue.isEmpty()) {
+          if (!waitUninterruptibly()) {
+            writerThread = null;
+            return;
+          }
+        }
+        if (writerThread != Thread.currentThread()) {
+          return;
+        }
+        next = queue.poll();
+        next.isWriting = true;
+      }
+      write(next);
+    }
+  }
+
+  private void write(QueuedWrite write) {
+    try {
+      writeToDelegate(write.key, write.data);
+    } catch (RuntimeException e) {
+      if (Log.isLoggable(TAG, Log.ERROR)) {
+        Log.e(TAG, "Failed to write to disk cache", e);
+      }
+    } finally {
+      synchronized (this) {
+        onWriteFinished(write);
+      }
+    }
+  }
+
+  private void writeToDelegate(Key key, ByteBuffer data) {
+    ByteBufferDiskCaches.writeBuffer(delegate, key, data);
+  }
+
+  private void onWriteFinished(QueuedWrite write) {
+    if (queuedWrites.get(write.key) == write) {
+      queuedWrites.remove(write.key);
+      queuedBytes -= write.size;
+    }
+    notifyAll();
+  }
+
+  private void awaitWrite(QueuedWrite write) {
+    while (queuedWrites.get(write.key) == write) {
+      if (!waitUninterruptibly()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Waits on this object's monitor and returns {@code false} if the thread was interrupted, in
+   * which case the interrupt is restored.
+   */
+  private boolean waitUninterruptibly() {
+    try {
+      wait();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static final class QueuedWrite {
+    @Synthetic final Key key;
+    @Synthetic final ByteBuffer data;
+    @Synthetic final int size;
+    // Guarded by the cache.
+    @Synthetic boolean isWriting;
+
+    QueuedWrite(Key key, ByteBuffer data) {
+      this.key = key;
+      this.data = data;
+      this.size = data.limit();
+    }
+  }
+
+  /**
+   * Writes data to a growable in memory buffer.
+   */
+  private static final class BufferChannel implements WritableByteChannel {
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int count;
+    private boolean isOpen = true;
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!isOpen) {
+        throw new ClosedChannelException();
+      }
+      int length = src.remaining();
+      if (count + length > buffer.length) {
+        long newLength = Math.max(2L * buffer.length, (long) count + length);
+        if (newLength > Integer.MAX_VALUE) {
+          throw new IOException("Data is too large to buffer");
+        }
+        buffer = Arrays.copyOf(buffer, (int) newLength);
+      }
+      src.get(buffer, count, length);
+      count += length;
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return isOpen;
+    }
+
+    @Override
+    public void close() {
+      isOpen = false;
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buffer, 0, count).slice();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Wraps the disk cache built by another {@link DiskCache.Factory} in a
+ * {@link WriteBehindDiskCache} so that data is written to it asynchronously.
+ *
+ * <p>For example, to write to the default disk cache asynchronously:
+ * <pre>
+ *   builder.setDiskCache(
+ *       new WriteBehindDiskCacheFactory(new InternalCacheDiskCacheFactory(context)));
+ * </pre>
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class WriteBehindDiskCacheFactory implements DiskCache.Factory {
+  private final DiskCache.Factory factory;
+  private final long maxQueuedBytes;
+
+  public WriteBehindDiskCacheFactory(DiskCache.Factory factory) {
+    this(factory, WriteBehindDiskCache.DEFAULT_MAX_QUEUED_BYTES);
+  }
+
+  /**
+   * @param factory        The factory that builds the disk cache data will be written to.
+   * @param maxQueuedBytes The maximum total size in bytes of the data waiting to be written.
+   */
+  public WriteBehindDiskCacheFactory(DiskCache.Factory factory, long maxQueuedBytes) {
+    this.factory = factory;
+    this.maxQueuedBytes = maxQueuedBytes;
+  }
+
+  @Nullable
+  @Override
+  public DiskCache build() {
+    DiskCache diskCache = factory.build();
+    if (diskCache == null) {
+      return null;
+    }
+    return new WriteBehindDiskCache(diskCache, maxQueuedBytes);
+  }
+}
@@ -12,6 +12,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -20,7 +21,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
- * A prioritized {@link ThreadPoolExecutor} for running jobs in Glide.
+ * A prioritized {@link ThreadPoolExecutor}, or work stealing executor, for running jobs in Glide.
  */
 public final class GlideExecutor implements ExecutorService {
   /**
@@ -35,6 +36,12 @@ public final class GlideExecutor implements ExecutorService {
    */
   private static final String DEFAULT_DISK_CACHE_EXECUTOR_NAME = "disk-cache";
 
+  /**
+   * The default thread name prefix for executors used to decode/transform data retrieved from
+   * source on a separate executor.
+   */
+  private static final String DEFAULT_DECODE_EXECUTOR_NAME = "decode";
+
   /**
    * The default thread count for executors used to load/decode/transform data found in Glide's
    * cache.
@@ -51,6 +58,11 @@ public final class GlideExecutor implements ExecutorService {
 
   private static final String ANIMATION_EXECUTOR_NAME = "animation";
 
+  /**
+   * The thread name prefix for executors that start loads off of the main thread.
+   */
+  private static final String LOAD_EXECUTOR_NAME = "load";
+
   /**
    * The default keep alive time for threads in our cached thread pools in milliseconds.
    */
@@ -59,6 +71,9 @@ public final class GlideExecutor implements ExecutorService {
   // Don't use more than four threads when automatically determining thread count..
   private static final int MAXIMUM_AUTOMATIC_THREAD_COUNT = 4;
 
+  // Allow work stealing source executors to add threads while their tasks are blocked on I/O.
+  private static final int WORK_STEALING_MAXIMUM_THREAD_MULTIPLIER = 2;
+
   // May be accessed on other threads, but this is an optimization only so it's ok if we set its
   // value more than once.
   private static volatile int bestThreadCount;
@@ -194,6 +209,139 @@ public final class GlideExecutor implements ExecutorService {
             new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
   }
 
+  /**
+   * Returns a new fixed thread pool with the default thread count returned from
+   * {@link #calculateBestThreadCount()}, the {@link #DEFAULT_DECODE_EXECUTOR_NAME} thread name
+   * prefix, and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Decode executors are used to decode and transform data retrieved by the source executor so
+   * that slow network requests don't prevent decodes from running, see
+   * {@link com.bumptech.glide.GlideBuilder#setDecodeExecutor(GlideExecutor)}.
+   *
+   * <p>Decode executors allow network operations on their threads because source data that isn't
+   * cached on disk may be streamed while it's decoded.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public static GlideExecutor newDecodeExecutor() {
+    return newDecodeExecutor(
+        calculateBestThreadCount(),
+        DEFAULT_DECODE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new fixed thread pool with the given thread count, thread name prefix,
+   * and {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}
+   * to use to decode and transform data retrieved by the source executor.
+   *
+   * <p>Decode executors allow network operations on their threads.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   * @see #newDecodeExecutor()
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newDecodeExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new ThreadPoolExecutor(
+            threadCount /* corePoolSize */,
+            threadCount /* maximumPoolSize */,
+            0 /* keepAliveTime */,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the default thread count returned from
+   * {@link #calculateBestThreadCount()} as its core thread count, up to
+   * {@link #WORK_STEALING_MAXIMUM_THREAD_MULTIPLIER} times as many threads while its tasks are
+   * blocked on I/O, the {@link #DEFAULT_SOURCE_EXECUTOR_NAME} thread name prefix, and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Source executors allow network operations on their threads.
+   *
+   * @see #newWorkStealingSourceExecutor(int, int, String, UncaughtThrowableStrategy)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public static GlideExecutor newWorkStealingSourceExecutor() {
+    int coreThreadCount = calculateBestThreadCount();
+    return newWorkStealingSourceExecutor(
+        coreThreadCount,
+        coreThreadCount * WORK_STEALING_MAXIMUM_THREAD_MULTIPLIER,
+        DEFAULT_SOURCE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the given core and maximum thread counts, thread
+   * name prefix, and
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Each thread has its own queue and steals from the queues of other threads when its own
+   * queue is empty, so threads don't all contend on a single queue. Tasks are still run in priority
+   * order. Threads beyond the core thread count are added while tasks spend most of their time
+   * blocked, for example on slow network requests, and are removed again once tasks are CPU bound
+   * or after they've been idle for {@link #KEEP_ALIVE_TIME_MS}.
+   *
+   * <p>Source executors allow network operations on their threads.
+   *
+   * @param coreThreadCount The number of threads that are kept even if they're idle.
+   * @param maximumThreadCount The maximum number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newWorkStealingSourceExecutor(int coreThreadCount,
+      int maximumThreadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new WorkStealingExecutor(
+            coreThreadCount,
+            maximumThreadCount,
+            KEEP_ALIVE_TIME_MS,
+            new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the given core and maximum thread counts, thread
+   * name prefix, and
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Disk cache executors do not allow network operations on their threads.
+   *
+   * @param coreThreadCount The number of threads that are kept even if they're idle.
+   * @param maximumThreadCount The maximum number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   * @see #newWorkStealingSourceExecutor(int, int, String, UncaughtThrowableStrategy)
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newWorkStealingDiskCacheExecutor(int coreThreadCount,
+      int maximumThreadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new WorkStealingExecutor(
+            coreThreadCount,
+            maximumThreadCount,
+            KEEP_ALIVE_TIME_MS,
+            new DefaultThreadFactory(name, uncaughtThrowableStrategy, true)));
+  }
+
   /**
    * Returns a new unlimited thread pool with zero core thread count to make sure no threads are
    * created by default, {@link #KEEP_ALIVE_TIME_MS} keep alive
@@ -258,6 +406,29 @@ public final class GlideExecutor implements ExecutorService {
                 true)));
   }
 
+  /**
+   * Returns a new single threaded executor that's used to look up resources in memory for loads
+   * started on the main thread, with the {@link #LOAD_EXECUTOR_NAME} thread name prefix and a
+   * thread that exits after it's been idle for {@link #KEEP_ALIVE_TIME_MS}.
+   *
+   * <p>Loads are started in the order they're requested, so unlike the other executors this one
+   * uses a FIFO queue.
+   */
+  public static GlideExecutor newLoadExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        1 /* corePoolSize */,
+        1 /* maximumPoolSize */,
+        KEEP_ALIVE_TIME_MS,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new DefaultThreadFactory(
+            LOAD_EXECUTOR_NAME,
+            UncaughtThrowableStrategy.DEFAULT,
+            true));
+    executor.allowCoreThreadTimeOut(true);
+    return new GlideExecutor(executor);
+  }
+
   @VisibleForTesting
   GlideExecutor(ExecutorService delegate) {
     this.delegate = delegate;
@@ -268,6 +439,21 @@ public final class GlideExecutor implements ExecutorService {
     delegate.execute(command);
   }
 
+  /**
+   * Removes the given task from this executor's queue if it hasn't started running yet, so that a
+   * prioritized task can be re-queued after its priority changes or dropped if it's cancelled.
+   *
+   * @return {@code true} if the task was removed and won't be run unless it's executed again.
+   */
+  public boolean remove(@NonNull Runnable task) {
+    if (delegate instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) delegate).remove(task);
+    } else if (delegate instanceof WorkStealingExecutor) {
+      return ((WorkStealingExecutor) delegate).remove(task);
+    }
+    return false;
+  }
+
   @NonNull
   @Override
   public Future<?> submit(@NonNull Runnable task) {
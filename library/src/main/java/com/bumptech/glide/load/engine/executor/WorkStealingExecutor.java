@@ -0,0 +1,550 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A prioritized {@link java.util.concurrent.ExecutorService} that gives each of its threads its own
+ * queue and that adds and removes threads based on how long its tasks spend blocked.
+ *
+ * <p>Tasks submitted by one of the executor's threads are added to that thread's own queue and
+ * other tasks are distributed round robin across the queues of the core threads, so submitting and
+ * taking tasks only contends on the lock of a single queue rather than on one lock shared by the
+ * entire pool. Each thread takes the highest priority task from its own queue, so tasks that
+ * implement {@link Comparable}, like {@link com.bumptech.glide.load.engine.DecodeJob}s, are run in
+ * priority order within each queue, but not necessarily across queues. A thread whose own queue is
+ * empty steals the highest priority task of the first non empty queue it finds, starting from a
+ * randomly chosen victim.
+ *
+ * <p>Each thread records the wall time and the thread time of the tasks it runs. The difference
+ * is time spent blocked, typically on network or disk I/O. Threads beyond the core thread count
+ * are added, up to the maximum thread count, while the fraction of time spent blocked is high
+ * enough that the core threads alone can't keep the CPU busy. Those threads are removed again once
+ * tasks become CPU bound or once they've been idle for the keep alive time. As a result a burst of
+ * slow network requests doesn't prevent CPU bound decodes from running.
+ */
+final class WorkStealingExecutor extends AbstractExecutorService {
+  // Recorded task times are halved once they add up to more than this, so the blocked fraction
+  // follows recent tasks.
+  private static final long STATS_WINDOW_MS = TimeUnit.SECONDS.toMillis(5);
+
+  private final Slot[] slots;
+  private final int coreThreadCount;
+  private final int maximumThreadCount;
+  private final long keepAliveTimeMs;
+  @Synthetic final ThreadFactory threadFactory;
+  private final Clock clock;
+  private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger nextSlot = new AtomicInteger();
+  private final AtomicLong nextSequence = new AtomicLong();
+  // Guards starting and stopping workers.
+  private final Object workerLock = new Object();
+  // Only written while holding workerLock.
+  private volatile int liveWorkerCount;
+  private volatile boolean isShutdown;
+
+  WorkStealingExecutor(int coreThreadCount, int maximumThreadCount, long keepAliveTimeMs,
+      ThreadFactory threadFactory) {
+    this(coreThreadCount, maximumThreadCount, keepAliveTimeMs, threadFactory, Clock.DEFAULT);
+  }
+
+  @VisibleForTesting
+  WorkStealingExecutor(int coreThreadCount, int maximumThreadCount, long keepAliveTimeMs,
+      ThreadFactory threadFactory, Clock clock) {
+    Preconditions.checkArgument(coreThreadCount > 0, "Core thread count must be > 0");
+    Preconditions.checkArgument(maximumThreadCount >= coreThreadCount,
+        "Maximum thread count must be >= core thread count");
+    this.coreThreadCount = coreThreadCount;
+    this.maximumThreadCount = maximumThreadCount;
+    this.keepAliveTimeMs = keepAliveTimeMs;
+    this.threadFactory = threadFactory;
+    this.clock = clock;
+    slots = new Slot[maximumThreadCount];
+    for (int i = 0; i < maximumThreadCount; i++) {
+      slots[i] = new Slot(i);
+    }
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    Preconditions.checkNotNull(command);
+    if (isShutdown) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    Task task = new Task(command, nextSequence.getAndIncrement());
+    if (liveWorkerCount < coreThreadCount && startCoreWorker(task)) {
+      return;
+    }
+
+    Slot slot = getCurrentWorkerSlot();
+    if (slot == null) {
+      slot = slots[(nextSlot.getAndIncrement() & Integer.MAX_VALUE) % coreThreadCount];
+    }
+    slot.push(task);
+    if (isShutdown && slot.remove(task)) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    signalWork();
+  }
+
+  /**
+   * Removes the given {@link Runnable} from the queue it was added to if it hasn't started yet.
+   *
+   * @return {@code true} if the {@link Runnable} was removed and will not be run.
+   */
+  boolean remove(Runnable runnable) {
+    for (Slot slot : slots) {
+      if (slot.remove(runnable)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (workerLock) {
+      isShutdown = true;
+      for (Slot slot : slots) {
+        Worker worker = slot.worker;
+        if (worker != null) {
+          LockSupport.unpark(worker.thread);
+        }
+      }
+      workerLock.notifyAll();
+    }
+  }
+
+  @NonNull
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> result = new ArrayList<>();
+    synchronized (workerLock) {
+      shutdown();
+      // Drain first so that workers interrupted out of their current tasks don't start new ones.
+      for (Slot slot : slots) {
+        slot.drainTo(result);
+      }
+      for (Slot slot : slots) {
+        Worker worker = slot.worker;
+        if (worker != null) {
+          worker.thread.interrupt();
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return isShutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return isShutdown && liveWorkerCount == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+      throws InterruptedException {
+    long remainingMs = unit.toMillis(timeout);
+    long deadlineMs = clock.uptimeMillis() + remainingMs;
+    synchronized (workerLock) {
+      while (!isTerminated()) {
+        if (remainingMs <= 0) {
+          return false;
+        }
+        workerLock.wait(remainingMs);
+        remainingMs = deadlineMs - clock.uptimeMillis();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns the number of threads that would keep the CPU busy given the fraction of time recent
+   * tasks have spent blocked, between the core and the maximum thread counts.
+   */
+  @VisibleForTesting
+  int calculateTargetThreadCount() {
+    long wallTimeMs = 0;
+    long blockedTimeMs = 0;
+    for (Slot slot : slots) {
+      if (slot.worker != null) {
+        wallTimeMs += slot.wallTimeMs;
+        blockedTimeMs += slot.blockedTimeMs;
+      }
+    }
+    if (wallTimeMs == 0) {
+      return coreThreadCount;
+    }
+    double runningFraction = 1 - blockedTimeMs / (double) wallTimeMs;
+    long target = Math.round(coreThreadCount / runningFraction);
+    return (int) Math.max(coreThreadCount, Math.min(maximumThreadCount, target));
+  }
+
+  @VisibleForTesting
+  int getLiveThreadCount() {
+    return liveWorkerCount;
+  }
+
+  /**
+   * Returns the slot of the worker running on the current thread, or {@code null} if the current
+   * thread isn't one of this executor's workers.
+   */
+  @Nullable
+  private Slot getCurrentWorkerSlot() {
+    Thread current = Thread.currentThread();
+    for (Slot slot : slots) {
+      Worker worker = slot.worker;
+      if (worker != null && worker.thread == current) {
+        return slot;
+      }
+    }
+    return null;
+  }
+
+  private boolean startCoreWorker(Task firstTask) {
+    synchronized (workerLock) {
+      if (isShutdown || liveWorkerCount >= coreThreadCount) {
+        return false;
+      }
+      startWorker(firstTask);
+      return true;
+    }
+  }
+
+  /**
+   * Wakes an idle worker to run a newly queued task, or starts a new worker if there are no idle
+   * workers and recent tasks have spent enough time blocked to justify another thread.
+   */
+  private void signalWork() {
+    Worker idle = idleWorkers.poll();
+    if (idle != null) {
+      LockSupport.unpark(idle.thread);
+      return;
+    }
+    if (liveWorkerCount >= maximumThreadCount
+        || liveWorkerCount >= calculateTargetThreadCount()) {
+      return;
+    }
+    synchronized (workerLock) {
+      if (!isShutdown && liveWorkerCount < calculateTargetThreadCount()) {
+        startWorker(null /*firstTask*/);
+      }
+    }
+  }
+
+  // Guarded by workerLock.
+  private void startWorker(@Nullable Task firstTask) {
+    // Workers always start in the lowest free slot so that core threads occupy the first slots.
+    Slot slot = null;
+    for (Slot current : slots) {
+      if (current.worker == null) {
+        slot = current;
+        break;
+      }
+    }
+    if (slot == null) {
+      throw new IllegalStateException("No free slot for a new worker");
+    }
+    Worker worker = new Worker(slot, firstTask);
+    slot.worker = worker;
+    liveWorkerCount++;
+    worker.thread.start();
+  }
+
+  @Synthetic
+  void runWorker(Worker worker) {
+    boolean completedAbruptly = true;
+    try {
+      Task task = worker.firstTask;
+      worker.firstTask = null;
+      while (task != null || (task = getTask(worker)) != null) {
+        runTask(worker.slot, task);
+        task = null;
+        if (shouldRetire(worker)) {
+          break;
+        }
+      }
+      completedAbruptly = false;
+    } finally {
+      onWorkerExit(worker, completedAbruptly);
+    }
+  }
+
+  private void runTask(Slot slot, Task task) {
+    long startWallTimeMs = clock.uptimeMillis();
+    long startThreadTimeMs = clock.currentThreadTimeMillis();
+    try {
+      task.runnable.run();
+    } finally {
+      slot.recordTask(clock.uptimeMillis() - startWallTimeMs,
+          clock.currentThreadTimeMillis() - startThreadTimeMs);
+    }
+  }
+
+  private boolean shouldRetire(Worker worker) {
+    return worker.slot.index >= coreThreadCount
+        && liveWorkerCount > calculateTargetThreadCount();
+  }
+
+  /**
+   * Returns the next task for the given worker, waiting for one if necessary, or {@code null} if
+   * the worker should exit because the executor has been shut down or because a non core worker
+   * has been idle for longer than the keep alive time.
+   */
+  @Nullable
+  private Task getTask(Worker worker) {
+    boolean isCoreWorker = worker.slot.index < coreThreadCount;
+    long idleDeadlineMs = clock.uptimeMillis() + keepAliveTimeMs;
+    while (true) {
+      Task task = pollTask(worker);
+      if (task != null) {
+        return task;
+      }
+      if (isShutdown) {
+        return null;
+      }
+
+      // Tasks queued after this worker is marked as idle will unpark it, so re-check before
+      // parking to avoid missing a task queued in between.
+      idleWorkers.add(worker);
+      task = pollTask(worker);
+      if (task != null) {
+        if (!idleWorkers.remove(worker)) {
+          // Another thread woke this worker for a task that may still be queued, so pass that
+          // signal on to another worker.
+          signalWork();
+        }
+        return task;
+      }
+      if (isShutdown) {
+        idleWorkers.remove(worker);
+        return null;
+      }
+
+      if (isCoreWorker) {
+        LockSupport.park(this);
+      } else {
+        long remainingMs = idleDeadlineMs - clock.uptimeMillis();
+        if (remainingMs > 0) {
+          LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remainingMs));
+        }
+      }
+      boolean wasSignalled = !idleWorkers.remove(worker);
+      // Interrupts are only used to stop running tasks in shutdownNow.
+      Thread.interrupted();
+      if (!isCoreWorker && !wasSignalled && clock.uptimeMillis() >= idleDeadlineMs) {
+        return pollTask(worker);
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the highest priority task in the given worker's own queue, or steals one
+   * from another queue if its own queue is empty. Returns {@code null} if all queues are empty.
+   */
+  @Nullable
+  private Task pollTask(Worker worker) {
+    Task task = worker.slot.poll();
+    if (task != null) {
+      return task;
+    }
+    int start = worker.random.nextInt(slots.length);
+    for (int i = 0; i < slots.length; i++) {
+      Slot victim = slots[(start + i) % slots.length];
+      // Checks the head first to avoid taking the locks of empty queues.
+      if (victim != worker.slot && victim.head != null) {
+        task = victim.poll();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void onWorkerExit(Worker worker, boolean completedAbruptly) {
+    idleWorkers.remove(worker);
+    synchronized (workerLock) {
+      worker.slot.worker = null;
+      liveWorkerCount--;
+      // Like ThreadPoolExecutor, replace workers killed by a task that threw, unless there's no
+      // work left for them to do.
+      if (completedAbruptly && (!isShutdown || hasQueuedTasks())) {
+        startWorker(null /*firstTask*/);
+      }
+      if (liveWorkerCount == 0) {
+        workerLock.notifyAll();
+      }
+    }
+  }
+
+  private boolean hasQueuedTasks() {
+    for (Slot slot : slots) {
+      if (slot.head != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Provides the wall time and thread time used to measure how long tasks spend blocked.
+   */
+  interface Clock {
+    Clock DEFAULT = new Clock() {
+      @Override
+      public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+      }
+
+      @Override
+      public long currentThreadTimeMillis() {
+        return SystemClock.currentThreadTimeMillis();
+      }
+    };
+
+    long uptimeMillis();
+
+    long currentThreadTimeMillis();
+  }
+
+  /**
+   * A task queue and the task times recorded by the worker, if any, that currently owns it.
+   */
+  private static final class Slot {
+    @Synthetic final int index;
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    // Updated whenever tasks changes so that other workers can skip empty queues without locking.
+    @Nullable
+    @Synthetic volatile Task head;
+    // Only written while holding workerLock.
+    @Nullable
+    @Synthetic volatile Worker worker;
+    // Only written by the worker that owns this slot.
+    @Synthetic volatile long wallTimeMs;
+    @Synthetic volatile long blockedTimeMs;
+
+    @Synthetic
+    Slot(int index) {
+      this.index = index;
+    }
+
+    synchronized void push(Task task) {
+      tasks.add(task);
+      head = tasks.peek();
+    }
+
+    @Nullable
+    synchronized Task poll() {
+      Task result = tasks.poll();
+      head = tasks.peek();
+      return result;
+    }
+
+    synchronized boolean remove(Task task) {
+      boolean result = tasks.remove(task);
+      head = tasks.peek();
+      return result;
+    }
+
+    synchronized boolean remove(Runnable runnable) {
+      for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext(); ) {
+        if (iterator.next().runnable == runnable) {
+          iterator.remove();
+          head = tasks.peek();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized void drainTo(List<Runnable> result) {
+      Task task;
+      while ((task = tasks.poll()) != null) {
+        result.add(task.runnable);
+      }
+      head = null;
+    }
+
+    void recordTask(long taskWallTimeMs, long taskThreadTimeMs) {
+      long newWallTimeMs = wallTimeMs + taskWallTimeMs;
+      long newBlockedTimeMs = blockedTimeMs + Math.max(0, taskWallTimeMs - taskThreadTimeMs);
+      if (newWallTimeMs > STATS_WINDOW_MS) {
+        newWallTimeMs /= 2;
+        newBlockedTimeMs /= 2;
+      }
+      wallTimeMs = newWallTimeMs;
+      blockedTimeMs = Math.min(newBlockedTimeMs, newWallTimeMs);
+    }
+  }
+
+  private final class Worker implements Runnable {
+    @Synthetic final Slot slot;
+    @Synthetic final Thread thread;
+    // Picks the first queue to steal from, only used by this worker's thread.
+    @Synthetic final Random random = new Random();
+    @Nullable
+    @Synthetic Task firstTask;
+
+    @Synthetic
+    Worker(Slot slot, @Nullable Task firstTask) {
+      this.slot = slot;
+      this.firstTask = firstTask;
+      thread = threadFactory.newThread(this);
+    }
+
+    @Override
+    public void run() {
+      runWorker(this);
+    }
+  }
+
+  /**
+   * Orders {@link Runnable}s of the same class that implement {@link Comparable} by priority and
+   * all other {@link Runnable}s in the order they were submitted.
+   */
+  private static final class Task implements Comparable<Task> {
+    @Synthetic final Runnable runnable;
+    private final long sequence;
+
+    @Synthetic
+    Task(Runnable runnable, long sequence) {
+      this.runnable = runnable;
+      this.sequence = sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compareTo(@NonNull Task other) {
+      int result = 0;
+      if (runnable instanceof Comparable && runnable.getClass() == other.runnable.getClass()) {
+        result = ((Comparable<Object>) runnable).compareTo(other.runnable);
+      }
+      if (result == 0) {
+        result = sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+      }
+      return result;
+    }
+  }
+}
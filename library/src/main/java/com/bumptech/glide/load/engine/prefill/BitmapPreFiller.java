@@ -53,6 +53,16 @@ public final class BitmapPreFiller {
     handler.post(current);
   }
 
+  /**
+   * Pre-fills the given types unless {@link #preFill(PreFillType.Builder...)} was already called,
+   * so that sizes requested by the app aren't replaced.
+   */
+  void preFillIfNotStarted(PreFillType.Builder... bitmapAttributeBuilders) {
+    if (current == null) {
+      preFill(bitmapAttributeBuilders);
+    }
+  }
+
   @VisibleForTesting
   PreFillQueue generateAllocationOrder(PreFillType... preFillSizes) {
     final long maxSize =
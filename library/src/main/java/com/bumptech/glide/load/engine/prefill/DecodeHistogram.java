@@ -0,0 +1,398 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Counts the dimensions and {@link Bitmap.Config}s of the {@link Bitmap}s Glide decodes and
+ * transforms, saves the counts to a small file and uses the counts from previous runs of the app to
+ * pre-fill the {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool}.
+ *
+ * <p>Bitmaps can only be re-used for decodes and transformations that need a Bitmap of the same, or
+ * on KitKat and above a smaller, size. Apps tend to show the same few sizes of images, especially
+ * on their first screen, so pre-filling the pool with the sizes that were most common in previous
+ * runs lets the first decodes re-use Bitmaps instead of allocating them.
+ *
+ * <p>At most {@link #MAX_BUCKETS} sizes are counted. When a new size is seen and every bucket is in
+ * use, the bucket with the lowest count is replaced by the new size, which starts from the
+ * replaced bucket's count plus one so that a size that becomes common can't be pushed out by a
+ * stream of sizes that are each seen once. The counts read from the file are halved each time
+ * they're loaded so that sizes the app no longer uses are eventually dropped.
+ *
+ * <p>Counts are saved when the app's UI is hidden, when the system is running low on memory and
+ * the process may be killed, and after every {@link #SAVE_INTERVAL} new counts, so apps that are
+ * killed without being hidden still keep most of their counts.
+ */
+public final class DecodeHistogram {
+  private static final String TAG = "DecodeHistogram";
+  @VisibleForTesting
+  static final String FILE_NAME = "glide_decode_histogram";
+  private static final int VERSION = 1;
+  @VisibleForTesting
+  static final int MAX_BUCKETS = 64;
+  @VisibleForTesting
+  static final int MAX_PRE_FILL_TYPES = 8;
+  @VisibleForTesting
+  static final int SAVE_INTERVAL = 500;
+  private static final Comparator<Map.Entry<Bucket, Integer>> BY_COUNT_DESCENDING =
+      new Comparator<Map.Entry<Bucket, Integer>>() {
+        @Override
+        public int compare(Map.Entry<Bucket, Integer> lhs, Map.Entry<Bucket, Integer> rhs) {
+          return rhs.getValue().compareTo(lhs.getValue());
+        }
+      };
+
+  private final Context context;
+  private final Executor executor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Guarded by this.
+  private final Map<Bucket, Integer> counts = new HashMap<>();
+  // Guarded by this.
+  private boolean isDirty;
+  // Guarded by this.
+  private int recordsSinceSave;
+
+  /**
+   * Constructor for DecodeHistogram.
+   *
+   * @param context Used to find the cache directory the counts are saved in.
+   * @param executor The executor used to load and save the counts, must not be the main thread.
+   */
+  public DecodeHistogram(@NonNull Context context, @NonNull Executor executor) {
+    this.context = context.getApplicationContext();
+    this.executor = executor;
+  }
+
+  /**
+   * Counts the given resource if it's a {@link Bitmap} or a {@link BitmapDrawable}, other
+   * resources are ignored.
+   */
+  public void record(@NonNull Object resource) {
+    Bitmap bitmap = null;
+    if (resource instanceof Bitmap) {
+      bitmap = (Bitmap) resource;
+    } else if (resource instanceof BitmapDrawable) {
+      bitmap = ((BitmapDrawable) resource).getBitmap();
+    }
+    if (bitmap != null) {
+      record(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+    }
+  }
+
+  @VisibleForTesting
+  void record(int width, int height, @Nullable Bitmap.Config config) {
+    if (width <= 0 || height <= 0 || !isPoolable(config)) {
+      return;
+    }
+    Bucket bucket = new Bucket(width, height, config);
+    synchronized (this) {
+      Integer count = counts.get(bucket);
+      if (count == null) {
+        count = counts.size() >= MAX_BUCKETS ? removeLowest() : 0;
+      }
+      counts.put(bucket, count + 1);
+      isDirty = true;
+      if (++recordsSinceSave < SAVE_INTERVAL) {
+        return;
+      }
+      recordsSinceSave = 0;
+    }
+    saveOnExecutor();
+  }
+
+  /**
+   * Loads the counts saved by previous runs of the app on the executor and then pre-fills the given
+   * {@link BitmapPreFiller} on the main thread with the most common sizes, unless the pre-filler
+   * was already started.
+   */
+  public void preFill(@NonNull final BitmapPreFiller bitmapPreFiller) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (!load()) {
+          return;
+        }
+        final PreFillType.Builder[] types = getPreFillTypes();
+        if (types.length == 0) {
+          return;
+        }
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            bitmapPreFiller.preFillIfNotStarted(types);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Saves the counts on the executor if the given level means the app's UI is hidden or the
+   * system is running low on memory.
+   *
+   * @param level A trim level specified in {@link ComponentCallbacks2}.
+   */
+  @SuppressLint("InlinedApi")
+  public void trimMemory(int level) {
+    // Also includes TRIM_MEMORY_UI_HIDDEN and the levels for apps in the background.
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      saveOnExecutor();
+    }
+  }
+
+  private void saveOnExecutor() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        save();
+      }
+    });
+  }
+
+  /**
+   * Returns builders for the most common sizes, weighted by their counts.
+   */
+  @VisibleForTesting
+  PreFillType.Builder[] getPreFillTypes() {
+    List<Map.Entry<Bucket, Integer>> entries = getSortedEntries();
+    int size = Math.min(entries.size(), MAX_PRE_FILL_TYPES);
+    PreFillType.Builder[] result = new PreFillType.Builder[size];
+    for (int i = 0; i < size; i++) {
+      Map.Entry<Bucket, Integer> entry = entries.get(i);
+      Bucket bucket = entry.getKey();
+      result[i] = new PreFillType.Builder(bucket.width, bucket.height)
+          .setConfig(bucket.config)
+          .setWeight(entry.getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Adds half of each of the saved counts to the current counts and returns {@code true} if any
+   * counts were loaded.
+   */
+  @VisibleForTesting
+  boolean load() {
+    File file = getFile();
+    DataInputStream is = null;
+    Map<Bucket, Integer> loaded = new HashMap<>();
+    try {
+      is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (is.readInt() != VERSION) {
+        return false;
+      }
+      int size = is.readInt();
+      for (int i = 0; i < size; i++) {
+        int width = is.readInt();
+        int height = is.readInt();
+        String configName = is.readUTF();
+        int count = is.readInt() / 2;
+        Bitmap.Config config = getConfig(configName);
+        if (count > 0 && config != null) {
+          loaded.put(new Bucket(width, height, config), count);
+        }
+      }
+    } catch (FileNotFoundException e) {
+      return false;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to load decode histogram", e);
+      }
+      return false;
+    } finally {
+      closeQuietly(is);
+    }
+
+    synchronized (this) {
+      for (Map.Entry<Bucket, Integer> entry : loaded.entrySet()) {
+        Integer count = counts.get(entry.getKey());
+        if (count == null && counts.size() >= MAX_BUCKETS) {
+          if (getLowestCount() >= entry.getValue()) {
+            continue;
+          }
+          removeLowest();
+        }
+        counts.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+      }
+      // The halved counts need to be saved even if nothing else is decoded.
+      isDirty = true;
+    }
+    return !loaded.isEmpty();
+  }
+
+  /**
+   * Writes the current counts to a temporary file and then renames it so that an interrupted write
+   * doesn't leave a partial file behind.
+   */
+  @VisibleForTesting
+  void save() {
+    List<Map.Entry<Bucket, Integer>> entries;
+    synchronized (this) {
+      if (!isDirty) {
+        return;
+      }
+      isDirty = false;
+      entries = getSortedEntries();
+    }
+
+    File file = getFile();
+    File temp = new File(file.getPath() + ".tmp");
+    DataOutputStream os = null;
+    boolean isWritten = false;
+    try {
+      os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      os.writeInt(VERSION);
+      os.writeInt(entries.size());
+      for (Map.Entry<Bucket, Integer> entry : entries) {
+        Bucket bucket = entry.getKey();
+        os.writeInt(bucket.width);
+        os.writeInt(bucket.height);
+        os.writeUTF(bucket.config.name());
+        os.writeInt(entry.getValue());
+      }
+      os.close();
+      os = null;
+      isWritten = temp.renameTo(file);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to save decode histogram", e);
+      }
+    } finally {
+      closeQuietly(os);
+      if (!isWritten) {
+        // Ignore the result, there's nothing else we can do.
+        //noinspection ResultOfMethodCallIgnored
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Removes the bucket with the lowest count and returns its count.
+   */
+  private int removeLowest() {
+    Map.Entry<Bucket, Integer> lowest = getLowestEntry();
+    counts.remove(lowest.getKey());
+    return lowest.getValue();
+  }
+
+  private int getLowestCount() {
+    return getLowestEntry().getValue();
+  }
+
+  private Map.Entry<Bucket, Integer> getLowestEntry() {
+    Map.Entry<Bucket, Integer> lowest = null;
+    for (Map.Entry<Bucket, Integer> entry : counts.entrySet()) {
+      if (lowest == null || entry.getValue() < lowest.getValue()) {
+        lowest = entry;
+      }
+    }
+    return Preconditions.checkNotNull(lowest);
+  }
+
+  private synchronized List<Map.Entry<Bucket, Integer>> getSortedEntries() {
+    // Copy the map so that the returned entries don't change when new Bitmaps are counted.
+    List<Map.Entry<Bucket, Integer>> result =
+        new ArrayList<>(new HashMap<>(counts).entrySet());
+    Collections.sort(result, BY_COUNT_DESCENDING);
+    return result;
+  }
+
+  @VisibleForTesting
+  File getFile() {
+    return new File(context.getCacheDir(), FILE_NAME);
+  }
+
+  @Nullable
+  private static Bitmap.Config getConfig(String name) {
+    try {
+      return Bitmap.Config.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      // Saved by a newer version of Android.
+      return null;
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  private static boolean isPoolable(@Nullable Bitmap.Config config) {
+    if (config == null) {
+      return false;
+    }
+    // Avoid short circuiting on sdk int since it breaks on some versions of Android.
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+      return true;
+    }
+    return config != Bitmap.Config.HARDWARE;
+  }
+
+  private static void closeQuietly(@Nullable Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // Ignored.
+    }
+  }
+
+  private static final class Bucket {
+    @Synthetic final int width;
+    @Synthetic final int height;
+    @Synthetic final Bitmap.Config config;
+
+    @Synthetic
+    Bucket(int width, int height, Bitmap.Config config) {
+      this.width = width;
+      this.height = height;
+      this.config = config;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Bucket) {
+        Bucket other = (Bucket) o;
+        return width == other.width && height == other.height && config == other.config;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = width;
+      result = 31 * result + height;
+      result = 31 * result + config.hashCode();
+      return result;
+    }
+  }
+}
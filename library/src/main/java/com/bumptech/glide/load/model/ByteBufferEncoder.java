@@ -2,17 +2,18 @@ package com.bumptech.glide.load.model;
 
 import android.support.annotation.NonNull;
 import android.util.Log;
-import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.ChannelEncoder;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
- * Writes {@link ByteBuffer ByteBuffers} to {@link File Files}.
+ * Writes {@link ByteBuffer ByteBuffers} to {@link File Files} or channels.
  */
-public class ByteBufferEncoder implements Encoder<ByteBuffer> {
+public class ByteBufferEncoder implements ChannelEncoder<ByteBuffer> {
   private static final String TAG = "ByteBufferEncoder";
 
   @Override
@@ -28,4 +29,19 @@ public class ByteBufferEncoder implements Encoder<ByteBuffer> {
     }
     return success;
   }
+
+  @Override
+  public boolean encode(@NonNull ByteBuffer data, @NonNull WritableByteChannel channel,
+      @NonNull Options options) {
+    boolean success = false;
+    try {
+      ByteBufferUtil.toChannel(data, channel);
+      success = true;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to write data", e);
+      }
+    }
+    return success;
+  }
 }
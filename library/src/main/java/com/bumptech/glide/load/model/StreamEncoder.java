@@ -2,7 +2,7 @@ package com.bumptech.glide.load.model;
 
 import android.support.annotation.NonNull;
 import android.util.Log;
-import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.ChannelEncoder;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import java.io.File;
@@ -10,12 +10,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * An {@link com.bumptech.glide.load.Encoder} that can write an {@link java.io.InputStream} to
- * disk.
+ * disk or a channel.
  */
-public class StreamEncoder implements Encoder<InputStream> {
+public class StreamEncoder implements ChannelEncoder<InputStream> {
   private static final String TAG = "StreamEncoder";
   private final ArrayPool byteArrayPool;
 
@@ -52,4 +54,30 @@ public class StreamEncoder implements Encoder<InputStream> {
     }
     return success;
   }
+
+  @Override
+  public boolean encode(@NonNull InputStream data, @NonNull WritableByteChannel channel,
+      @NonNull Options options) {
+    byte[] buffer = byteArrayPool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    boolean success = false;
+    try {
+      ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+      int read;
+      while ((read = data.read(buffer)) != -1) {
+        wrapped.clear();
+        wrapped.limit(read);
+        while (wrapped.hasRemaining()) {
+          channel.write(wrapped);
+        }
+      }
+      success = true;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to encode data onto the channel", e);
+      }
+    } finally {
+      byteArrayPool.put(buffer);
+    }
+    return success;
+  }
 }
@@ -29,6 +29,9 @@ import java.io.OutputStream;
  * to preserve alpha and all other bitmaps are written using
  * {@link android.graphics.Bitmap.CompressFormat#JPEG}. </p>
  *
+ * <p> If {@link #RAW_PIXELS} is set, {@link android.graphics.Bitmap}s are instead written
+ * uncompressed by a {@link RawBitmapEncoder}. </p>
+ *
  * @see android.graphics.Bitmap#compress(android.graphics.Bitmap.CompressFormat, int,
  * java.io.OutputStream)
  */
@@ -51,12 +54,43 @@ public class BitmapEncoder implements ResourceEncoder<Bitmap> {
   public static final Option<Bitmap.CompressFormat> COMPRESSION_FORMAT = Option.memory(
       "com.bumptech.glide.load.resource.bitmap.BitmapEncoder.CompressionFormat");
 
+  /**
+   * A boolean option that, if {@code true}, writes the pixels of
+   * {@link android.graphics.Bitmap}s with a {@link RawBitmapEncoder} instead of compressing them
+   * with {@link #COMPRESSION_FORMAT}.
+   *
+   * <p> Writing pixels is much cheaper than compressing to PNG and preserves alpha, but uses more
+   * disk space than JPEG. {@link android.graphics.Bitmap}s that {@link RawBitmapEncoder} can't
+   * encode are compressed as usual. </p>
+   *
+   * <p> Pixels are copied through a direct buffer as large as the
+   * {@link android.graphics.Bitmap}, which each encoding and decoding thread keeps for
+   * {@link android.graphics.Bitmap}s of up to 8 MB, so enabling this option retains up to 8 MB
+   * of native memory per thread. Larger {@link android.graphics.Bitmap}s allocate a new buffer
+   * each time they're written or read. </p>
+   *
+   * <p> Defaults to {@code false}. </p>
+   */
+  public static final Option<Boolean> RAW_PIXELS = Option.memory(
+      "com.bumptech.glide.load.resource.bitmap.BitmapEncoder.RawPixels", false);
+
   private static final String TAG = "BitmapEncoder";
   @Nullable
   private final ArrayPool arrayPool;
+  @Nullable
+  private final RawBitmapEncoder rawBitmapEncoder;
 
   public BitmapEncoder(@NonNull ArrayPool arrayPool) {
+    this(arrayPool, new RawBitmapEncoder(arrayPool, new Lz4BlockCompressor(arrayPool)));
+  }
+
+  /**
+   * @param rawBitmapEncoder The encoder used to write {@link android.graphics.Bitmap}s if
+   *                         {@link #RAW_PIXELS} is set.
+   */
+  public BitmapEncoder(@NonNull ArrayPool arrayPool, @NonNull RawBitmapEncoder rawBitmapEncoder) {
     this.arrayPool = arrayPool;
+    this.rawBitmapEncoder = rawBitmapEncoder;
   }
 
   /**
@@ -65,12 +99,17 @@ public class BitmapEncoder implements ResourceEncoder<Bitmap> {
   @Deprecated
   public BitmapEncoder() {
     arrayPool = null;
+    rawBitmapEncoder = null;
   }
 
   @Override
   public boolean encode(@NonNull Resource<Bitmap> resource, @NonNull File file,
       @NonNull Options options) {
     final Bitmap bitmap = resource.get();
+    if (rawBitmapEncoder != null && options.get(RAW_PIXELS)
+        && RawBitmapEncoder.canEncode(bitmap)) {
+      return rawBitmapEncoder.encode(resource, file, options);
+    }
     Bitmap.CompressFormat format = getFormat(bitmap, options);
     GlideTrace.
         beginSectionFormat("encode: [%dx%d] %s", bitmap.getWidth(), bitmap.getHeight(), format);
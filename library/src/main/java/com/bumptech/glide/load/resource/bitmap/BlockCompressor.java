@@ -0,0 +1,45 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import java.io.IOException;
+
+/**
+ * Compresses and decompresses blocks of bytes for {@link RawBitmapEncoder} and
+ * {@link RawBitmapDecoder}.
+ *
+ * <p>Implementations must be thread safe.
+ */
+public interface BlockCompressor {
+
+  /**
+   * Returns an id between 1 and 255 that identifies the format written by this compressor.
+   *
+   * <p>The id is written to the disk cache along with the compressed data, so it must be stable
+   * across builds and unique among the compressors used by an application.
+   */
+  int getId();
+
+  /**
+   * Returns the maximum number of bytes {@link #compress(byte[], int, int, byte[], int)} may write
+   * for a block of the given length.
+   */
+  int getMaxCompressedLength(int length);
+
+  /**
+   * Compresses the given range of {@code src} into {@code dest} and returns the number of bytes
+   * written.
+   *
+   * <p>{@code dest} must have at least {@link #getMaxCompressedLength(int)} bytes available after
+   * {@code destOffset}.
+   */
+  int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset);
+
+  /**
+   * Decompresses the given range of {@code src} into exactly {@code destLength} bytes of
+   * {@code dest}.
+   *
+   * @throws IOException If the compressed data is corrupt or doesn't decompress to
+   *                     {@code destLength} bytes.
+   */
+  void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset,
+      int destLength) throws IOException;
+}
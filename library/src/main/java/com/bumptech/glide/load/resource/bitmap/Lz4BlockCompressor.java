@@ -0,0 +1,224 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.util.Preconditions;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link BlockCompressor} that writes the LZ4 block format.
+ *
+ * <p>Compression uses a single pass with a small hash table of recent four byte sequences, which
+ * trades compression ratio for speed. Rows of identical or repeated pixels, which are common in
+ * transformed images, compress well, while noisy images may not compress at all.
+ *
+ * @see <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4 block format</a>
+ */
+public final class Lz4BlockCompressor implements BlockCompressor {
+  /** The id written by this compressor. */
+  public static final int ID = 1;
+
+  private static final int MIN_MATCH = 4;
+  // The last match must start at least 12 bytes before the end of the block.
+  private static final int MATCH_FIND_LIMIT = 12;
+  // The last five bytes of a block are always literals.
+  private static final int LAST_LITERALS = 5;
+  private static final int MAX_OFFSET = 0xFFFF;
+  private static final int RUN_MASK = 0xF;
+  private static final int HASH_LOG = 12;
+  private static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+  // Skip ahead faster the longer we go without finding a match.
+  private static final int SKIP_STRENGTH = 6;
+
+  private final ArrayPool arrayPool;
+
+  public Lz4BlockCompressor(@NonNull ArrayPool arrayPool) {
+    this.arrayPool = Preconditions.checkNotNull(arrayPool);
+  }
+
+  @Override
+  public int getId() {
+    return ID;
+  }
+
+  @Override
+  public int getMaxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset) {
+    int srcEnd = srcOffset + srcLength;
+    int anchor = srcOffset;
+    int destPosition = destOffset;
+
+    if (srcLength > MATCH_FIND_LIMIT) {
+      int matchFindLimit = srcEnd - MATCH_FIND_LIMIT;
+      int matchLimit = srcEnd - LAST_LITERALS;
+      int[] hashTable = arrayPool.getExact(HASH_TABLE_SIZE, int[].class);
+      try {
+        Arrays.fill(hashTable, -1);
+        int position = srcOffset;
+        while (position < matchFindLimit) {
+          int sequence = readInt(src, position);
+          int hash = hash(sequence);
+          int reference = hashTable[hash];
+          hashTable[hash] = position;
+          if (reference < 0
+              || position - reference > MAX_OFFSET
+              || readInt(src, reference) != sequence) {
+            position += 1 + ((position - anchor) >>> SKIP_STRENGTH);
+            continue;
+          }
+
+          while (position > anchor && reference > srcOffset
+              && src[position - 1] == src[reference - 1]) {
+            position--;
+            reference--;
+          }
+          int matchLength = MIN_MATCH;
+          while (position + matchLength < matchLimit
+              && src[position + matchLength] == src[reference + matchLength]) {
+            matchLength++;
+          }
+
+          destPosition = writeSequence(src, anchor, position - anchor, position - reference,
+              matchLength - MIN_MATCH, dest, destPosition);
+          position += matchLength;
+          anchor = position;
+        }
+      } finally {
+        arrayPool.put(hashTable);
+      }
+    }
+
+    return writeSequence(src, anchor, srcEnd - anchor, 0 /*offset*/, -1 /*matchLength*/, dest,
+        destPosition) - destOffset;
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset,
+      int destLength) throws IOException {
+    int position = srcOffset;
+    int srcEnd = srcOffset + srcLength;
+    int destPosition = destOffset;
+    int destEnd = destOffset + destLength;
+
+    while (true) {
+      checkAvailable(position, 1, srcEnd);
+      int token = src[position++] & 0xFF;
+
+      int literalLength = token >>> 4;
+      if (literalLength == RUN_MASK) {
+        int value;
+        do {
+          checkAvailable(position, 1, srcEnd);
+          value = src[position++] & 0xFF;
+          literalLength += value;
+        } while (value == 0xFF);
+      }
+      checkAvailable(position, literalLength, srcEnd);
+      checkAvailable(destPosition, literalLength, destEnd);
+      System.arraycopy(src, position, dest, destPosition, literalLength);
+      position += literalLength;
+      destPosition += literalLength;
+
+      // The last sequence in a block only contains literals.
+      if (position == srcEnd) {
+        break;
+      }
+
+      checkAvailable(position, 2, srcEnd);
+      int offset = (src[position] & 0xFF) | ((src[position + 1] & 0xFF) << 8);
+      position += 2;
+      int matchLength = token & RUN_MASK;
+      if (matchLength == RUN_MASK) {
+        int value;
+        do {
+          checkAvailable(position, 1, srcEnd);
+          value = src[position++] & 0xFF;
+          matchLength += value;
+        } while (value == 0xFF);
+      }
+      matchLength += MIN_MATCH;
+
+      int reference = destPosition - offset;
+      if (offset == 0 || reference < destOffset) {
+        throw new IOException("Invalid match offset: " + offset);
+      }
+      checkAvailable(destPosition, matchLength, destEnd);
+      if (offset >= matchLength) {
+        System.arraycopy(dest, reference, dest, destPosition, matchLength);
+        destPosition += matchLength;
+      } else {
+        // Overlapping matches repeat the bytes they've just written, so copy one byte at a time.
+        for (int i = 0; i < matchLength; i++) {
+          dest[destPosition++] = dest[reference++];
+        }
+      }
+    }
+
+    if (destPosition != destEnd) {
+      throw new IOException(
+          "Expected " + destLength + " bytes, but decompressed " + (destPosition - destOffset));
+    }
+  }
+
+  /**
+   * Writes a token, the literals, and if {@code matchLength} is not negative, the match offset
+   * and length and returns the position in {@code dest} after the sequence.
+   */
+  private static int writeSequence(byte[] src, int literalOffset, int literalLength,
+      int matchOffset, int matchLength, byte[] dest, int destPosition) {
+    int tokenPosition = destPosition++;
+    int token;
+    if (literalLength >= RUN_MASK) {
+      token = RUN_MASK << 4;
+      destPosition = writeLength(literalLength - RUN_MASK, dest, destPosition);
+    } else {
+      token = literalLength << 4;
+    }
+    System.arraycopy(src, literalOffset, dest, destPosition, literalLength);
+    destPosition += literalLength;
+
+    if (matchLength >= 0) {
+      dest[destPosition++] = (byte) matchOffset;
+      dest[destPosition++] = (byte) (matchOffset >>> 8);
+      if (matchLength >= RUN_MASK) {
+        token |= RUN_MASK;
+        destPosition = writeLength(matchLength - RUN_MASK, dest, destPosition);
+      } else {
+        token |= matchLength;
+      }
+    }
+    dest[tokenPosition] = (byte) token;
+    return destPosition;
+  }
+
+  private static int writeLength(int length, byte[] dest, int destPosition) {
+    while (length >= 0xFF) {
+      dest[destPosition++] = (byte) 0xFF;
+      length -= 0xFF;
+    }
+    dest[destPosition++] = (byte) length;
+    return destPosition;
+  }
+
+  private static int readInt(byte[] src, int position) {
+    return (src[position] & 0xFF)
+        | (src[position + 1] & 0xFF) << 8
+        | (src[position + 2] & 0xFF) << 16
+        | (src[position + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  private static void checkAvailable(int position, int length, int end) throws IOException {
+    if (length < 0 || position + length > end) {
+      throw new IOException("Compressed data is corrupt");
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gives each thread a reusable direct {@link ByteBuffer} to copy the pixels of a
+ * {@link android.graphics.Bitmap} to and from.
+ *
+ * <p>{@link android.graphics.Bitmap#copyPixelsToBuffer(java.nio.Buffer)} and
+ * {@link android.graphics.Bitmap#copyPixelsFromBuffer(java.nio.Buffer)} only copy all of the pixels
+ * at once, so {@link RawBitmapEncoder} and {@link RawBitmapDecoder} need a buffer as large as the
+ * {@link android.graphics.Bitmap}. That's larger than the arrays
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool}s keep, so each thread instead
+ * keeps its largest buffer of up to {@link #MAX_RETAINED_SIZE} bytes. Buffers for larger
+ * {@link android.graphics.Bitmap}s are allocated for each call.
+ */
+final class PixelBuffers {
+  /**
+   * 2 MB, enough for the pixels of a 720x720 ARGB_8888 Bitmap.
+   *
+   * <p>Retained buffers can't be released when memory is trimmed because they belong to other
+   * threads, so the limit is kept small enough that a buffer for each of Glide's threads is cheap
+   * to hold onto.
+   */
+  static final int MAX_RETAINED_SIZE = 2 * 1024 * 1024;
+  private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<>();
+
+  private PixelBuffers() {
+    // Utility class.
+  }
+
+  /**
+   * Returns a direct buffer with a position of zero and a limit of {@code byteCount}.
+   *
+   * <p>The buffer may be returned again by later calls on the same thread, so it must not be used
+   * after the caller is done with it.
+   */
+  static ByteBuffer obtain(int byteCount) {
+    ByteBuffer buffer = BUFFERS.get();
+    if (buffer == null || buffer.capacity() < byteCount) {
+      if (byteCount > MAX_RETAINED_SIZE) {
+        return ByteBuffer.allocateDirect(byteCount);
+      }
+      int capacity = buffer == null
+          ? byteCount : Math.max(byteCount, Math.min(2 * buffer.capacity(), MAX_RETAINED_SIZE));
+      buffer = ByteBuffer.allocateDirect(capacity);
+      BUFFERS.set(buffer);
+    }
+    buffer.clear();
+    buffer.limit(byteCount);
+    return buffer;
+  }
+}
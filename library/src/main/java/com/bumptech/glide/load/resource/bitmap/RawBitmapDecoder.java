@@ -0,0 +1,128 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.util.Preconditions;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes {@link android.graphics.Bitmap Bitmaps} written by {@link RawBitmapEncoder} from
+ * {@link java.nio.ByteBuffer ByteBuffers}.
+ *
+ * <p>The pixels are decompressed directly into a {@link android.graphics.Bitmap} obtained from
+ * the {@link BitmapPool}, so no image is decoded. The requested width and height are ignored
+ * because encoded {@link android.graphics.Bitmap}s have already been transformed.
+ */
+public class RawBitmapDecoder implements ResourceDecoder<ByteBuffer, Bitmap> {
+  private final BitmapPool bitmapPool;
+  private final ArrayPool arrayPool;
+  private final BlockCompressor compressor;
+
+  public RawBitmapDecoder(@NonNull BitmapPool bitmapPool, @NonNull ArrayPool arrayPool,
+      @NonNull BlockCompressor compressor) {
+    this.bitmapPool = Preconditions.checkNotNull(bitmapPool);
+    this.arrayPool = Preconditions.checkNotNull(arrayPool);
+    this.compressor = Preconditions.checkNotNull(compressor);
+  }
+
+  @Override
+  public boolean handles(@NonNull ByteBuffer source, @NonNull Options options) {
+    ByteBuffer buffer = source.duplicate().order(ByteOrder.BIG_ENDIAN);
+    return RawBitmapHeader.isRawBitmap(buffer)
+        && RawBitmapHeader.getCompressorId(buffer) == compressor.getId();
+  }
+
+  @Nullable
+  @Override
+  public Resource<Bitmap> decode(@NonNull ByteBuffer source, int width, int height,
+      @NonNull Options options) throws IOException {
+    ByteBuffer buffer = source.duplicate().order(ByteOrder.BIG_ENDIAN);
+    RawBitmapHeader header;
+    try {
+      header = RawBitmapHeader.read(buffer);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Missing header", e);
+    }
+    if (header == null) {
+      return null;
+    }
+    header.validate(buffer.remaining());
+
+    Bitmap bitmap = bitmapPool.getDirty(header.width, header.height, header.config);
+    boolean success = false;
+    try {
+      if (bitmap.getRowBytes() * bitmap.getHeight() != header.byteCount) {
+        throw new IOException("Expected " + header.byteCount + " bytes of pixels, but Bitmap has "
+            + bitmap.getRowBytes() * bitmap.getHeight());
+      }
+      readPixels(buffer, header.byteCount, bitmap);
+      bitmap.setHasAlpha(header.hasAlpha);
+      success = true;
+    } finally {
+      if (!success) {
+        bitmapPool.put(bitmap);
+      }
+    }
+    return BitmapResource.obtain(bitmap, bitmapPool);
+  }
+
+  private void readPixels(ByteBuffer buffer, int byteCount, Bitmap bitmap) throws IOException {
+    ByteBuffer pixels = PixelBuffers.obtain(byteCount);
+    byte[] chunk = arrayPool.get(RawBitmapHeader.BLOCK_SIZE, byte[].class);
+    byte[] block = null;
+    try {
+      while (pixels.hasRemaining()) {
+        int length = Math.min(RawBitmapHeader.BLOCK_SIZE, pixels.remaining());
+        int blockHeader = buffer.getInt();
+        int storedLength = blockHeader & ~RawBitmapHeader.UNCOMPRESSED_BLOCK_FLAG;
+        if (storedLength > buffer.remaining()) {
+          throw new IOException("Block of " + storedLength + " bytes is truncated");
+        }
+        if ((blockHeader & RawBitmapHeader.UNCOMPRESSED_BLOCK_FLAG) != 0) {
+          if (storedLength != length) {
+            throw new IOException("Expected " + length + " bytes, but found " + storedLength);
+          }
+          ByteBuffer stored = buffer.duplicate();
+          stored.limit(stored.position() + length);
+          pixels.put(stored);
+          buffer.position(buffer.position() + length);
+        } else if (buffer.hasArray()) {
+          compressor.decompress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+              storedLength, chunk, 0, length);
+          buffer.position(buffer.position() + storedLength);
+          pixels.put(chunk, 0, length);
+        } else {
+          // Memory mapped and direct buffers have to be copied before they can be decompressed.
+          if (block == null) {
+            block = arrayPool.get(
+                compressor.getMaxCompressedLength(RawBitmapHeader.BLOCK_SIZE), byte[].class);
+          }
+          if (storedLength > block.length) {
+            throw new IOException("Block of " + storedLength + " bytes is too large");
+          }
+          buffer.get(block, 0, storedLength);
+          compressor.decompress(block, 0, storedLength, chunk, 0, length);
+          pixels.put(chunk, 0, length);
+        }
+      }
+      pixels.flip();
+      bitmap.copyPixelsFromBuffer(pixels);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Pixels are truncated", e);
+    } finally {
+      arrayPool.put(chunk);
+      if (block != null) {
+        arrayPool.put(block);
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import com.bumptech.glide.load.EncodeStrategy;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceEncoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.util.LogTime;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.pool.GlideTrace;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link com.bumptech.glide.load.ResourceEncoder} that writes the pixels of
+ * {@link android.graphics.Bitmap}s to files, compressed with a {@link BlockCompressor}.
+ *
+ * <p>Unlike {@link BitmapEncoder}, which compresses {@link android.graphics.Bitmap}s to PNGs or
+ * JPEGs, writing pixels is cheap, lossless and preserves alpha. The files written are larger
+ * than JPEGs, but are read by {@link RawBitmapDecoder} without decoding an image.
+ *
+ * <p>{@link android.graphics.Bitmap}s whose {@link android.graphics.Bitmap.Config} is {@code null}
+ * or {@link android.graphics.Bitmap.Config#HARDWARE} can't be encoded.
+ */
+public class RawBitmapEncoder implements ResourceEncoder<Bitmap> {
+  private static final String TAG = "RawBitmapEncoder";
+  private final ArrayPool arrayPool;
+  private final BlockCompressor compressor;
+
+  public RawBitmapEncoder(@NonNull ArrayPool arrayPool, @NonNull BlockCompressor compressor) {
+    this.arrayPool = Preconditions.checkNotNull(arrayPool);
+    this.compressor = Preconditions.checkNotNull(compressor);
+  }
+
+  /**
+   * Returns {@code true} if the given {@link Bitmap} can be encoded by this encoder.
+   */
+  public static boolean canEncode(@NonNull Bitmap bitmap) {
+    return RawBitmapHeader.isSupported(bitmap.getConfig());
+  }
+
+  @Override
+  public boolean encode(@NonNull Resource<Bitmap> resource, @NonNull File file,
+      @NonNull Options options) {
+    Bitmap bitmap = resource.get();
+    if (!canEncode(bitmap)) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Unable to encode Bitmap with config: " + bitmap.getConfig());
+      }
+      return false;
+    }
+    GlideTrace.beginSectionFormat("encode raw: [%dx%d] %s", bitmap.getWidth(), bitmap.getHeight(),
+        bitmap.getConfig());
+    try {
+      long start = LogTime.getLogTime();
+      int byteCount = bitmap.getRowBytes() * bitmap.getHeight();
+      RawBitmapHeader header = new RawBitmapHeader(compressor.getId(), bitmap.getConfig(),
+          bitmap.hasAlpha(), bitmap.getWidth(), bitmap.getHeight(), byteCount);
+
+      ByteBuffer pixels = PixelBuffers.obtain(byteCount);
+      byte[] chunk = arrayPool.get(RawBitmapHeader.BLOCK_SIZE, byte[].class);
+      byte[] block = arrayPool.get(
+          RawBitmapHeader.BLOCK_HEADER_SIZE
+              + compressor.getMaxCompressedLength(RawBitmapHeader.BLOCK_SIZE),
+          byte[].class);
+      boolean success = false;
+      long written = 0;
+      OutputStream os = null;
+      try {
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.flip();
+
+        os = new FileOutputStream(file);
+        header.write(block);
+        os.write(block, 0, RawBitmapHeader.SIZE);
+        written += RawBitmapHeader.SIZE;
+        while (pixels.hasRemaining()) {
+          int length = Math.min(RawBitmapHeader.BLOCK_SIZE, pixels.remaining());
+          pixels.get(chunk, 0, length);
+          written += writeBlock(os, chunk, length, block);
+        }
+        os.close();
+        success = true;
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to encode Bitmap", e);
+        }
+      } finally {
+        if (os != null) {
+          try {
+            os.close();
+          } catch (IOException e) {
+            // Do nothing.
+          }
+        }
+        arrayPool.put(chunk);
+        arrayPool.put(block);
+      }
+
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Wrote " + byteCount + " bytes of pixels as " + written + " bytes in "
+            + LogTime.getElapsedMillis(start));
+      }
+      return success;
+    } finally {
+      GlideTrace.endSection();
+    }
+  }
+
+  private int writeBlock(OutputStream os, byte[] chunk, int length, byte[] block)
+      throws IOException {
+    int compressedLength = compressor.compress(
+        chunk, 0, length, block, RawBitmapHeader.BLOCK_HEADER_SIZE);
+    if (compressedLength < length) {
+      writeInt(block, compressedLength);
+      os.write(block, 0, RawBitmapHeader.BLOCK_HEADER_SIZE + compressedLength);
+      return RawBitmapHeader.BLOCK_HEADER_SIZE + compressedLength;
+    } else {
+      writeInt(block, length | RawBitmapHeader.UNCOMPRESSED_BLOCK_FLAG);
+      os.write(block, 0, RawBitmapHeader.BLOCK_HEADER_SIZE);
+      os.write(chunk, 0, length);
+      return RawBitmapHeader.BLOCK_HEADER_SIZE + length;
+    }
+  }
+
+  private static void writeInt(byte[] dest, int value) {
+    dest[0] = (byte) (value >>> 24);
+    dest[1] = (byte) (value >>> 16);
+    dest[2] = (byte) (value >>> 8);
+    dest[3] = (byte) value;
+  }
+
+  @NonNull
+  @Override
+  public EncodeStrategy getEncodeStrategy(@NonNull Options options) {
+    return EncodeStrategy.TRANSFORMED;
+  }
+}
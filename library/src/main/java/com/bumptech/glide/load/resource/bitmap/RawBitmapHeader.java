@@ -0,0 +1,184 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The header written before the pixels of {@link Bitmap}s encoded by {@link RawBitmapEncoder}.
+ *
+ * <p>The header contains, in order: a four byte magic number, a one byte version, the one byte id
+ * of the {@link BlockCompressor} used to compress the pixels, a one byte {@link Bitmap.Config},
+ * one byte of flags, and four byte width, height and pixel byte count. The header is followed by
+ * the pixels, split into blocks of at most {@link #BLOCK_SIZE} bytes. Each block is preceded by
+ * a four byte length with the {@link #UNCOMPRESSED_BLOCK_FLAG} set if the block could not be
+ * compressed.
+ */
+final class RawBitmapHeader {
+  static final int SIZE = 20;
+  static final int BLOCK_SIZE = 64 * 1024;
+  static final int BLOCK_HEADER_SIZE = 4;
+  static final int UNCOMPRESSED_BLOCK_FLAG = 0x80000000;
+  /** The largest width or height accepted by {@link #validate(int)}. */
+  static final int MAX_DIMENSION = 16384;
+
+  // "GRAW"
+  private static final int MAGIC = 0x47524157;
+  private static final int VERSION = 1;
+  private static final int FLAG_HAS_ALPHA = 1;
+
+  final int compressorId;
+  final Bitmap.Config config;
+  final boolean hasAlpha;
+  final int width;
+  final int height;
+  final int byteCount;
+
+  RawBitmapHeader(int compressorId, Bitmap.Config config, boolean hasAlpha, int width,
+      int height, int byteCount) {
+    this.compressorId = compressorId;
+    this.config = config;
+    this.hasAlpha = hasAlpha;
+    this.width = width;
+    this.height = height;
+    this.byteCount = byteCount;
+  }
+
+  /**
+   * Returns {@code true} if the given {@link Bitmap.Config} can be written by
+   * {@link RawBitmapEncoder}.
+   */
+  static boolean isSupported(@Nullable Bitmap.Config config) {
+    return toId(config) != 0;
+  }
+
+  /**
+   * Returns {@code true} if the data starting at the current position of the given buffer
+   * starts with a header written by {@link RawBitmapEncoder}.
+   */
+  static boolean isRawBitmap(ByteBuffer buffer) {
+    return buffer.remaining() >= SIZE
+        && buffer.getInt(buffer.position()) == MAGIC
+        && buffer.get(buffer.position() + 4) == VERSION;
+  }
+
+  /**
+   * Returns the id of the {@link BlockCompressor} used to compress the data starting at the
+   * current position of the given buffer, which must start with a header.
+   */
+  static int getCompressorId(ByteBuffer buffer) {
+    return buffer.get(buffer.position() + 5) & 0xFF;
+  }
+
+  /**
+   * Reads a header from the given buffer and returns it, or returns {@code null} if the
+   * {@link Bitmap.Config} isn't supported on this device.
+   */
+  @Nullable
+  static RawBitmapHeader read(ByteBuffer buffer) {
+    buffer.getInt();
+    buffer.get();
+    int compressorId = buffer.get() & 0xFF;
+    Bitmap.Config config = fromId(buffer.get());
+    int flags = buffer.get();
+    int width = buffer.getInt();
+    int height = buffer.getInt();
+    int byteCount = buffer.getInt();
+    if (config == null) {
+      return null;
+    }
+    return new RawBitmapHeader(
+        compressorId, config, (flags & FLAG_HAS_ALPHA) != 0, width, height, byteCount);
+  }
+
+  /**
+   * Throws if this header doesn't describe pixels that could have been written by
+   * {@link RawBitmapEncoder} in the given number of remaining bytes, so that corrupt data is
+   * rejected before a {@link Bitmap} is obtained for it.
+   */
+  void validate(int remaining) throws IOException {
+    if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+      throw new IOException("Invalid dimensions: " + width + "x" + height);
+    }
+    long expectedByteCount = (long) width * height * getBytesPerPixel(config);
+    if (byteCount != expectedByteCount) {
+      throw new IOException("Expected " + expectedByteCount + " bytes of pixels for " + width
+          + "x" + height + " " + config + ", but found " + byteCount);
+    }
+    // Every block is preceded by its length, even if it compresses to nothing.
+    long blockCount = ((long) byteCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    if (blockCount * BLOCK_HEADER_SIZE > remaining) {
+      throw new IOException(
+          "Expected at least " + blockCount + " blocks, but found " + remaining + " bytes");
+    }
+  }
+
+  void write(byte[] dest) {
+    ByteBuffer buffer = ByteBuffer.wrap(dest);
+    buffer.putInt(MAGIC);
+    buffer.put((byte) VERSION);
+    buffer.put((byte) compressorId);
+    buffer.put((byte) toId(config));
+    buffer.put((byte) (hasAlpha ? FLAG_HAS_ALPHA : 0));
+    buffer.putInt(width);
+    buffer.putInt(height);
+    buffer.putInt(byteCount);
+  }
+
+  private static int toId(@Nullable Bitmap.Config config) {
+    if (config == null) {
+      return 0;
+    }
+    switch (config) {
+      case ALPHA_8:
+        return 1;
+      case RGB_565:
+        return 2;
+      case ARGB_4444:
+        return 3;
+      case ARGB_8888:
+        return 4;
+      case RGBA_F16:
+        return 5;
+      default:
+        // Hardware Bitmaps can't be copied to a buffer.
+        return 0;
+    }
+  }
+
+  private static int getBytesPerPixel(Bitmap.Config config) {
+    switch (config) {
+      case ALPHA_8:
+        return 1;
+      case RGB_565:
+      case ARGB_4444:
+        return 2;
+      case ARGB_8888:
+        return 4;
+      case RGBA_F16:
+        return 8;
+      default:
+        throw new IllegalArgumentException("Unsupported config: " + config);
+    }
+  }
+
+  @Nullable
+  private static Bitmap.Config fromId(int id) {
+    switch (id) {
+      case 1:
+        return Bitmap.Config.ALPHA_8;
+      case 2:
+        return Bitmap.Config.RGB_565;
+      case 3:
+        return Bitmap.Config.ARGB_4444;
+      case 4:
+        return Bitmap.Config.ARGB_8888;
+      case 5:
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? Bitmap.Config.RGBA_F16 : null;
+      default:
+        return null;
+    }
+  }
+}
@@ -4,6 +4,8 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.request.Reprioritizable;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.util.Util;
 import java.util.ArrayList;
@@ -93,6 +95,20 @@ public class RequestTracker {
     return isOwnedByUs;
   }
 
+  /**
+   * Sets the priority of the given request if it's tracked by this tracker and can be
+   * reprioritized, and returns {@code true} if the request was found or {@code false} otherwise.
+   */
+  public boolean setPriority(@Nullable Request request, @NonNull Priority priority) {
+    if (request == null || !(requests.contains(request) || pendingRequests.contains(request))) {
+      return false;
+    }
+    if (request instanceof Reprioritizable) {
+      ((Reprioritizable) request).setPriority(priority);
+    }
+    return true;
+  }
+
   /**
    * Returns {@code true} if requests are currently paused, and {@code false} otherwise.
    */
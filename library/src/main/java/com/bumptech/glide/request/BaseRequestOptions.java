@@ -68,6 +68,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
   private static final int USE_UNLIMITED_SOURCE_GENERATORS_POOL = 1 << 18;
   private static final int ONLY_RETRIEVE_FROM_CACHE = 1 << 19;
   private static final int USE_ANIMATION_POOL = 1 << 20;
+  private static final int DEADLINE = 1 << 21;
 
   private int fields;
   private float sizeMultiplier = 1f;
@@ -105,6 +106,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
   private boolean onlyRetrieveFromCache;
   private boolean isScaleOnlyOrNoTransform = true;
   private boolean useAnimationPool;
+  private long deadlineMs;
 
 
   private static boolean isSet(int fields, int flag) {
@@ -712,6 +714,32 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     return set(HttpGlideUrlLoader.TIMEOUT, timeoutMs);
   }
 
+  /**
+   * Sets the maximum amount of time in milliseconds a load may wait in Glide's queues before it
+   * starts.
+   *
+   * <p>Loads that haven't started by their deadline fail instead of starting, so that visible
+   * images aren't stuck behind prefetches that are no longer useful. Loads that have started are
+   * never interrupted. If multiple requests share a single load, the load only expires once every
+   * request's deadline has passed.
+   *
+   * <p>Defaults to {@code 0}, which means loads never expire.
+   *
+   * @param deadlineMs The time in milliseconds from when the load is started by the request.
+   */
+  @NonNull
+  @CheckResult
+  public T deadline(@IntRange(from = 0) long deadlineMs) {
+    if (isAutoCloneEnabled) {
+      return clone().deadline(deadlineMs);
+    }
+
+    this.deadlineMs = deadlineMs;
+    fields |= DEADLINE;
+
+    return selfOrThrowIfLocked();
+  }
+
   /**
    * Applies {@link com.bumptech.glide.load.resource.bitmap.CenterCrop} to all default types, and
    * ignores unknown types.
@@ -1205,6 +1233,9 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     if (isSet(other.fields, ONLY_RETRIEVE_FROM_CACHE)) {
       onlyRetrieveFromCache = other.onlyRetrieveFromCache;
     }
+    if (isSet(other.fields, DEADLINE)) {
+      deadlineMs = other.deadlineMs;
+    }
 
     // Applying options with dontTransform() is expected to clear our transformations.
     if (!isTransformationAllowed) {
@@ -1240,6 +1271,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
           && isTransformationAllowed == other.isTransformationAllowed
           && useUnlimitedSourceGeneratorsPool == other.useUnlimitedSourceGeneratorsPool
           && onlyRetrieveFromCache == other.onlyRetrieveFromCache
+          && deadlineMs == other.deadlineMs
           && diskCacheStrategy.equals(other.diskCacheStrategy)
           && priority == other.priority
           && options.equals(other.options)
@@ -1267,6 +1299,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     hashCode = Util.hashCode(isTransformationAllowed, hashCode);
     hashCode = Util.hashCode(useUnlimitedSourceGeneratorsPool, hashCode);
     hashCode = Util.hashCode(onlyRetrieveFromCache, hashCode);
+    hashCode = Util.hashCode((int) (deadlineMs ^ (deadlineMs >>> 32)), hashCode);
     hashCode = Util.hashCode(diskCacheStrategy, hashCode);
     hashCode = Util.hashCode(priority, hashCode);
     hashCode = Util.hashCode(options, hashCode);
@@ -1453,6 +1486,10 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     return onlyRetrieveFromCache;
   }
 
+  public final long getDeadlineMs() {
+    return deadlineMs;
+  }
+
   @SuppressWarnings("unchecked")
   private T self() {
     return (T) this;
@@ -1,18 +1,23 @@
 package com.bumptech.glide.request;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * Runs a single primary {@link Request} until it completes and then a fallback error request only
  * if the single primary request fails.
  */
 public final class ErrorRequestCoordinator implements RequestCoordinator,
-    Request {
+    Request,
+    Reprioritizable {
 
   @Nullable
   private final RequestCoordinator parent;
   private Request primary;
   private Request error;
+  // The number of levels the error request's priority is below the primary request's priority.
+  private int errorPriorityOffset;
 
   public ErrorRequestCoordinator(@Nullable RequestCoordinator parent) {
     this.parent = parent;
@@ -21,6 +26,7 @@ public final class ErrorRequestCoordinator implements RequestCoordinator,
   public void setRequests(Request primary, Request error) {
     this.primary = primary;
     this.error = error;
+    errorPriorityOffset = Priorities.getOffset(primary, error);
   }
 
   @Override
@@ -71,6 +77,26 @@ public final class ErrorRequestCoordinator implements RequestCoordinator,
     error.recycle();
   }
 
+  /**
+   * Sets the priority of the primary request and keeps the error request's priority the same
+   * number of levels above or below it as when the requests were set.
+   */
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    if (primary instanceof Reprioritizable) {
+      ((Reprioritizable) primary).setPriority(priority);
+    }
+    if (error instanceof Reprioritizable) {
+      ((Reprioritizable) error).setPriority(Priorities.offset(priority, errorPriorityOffset));
+    }
+  }
+
+  @NonNull
+  @Override
+  public Priority getPriority() {
+    return Priorities.getPriority(primary);
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ErrorRequestCoordinator) {
@@ -0,0 +1,44 @@
+package com.bumptech.glide.request;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
+/**
+ * Keeps the priorities of the requests in a {@link RequestCoordinator} relative to each other when
+ * they're changed by {@link Reprioritizable#setPriority(Priority)}.
+ */
+final class Priorities {
+  private static final Priority[] VALUES = Priority.values();
+
+  private Priorities() {
+    // Utility class.
+  }
+
+  /**
+   * Returns the current priority of the given request, or {@link Priority#NORMAL}, the default
+   * priority, if the request can't be reprioritized.
+   */
+  @NonNull
+  static Priority getPriority(@NonNull Request request) {
+    return request instanceof Reprioritizable
+        ? ((Reprioritizable) request).getPriority() : Priority.NORMAL;
+  }
+
+  /**
+   * Returns the number of levels the second request's priority is below the first request's
+   * priority, which is negative if the second request has a higher priority.
+   */
+  static int getOffset(@NonNull Request first, @NonNull Request second) {
+    return getPriority(second).ordinal() - getPriority(first).ordinal();
+  }
+
+  /**
+   * Returns the priority the given number of levels below the given priority, limited to the
+   * highest and lowest priorities.
+   */
+  @NonNull
+  static Priority offset(@NonNull Priority priority, int offset) {
+    int ordinal = Math.max(0, Math.min(VALUES.length - 1, priority.ordinal() + offset));
+    return VALUES[ordinal];
+  }
+}
@@ -0,0 +1,32 @@
+package com.bumptech.glide.request;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
+/**
+ * A {@link Request} whose {@link Priority} can be changed after it has been started, for example to
+ * lower the priority of requests for views that have scrolled off screen and raise it again when
+ * they become visible.
+ *
+ * @see com.bumptech.glide.RequestManager#setPriority(com.bumptech.glide.request.target.Target,
+ * Priority)
+ */
+public interface Reprioritizable {
+
+  /**
+   * Sets the priority used to order this request's load relative to other loads that haven't
+   * started yet, including the load's remaining steps if it's already started.
+   *
+   * <p>Loads are shared between requests for the same resource, so the new priority also applies
+   * to any other request waiting on the same load.
+   *
+   * <p>Must be called on the main thread.
+   */
+  void setPriority(@NonNull Priority priority);
+
+  /**
+   * Returns the priority most recently set for this request, or the priority it was created with.
+   */
+  @NonNull
+  Priority getPriority();
+}
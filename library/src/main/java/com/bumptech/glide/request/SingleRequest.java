@@ -37,6 +37,7 @@ import java.util.List;
 public final class SingleRequest<R> implements Request,
         SizeReadyCallback,
         ResourceCallback,
+        Reprioritizable,
         FactoryPools.Poolable {
     /**
      * Tag for logging internal events, not generally suitable for public use.
@@ -101,6 +102,8 @@ public final class SingleRequest<R> implements Request,
     private int overrideWidth;
     private int overrideHeight;
     private Priority priority;
+    // The priority of our loads, which may be changed after we're started unlike priority.
+    private Priority loadPriority;
     private Target<R> target;
     @Nullable
     private List<RequestListener<R>> requestListeners;
@@ -185,6 +188,7 @@ public final class SingleRequest<R> implements Request,
         this.overrideWidth = overrideWidth;
         this.overrideHeight = overrideHeight;
         this.priority = priority;
+        this.loadPriority = priority;
         this.target = target;
         this.targetListener = targetListener;
         this.requestListeners = requestListeners;
@@ -208,6 +212,7 @@ public final class SingleRequest<R> implements Request,
         model = null;
         transcodeClass = null;
         requestOptions = null;
+        loadPriority = null;
         overrideWidth = -1;
         overrideHeight = -1;
         target = null;
@@ -460,7 +465,7 @@ public final class SingleRequest<R> implements Request,
                 this.height,
                 requestOptions.getResourceClass(),
                 transcodeClass,
-                priority,
+                loadPriority,
                 requestOptions.getDiskCacheStrategy(),
                 requestOptions.getTransformations(),
                 requestOptions.isTransformationRequired(),
@@ -470,6 +475,7 @@ public final class SingleRequest<R> implements Request,
                 requestOptions.getUseUnlimitedSourceGeneratorsPool(),
                 requestOptions.getUseAnimationPool(),
                 requestOptions.getOnlyRetrieveFromCache(),
+                requestOptions.getDeadlineMs(),
                 this);
 
         // This is a hack that's only useful for testing right now where loads complete synchronously
@@ -483,6 +489,22 @@ public final class SingleRequest<R> implements Request,
         }
     }
 
+    @Override
+    public void setPriority(@NonNull Priority priority) {
+        stateVerifier.throwIfRecycled();
+        loadPriority = priority;
+        if (loadStatus != null) {
+            loadStatus.setPriority(priority);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Priority getPriority() {
+        stateVerifier.throwIfRecycled();
+        return loadPriority;
+    }
+
     private static int maybeApplySizeMultiplier(int size, float sizeMultiplier) {
         return size == Target.SIZE_ORIGINAL ? size : Math.round(sizeMultiplier * size);
     }
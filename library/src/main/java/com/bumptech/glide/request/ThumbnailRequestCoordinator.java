@@ -1,18 +1,23 @@
 package com.bumptech.glide.request;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.Priority;
 
 /**
  * A coordinator that coordinates two individual {@link Request}s that load a small thumbnail
  * version of an image and the full size version of the image at the same time.
  */
 public class ThumbnailRequestCoordinator implements RequestCoordinator,
-    Request {
+    Request,
+    Reprioritizable {
   @Nullable private final RequestCoordinator parent;
 
   private Request full;
   private Request thumb;
+  // The number of levels the thumbnail's priority is below the full request's priority.
+  private int thumbPriorityOffset;
   private boolean isRunning;
 
   @VisibleForTesting
@@ -27,6 +32,7 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator,
   public void setRequests(Request full, Request thumb) {
     this.full = full;
     this.thumb = thumb;
+    thumbPriorityOffset = Priorities.getOffset(full, thumb);
   }
 
   /**
@@ -167,6 +173,27 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator,
     thumb.recycle();
   }
 
+  /**
+   * Sets the priority of the full request and keeps the thumbnail's priority the same number of
+   * levels above or below it as when the requests were set, so that thumbnails continue to load
+   * ahead of their full size images.
+   */
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    if (full instanceof Reprioritizable) {
+      ((Reprioritizable) full).setPriority(priority);
+    }
+    if (thumb instanceof Reprioritizable) {
+      ((Reprioritizable) thumb).setPriority(Priorities.offset(priority, thumbPriorityOffset));
+    }
+  }
+
+  @NonNull
+  @Override
+  public Priority getPriority() {
+    return Priorities.getPriority(full);
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ThumbnailRequestCoordinator) {
@@ -10,6 +10,7 @@ import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -90,6 +91,19 @@ public final class ByteBufferUtil {
     }
   }
 
+  /**
+   * Writes the contents of the given buffer, from zero to its limit, to the given channel without
+   * changing the buffer's position.
+   */
+  public static void toChannel(@NonNull ByteBuffer buffer, @NonNull WritableByteChannel channel)
+      throws IOException {
+    ByteBuffer toWrite = buffer.duplicate();
+    toWrite.position(0);
+    while (toWrite.hasRemaining()) {
+      channel.write(toWrite);
+    }
+  }
+
   public static void toStream(@NonNull ByteBuffer byteBuffer,
       @NonNull OutputStream os) throws IOException {
     SafeArray safeArray = getSafeArray(byteBuffer);
@@ -0,0 +1,63 @@
+package com.bumptech.glide.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers a bounded number of recently evicted items so that caches and pools can tell misses
+ * that a larger maximum size would have avoided from misses for items they never had.
+ *
+ * <p>Items are identified by an int, for example a key's hash code or an item's size in bytes,
+ * rather than by the item or its key so that evicted items and their keys can be garbage
+ * collected. Two items with the same id are treated as the same item, which only affects
+ * statistics.
+ *
+ * <p>This class is not thread safe.
+ */
+public final class EvictionHistory {
+  private final int maxSize;
+  // Counts of evicted items by id, in the order each id was first evicted.
+  private final LinkedHashMap<Integer, Integer> counts = new LinkedHashMap<>();
+
+  /**
+   * @param maxSize The maximum number of distinct ids that are remembered.
+   */
+  public EvictionHistory(int maxSize) {
+    Preconditions.checkArgument(maxSize > 0, "Max size must be positive");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Records that an item with the given id was evicted, forgetting the oldest id if necessary.
+   */
+  public void add(int id) {
+    Integer count = counts.get(id);
+    counts.put(id, count == null ? 1 : count + 1);
+    if (counts.size() > maxSize) {
+      Iterator<Map.Entry<Integer, Integer>> iterator = counts.entrySet().iterator();
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Forgets one evicted item with the given id and returns {@code true} if there was one.
+   */
+  public boolean remove(int id) {
+    Integer count = counts.get(id);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      counts.remove(id);
+    } else {
+      counts.put(id, count - 1);
+    }
+    return true;
+  }
+
+  public void clear() {
+    counts.clear();
+  }
+}
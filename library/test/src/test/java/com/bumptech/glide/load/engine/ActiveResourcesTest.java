@@ -3,10 +3,13 @@ package com.bumptech.glide.load.engine;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import android.os.MessageQueue.IdleHandler;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.ActiveResources.DequeuedResourceCallback;
 import com.bumptech.glide.load.engine.ActiveResources.ResourceWeakReference;
@@ -361,6 +364,125 @@ public class ActiveResourcesTest {
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
 
+  @Test
+  public void drainReferenceQueue_inBatchedMode_cleansUpQueuedReference() {
+    useBatchedResources();
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+    ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
+    weakRef.enqueue();
+    ShadowLooper.getShadowMainLooper().runToEndOfTasks();
+    verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
+
+    resources.drainReferenceQueue();
+
+    verify(listener).onResourceReleased(eq(key), any(EngineResource.class));
+    assertThat(resources.activeEngineResources).doesNotContainKey(key);
+  }
+
+  @Test
+  public void drainReferenceQueue_inBatchedMode_cleansUpAllQueuedReferences() {
+    useBatchedResources();
+    for (int i = 0; i < 3; i++) {
+      Key currentKey = mock(Key.class);
+      resources.activate(currentKey,
+          new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+      resources.activeEngineResources.get(currentKey).enqueue();
+    }
+
+    resources.drainReferenceQueue();
+
+    verify(listener, times(3)).onResourceReleased(any(Key.class), any(EngineResource.class));
+    assertThat(resources.activeEngineResources).isEmpty();
+  }
+
+  @Test
+  public void drainReferenceQueue_inDefaultMode_doesNotCleanUpQueuedReference() {
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+
+    resources.drainReferenceQueue();
+
+    assertThat(resources.activeEngineResources).containsKey(key);
+    verify(GlideShadowLooper.queue, never()).addIdleHandler(any(IdleHandler.class));
+  }
+
+  @Test
+  public void queueIdle_inBatchedMode_cleansUpQueuedReference() {
+    useBatchedResources();
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    IdleHandler idleHandler = getIdleHandler();
+    resources.activeEngineResources.get(key).enqueue();
+
+    idleHandler.queueIdle();
+
+    verify(listener).onResourceReleased(eq(key), any(EngineResource.class));
+  }
+
+  @Test
+  public void queueIdle_inBatchedMode_withActiveResources_keepsIdleHandler() {
+    useBatchedResources();
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    IdleHandler idleHandler = getIdleHandler();
+
+    assertThat(idleHandler.queueIdle()).isTrue();
+  }
+
+  @Test
+  public void queueIdle_inBatchedMode_afterDrainingLastResource_removesIdleHandler() {
+    useBatchedResources();
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    IdleHandler idleHandler = getIdleHandler();
+    resources.activeEngineResources.get(key).enqueue();
+
+    assertThat(idleHandler.queueIdle()).isFalse();
+  }
+
+  @Test
+  public void activate_inBatchedMode_afterIdleHandlerRemoved_addsIdleHandlerAgain() {
+    useBatchedResources();
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    IdleHandler idleHandler = getIdleHandler();
+    resources.deactivate(key);
+    idleHandler.queueIdle();
+
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+
+    verify(GlideShadowLooper.queue, times(2)).addIdleHandler(idleHandler);
+  }
+
+  @Test
+  public void queueIdle_inBatchedMode_afterShutdown_removesIdleHandler() {
+    useBatchedResources();
+    resources.activate(key,
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    IdleHandler idleHandler = getIdleHandler();
+
+    resources.shutdown();
+
+    assertThat(idleHandler.queueIdle()).isFalse();
+  }
+
+  private void useBatchedResources() {
+    resources.shutdown();
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isReferenceQueueDrainedInBatches=*/ true);
+    resources.setListener(listener);
+  }
+
+  private static IdleHandler getIdleHandler() {
+    ArgumentCaptor<IdleHandler> captor = ArgumentCaptor.forClass(IdleHandler.class);
+    verify(GlideShadowLooper.queue).addIdleHandler(captor.capture());
+    return captor.getValue();
+  }
+
   private void enqueueAndWaitForRef(ResourceWeakReference ref) {
     CountDownLatch latch = getLatchForClearedRef();
     ref.enqueue();
@@ -0,0 +1,117 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.load.Key;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ActiveSourceFetchesTest {
+  private ActiveSourceFetches fetches;
+  private Key key;
+
+  @Before
+  public void setUp() {
+    fetches = new ActiveSourceFetches();
+    key = mock(Key.class);
+  }
+
+  @Test
+  public void startOrWait_withNoFetchInProgress_startsFetch() {
+    ActiveSourceFetches.SourceFetch fetch =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+
+    assertThat(fetch).isNotNull();
+    assertThat(fetches.isFetching(key)).isTrue();
+  }
+
+  @Test
+  public void startOrWait_withFetchInProgress_returnsNull() {
+    fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+
+    assertThat(fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class))).isNull();
+  }
+
+  @Test
+  public void startOrWait_withFetchInProgressForDifferentKey_startsFetch() {
+    fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+
+    assertThat(fetches.startOrWait(mock(Key.class), mock(ActiveSourceFetches.Waiter.class)))
+        .isNotNull();
+  }
+
+  @Test
+  public void finish_notifiesWaiters() {
+    ActiveSourceFetches.SourceFetch fetch =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    ActiveSourceFetches.Waiter first = mock(ActiveSourceFetches.Waiter.class);
+    ActiveSourceFetches.Waiter second = mock(ActiveSourceFetches.Waiter.class);
+    fetches.startOrWait(key, first);
+    fetches.startOrWait(key, second);
+
+    fetches.finish(fetch);
+
+    verify(first).onSourceFetchFinished();
+    verify(second).onSourceFetchFinished();
+    assertThat(fetches.isFetching(key)).isFalse();
+  }
+
+  @Test
+  public void finish_calledTwice_notifiesWaitersOnce() {
+    ActiveSourceFetches.SourceFetch fetch =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    ActiveSourceFetches.Waiter waiter = mock(ActiveSourceFetches.Waiter.class);
+    fetches.startOrWait(key, waiter);
+
+    fetches.finish(fetch);
+    fetches.finish(fetch);
+
+    verify(waiter, times(1)).onSourceFetchFinished();
+  }
+
+  @Test
+  public void finish_withOldFetch_doesNotFinishNewFetch() {
+    ActiveSourceFetches.SourceFetch old =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    fetches.finish(old);
+    fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    ActiveSourceFetches.Waiter waiter = mock(ActiveSourceFetches.Waiter.class);
+    fetches.startOrWait(key, waiter);
+
+    fetches.finish(old);
+
+    verify(waiter, never()).onSourceFetchFinished();
+    assertThat(fetches.isFetching(key)).isTrue();
+  }
+
+  @Test
+  public void removeWaiter_withWaiter_preventsNotification() {
+    ActiveSourceFetches.SourceFetch fetch =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    ActiveSourceFetches.Waiter waiter = mock(ActiveSourceFetches.Waiter.class);
+    fetches.startOrWait(key, waiter);
+
+    assertThat(fetches.removeWaiter(key, waiter)).isTrue();
+    fetches.finish(fetch);
+
+    verify(waiter, never()).onSourceFetchFinished();
+  }
+
+  @Test
+  public void removeWaiter_afterFinish_returnsFalse() {
+    ActiveSourceFetches.SourceFetch fetch =
+        fetches.startOrWait(key, mock(ActiveSourceFetches.Waiter.class));
+    ActiveSourceFetches.Waiter waiter = mock(ActiveSourceFetches.Waiter.class);
+    fetches.startOrWait(key, waiter);
+    fetches.finish(fetch);
+
+    assertThat(fetches.removeWaiter(key, waiter)).isFalse();
+  }
+}
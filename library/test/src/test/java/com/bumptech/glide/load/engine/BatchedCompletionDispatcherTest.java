@@ -0,0 +1,106 @@
+package com.bumptech.glide.load.engine;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.tests.BackgroundUtil;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class BatchedCompletionDispatcherTest {
+  private final Map<EngineJob<?>, Integer> priorities = new IdentityHashMap<>();
+  private BatchedCompletionDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    dispatcher = new BatchedCompletionDispatcher();
+  }
+
+  @Test
+  public void dispatch_doesNotNotifyJobBeforeFrame() {
+    EngineJob<?> job = mockJob(/*priority=*/ 0);
+
+    dispatcher.dispatch(job);
+
+    verify(job, never()).handleCompletionOnMainThread();
+  }
+
+  @Test
+  public void dispatch_fromBackgroundThreads_notifiesAllJobsOnMainThread()
+      throws InterruptedException {
+    final EngineJob<?> first = mockJob(/*priority=*/ 0);
+    final EngineJob<?> second = mockJob(/*priority=*/ 1);
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        dispatcher.dispatch(first);
+        dispatcher.dispatch(second);
+      }
+    });
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    verify(first).handleCompletionOnMainThread();
+    verify(second).handleCompletionOnMainThread();
+  }
+
+  @Test
+  public void dispatch_withMultipleJobs_notifiesJobsInPriorityOrder() {
+    EngineJob<?> low = mockJob(/*priority=*/ 3);
+    EngineJob<?> immediate = mockJob(/*priority=*/ 0);
+    EngineJob<?> normal = mockJob(/*priority=*/ 2);
+    dispatcher.dispatch(low);
+    dispatcher.dispatch(immediate);
+    dispatcher.dispatch(normal);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    InOrder order = inOrder(low, immediate, normal);
+    order.verify(immediate).handleCompletionOnMainThread();
+    order.verify(normal).handleCompletionOnMainThread();
+    order.verify(low).handleCompletionOnMainThread();
+  }
+
+  @Test
+  public void dispatch_afterBatchIsDelivered_deliversNewBatch() {
+    EngineJob<?> first = mockJob(/*priority=*/ 0);
+    dispatcher.dispatch(first);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    EngineJob<?> second = mockJob(/*priority=*/ 0);
+    dispatcher.dispatch(second);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    verify(first, times(1)).handleCompletionOnMainThread();
+    verify(second).handleCompletionOnMainThread();
+  }
+
+  private EngineJob<?> mockJob(int priority) {
+    final EngineJob<?> job = mock(EngineJob.class);
+    priorities.put(job, priority);
+    when(job.comparePriority(any(EngineJob.class))).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(InvocationOnMock invocation) throws Throwable {
+        EngineJob<?> other = (EngineJob<?>) invocation.getArguments()[0];
+        return priorities.get(job) - priorities.get(other);
+      }
+    });
+    return job;
+  }
+}
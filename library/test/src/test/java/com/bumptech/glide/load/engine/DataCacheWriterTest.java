@@ -0,0 +1,91 @@
+package com.bumptech.glide.load.engine;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.load.ChannelEncoder;
+import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.model.ByteBufferEncoder;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DataCacheWriterTest {
+  private Key key;
+  private Options options;
+
+  @Before
+  public void setUp() {
+    key = mock(Key.class);
+    options = new Options();
+  }
+
+  @Test
+  public void writeTo_withByteBufferDiskCacheAndByteBufferEncoder_putsBuffer() {
+    ByteBufferDiskCache diskCache = mock(ByteBufferDiskCache.class);
+    ByteBuffer data = ByteBuffer.allocate(1);
+
+    new DataCacheWriter<>(new ByteBufferEncoder(), data, options).writeTo(diskCache, key);
+
+    verify(diskCache).putBuffer(key, data);
+  }
+
+  @Test
+  public void writeTo_withByteBufferDiskCacheAndChannelEncoder_putsChannel() {
+    ByteBufferDiskCache diskCache = mock(ByteBufferDiskCache.class);
+    @SuppressWarnings("unchecked") ChannelEncoder<InputStream> encoder =
+        mock(ChannelEncoder.class);
+    InputStream data = mock(InputStream.class);
+    DataCacheWriter<InputStream> writer = new DataCacheWriter<>(encoder, data, options);
+
+    writer.writeTo(diskCache, key);
+
+    verify(diskCache).putChannel(key, writer);
+  }
+
+  @Test
+  public void writeTo_withByteBufferDiskCacheAndEncoder_puts() {
+    ByteBufferDiskCache diskCache = mock(ByteBufferDiskCache.class);
+    @SuppressWarnings("unchecked") Encoder<InputStream> encoder = mock(Encoder.class);
+    DataCacheWriter<InputStream> writer =
+        new DataCacheWriter<>(encoder, mock(InputStream.class), options);
+
+    writer.writeTo(diskCache, key);
+
+    verify(diskCache).put(key, writer);
+  }
+
+  @Test
+  public void writeTo_withDiskCache_puts() {
+    DiskCache diskCache = mock(DiskCache.class);
+    DataCacheWriter<ByteBuffer> writer =
+        new DataCacheWriter<>(new ByteBufferEncoder(), ByteBuffer.allocate(1), options);
+
+    writer.writeTo(diskCache, key);
+
+    verify(diskCache).put(key, writer);
+  }
+
+  @Test
+  public void write_withChannel_encodesToChannel() {
+    @SuppressWarnings("unchecked") ChannelEncoder<InputStream> encoder =
+        mock(ChannelEncoder.class);
+    InputStream data = mock(InputStream.class);
+    WritableByteChannel channel = mock(WritableByteChannel.class);
+
+    new DataCacheWriter<>(encoder, data, options).write(channel);
+
+    verify(encoder).encode(eq(data), eq(channel), any(Options.class));
+  }
+}
@@ -3,9 +3,11 @@ package com.bumptech.glide.load.engine;
 import static com.bumptech.glide.tests.Util.anyResource;
 import static com.bumptech.glide.tests.Util.isADataSource;
 import static com.bumptech.glide.tests.Util.mockResource;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doAnswer;
@@ -19,6 +21,7 @@ import static org.mockito.Mockito.when;
 import android.os.Handler;
 import android.os.Looper;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
@@ -26,6 +29,10 @@ import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -504,6 +511,183 @@ public class EngineJobTest {
   }
 
   @SuppressWarnings("unchecked")
+  @Test
+  public void onResourceReady_withCompletionDispatcher_notifiesCallbacksInNextFrame() {
+    harness.completionDispatcher = new BatchedCompletionDispatcher();
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+    job.onResourceReady(harness.resource, harness.dataSource);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    verify(harness.cb).onResourceReady(eq(harness.engineResource), eq(harness.dataSource));
+    verify(harness.listener)
+        .onEngineJobComplete(eq(job), eq(harness.key), eq(harness.engineResource));
+  }
+
+  @Test
+  public void onLoadFailed_withCompletionDispatcher_notifiesCallbacksInNextFrame() {
+    harness.completionDispatcher = new BatchedCompletionDispatcher();
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+    GlideException exception = new GlideException("test");
+    job.onLoadFailed(exception);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    verify(harness.cb).onLoadFailed(eq(exception));
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+  }
+
+  @Test
+  public void rescheduleDecode_withDecodeExecutor_runsJobOnDecodeExecutor() {
+    harness.decodeService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    harness.sourceService.shutdownNow();
+    harness.diskCacheService.shutdownNow();
+
+    assertTrue(job.isSourceDecodedSeparately());
+    job.rescheduleDecode(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void isSourceDecodedSeparately_withoutDecodeExecutor_returnsFalse() {
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.isSourceDecodedSeparately());
+  }
+
+  @Test
+  public void isSourceDecodedSeparately_withAnimationPool_returnsFalse() {
+    harness.decodeService = MockGlideExecutor.newMainThreadExecutor();
+    harness.useAnimationPool = true;
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.isSourceDecodedSeparately());
+  }
+
+  @Test
+  public void cancel_withQueuedJobThatHasNotRun_removesJobFromQueue() {
+    ThreadPoolExecutor executor = newBusyExecutor();
+    try {
+      harness.sourceService = MockGlideExecutor.newTestExecutor(executor);
+      EngineJob<Object> job = harness.getJob();
+      job.start(harness.decodeJob);
+
+      job.cancel();
+
+      assertTrue(executor.getQueue().isEmpty());
+      verify(harness.listener).onEngineJobCancelled(eq(job), eq(harness.key));
+      verify(harness.decodeJob).release(true /*isRemovedFromQueue*/);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void cancel_withQueuedJobThatHasRun_leavesJobQueued() {
+    ThreadPoolExecutor executor = newBusyExecutor();
+    try {
+      harness.sourceService = MockGlideExecutor.newTestExecutor(executor);
+      when(harness.decodeJob.hasRun()).thenReturn(true);
+      EngineJob<Object> job = harness.getJob();
+      job.start(harness.decodeJob);
+
+      job.cancel();
+
+      assertTrue(executor.getQueue().contains(harness.decodeJob));
+      verify(harness.decodeJob, never()).release(anyBoolean());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void setPriority_withQueuedJob_setsPriorityAndRequeuesJob() {
+    ThreadPoolExecutor executor = newBusyExecutor();
+    try {
+      harness.sourceService = MockGlideExecutor.newTestExecutor(executor);
+      EngineJob<Object> job = harness.getJob();
+      job.start(harness.decodeJob);
+
+      job.setPriority(Priority.IMMEDIATE);
+
+      verify(harness.decodeJob).setPriority(Priority.IMMEDIATE);
+      assertTrue(executor.getQueue().contains(harness.decodeJob));
+      assertEquals(1, executor.getQueue().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void setPriority_withQueuedJob_setsPriorityWhileJobIsNotQueued() {
+    final ThreadPoolExecutor executor = newBusyExecutor();
+    try {
+      harness.sourceService = MockGlideExecutor.newTestExecutor(executor);
+      EngineJob<Object> job = harness.getJob();
+      job.start(harness.decodeJob);
+      final boolean[] wasQueued = new boolean[1];
+      doAnswer(new Answer<Void>() {
+        @Override
+        public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+          wasQueued[0] = executor.getQueue().contains(harness.decodeJob);
+          return null;
+        }
+      }).when(harness.decodeJob).setPriority(any(Priority.class));
+
+      job.setPriority(Priority.IMMEDIATE);
+
+      assertFalse(wasQueued[0]);
+      assertTrue(executor.getQueue().contains(harness.decodeJob));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void setPriority_withJobThatIsNotQueued_setsPriorityWithoutRunningJob() {
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+
+    job.setPriority(Priority.IMMEDIATE);
+
+    verify(harness.decodeJob).setPriority(Priority.IMMEDIATE);
+    verify(harness.decodeJob, times(1)).run();
+  }
+
+  @Test
+  public void extendDeadline_extendsDeadlineOfDecodeJob() {
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+
+    job.extendDeadline(100);
+
+    verify(harness.decodeJob).extendDeadline(100);
+  }
+
+  /**
+   * Returns an executor whose only thread is blocked until the executor is shut down, so that any
+   * other {@link Runnable}s stay in its queue.
+   */
+  private static ThreadPoolExecutor newBusyExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    return executor;
+  }
+
   private static class EngineJobHarness {
     final EngineJob.EngineResourceFactory factory = mock(EngineJob.EngineResourceFactory.class);
     final Key key = mock(Key.class);
@@ -513,16 +697,18 @@ public class EngineJobTest {
     final EngineResource<Object> engineResource = mock(EngineResource.class);
     final EngineJobListener listener = mock(EngineJobListener.class);
     final GlideExecutor diskCacheService = MockGlideExecutor.newMainThreadExecutor();
-    final GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
+    GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor sourceUnlimitedService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor animationService = MockGlideExecutor.newMainThreadExecutor();
     boolean isCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
-    final boolean useAnimationPool = false;
+    boolean useAnimationPool = false;
     final boolean onlyRetrieveFromCache = false;
     final DecodeJob<Object> decodeJob = mock(DecodeJob.class);
     final Pools.Pool<EngineJob<?>> pool = new Pools.SimplePool<>(1);
     final DataSource dataSource = DataSource.DATA_DISK_CACHE;
+    BatchedCompletionDispatcher completionDispatcher;
+    GlideExecutor decodeService;
 
     EngineJob<Object> getJob() {
       when(factory.build(eq(resource), eq(isCacheable))).thenReturn(engineResource);
@@ -534,7 +720,9 @@ public class EngineJobTest {
               animationService,
               listener,
               pool,
-              factory);
+              factory,
+              completionDispatcher,
+              decodeService);
       result.init(
           key,
           isCacheable,
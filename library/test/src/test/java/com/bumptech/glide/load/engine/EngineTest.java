@@ -34,13 +34,16 @@ import com.bumptech.glide.tests.BackgroundUtil;
 import com.bumptech.glide.tests.GlideShadowLooper;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(manifest = Config.NONE, sdk = 18, shadows = { GlideShadowLooper.class })
@@ -622,6 +625,229 @@ public class EngineTest {
     verify(harness.job, never()).start(any(DecodeJob.class));
   }
 
+  @Test
+  public void load_offMainThreadAllowed_onBackgroundThread_startsNewJob()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.doLoad();
+      }
+    });
+
+    verify((EngineJob<Object>) harness.job)
+        .prepareOffMainThread(any(DecodeJob.class), eq(harness.cb));
+    verify(harness.job).start(any(DecodeJob.class));
+    verify(harness.job, never()).addCallback(any(ResourceCallback.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_withActiveResource_notifiesOnMainThread()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    harness.activeResources.activate(harness.cacheKey, harness.resource);
+    ShadowLooper.pauseMainLooper();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.doLoad();
+      }
+    });
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.resource).acquire();
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    verify(harness.job, never()).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_withCachedResource_notifiesOnMainThread()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+    ShadowLooper.pauseMainLooper();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.doLoad();
+      }
+    });
+    verify(harness.resource, never()).acquire();
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.resource).acquire();
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    assertThat(harness.activeResources.get(harness.cacheKey)).isEqualTo(harness.resource);
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_cancelledWithCachedResource_returnsToCache()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+    ShadowLooper.pauseMainLooper();
+    final Engine.LoadStatus[] loadStatus = new Engine.LoadStatus[1];
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        loadStatus[0] = harness.doLoad();
+      }
+    });
+    loadStatus[0].cancel();
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.resource, never()).acquire();
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+    verify(harness.cache).put(eq(harness.cacheKey), eq(harness.resource));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_withExistingJob_addsCallbackOnMainThread()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    harness.doLoad();
+    final ResourceCallback backgroundCb = mock(ResourceCallback.class);
+    ShadowLooper.pauseMainLooper();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.cb = backgroundCb;
+        harness.doLoad();
+      }
+    });
+    verify(harness.job, never()).addCallback(eq(backgroundCb));
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.job).addCallback(eq(backgroundCb));
+    verify(harness.job, times(1)).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_withJobAddedConcurrently_releasesJobAndJoinsOther()
+      throws InterruptedException {
+    harness.isLoadOffMainThreadAllowed = true;
+    final EngineJob<?> other = mock(EngineJob.class);
+    // Simulates another load adding a job for the same key after we checked for one.
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+        harness.jobs.put(harness.cacheKey, other);
+        return null;
+      }
+    }).when((EngineJob<Object>) harness.job)
+        .prepareOffMainThread(any(DecodeJob.class), any(ResourceCallback.class));
+    ShadowLooper.pauseMainLooper();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.doLoad();
+      }
+    });
+
+    verify((EngineJob<Object>) harness.job).releaseUnstarted(any(DecodeJob.class));
+    verify(harness.job, never()).start(any(DecodeJob.class));
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(other).addCallback(eq(harness.cb));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_onMainThread_startsJobOnLoadExecutor() {
+    harness.isLoadOffMainThreadAllowed = true;
+    ExecutorService executorService = mock(ExecutorService.class);
+    harness.loadExecutor = MockGlideExecutor.newTestExecutor(executorService);
+
+    harness.doLoad();
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+    verify(harness.keyFactory, never()).buildKey(any(), any(Key.class), anyInt(), anyInt(),
+        any(Map.class), any(Class.class), any(Class.class), any(Options.class));
+    verify(harness.job, never()).start(any(DecodeJob.class));
+
+    captor.getValue().run();
+
+    verify(harness.job).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_onMainThread_withCachedResource_notifiesCallback() {
+    harness.isLoadOffMainThreadAllowed = true;
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+
+    harness.doLoad();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_onMainThread_cancelledBeforeRun_doesNotStartJob() {
+    harness.isLoadOffMainThreadAllowed = true;
+    ExecutorService executorService = mock(ExecutorService.class);
+    harness.loadExecutor = MockGlideExecutor.newTestExecutor(executorService);
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+
+    loadStatus.cancel();
+    captor.getValue().run();
+
+    verify(harness.job, never()).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_onMainThread_cancelledAfterStart_removesCallback() {
+    harness.isLoadOffMainThreadAllowed = true;
+    ExecutorService executorService = mock(ExecutorService.class);
+    harness.loadExecutor = MockGlideExecutor.newTestExecutor(executorService);
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+    ShadowLooper.pauseMainLooper();
+    captor.getValue().run();
+
+    loadStatus.cancel();
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.job).start(any(DecodeJob.class));
+    verify(harness.job).removeCallback(any(ResourceCallback.class));
+  }
+
+  @Test
+  public void load_offMainThreadAllowed_onMainThread_setPriorityBeforeStart_appliesToJob() {
+    harness.isLoadOffMainThreadAllowed = true;
+    ExecutorService executorService = mock(ExecutorService.class);
+    harness.loadExecutor = MockGlideExecutor.newTestExecutor(executorService);
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+
+    loadStatus.setPriority(Priority.IMMEDIATE);
+    captor.getValue().run();
+
+    verify(harness.job).setPriority(Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void load_withBatchedActiveResources_cleansUpQueuedReferences() {
+    harness.activeResources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isReferenceQueueDrainedInBatches=*/ true);
+    Key otherKey = mock(Key.class);
+    harness.activeResources.activate(otherKey, harness.resource);
+    harness.activeResources.activeEngineResources.get(otherKey).enqueue();
+
+    harness.doLoad();
+
+    assertThat(harness.activeResources.activeEngineResources).doesNotContainKey(otherKey);
+  }
+
   private static class EngineTestHarness {
     final EngineKey cacheKey = mock(EngineKey.class);
     final EngineKeyFactory keyFactory = mock(EngineKeyFactory.class);
@@ -629,7 +855,7 @@ public class EngineTest {
     @SuppressWarnings("rawtypes")
     final EngineResource resource = mock(EngineResource.class);
     final Jobs jobs = new Jobs();
-    final ActiveResources activeResources =
+    ActiveResources activeResources =
         new ActiveResources(/*isActiveResourceRetentionAllowed=*/ true);
 
     final int width = 100;
@@ -649,6 +875,8 @@ public class EngineTest {
     boolean isMemoryCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
     boolean onlyRetrieveFromCache = false;
+    boolean isLoadOffMainThreadAllowed = false;
+    GlideExecutor loadExecutor = MockGlideExecutor.newMainThreadExecutor();
     final boolean isScaleOnlyOrNoTransform = true;
 
     EngineTestHarness() {
@@ -706,7 +934,10 @@ public class EngineTest {
                 engineJobFactory,
                 decodeJobFactory,
                 resourceRecycler,
-                /*isActiveResourceRetentionAllowed=*/ true);
+                /*isActiveResourceRetentionAllowed=*/ true,
+                new EngineOptions()
+                    .setLoadOffMainThreadAllowed(isLoadOffMainThreadAllowed)
+                    .setLoadExecutor(loadExecutor));
       }
       return engine;
     }
@@ -0,0 +1,103 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19)
+public class BestFitStrategyTest {
+  private static final float MAX_WASTE_RATIO = 0.5f;
+
+  private BestFitStrategy strategy;
+
+  @Before
+  public void setUp() {
+    strategy = new BestFitStrategy(MAX_WASTE_RATIO);
+  }
+
+  @Test
+  public void get_withSameSize_returnsBitmap() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(bitmap);
+
+    assertThat(strategy.get(100, 100, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withLargerBitmapWithinMaxWaste_returnsReconfiguredBitmap() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(bitmap);
+
+    Bitmap result = strategy.get(80, 100, Bitmap.Config.ARGB_8888);
+    assertThat(result).isSameAs(bitmap);
+    assertThat(result.getWidth()).isEqualTo(80);
+    assertThat(result.getHeight()).isEqualTo(100);
+  }
+
+  @Test
+  public void get_withLargerBitmapBeyondMaxWaste_returnsNull() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(bitmap);
+
+    assertThat(strategy.get(50, 50, Bitmap.Config.ARGB_8888)).isNull();
+    assertThat(strategy.removeLast()).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withSmallerBitmap_returnsNull() {
+    strategy.put(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+    assertThat(strategy.get(101, 100, Bitmap.Config.ARGB_8888)).isNull();
+  }
+
+  @Test
+  public void get_withMultipleFittingBitmaps_returnsSmallest() {
+    strategy.put(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+    Bitmap smaller = Bitmap.createBitmap(90, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(smaller);
+    strategy.put(Bitmap.createBitmap(95, 100, Bitmap.Config.ARGB_8888));
+
+    assertThat(strategy.get(80, 100, Bitmap.Config.ARGB_8888)).isSameAs(smaller);
+  }
+
+  @Test
+  public void get_withOtherConfig_returnsBitmapReconfiguredToRequestedConfig() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(bitmap);
+
+    Bitmap result = strategy.get(100, 200, Bitmap.Config.RGB_565);
+    assertThat(result).isSameAs(bitmap);
+    assertThat(result.getConfig()).isEqualTo(Bitmap.Config.RGB_565);
+    assertThat(result.getHeight()).isEqualTo(200);
+  }
+
+  @Test
+  public void get_afterGet_doesNotReturnSameBitmapTwice() {
+    strategy.put(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+    strategy.get(100, 100, Bitmap.Config.ARGB_8888);
+
+    assertThat(strategy.get(100, 100, Bitmap.Config.ARGB_8888)).isNull();
+    assertThat(strategy.removeLast()).isNull();
+  }
+
+  @Test
+  public void get_withZeroMaxWasteRatio_onlyReturnsExactSize() {
+    strategy = new BestFitStrategy(0f);
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    strategy.put(bitmap);
+
+    assertThat(strategy.get(99, 100, Bitmap.Config.ARGB_8888)).isNull();
+    assertThat(strategy.get(200, 100, Bitmap.Config.RGB_565)).isSameAs(bitmap);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withNegativeMaxWasteRatio_throws() {
+    new BestFitStrategy(-1f);
+  }
+}
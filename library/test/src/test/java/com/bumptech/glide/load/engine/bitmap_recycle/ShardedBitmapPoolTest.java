@@ -0,0 +1,242 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ShardedBitmapPoolTest {
+  private static final Set<Bitmap.Config> ALLOWED_CONFIGS =
+      new HashSet<>(Arrays.asList(Bitmap.Config.ARGB_8888, Bitmap.Config.RGB_565));
+  private static final int SIZE = 10;
+  private static final int BYTE_SIZE = SIZE * SIZE * 4;
+  private static final int MAX_SIZE = 4 * BYTE_SIZE;
+
+  private ShardedBitmapPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ShardedBitmapPool(MAX_SIZE, ALLOWED_CONFIGS);
+  }
+
+  @Test
+  public void get_afterPut_returnsPutBitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertThat(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void getDirty_afterPut_returnsPutBitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(SIZE, SIZE, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsNewBitmap() {
+    Bitmap result = pool.get(SIZE, SIZE, Bitmap.Config.RGB_565);
+
+    assertThat(result.getWidth()).isEqualTo(SIZE);
+    assertThat(result.getConfig()).isEqualTo(Bitmap.Config.RGB_565);
+  }
+
+  @Test
+  public void get_withNullConfig_andEmptyPool_returnsNewArgb8888Bitmap() {
+    Bitmap result = pool.get(SIZE, SIZE, /*config=*/ null);
+
+    assertThat(result.getConfig()).isEqualTo(Bitmap.Config.ARGB_8888);
+  }
+
+  @Test
+  public void get_withNullConfig_returnsArgb8888Bitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertThat(pool.get(SIZE, SIZE, /*config=*/ null)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withDifferentConfig_doesNotReturnBitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertThat(pool.get(SIZE * 2, SIZE, Bitmap.Config.RGB_565)).isNotSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo((long) BYTE_SIZE);
+  }
+
+  @Test
+  public void put_withImmutableBitmap_recyclesBitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    Shadows.shadowOf(bitmap).setMutable(false);
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void put_withDisallowedConfig_recyclesBitmap() {
+    Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ALPHA_8);
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void put_withBitmapLargerThanPool_recyclesBitmap() {
+    Bitmap bitmap = createBitmap(SIZE * 3, Bitmap.Config.ARGB_8888);
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsFromLeastRecentlyUsedShard() {
+    Bitmap small = createBitmap(SIZE / 2, Bitmap.Config.ARGB_8888);
+    Bitmap first = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    Bitmap second = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    Bitmap third = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    Bitmap fourth = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+    pool.put(small);
+    pool.put(first);
+    pool.put(second);
+    pool.put(third);
+
+    pool.put(fourth);
+
+    assertThat(small.isRecycled()).isTrue();
+    assertThat(first.isRecycled()).isFalse();
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE);
+
+    Bitmap newSmall = createBitmap(SIZE / 2, Bitmap.Config.ARGB_8888);
+    pool.put(newSmall);
+
+    assertThat(newSmall.isRecycled()).isFalse();
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE - BYTE_SIZE + BYTE_SIZE / 4);
+  }
+
+  @Test
+  public void clearMemory_recyclesAllBitmaps() {
+    List<Bitmap> bitmaps = fillPool(4);
+
+    pool.clearMemory();
+
+    for (Bitmap bitmap : bitmaps) {
+      assertThat(bitmap.isRecycled()).isTrue();
+    }
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_removesHalfOfBitmaps() {
+    fillPool(4);
+
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE / 2);
+  }
+
+  @Test
+  public void trimMemory_background_removesAllBitmaps() {
+    fillPool(4);
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void setSizeMultiplier_withSmallerMultiplier_evictsBitmaps() {
+    fillPool(4);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getMaxSize()).isEqualTo((long) MAX_SIZE / 2);
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE / 2);
+  }
+
+  @Test
+  public void setSizeMultiplier_withLargerMultiplier_allowsMoreBitmaps() {
+    pool.setSizeMultiplier(2);
+
+    List<Bitmap> bitmaps = fillPool(8);
+
+    for (Bitmap bitmap : bitmaps) {
+      assertThat(bitmap.isRecycled()).isFalse();
+    }
+    assertThat(pool.getCurrentSize()).isEqualTo(2L * MAX_SIZE);
+  }
+
+  @Test
+  public void putAndGet_fromMultipleThreads_keepsSizeWithinMaxSize() throws InterruptedException {
+    int threadCount = 4;
+    final int iterations = 500;
+    final CountDownLatch latch = new CountDownLatch(threadCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int i = 0; i < threadCount; i++) {
+      final int size = SIZE / 2 + i;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < iterations; j++) {
+              pool.put(pool.getDirty(size, size, Bitmap.Config.ARGB_8888));
+              pool.put(createBitmap(size, Bitmap.Config.ARGB_8888));
+            }
+          } catch (Throwable t) {
+            failure.set(t);
+          } finally {
+            latch.countDown();
+          }
+        }
+      }).start();
+    }
+    latch.await();
+
+    assertThat(failure.get()).isNull();
+    assertThat(pool.getCurrentSize()).isAtMost((long) MAX_SIZE);
+    pool.clearMemory();
+    assertThat(pool.getCurrentSize()).isEqualTo(0L);
+  }
+
+  private List<Bitmap> fillPool(int count) {
+    List<Bitmap> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Bitmap bitmap = createBitmap(SIZE, Bitmap.Config.ARGB_8888);
+      pool.put(bitmap);
+      result.add(bitmap);
+    }
+    return result;
+  }
+
+  private static Bitmap createBitmap(int size, Bitmap.Config config) {
+    Bitmap bitmap = Bitmap.createBitmap(size, size, config);
+    Shadows.shadowOf(bitmap).setMutable(true);
+    return bitmap;
+  }
+}
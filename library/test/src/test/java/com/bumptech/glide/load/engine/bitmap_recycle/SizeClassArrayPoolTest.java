@@ -0,0 +1,225 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SizeClassArrayPoolTest {
+  private static final int MAX_SIZE = 1024 * 1024;
+  private static final int SMALL = 1024;
+  private static final int LARGE = 2 * SizeClassArrayPool.MAX_MAGAZINE_ARRAY_SIZE_BYTES;
+
+  private SizeClassArrayPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new SizeClassArrayPool(MAX_SIZE);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsArrayRoundedUpToPowerOfTwo() {
+    assertThat(pool.get(758, byte[].class).length).isEqualTo(1024);
+    assertThat(pool.get(1024, byte[].class).length).isEqualTo(1024);
+    assertThat(pool.get(100, int[].class).length).isEqualTo(128);
+  }
+
+  @Test
+  public void get_withSizeTooLargeToPool_returnsArrayWithRequestedSize() {
+    int size = MAX_SIZE / 2 + 1;
+    assertThat(pool.get(size, byte[].class).length).isEqualTo(size);
+  }
+
+  @Test
+  public void getExact_returnsArrayWithRequestedSize() {
+    assertThat(pool.getExact(758, byte[].class).length).isEqualTo(758);
+    assertThat(pool.getExact(1024, byte[].class).length).isEqualTo(1024);
+  }
+
+  @Test
+  public void get_afterPut_returnsPutArray() {
+    byte[] array = pool.get(SMALL - 1, byte[].class);
+    pool.put(array);
+
+    assertThat(pool.get(SMALL, byte[].class)).isSameAs(array);
+  }
+
+  @Test
+  public void getExact_afterPut_returnsPutArray() {
+    byte[] array = new byte[8];
+    pool.put(array);
+
+    assertThat(pool.getExact(8, byte[].class)).isSameAs(array);
+  }
+
+  @Test
+  public void get_afterPutOfOtherType_doesNotReturnPutArray() {
+    pool.put(new byte[SMALL]);
+
+    assertThat(pool.get(SMALL, int[].class)).isNotNull();
+    assertThat(pool.getMagazineSize()).isEqualTo(SMALL);
+  }
+
+  @Test
+  public void put_withLengthThatIsNotPowerOfTwo_doesNotPoolArray() {
+    byte[] array = new byte[SMALL - 1];
+    pool.put(array);
+
+    assertThat(pool.getMagazineSize()).isEqualTo(0);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.getExact(SMALL - 1, byte[].class)).isNotSameAs(array);
+  }
+
+  @Test
+  public void put_withSmallArray_putsArrayInMagazine() {
+    pool.put(new byte[SMALL]);
+
+    assertThat(pool.getMagazineSize()).isEqualTo(SMALL);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withLargeArray_putsArrayInDepot() {
+    byte[] array = new byte[LARGE];
+    pool.put(array);
+
+    assertThat(pool.getMagazineSize()).isEqualTo(0);
+    assertThat(pool.getCurrentSize()).isEqualTo(LARGE);
+    assertThat(pool.get(LARGE, byte[].class)).isSameAs(array);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withFullMagazine_putsArrayInDepot() {
+    for (int i = 0; i < SizeClassArrayPool.MAGAZINE_CAPACITY + 1; i++) {
+      pool.put(new byte[SMALL]);
+    }
+
+    assertThat(pool.getMagazineSize()).isEqualTo(SizeClassArrayPool.MAGAZINE_CAPACITY * SMALL);
+    assertThat(pool.getCurrentSize()).isEqualTo(SMALL);
+  }
+
+  @Test
+  public void put_overMagazineSize_putsArrayInDepot() {
+    int size = SizeClassArrayPool.MAX_MAGAZINE_ARRAY_SIZE_BYTES;
+    int magazineArrays = SizeClassArrayPool.MAX_MAGAZINE_SIZE_BYTES / size;
+    for (int i = 0; i < magazineArrays + 1; i++) {
+      pool.put(new byte[size]);
+    }
+
+    assertThat(pool.getMagazineSize()).isEqualTo(SizeClassArrayPool.MAX_MAGAZINE_SIZE_BYTES);
+    assertThat(pool.getCurrentSize()).isEqualTo(size);
+  }
+
+  @Test
+  public void get_withEmptyMagazine_returnsArrayFromDepot() {
+    for (int i = 0; i < SizeClassArrayPool.MAGAZINE_CAPACITY + 1; i++) {
+      pool.put(new byte[SMALL]);
+    }
+
+    for (int i = 0; i < SizeClassArrayPool.MAGAZINE_CAPACITY + 1; i++) {
+      pool.get(SMALL, byte[].class);
+    }
+
+    assertThat(pool.getMagazineSize()).isEqualTo(0);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsFromDepot() {
+    for (int i = 0; i < MAX_SIZE / LARGE + 2; i++) {
+      pool.put(new byte[LARGE]);
+    }
+
+    assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE);
+  }
+
+  @Test
+  public void put_withArrayLargerThanHalfOfPool_doesNotPoolArray() {
+    pool.put(new byte[MAX_SIZE]);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void clearMemory_removesArraysFromMagazineAndDepot() {
+    pool.put(new byte[SMALL]);
+    pool.put(new byte[LARGE]);
+
+    pool.clearMemory();
+
+    assertThat(pool.getMagazineSize()).isEqualTo(0);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void clearMemory_removesArraysFromOtherThreadsMagazines()
+      throws ExecutionException, InterruptedException {
+    final byte[] array = new byte[SMALL];
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          pool.put(array);
+        }
+      }).get();
+
+      pool.clearMemory();
+
+      byte[] result = executor.submit(new Callable<byte[]>() {
+        @Override
+        public byte[] call() {
+          return pool.get(SMALL, byte[].class);
+        }
+      }).get();
+      assertThat(result).isNotSameAs(array);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void trimMemory_uiHidden_removesHalfOfDepot() {
+    fillDepot();
+    pool.put(new byte[SMALL]);
+
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(pool.getMagazineSize()).isEqualTo(0);
+    assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE / 2);
+    assertThat(pool.getCurrentSize()).isGreaterThan(0);
+  }
+
+  @Test
+  public void trimMemory_background_removesAllArrays() {
+    fillDepot();
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void get_withUnsupportedType_throws() {
+    pool.get(SMALL, long[].class);
+  }
+
+  private void fillDepot() {
+    for (int i = 0; i < MAX_SIZE / LARGE; i++) {
+      pool.put(new byte[LARGE]);
+    }
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE);
+  }
+}
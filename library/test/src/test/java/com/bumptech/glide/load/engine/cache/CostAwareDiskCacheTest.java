@@ -0,0 +1,271 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class CostAwareDiskCacheTest {
+  private static final int MAX_SIZE = 1024;
+
+  private final Map<Key, Integer> costs = new HashMap<>();
+  private final CostAwareDiskCache.CostFunction costFunction =
+      new CostAwareDiskCache.CostFunction() {
+        @Override
+        public int getCost(@NonNull Key key) {
+          Integer cost = costs.get(key);
+          return cost != null ? cost : 1;
+        }
+      };
+  private CostAwareDiskCache cache;
+  private File dir;
+  private byte[] data;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "cost_aware");
+    cache = newCache();
+    data = new byte[] { 1, 2, 3, 4, 5, 6 };
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      Util.deleteRecursive(dir);
+    }
+  }
+
+  @Test
+  public void get_afterPut_returnsFileWithData() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void get_withMissingKey_returnsNull() {
+    assertThat(cache.get(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void put_withWriterThatReturnsFalse_doesNotWrite() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return false;
+      }
+    });
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withEntryLargerThanCache_doesNotWrite() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(new byte[MAX_SIZE + 1]));
+
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void delete_removesEntryAndFile() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    File file = cache.get(key);
+
+    cache.delete(key);
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(file.exists()).isFalse();
+  }
+
+  @Test
+  public void get_afterFileDeletedOutsideCache_returnsNull() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    assertThat(cache.get(key).delete()).isTrue();
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_whenFull_evictsLargeEntriesBeforeSmallEntries() {
+    Key small = new ObjectKey("small");
+    Key large = new ObjectKey("large");
+    cache.put(small, new DataWriter(new byte[MAX_SIZE / 8]));
+    cache.put(large, new DataWriter(new byte[MAX_SIZE / 2]));
+
+    cache.put(new ObjectKey("other"), new DataWriter(new byte[MAX_SIZE / 2]));
+
+    assertThat(cache.get(small)).isNotNull();
+    assertThat(cache.get(large)).isNull();
+    assertThat(cache.getCurrentSize()).isAtMost((long) MAX_SIZE);
+  }
+
+  @Test
+  public void put_whenFull_evictsEntriesThatHaveBeenReadLessOften() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    cache.put(first, new DataWriter(new byte[MAX_SIZE / 4]));
+    cache.put(second, new DataWriter(new byte[MAX_SIZE / 4]));
+    cache.get(first);
+
+    cache.put(new ObjectKey("other"), new DataWriter(new byte[MAX_SIZE / 2 + 1]));
+
+    assertThat(cache.get(first)).isNotNull();
+    assertThat(cache.get(second)).isNull();
+  }
+
+  @Test
+  public void put_whenFull_keepsLargeEntriesThatAreExpensiveToRecreate() {
+    Key small = new ObjectKey("small");
+    Key large = new ObjectKey("large");
+    costs.put(large, 100);
+    cache.put(small, new DataWriter(new byte[MAX_SIZE / 8]));
+    cache.put(large, new DataWriter(new byte[MAX_SIZE / 2]));
+
+    cache.put(new ObjectKey("other"), new DataWriter(new byte[MAX_SIZE / 2]));
+
+    assertThat(cache.get(small)).isNull();
+    assertThat(cache.get(large)).isNotNull();
+  }
+
+  @Test
+  public void put_withEntryThatHasLowestPriority_keepsEntry() {
+    Key small = new ObjectKey("small");
+    Key large = new ObjectKey("large");
+    cache.put(small, new DataWriter(new byte[MAX_SIZE / 2]));
+
+    cache.put(large, new DataWriter(new byte[MAX_SIZE / 2 + 1]));
+
+    assertThat(cache.get(large)).isNotNull();
+    assertThat(cache.get(small)).isNull();
+  }
+
+  @Test
+  public void get_fromNewCache_returnsEntriesWrittenWithoutStats() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+
+    CostAwareDiskCache reopened = newCache();
+
+    assertArrayEquals(data, Util.readFile(reopened.get(key), data.length));
+  }
+
+  @Test
+  public void get_fromNewCache_afterFlushStats_keepsHitCounts() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    cache.put(first, new DataWriter(new byte[MAX_SIZE / 4]));
+    cache.put(second, new DataWriter(new byte[MAX_SIZE / 4]));
+    cache.get(first);
+    cache.get(first);
+    cache.flushStats();
+    assertThat(new File(dir, CostAwareDiskCache.STATS_FILE).exists()).isTrue();
+
+    CostAwareDiskCache reopened = newCache();
+    reopened.put(new ObjectKey("other"), new DataWriter(new byte[MAX_SIZE / 2 + 1]));
+
+    assertThat(reopened.get(first)).isNotNull();
+    assertThat(reopened.get(second)).isNull();
+  }
+
+  @Test
+  public void get_fromNewCache_withCorruptStats_returnsEntries() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    cache.flushStats();
+    Util.writeFile(new File(dir, CostAwareDiskCache.STATS_FILE), new byte[] { 1, 2, 3 });
+
+    CostAwareDiskCache reopened = newCache();
+
+    assertArrayEquals(data, Util.readFile(reopened.get(key), data.length));
+  }
+
+  @Test
+  public void clear_removesEntriesAndStats() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    cache.flushStats();
+
+    cache.clear();
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(new File(dir, CostAwareDiskCache.STATS_FILE).exists()).isFalse();
+    assertThat(newCache().get(key)).isNull();
+  }
+
+  @Test
+  public void clear_onNewCache_removesExistingEntriesAndStats() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    cache.flushStats();
+
+    newCache().clear();
+
+    assertThat(new File(dir, CostAwareDiskCache.STATS_FILE).exists()).isFalse();
+    assertThat(newCache().get(key)).isNull();
+  }
+
+  @Test
+  public void delete_onNewCache_removesExistingEntry() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    File file = cache.get(key);
+
+    newCache().delete(key);
+
+    assertThat(file.exists()).isFalse();
+    assertThat(newCache().get(key)).isNull();
+  }
+
+  private CostAwareDiskCache newCache() {
+    return (CostAwareDiskCache) CostAwareDiskCache.create(dir, MAX_SIZE, costFunction);
+  }
+
+  private static final class DataWriter implements DiskCache.Writer {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
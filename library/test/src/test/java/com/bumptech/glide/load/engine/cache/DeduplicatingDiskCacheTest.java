@@ -0,0 +1,229 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DeduplicatingDiskCacheTest {
+  private final Key first = new ObjectKey("https://cdn.example.com/image.jpg?v=1");
+  private final Key second = new ObjectKey("https://cdn.example.com/image.jpg?v=2");
+  private final Set<Key> deduplicatedKeys = new HashSet<>();
+  private final DeduplicatingDiskCache.KeyFilter keyFilter =
+      new DeduplicatingDiskCache.KeyFilter() {
+        @Override
+        public boolean shouldDeduplicate(@NonNull Key key) {
+          return deduplicatedKeys.contains(key);
+        }
+      };
+  private File dir;
+  private DiskCache delegate;
+  private DeduplicatingDiskCache cache;
+  private byte[] data;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "deduplicating");
+    delegate = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024);
+    cache = new DeduplicatingDiskCache(delegate, keyFilter);
+    deduplicatedKeys.add(first);
+    deduplicatedKeys.add(second);
+    data = new byte[1024];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      Util.deleteRecursive(dir);
+    }
+  }
+
+  private static int countFiles(File dir) {
+    File[] files = dir.listFiles();
+    return files != null ? files.length : 0;
+  }
+
+  @Test
+  public void getBuffer_afterPutBuffer_returnsData() {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(first))).isEqualTo(data);
+  }
+
+  @Test
+  public void get_afterPutBuffer_returnsFileWithData() throws IOException {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+
+    assertArrayEquals(data, Util.readFile(cache.get(first), data.length));
+  }
+
+  @Test
+  public void get_withMissingKey_returnsNull() {
+    assertThat(cache.get(first)).isNull();
+    assertThat(cache.getBuffer(first)).isNull();
+  }
+
+  @Test
+  public void putBuffer_withSameDataForTwoKeys_storesDataOnce() {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+    cache.putBuffer(second, ByteBuffer.wrap(data.clone()));
+
+    assertThat(cache.get(second)).isEqualTo(cache.get(first));
+  }
+
+  @Test
+  public void putChannel_withSameDataForTwoKeys_storesDataOnce() throws IOException {
+    cache.putChannel(first, new DataWriter(data));
+    cache.putChannel(second, new DataWriter(data));
+
+    assertThat(cache.get(second)).isEqualTo(cache.get(first));
+    assertArrayEquals(data, Util.readFile(cache.get(second), data.length));
+  }
+
+  @Test
+  public void putChannel_withDataAlreadyStored_onlyWritesAlias() {
+    cache.putChannel(first, new DataWriter(data));
+    int fileCount = countFiles(dir);
+
+    cache.putChannel(second, new DataWriter(data));
+
+    assertThat(countFiles(dir)).isEqualTo(fileCount + 1);
+  }
+
+  @Test
+  public void putChannel_withWriterThatReturnsFalse_doesNotWrite() {
+    cache.putChannel(first, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        return false;
+      }
+    });
+
+    assertThat(cache.get(first)).isNull();
+  }
+
+  @Test
+  public void putBuffer_withDifferentData_storesBoth() {
+    byte[] otherData = data.clone();
+    otherData[0]++;
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+    cache.putBuffer(second, ByteBuffer.wrap(otherData));
+
+    assertThat(cache.get(second)).isNotEqualTo(cache.get(first));
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(first))).isEqualTo(data);
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(second))).isEqualTo(otherData);
+  }
+
+  @Test
+  public void putBuffer_withSameDataForTwoKeysInSegmentCache_doesNotCopyDataToFile() {
+    File segmentDir = new File(dir, "segment");
+    cache = new DeduplicatingDiskCache(
+        SegmentDiskCache.create(segmentDir, 10 * 1024 * 1024), keyFilter);
+
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+    cache.putBuffer(second, ByteBuffer.wrap(data));
+
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(second))).isEqualTo(data);
+    // SegmentDiskCache copies entries to files in this directory when they're requested as files.
+    assertThat(countFiles(new File(segmentDir, "files"))).isEqualTo(0);
+  }
+
+  @Test
+  public void putBuffer_withKeyThatIsNotDeduplicated_writesToKey() {
+    Key key = new ObjectKey("resource");
+    cache.putBuffer(key, ByteBuffer.wrap(data));
+
+    assertThat(delegate.get(key)).isNotNull();
+    assertThat(cache.get(key)).isEqualTo(delegate.get(key));
+  }
+
+  @Test
+  public void get_fromNewCache_readsAliasFromDelegate() {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+
+    DeduplicatingDiskCache newCache = new DeduplicatingDiskCache(delegate, keyFilter);
+
+    assertThat(ByteBufferUtil.toBytes(newCache.getBuffer(first))).isEqualTo(data);
+  }
+
+  @Test
+  public void get_withDataWrittenByWriter_returnsData() throws IOException {
+    cache.put(first, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    assertArrayEquals(data, Util.readFile(cache.get(first), data.length));
+  }
+
+  @Test
+  public void delete_removesKeyButNotDataUsedByOtherKeys() {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+    cache.putBuffer(second, ByteBuffer.wrap(data));
+
+    cache.delete(first);
+
+    assertThat(cache.get(first)).isNull();
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(second))).isEqualTo(data);
+    assertThat(new DeduplicatingDiskCache(delegate, keyFilter).get(first)).isNull();
+  }
+
+  @Test
+  public void clear_removesAllKeys() {
+    cache.putBuffer(first, ByteBuffer.wrap(data));
+
+    cache.clear();
+
+    assertThat(cache.get(first)).isNull();
+  }
+
+  private static final class DataWriter implements ByteBufferDiskCache.ChannelWriter {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull WritableByteChannel channel) {
+      try {
+        channel.write(ByteBuffer.wrap(data));
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Replays a trace of disk cache requests against {@link DiskLruCacheWrapper} and
+ * {@link CostAwareDiskCache} and compares their byte and object hit rates.
+ *
+ * <p>The trace mixes small, frequently read thumbnails that are cheap to recreate with large
+ * original images that are read once or twice and are expensive to recreate.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DiskCacheReplayTest {
+  private static final int MAX_SIZE = 256 * 1024;
+  private static final int THUMBNAIL_COUNT = 100;
+  private static final int THUMBNAIL_SIZE = 1024;
+  private static final int ORIGINAL_SIZE = 32 * 1024;
+  private static final int ORIGINAL_COST = 10;
+  private static final int REQUEST_COUNT = 2000;
+
+  private File dir;
+  private List<Request> trace;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "replay");
+    trace = createTrace(new Random(0));
+  }
+
+  @After
+  public void tearDown() {
+    Util.deleteRecursive(dir);
+  }
+
+  @Test
+  public void replay_withCostAwareDiskCache_hasHigherObjectHitRateThanLru() {
+    Result lru = replay(DiskLruCacheWrapper.create(new File(dir, "lru"), MAX_SIZE));
+    Result costAware = replay(CostAwareDiskCache.create(
+        new File(dir, "cost_aware"), MAX_SIZE, new TraceCostFunction(trace)));
+
+    String message = "LRU: " + lru + ", GDSF: " + costAware;
+    assertWithMessage(message).that(costAware.getObjectHitRate())
+        .isGreaterThan(lru.getObjectHitRate());
+    // Thumbnails are kept in favor of originals, but originals are still read from the cache when
+    // they're requested again soon after they're written.
+    assertWithMessage(message).that(costAware.getByteHitRate()).isGreaterThan(0.0);
+  }
+
+  /**
+   * Requests each entry in the trace from the given cache, writing entries that aren't in the
+   * cache, and returns the hit rates.
+   */
+  private Result replay(DiskCache cache) {
+    Result result = new Result();
+    try {
+      for (Request request : trace) {
+        boolean isHit = cache.get(request.key) != null;
+        result.record(request, isHit);
+        if (!isHit) {
+          cache.put(request.key, new SizeWriter(request.size));
+        }
+      }
+    } finally {
+      cache.clear();
+    }
+    return result;
+  }
+
+  private static List<Request> createTrace(Random random) {
+    List<Request> result = new ArrayList<>(REQUEST_COUNT);
+    int originals = 0;
+    while (result.size() < REQUEST_COUNT) {
+      if (random.nextInt(5) != 0) {
+        // Thumbnail popularity is skewed, a few are requested much more often than the rest.
+        double skew = Math.pow(random.nextDouble(), 3);
+        int thumbnail = (int) (THUMBNAIL_COUNT * skew);
+        result.add(new Request(new ObjectKey("thumbnail" + thumbnail), THUMBNAIL_SIZE, 1));
+      } else {
+        Request original = new Request(new ObjectKey("original" + originals++), ORIGINAL_SIZE,
+            ORIGINAL_COST);
+        result.add(original);
+        // Some originals are requested again immediately, for example by a detail view.
+        if (random.nextBoolean()) {
+          result.add(original);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static final class Request {
+    final Key key;
+    final int size;
+    final int cost;
+
+    Request(Key key, int size, int cost) {
+      this.key = key;
+      this.size = size;
+      this.cost = cost;
+    }
+  }
+
+  private static final class Result {
+    private int requests;
+    private int hits;
+    private long bytesRequested;
+    private long bytesHit;
+
+    void record(Request request, boolean isHit) {
+      requests++;
+      bytesRequested += request.size;
+      if (isHit) {
+        hits++;
+        bytesHit += request.size;
+      }
+    }
+
+    double getObjectHitRate() {
+      return (double) hits / requests;
+    }
+
+    double getByteHitRate() {
+      return (double) bytesHit / bytesRequested;
+    }
+
+    @Override
+    public String toString() {
+      return "Result{objectHitRate=" + getObjectHitRate() + ", byteHitRate=" + getByteHitRate()
+          + "}";
+    }
+  }
+
+  private static final class TraceCostFunction implements CostAwareDiskCache.CostFunction {
+    private final Map<Key, Integer> costs = new HashMap<>();
+
+    TraceCostFunction(List<Request> trace) {
+      for (Request request : trace) {
+        costs.put(request.key, request.cost);
+      }
+    }
+
+    @Override
+    public int getCost(@NonNull Key key) {
+      return costs.get(key);
+    }
+  }
+
+  private static final class SizeWriter implements DiskCache.Writer {
+    private final int size;
+
+    SizeWriter(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, new byte[size]);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DiskCacheWriteLockerTest {
+  private static final String KEY = "key";
+
+  private DiskCacheWriteLocker locker;
+
+  @Before
+  public void setUp() {
+    locker = new DiskCacheWriteLocker();
+  }
+
+  @Test
+  public void release_afterAcquire_removesLock() {
+    locker.acquire(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(1);
+
+    locker.release(KEY);
+
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquire_fromSameThreadTwice_isReentrant() {
+    locker.acquire(KEY);
+    locker.acquire(KEY);
+
+    locker.release(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(1);
+    locker.release(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void release_withoutAcquire_throws() {
+    locker.release(KEY);
+  }
+
+  @Test
+  public void acquire_withDifferentKeys_doesNotBlock() throws InterruptedException {
+    locker.acquire(KEY);
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        locker.acquire("other");
+        acquired.countDown();
+        locker.release("other");
+      }
+    });
+    thread.start();
+
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    locker.release(KEY);
+  }
+
+  @Test
+  public void acquire_whileHeldByOtherThread_blocksUntilReleased() throws InterruptedException {
+    locker.acquire(KEY);
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        locker.acquire(KEY);
+        acquired.countDown();
+        locker.release(KEY);
+      }
+    });
+    thread.start();
+
+    assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    locker.release(KEY);
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquire_fromManyThreads_allowsOneWriterPerKey() throws Exception {
+    final int keyCount = 4;
+    final int iterations = 2000;
+    final AtomicInteger[] writers = new AtomicInteger[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      writers[i] = new AtomicInteger();
+    }
+    final AtomicReference<String> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      final int threadIndex = i;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < iterations; j++) {
+            int keyIndex = (threadIndex + j) % keyCount;
+            String key = String.valueOf(keyIndex);
+            locker.acquire(key);
+            try {
+              if (writers[keyIndex].incrementAndGet() != 1) {
+                failure.set("Multiple writers for key: " + key);
+              }
+              writers[keyIndex].decrementAndGet();
+            } finally {
+              locker.release(key);
+            }
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(failure.get()).isNull();
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+}
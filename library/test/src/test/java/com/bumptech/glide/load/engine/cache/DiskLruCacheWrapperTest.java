@@ -1,7 +1,9 @@
 package com.bumptech.glide.load.engine.cache;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
@@ -10,8 +12,11 @@ import android.support.annotation.NonNull;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -139,6 +144,78 @@ public class DiskLruCacheWrapperTest {
     assertArrayEquals(data, received);
   }
 
+  @Test
+  public void getBuffer_afterPut_returnsData() {
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    ByteBuffer received = ((ByteBufferDiskCache) cache).getBuffer(key);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(received));
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertNull(((ByteBufferDiskCache) cache).getBuffer(key));
+  }
+
+  @Test
+  public void putBuffer_writesDataWithoutChangingPosition() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.position(2);
+
+    ((ByteBufferDiskCache) cache).putBuffer(key, buffer);
+
+    assertEquals(2, buffer.position());
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void putChannel_writesData() throws IOException {
+    ((ByteBufferDiskCache) cache).putChannel(key, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        try {
+          channel.write(ByteBuffer.wrap(data));
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void get_withFastSafeKeyGenerator_afterPut_returnsFileWithKeyAsName() throws IOException {
+    cache = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024, new FastSafeKeyGenerator());
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    File file = cache.get(key);
+    assertArrayEquals(data, Util.readFile(file, data.length));
+    assertTrue(file.getName().startsWith(new FastSafeKeyGenerator().getSafeKey(key)));
+  }
+
   // Tests #2465.
   @Test
   public void clearDiskCache_afterOpeningDiskCache_andDeleteDirectoryOutsideGlide_doesNotThrow() {
@@ -0,0 +1,96 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FastSafeKeyGeneratorTest {
+  private FastSafeKeyGenerator keyGenerator;
+
+  @Before
+  public void setUp() {
+    keyGenerator = new FastSafeKeyGenerator();
+  }
+
+  @Test
+  public void getSafeKey_returnsKeysThatAreValidForDiskCache() {
+    Pattern diskCacheRegex = Pattern.compile("[a-z0-9_-]{32}");
+    for (int i = 0; i < 1000; i++) {
+      String key = keyGenerator.getSafeKey(new MockKey(String.valueOf(i)));
+      assertTrue(key, diskCacheRegex.matcher(key).matches());
+    }
+  }
+
+  @Test
+  public void getSafeKey_withDifferentKeys_returnsDifferentKeys() {
+    Set<String> safeKeys = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      safeKeys.add(keyGenerator.getSafeKey(new MockKey(String.valueOf(i))));
+    }
+
+    assertThat(safeKeys).hasSize(1000);
+  }
+
+  @Test
+  public void getSafeKey_withEqualKeys_returnsCachedKey() {
+    String first = keyGenerator.getSafeKey(new MockKey("test"));
+
+    assertThat(keyGenerator.getSafeKey(new MockKey("test"))).isSameAs(first);
+  }
+
+  @Test
+  public void getSafeKey_withKeyDisplacedFromCache_returnsEqualKey() {
+    keyGenerator = new FastSafeKeyGenerator(1);
+    String first = keyGenerator.getSafeKey(new MockKey("test"));
+    for (int i = 0; i < 10; i++) {
+      keyGenerator.getSafeKey(new MockKey(String.valueOf(i)));
+    }
+
+    assertThat(keyGenerator.getSafeKey(new MockKey("test"))).isEqualTo(first);
+  }
+
+  @Test
+  public void getSafeKey_fromDifferentGenerators_returnsEqualKeys() {
+    assertThat(new FastSafeKeyGenerator().getSafeKey(new MockKey("test")))
+        .isEqualTo(keyGenerator.getSafeKey(new MockKey("test")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroCacheSize_throws() {
+    new FastSafeKeyGenerator(0);
+  }
+
+  private static final class MockKey implements Key {
+    private final String id;
+
+    MockKey(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(id.getBytes(CHARSET));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof MockKey && id.equals(((MockKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+      return id.hashCode();
+    }
+  }
+}
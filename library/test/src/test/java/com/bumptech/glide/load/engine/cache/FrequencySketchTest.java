@@ -0,0 +1,55 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrequencySketchTest {
+
+  @Test
+  public void frequency_withUnseenKey_returnsZero() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedKeys=*/ 64);
+
+    assertThat(sketch.frequency("key")).isEqualTo(0);
+  }
+
+  @Test
+  public void increment_increasesFrequency() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedKeys=*/ 64);
+
+    sketch.increment("key");
+    sketch.increment("key");
+
+    assertThat(sketch.frequency("key")).isEqualTo(2);
+  }
+
+  @Test
+  public void increment_saturatesAtFifteen() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedKeys=*/ 64);
+
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("key");
+    }
+
+    assertThat(sketch.frequency("key")).isEqualTo(15);
+  }
+
+  @Test
+  public void ensureCapacity_keepsRecordedFrequencies() {
+    FrequencySketch sketch = new FrequencySketch();
+    for (int i = 0; i < 8; i++) {
+      for (int j = 0; j <= i % 4; j++) {
+        sketch.increment("key" + i);
+      }
+    }
+
+    sketch.ensureCapacity(4096);
+
+    for (int i = 0; i < 8; i++) {
+      assertThat(sketch.frequency("key" + i)).isAtLeast(i % 4 + 1);
+    }
+  }
+}
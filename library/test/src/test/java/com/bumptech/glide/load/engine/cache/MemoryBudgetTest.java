@@ -0,0 +1,229 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class MemoryBudgetTest {
+  private static final int MEMORY_CACHE_SIZE = 1000;
+  private static final int BITMAP_POOL_SIZE = 2000;
+  private static final int ARRAY_POOL_SIZE = 1000;
+  private static final int TOTAL_SIZE = MEMORY_CACHE_SIZE + BITMAP_POOL_SIZE + ARRAY_POOL_SIZE;
+  private static final int STEP = TOTAL_SIZE / 16;
+
+  private LruResourceCache memoryCache;
+  private LruBitmapPool bitmapPool;
+  private LruArrayPool arrayPool;
+  private MemoryBudget budget;
+  private int nextKey;
+
+  @Before
+  public void setUp() {
+    memoryCache = new LruResourceCache(MEMORY_CACHE_SIZE);
+    bitmapPool = new LruBitmapPool(BITMAP_POOL_SIZE);
+    arrayPool = new LruArrayPool(ARRAY_POOL_SIZE);
+    budget = new MemoryBudget(memoryCache, bitmapPool, arrayPool);
+  }
+
+  @After
+  public void tearDown() {
+    budget.stop();
+  }
+
+  @Test
+  public void rebalance_withMemoryCacheMissesAndArrayPoolHits_movesMemoryToMemoryCache() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE + STEP);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE - STEP);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo((long) BITMAP_POOL_SIZE);
+  }
+
+  @Test
+  public void rebalance_withMemoryCacheMissesForNewResources_doesNotMoveMemory() {
+    for (int i = 0; i < MemoryBudget.MIN_REQUESTS; i++) {
+      memoryCache.remove(new ObjectKey(nextKey++));
+    }
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE);
+  }
+
+  @Test
+  public void rebalance_afterInterval_rebalancesAgain() {
+    budget.rebalance();
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE + STEP);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_stopsPeriodicRebalance() {
+    budget.rebalance();
+    budget.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+  }
+
+  @Test
+  public void rebalance_withTooFewRequests_doesNotMoveMemory() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS - 1);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE);
+  }
+
+  @Test
+  public void rebalance_withRequestsSplitAcrossCalls_usesAllRequests() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS - 1);
+    budget.rebalance();
+
+    missMemoryCache(1);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE + STEP);
+  }
+
+  @Test
+  public void rebalance_withSimilarMissRates_doesNotMoveMemory() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    missArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE);
+  }
+
+  @Test
+  public void rebalance_repeatedly_keepsTotalAndBounds() {
+    for (int i = 0; i < 20; i++) {
+      missMemoryCache(MemoryBudget.MIN_REQUESTS);
+      hitArrayPool(MemoryBudget.MIN_REQUESTS);
+      budget.rebalance();
+    }
+
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE / 2);
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE + ARRAY_POOL_SIZE / 2);
+    assertThat(budget.getBudget(MemoryBudget.MEMORY_CACHE)
+        + budget.getBudget(MemoryBudget.BITMAP_POOL)
+        + budget.getBudget(MemoryBudget.ARRAY_POOL)).isEqualTo((long) TOTAL_SIZE);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_resetsBudgets() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+    budget.rebalance();
+
+    budget.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(ARRAY_POOL_SIZE);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_discardsCounts() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+
+    budget.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    budget.rebalance();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE);
+  }
+
+  @Test
+  public void trimMemory_runningModerate_keepsBudgets() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+    budget.rebalance();
+
+    budget.trimMemory(TRIM_MEMORY_RUNNING_MODERATE);
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) MEMORY_CACHE_SIZE + STEP);
+  }
+
+  @Test
+  public void setSizeMultiplier_appliesMultiplierToBudgets() {
+    missMemoryCache(MemoryBudget.MIN_REQUESTS);
+    hitArrayPool(MemoryBudget.MIN_REQUESTS);
+    budget.rebalance();
+
+    budget.setSizeMultiplier(0.5f);
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo((long) (MEMORY_CACHE_SIZE + STEP) / 2);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo((long) BITMAP_POOL_SIZE / 2);
+    assertThat(arrayPool.getMaxSize()).isEqualTo((ARRAY_POOL_SIZE - STEP) / 2);
+  }
+
+  /**
+   * Misses the memory cache for resources it evicted.
+   */
+  private void missMemoryCache(int times) {
+    for (int i = 0; i < times; i++) {
+      Key key = new ObjectKey(nextKey++);
+      // Resources larger than the cache are evicted as soon as they're put.
+      Resource<Object> resource = mockResource();
+      when(resource.getSize()).thenReturn(Integer.MAX_VALUE);
+      memoryCache.put(key, resource);
+      memoryCache.remove(key);
+    }
+  }
+
+  private void hitArrayPool(int times) {
+    arrayPool.put(new byte[10]);
+    for (int i = 0; i < times; i++) {
+      arrayPool.put(arrayPool.get(10, byte[].class));
+    }
+  }
+
+  /**
+   * Misses the array pool for arrays it evicted.
+   */
+  private void missArrayPool(int times) {
+    int largeLength = arrayPool.getMaxSize() / 2;
+    for (int i = 0; i < times; i++) {
+      arrayPool.clearMemory();
+      arrayPool.put(new byte[largeLength]);
+      arrayPool.put(new byte[10]);
+      // Evicts the small array, which was added to the pool after the large one.
+      arrayPool.put(new byte[largeLength]);
+      arrayPool.get(10, byte[].class);
+    }
+  }
+}
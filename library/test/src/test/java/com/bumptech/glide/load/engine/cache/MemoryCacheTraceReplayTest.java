@@ -0,0 +1,77 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.engine.cache.MemoryCacheTraceReplayer.Request;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Compares the hit rates of {@link TinyLfuResourceCache} and {@link LruResourceCache} on replayed
+ * request traces.
+ */
+@RunWith(JUnit4.class)
+public class MemoryCacheTraceReplayTest {
+  private static final int CACHE_SIZE = 4_000_000;
+
+  @Test
+  public void replay_feedWithSharedAvatars_tinyLfuHitRateIsHigherThanLru() {
+    List<Request> trace = MemoryCacheTraceReplayer.feedWithSharedAvatars(
+        /*seed=*/ 1,
+        /*screens=*/ 500,
+        /*imagesPerScreen=*/ 3,
+        /*imageSize=*/ 500_000,
+        /*avatarsPerScreen=*/ 4,
+        /*avatarCount=*/ 20,
+        /*avatarSize=*/ 40_000);
+
+    double lruHitRate = MemoryCacheTraceReplayer.replay(new LruResourceCache(CACHE_SIZE), trace);
+    double tinyLfuHitRate =
+        MemoryCacheTraceReplayer.replay(new TinyLfuResourceCache(CACHE_SIZE), trace);
+
+    assertThat(tinyLfuHitRate).isGreaterThan(2 * lruHitRate);
+  }
+
+  @Test
+  public void replay_scrollBackAndForth_tinyLfuHitRateIsCloseToLru() {
+    for (int imageCount : new int[] { 20, 50, 60, 80 }) {
+      List<Request> trace = MemoryCacheTraceReplayer.scrollBackAndForth(
+          /*passes=*/ 20, imageCount, /*imageSize=*/ 100_000);
+
+      double lruHitRate = MemoryCacheTraceReplayer.replay(new LruResourceCache(CACHE_SIZE), trace);
+      double tinyLfuHitRate =
+          MemoryCacheTraceReplayer.replay(new TinyLfuResourceCache(CACHE_SIZE), trace);
+
+      assertThat(tinyLfuHitRate).isAtLeast(lruHitRate - 0.05);
+    }
+  }
+
+  @Test
+  public void replay_withRecordedTrace_countsHitsForRepeatedKeys() throws IOException {
+    String recorded = "# size key\n"
+        + "100 EngineKey{model=a, width=10, height=10}\n"
+        + "\n"
+        + "200 EngineKey{model=b, width=10, height=10}\n"
+        + "100 EngineKey{model=a, width=10, height=10}\n"
+        + "100 EngineKey{model=a, width=20, height=20}\n";
+    List<Request> trace = MemoryCacheTraceReplayer.parse(
+        new BufferedReader(new StringReader(recorded)));
+
+    assertThat(trace).hasSize(4);
+    assertThat(trace.get(1).size).isEqualTo(200);
+    assertThat(MemoryCacheTraceReplayer.replay(new LruResourceCache(CACHE_SIZE), trace))
+        .isEqualTo(0.25);
+    assertThat(MemoryCacheTraceReplayer.replay(new TinyLfuResourceCache(CACHE_SIZE), trace))
+        .isEqualTo(0.25);
+  }
+
+  @Test(expected = IOException.class)
+  public void parse_withMissingSize_throws() throws IOException {
+    MemoryCacheTraceReplayer.parse(new BufferedReader(new StringReader("EngineKey{model=a}")));
+  }
+}
@@ -0,0 +1,146 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays sequences of requests against {@link MemoryCache} implementations the same way
+ * {@link com.bumptech.glide.load.engine.Engine} uses its memory cache so that hit rates can be
+ * compared.
+ *
+ * <p>Each request first removes the key from the cache. A hit puts the same resource back, as if
+ * it had been released by the {@link com.bumptech.glide.load.engine.Engine}, and a miss puts a new
+ * resource of the requested size.
+ *
+ * <p>Recorded traces contain one request per line formatted as {@code <size in bytes> <key>},
+ * where the key is typically the {@code toString()} of an
+ * {@link com.bumptech.glide.load.engine.EngineKey}. Blank lines and lines starting with
+ * {@code #} are ignored.
+ */
+final class MemoryCacheTraceReplayer {
+
+  private MemoryCacheTraceReplayer() {
+    // Utility class.
+  }
+
+  static List<Request> parse(BufferedReader reader) throws IOException {
+    List<Request> result = new ArrayList<>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      int separator = line.indexOf(' ');
+      if (separator == -1) {
+        throw new IOException("Expected <size> <key>, but got: " + line);
+      }
+      int size = Integer.parseInt(line.substring(0, separator));
+      result.add(new Request(new ObjectKey(line.substring(separator + 1).trim()), size));
+    }
+    return result;
+  }
+
+  static double replay(MemoryCache cache, List<Request> trace) {
+    int hits = 0;
+    for (Request request : trace) {
+      Resource<?> resource = cache.remove(request.key);
+      if (resource != null) {
+        hits++;
+      } else {
+        resource = new FakeResource(request.size);
+      }
+      cache.put(request.key, resource);
+    }
+    return trace.isEmpty() ? 0 : hits / (double) trace.size();
+  }
+
+  /**
+   * Returns a trace of a fling through a feed where every screen shows a few large images that are
+   * never requested again alongside small avatars drawn from a shared, repeatedly requested set.
+   */
+  static List<Request> feedWithSharedAvatars(
+      long seed,
+      int screens,
+      int imagesPerScreen,
+      int imageSize,
+      int avatarsPerScreen,
+      int avatarCount,
+      int avatarSize) {
+    Random random = new Random(seed);
+    List<Request> result = new ArrayList<>();
+    int nextImage = 0;
+    for (int screen = 0; screen < screens; screen++) {
+      for (int i = 0; i < imagesPerScreen; i++) {
+        result.add(new Request(new ObjectKey("image" + nextImage++), imageSize));
+      }
+      for (int i = 0; i < avatarsPerScreen; i++) {
+        result.add(new Request(new ObjectKey("avatar" + random.nextInt(avatarCount)), avatarSize));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a trace of repeatedly scrolling down and then back up through the same images, which
+   * favors recency over frequency.
+   */
+  static List<Request> scrollBackAndForth(int passes, int imageCount, int imageSize) {
+    List<Request> result = new ArrayList<>();
+    for (int pass = 0; pass < passes; pass++) {
+      for (int i = 0; i < imageCount; i++) {
+        int image = pass % 2 == 0 ? i : imageCount - 1 - i;
+        result.add(new Request(new ObjectKey("image" + image), imageSize));
+      }
+    }
+    return result;
+  }
+
+  static final class Request {
+    final Key key;
+    final int size;
+
+    Request(Key key, int size) {
+      this.key = key;
+      this.size = size;
+    }
+  }
+
+  private static final class FakeResource implements Resource<Object> {
+    private final int size;
+    private final Object object = new Object();
+
+    FakeResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return object;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
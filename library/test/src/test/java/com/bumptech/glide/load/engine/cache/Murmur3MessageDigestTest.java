@@ -0,0 +1,69 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.Key;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class Murmur3MessageDigestTest {
+  private Murmur3MessageDigest digest;
+
+  @Before
+  public void setUp() {
+    digest = new Murmur3MessageDigest();
+  }
+
+  @Test
+  public void digest_withKnownInputs_returnsKnownHashes() {
+    assertHash("hell", 0x629942693e10f867L, 0x92db0b82baeb5347L);
+    assertHash("hello", 0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L);
+    assertHash(
+        "The quick brown fox jumps over the lazy dog", 0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L);
+    assertHash("The quick brown fox jumps over the lazy dog, twice over", 0xecd36a840bd01ddeL,
+        0xeb188dc0e6f7916eL);
+  }
+
+  @Test
+  public void digest_withEmptyInput_returnsZero() {
+    assertThat(digest.digest()).isEqualTo(new byte[16]);
+  }
+
+  @Test
+  public void digest_withIncrementalUpdates_matchesSingleUpdate() {
+    byte[] data = new byte[100];
+    new Random(0).nextBytes(data);
+    byte[] expected = digest.digest(data);
+
+    for (int split = 0; split < data.length; split++) {
+      digest.update(data, 0, split);
+      for (int i = split; i < data.length; i++) {
+        digest.update(data[i]);
+      }
+      assertThat(digest.digest()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void digest_resetsDigest() {
+    byte[] data = "hello".getBytes(Key.CHARSET);
+    byte[] first = digest.digest(data);
+
+    assertThat(digest.digest(data)).isEqualTo(first);
+  }
+
+  private void assertHash(String input, long h1, long h2) {
+    byte[] expected = ByteBuffer.allocate(16)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .putLong(h1)
+        .putLong(h2)
+        .array();
+    assertThat(digest.digest(input.getBytes(Key.CHARSET))).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,456 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SegmentDiskCacheTest {
+  private static final int SEGMENT_SIZE = 1024;
+  private static final int MAX_SIZE = 4 * SEGMENT_SIZE;
+
+  private SegmentDiskCache cache;
+  private byte[] data;
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "segments");
+    cache = newCache();
+    data = new byte[] { 1, 2, 3, 4, 5, 6 };
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      Util.deleteRecursive(dir);
+    }
+  }
+
+  @Test
+  public void getBuffer_afterPut_returnsReadOnlyData() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+
+    ByteBuffer result = cache.getBuffer(key);
+
+    assertThat(result.isReadOnly()).isTrue();
+    assertThat(toBytes(result)).isEqualTo(data);
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertThat(cache.getBuffer(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void get_afterPut_returnsFileWithData() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void put_withWriterThatReturnsFalse_doesNotCommit() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return false;
+      }
+    });
+
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void put_withWriterThatThrows_allowsLaterPut() {
+    Key key = new ObjectKey("test");
+    try {
+      cache.put(key, new DiskCache.Writer() {
+        @Override
+        public boolean write(@NonNull File file) {
+          throw new RuntimeException("test");
+        }
+      });
+    } catch (RuntimeException e) {
+      // Expected.
+    }
+
+    cache.put(key, new DataWriter(data));
+
+    assertThat(toBytes(cache.getBuffer(key))).isEqualTo(data);
+  }
+
+  @Test
+  public void putBuffer_writesDataWithoutChangingPosition() {
+    Key key = new ObjectKey("test");
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.position(2);
+
+    cache.putBuffer(key, buffer);
+
+    assertThat(buffer.position()).isEqualTo(2);
+    assertThat(toBytes(cache.getBuffer(key))).isEqualTo(data);
+  }
+
+  @Test
+  public void putChannel_writesData() {
+    Key key = new ObjectKey("test");
+    cache.putChannel(key, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        try {
+          channel.write(ByteBuffer.wrap(data));
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    assertThat(toBytes(cache.getBuffer(key))).isEqualTo(data);
+  }
+
+  @Test
+  public void putChannel_withWriterThatReturnsFalse_doesNotCommit() {
+    Key key = new ObjectKey("test");
+    cache.putChannel(key, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        return false;
+      }
+    });
+
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void put_withEntryLargerThanSegment_writesEntry() {
+    Key key = new ObjectKey("test");
+    byte[] large = new byte[2 * SEGMENT_SIZE];
+    large[large.length - 1] = 1;
+    cache.put(key, new DataWriter(large));
+
+    assertThat(toBytes(cache.getBuffer(key))).isEqualTo(large);
+  }
+
+  @Test
+  public void put_withEntryLargerThanCache_doesNotWriteEntry() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(new byte[MAX_SIZE]));
+
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void delete_removesEntry() {
+    Key key = new ObjectKey("test");
+    Key other = new ObjectKey("other");
+    cache.put(key, new DataWriter(data));
+    cache.put(other, new DataWriter(data));
+
+    cache.delete(key);
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(cache.getBuffer(other)).isNotNull();
+  }
+
+  @Test
+  public void delete_withFileCopiedFromEntry_deletesFile() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    File file = cache.get(key);
+
+    cache.delete(key);
+
+    assertThat(file.exists()).isFalse();
+  }
+
+  @Test
+  public void getBuffer_fromNewCacheInSameDirectory_returnsData() {
+    Key key = new ObjectKey("test");
+    Key deleted = new ObjectKey("deleted");
+    cache.put(key, new DataWriter(data));
+    cache.put(deleted, new DataWriter(data));
+    cache.delete(deleted);
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(toBytes(reopened.getBuffer(key))).isEqualTo(data);
+    assertThat(reopened.getBuffer(deleted)).isNull();
+  }
+
+  @Test
+  public void put_writesSnapshot() {
+    cache.put(new ObjectKey("test"), new DataWriter(data));
+
+    assertThat(new File(dir, SegmentDiskCache.SNAPSHOT_FILE).exists()).isTrue();
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withEntriesWrittenAfterSnapshot_returnsData() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    cache.put(first, new DataWriter(data));
+    // Written to the same segment, so no new snapshot is taken.
+    cache.put(second, new DataWriter(data));
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(toBytes(reopened.getBuffer(first))).isEqualTo(data);
+    assertThat(toBytes(reopened.getBuffer(second))).isEqualTo(data);
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withEntryDeletedAfterSnapshot_returnsNull() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    cache.delete(key);
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(reopened.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withSegmentsAddedAfterSnapshot_returnsData() {
+    // Three entries fit in each segment.
+    byte[] entry = new byte[SEGMENT_SIZE / 4];
+    for (int i = 0; i < 3; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter(entry));
+    }
+    File snapshot = new File(dir, SegmentDiskCache.SNAPSHOT_FILE);
+    byte[] oldSnapshot = toBytes(readFile(snapshot));
+    for (int i = 3; i < 5; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter(entry));
+    }
+    writeFile(snapshot, oldSnapshot);
+
+    SegmentDiskCache reopened = newCache();
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(reopened.getBuffer(new ObjectKey("test" + i))).isNotNull();
+    }
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withEvictedSegmentsAfterSnapshot_returnsRemainingData() {
+    byte[] entry = new byte[SEGMENT_SIZE / 2];
+    cache.put(new ObjectKey("test0"), new DataWriter(entry));
+    File snapshot = new File(dir, SegmentDiskCache.SNAPSHOT_FILE);
+    byte[] oldSnapshot = toBytes(readFile(snapshot));
+    for (int i = 1; i < 16; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter(entry));
+    }
+    writeFile(snapshot, oldSnapshot);
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(reopened.getBuffer(new ObjectKey("test0"))).isNull();
+    assertThat(reopened.getBuffer(new ObjectKey("test15"))).isNotNull();
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withCorruptSnapshot_rebuildsIndex() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    writeFile(new File(dir, SegmentDiskCache.SNAPSHOT_FILE), new byte[] { 1, 2, 3 });
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(toBytes(reopened.getBuffer(key))).isEqualTo(data);
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withoutSnapshot_rebuildsIndexAndWritesSnapshot() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    File snapshot = new File(dir, SegmentDiskCache.SNAPSHOT_FILE);
+    assertThat(snapshot.delete()).isTrue();
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(toBytes(reopened.getBuffer(key))).isEqualTo(data);
+    assertThat(snapshot.exists()).isTrue();
+  }
+
+  @Test
+  public void put_whenFull_evictsOldestEntries() {
+    byte[] entry = new byte[SEGMENT_SIZE / 2];
+    for (int i = 0; i < 16; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter(entry));
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost((long) MAX_SIZE);
+    assertThat(cache.getBuffer(new ObjectKey("test0"))).isNull();
+    assertThat(cache.getBuffer(new ObjectKey("test15"))).isNotNull();
+  }
+
+  @Test
+  public void put_whenFull_keepsEntriesThatHaveBeenRead() {
+    byte[] entry = new byte[SEGMENT_SIZE / 4];
+    Key first = new ObjectKey("test0");
+    cache.put(first, new DataWriter(entry));
+    cache.getBuffer(first);
+    for (int i = 1; i < 16; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter(entry));
+    }
+
+    assertThat(cache.getBuffer(first)).isNotNull();
+    assertThat(cache.getBuffer(new ObjectKey("test1"))).isNull();
+  }
+
+  @Test
+  public void getBuffer_afterEntryIsEvicted_returnsBufferThatRemainsReadable() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    ByteBuffer buffer = cache.getBuffer(key);
+
+    cache.clear();
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(toBytes(buffer)).isEqualTo(data);
+  }
+
+  @Test
+  public void clear_removesEntries() {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+
+    cache.clear();
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(newCache().getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void clear_deletesSnapshot() {
+    cache.put(new ObjectKey("test"), new DataWriter(data));
+
+    cache.clear();
+
+    assertThat(new File(dir, SegmentDiskCache.SNAPSHOT_FILE).exists()).isFalse();
+  }
+
+  @Test
+  public void getBuffer_fromNewCache_withCorruptData_returnsNull() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter(data));
+    File segment = new File(dir, "segment_0");
+    byte[] contents = toBytes(readFile(segment));
+    int dataOffset = indexOf(contents, data);
+    assertThat(dataOffset).isAtLeast(0);
+    contents[dataOffset] = (byte) ~contents[dataOffset];
+    writeFile(segment, contents);
+
+    SegmentDiskCache reopened = newCache();
+
+    assertThat(reopened.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void put_withCacheClearedAndReopenedDuringWrite_keepsTempFile() {
+    final boolean[] isTempFileKept = new boolean[1];
+    cache.put(new ObjectKey("test"), new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        cache.clear();
+        // Opens the cache again.
+        cache.getBuffer(new ObjectKey("other"));
+        isTempFileKept[0] = file.exists();
+        return true;
+      }
+    });
+
+    assertThat(isTempFileKept[0]).isTrue();
+  }
+
+  private static int indexOf(byte[] array, byte[] target) {
+    for (int i = 0; i <= array.length - target.length; i++) {
+      boolean matches = true;
+      for (int j = 0; j < target.length && matches; j++) {
+        matches = array[i + j] == target[j];
+      }
+      if (matches) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private SegmentDiskCache newCache() {
+    return (SegmentDiskCache) SegmentDiskCache.create(dir, MAX_SIZE, SEGMENT_SIZE);
+  }
+
+  private static ByteBuffer readFile(File file) {
+    try {
+      return ByteBufferUtil.fromFile(file);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeFile(File file, byte[] data) {
+    try {
+      Util.writeFile(file, data);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    byte[] result = new byte[buffer.remaining()];
+    buffer.duplicate().get(result);
+    return result;
+  }
+
+  private static final class DataWriter implements DiskCache.Writer {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
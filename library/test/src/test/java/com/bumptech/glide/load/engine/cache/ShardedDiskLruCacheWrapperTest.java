@@ -0,0 +1,145 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ShardedDiskLruCacheWrapperTest {
+  private DiskCache cache;
+  private byte[] data;
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "sharded");
+    cache = ShardedDiskLruCacheWrapper.create(dir, 10 * 1024 * 1024, 4);
+    data = new byte[] { 1, 2, 3, 4, 5, 6 };
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      Util.deleteRecursive(dir);
+    }
+  }
+
+  @Test
+  public void get_afterPut_returnsData() throws IOException {
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter());
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void put_withManyKeys_writesToEveryShard() throws IOException {
+    for (int i = 0; i < 64; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter());
+    }
+
+    for (int i = 0; i < 64; i++) {
+      assertArrayEquals(data, Util.readFile(cache.get(new ObjectKey("test" + i)), data.length));
+    }
+    Set<File> shardDirectories = new HashSet<>();
+    for (int i = 0; i < 64; i++) {
+      shardDirectories.add(cache.get(new ObjectKey("test" + i)).getParentFile());
+    }
+    assertThat(shardDirectories).hasSize(4);
+  }
+
+  @Test
+  public void delete_removesOnlyGivenKey() {
+    Key key = new ObjectKey("test");
+    Key other = new ObjectKey("other");
+    cache.put(key, new DataWriter());
+    cache.put(other, new DataWriter());
+
+    cache.delete(key);
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.get(other)).isNotNull();
+  }
+
+  @Test
+  public void clear_removesEntriesFromEveryShard() {
+    for (int i = 0; i < 64; i++) {
+      cache.put(new ObjectKey("test" + i), new DataWriter());
+    }
+
+    cache.clear();
+
+    for (int i = 0; i < 64; i++) {
+      assertThat(cache.get(new ObjectKey("test" + i))).isNull();
+    }
+  }
+
+  @Test
+  public void create_withShardCountThatIsNotAPowerOfTwo_roundsUp() {
+    ShardedDiskLruCacheWrapper cache =
+        (ShardedDiskLruCacheWrapper) ShardedDiskLruCacheWrapper.create(dir, 1024, 3);
+
+    assertThat(cache.getShardCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void getShardIndex_withSafeKeysThatAreNotHex_usesEveryShard() {
+    ShardedDiskLruCacheWrapper cache =
+        (ShardedDiskLruCacheWrapper) ShardedDiskLruCacheWrapper.create(dir, 1024, 16);
+
+    Set<Integer> shardIndices = new HashSet<>();
+    for (int i = 0; i < 256; i++) {
+      int shardIndex = cache.getShardIndex("key-" + i);
+      assertThat(shardIndex).isAtLeast(0);
+      assertThat(shardIndex).isLessThan(16);
+      shardIndices.add(shardIndex);
+    }
+    assertThat(shardIndices).hasSize(16);
+  }
+
+  @Test
+  public void get_withSafeKeyGenerator_returnsDataWrittenWithSameGenerator() throws IOException {
+    cache =
+        ShardedDiskLruCacheWrapper.create(dir, 10 * 1024 * 1024, 4, new FastSafeKeyGenerator());
+    Key key = new ObjectKey("test");
+    cache.put(key, new DataWriter());
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void create_withTooManyShards_throws() {
+    ShardedDiskLruCacheWrapper.create(dir, 1024, 257);
+  }
+
+  private final class DataWriter implements DiskCache.Writer {
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
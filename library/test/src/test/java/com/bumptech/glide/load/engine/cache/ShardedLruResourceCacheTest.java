@@ -0,0 +1,258 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.anyResource;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ShardedLruResourceCacheTest {
+  private ShardedLruResourceCache cache;
+  private ResourceRemovedListener listener;
+
+  @Before
+  public void setUp() {
+    cache = new ShardedLruResourceCache(100, /*shardCount=*/ 4);
+    listener = mock(ResourceRemovedListener.class);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_addsSizeOfResource() {
+    cache.put(new MockKey(), getResource(30));
+    cache.put(new MockKey(), getResource(20));
+
+    assertThat(cache.getCurrentSize()).isEqualTo(50L);
+  }
+
+  @Test
+  public void remove_returnsResourceAndSubtractsSize() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(30);
+    cache.put(key, resource);
+
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+    assertThat(cache.contains(key)).isFalse();
+    verify(listener, never()).onResourceRemoved(anyResource());
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeAndEvictsExistingItem() {
+    Key key = new MockKey();
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+    assertThat(cache.getCurrentSize()).isEqualTo(40L);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withResourceLargerThanCache_notifiesListenerAndDoesNotAdd() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(200);
+
+    cache.put(key, resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.contains(key)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsUntilUnderMaxSize() {
+    List<Resource<?>> resources = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Resource<?> resource = getResource(30);
+      resources.add(resource);
+      cache.put(new MockKey(), resource);
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost(100L);
+    assertThat(cache.getCurrentSize()).isEqualTo(90L);
+    verify(listener, never()).onResourceRemoved(resources.get(resources.size() - 1));
+  }
+
+  @Test
+  public void put_withSingleShard_evictsLeastRecentlyUsed() {
+    cache = new ShardedLruResourceCache(100, /*shardCount=*/ 1);
+    cache.setResourceRemovedListener(listener);
+    Key firstKey = new MockKey();
+    Resource<?> first = getResource(50);
+    Key secondKey = new MockKey();
+    Resource<?> second = getResource(50);
+    cache.put(firstKey, first);
+    cache.put(secondKey, second);
+
+    cache.put(new MockKey(), getResource(50));
+
+    verify(listener).onResourceRemoved(first);
+    assertThat(cache.contains(firstKey)).isFalse();
+    assertThat(cache.contains(secondKey)).isTrue();
+  }
+
+  @Test
+  public void put_withManyShards_evictsLeastRecentlyUsedAcrossShards() {
+    List<Key> keys = new ArrayList<>();
+    List<Resource<?>> resources = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Key key = new MockKey();
+      Resource<?> resource = getResource(10);
+      keys.add(key);
+      resources.add(resource);
+      cache.put(key, resource);
+    }
+    // Puts the first entry again so that it's the most recently used.
+    cache.put(keys.get(0), resources.get(0));
+
+    cache.put(new MockKey(), getResource(20));
+
+    verify(listener).onResourceRemoved(resources.get(1));
+    verify(listener).onResourceRemoved(resources.get(2));
+    verify(listener, never()).onResourceRemoved(resources.get(0));
+    for (int i = 3; i < keys.size(); i++) {
+      assertThat(cache.contains(keys.get(i))).isTrue();
+    }
+  }
+
+  @Test
+  public void clearMemory_evictsAllItems() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.clearMemory();
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void trimMemory_background_evictsAllItems() {
+    cache.put(new MockKey(), getResource(50));
+    cache.put(new MockKey(), getResource(40));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_trimsToHalfOfMaxSize() {
+    for (int i = 0; i < 9; i++) {
+      cache.put(new MockKey(), getResource(10));
+    }
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(cache.getCurrentSize()).isAtMost(50L);
+    assertThat(cache.getCurrentSize()).isEqualTo(50L);
+  }
+
+  @Test
+  public void setSizeMultiplier_trimsToNewMaxSize() {
+    for (int i = 0; i < 9; i++) {
+      cache.put(new MockKey(), getResource(10));
+    }
+
+    cache.setSizeMultiplier(0.3f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(30L);
+    assertThat(cache.getCurrentSize()).isEqualTo(30L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test
+  public void putAndRemove_fromManyThreads_keepsSizeConsistent() throws InterruptedException {
+    cache = new ShardedLruResourceCache(1000, /*shardCount=*/ 8);
+    final AtomicLong evictedSize = new AtomicLong();
+    cache.setResourceRemovedListener(new ResourceRemovedListener() {
+      @Override
+      public void onResourceRemoved(@NonNull Resource<?> removed) {
+        evictedSize.addAndGet(removed.getSize());
+      }
+    });
+    final int threadCount = 8;
+    final int operationsPerThread = 500;
+    final AtomicLong removedSize = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      final List<Resource<?>> resources = new ArrayList<>();
+      for (int j = 0; j < operationsPerThread; j++) {
+        resources.add(getResource(10));
+      }
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          for (int j = 0; j < operationsPerThread; j++) {
+            Key key = new MockKey();
+            cache.put(key, resources.get(j));
+            if (j % 2 == 0) {
+              Resource<?> removed = cache.remove(key);
+              if (removed != null) {
+                removedSize.addAndGet(removed.getSize());
+              }
+            }
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    long totalPut = 10L * threadCount * operationsPerThread;
+    assertThat(cache.getCurrentSize()).isAtMost(1000L);
+    assertThat(cache.getCurrentSize() + removedSize.get() + evictedSize.get())
+        .isEqualTo(totalPut);
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+}
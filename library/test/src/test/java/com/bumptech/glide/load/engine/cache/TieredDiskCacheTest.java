@@ -0,0 +1,218 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class TieredDiskCacheTest {
+  private static final int HOT_SIZE = 1024;
+  private static final int ENTRY_SIZE = HOT_SIZE / 8;
+  private static final int HOT_ENTRIES = HOT_SIZE / ENTRY_SIZE;
+
+  private File dir;
+  private DiskCache hot;
+  private DiskCache cold;
+  private TieredDiskCache cache;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "tiered");
+    hot = DiskLruCacheWrapper.create(new File(dir, "hot"), HOT_SIZE);
+    cold = DiskLruCacheWrapper.create(new File(dir, "cold"), 100 * HOT_SIZE);
+    cache = new TieredDiskCache(hot, HOT_SIZE, cold);
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      Util.deleteRecursive(dir);
+    }
+  }
+
+  @Test
+  public void put_writesToColdCache() {
+    Key key = new ObjectKey("test");
+    cache.putBuffer(key, data(1, ENTRY_SIZE));
+
+    assertThat(cold.get(key)).isNotNull();
+    assertThat(hot.get(key)).isNull();
+  }
+
+  @Test
+  public void get_afterPut_returnsData() throws IOException {
+    Key key = new ObjectKey("test");
+    ByteBuffer data = data(1, ENTRY_SIZE);
+    cache.putBuffer(key, data);
+
+    assertArrayEquals(data.array(), Util.readFile(cache.get(key), ENTRY_SIZE));
+  }
+
+  @Test
+  public void get_withMissingKey_returnsNull() {
+    assertThat(cache.get(new ObjectKey("missing"))).isNull();
+    assertThat(cache.getBuffer(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void get_readOnce_doesNotPromote() {
+    Key key = new ObjectKey("test");
+    cache.putBuffer(key, data(1, ENTRY_SIZE));
+
+    cache.get(key);
+
+    assertThat(hot.get(key)).isNull();
+  }
+
+  @Test
+  public void get_readRepeatedly_promotesToHotCache() throws IOException {
+    Key key = new ObjectKey("test");
+    ByteBuffer data = data(1, ENTRY_SIZE);
+    cache.putBuffer(key, data);
+
+    read(key, TieredDiskCache.PROMOTION_FREQUENCY);
+
+    assertArrayEquals(data.array(), Util.readFile(hot.get(key), ENTRY_SIZE));
+    assertArrayEquals(data.array(), Util.readFile(cache.get(key), ENTRY_SIZE));
+    assertThat(cache.getPromotedBytes()).isEqualTo((long) ENTRY_SIZE);
+  }
+
+  @Test
+  public void getBuffer_readRepeatedly_promotesToHotCache() {
+    Key key = new ObjectKey("test");
+    ByteBuffer data = data(1, ENTRY_SIZE);
+    cache.putBuffer(key, data);
+
+    for (int i = 0; i < TieredDiskCache.PROMOTION_FREQUENCY; i++) {
+      assertThat(ByteBufferUtil.toBytes(cache.getBuffer(key))).isEqualTo(data.array());
+    }
+
+    assertThat(hot.get(key)).isNotNull();
+  }
+
+  @Test
+  public void get_withLargeEntry_doesNotPromote() {
+    Key key = new ObjectKey("test");
+    cache.putBuffer(key, data(1, ENTRY_SIZE + 1));
+
+    read(key, TieredDiskCache.PROMOTION_FREQUENCY + 1);
+
+    assertThat(hot.get(key)).isNull();
+  }
+
+  @Test
+  public void get_whenHotCacheIsFull_demotesLessFrequentlyReadEntries() {
+    for (int i = 0; i < HOT_ENTRIES; i++) {
+      Key key = new ObjectKey(i);
+      cache.putBuffer(key, data(i, ENTRY_SIZE));
+      read(key, TieredDiskCache.PROMOTION_FREQUENCY);
+    }
+    Key frequent = new ObjectKey("frequent");
+    cache.putBuffer(frequent, data(HOT_ENTRIES, ENTRY_SIZE));
+
+    read(frequent, TieredDiskCache.PROMOTION_FREQUENCY + 1);
+
+    assertThat(hot.get(frequent)).isNotNull();
+    // The least recently read entry was demoted.
+    Key demoted = new ObjectKey(0);
+    assertThat(hot.get(demoted)).isNull();
+    assertThat(cold.get(demoted)).isNotNull();
+    assertThat(hot.get(new ObjectKey(1))).isNotNull();
+    assertThat(cache.getPromotedBytes()).isAtMost((long) HOT_SIZE);
+  }
+
+  @Test
+  public void get_whenHotCacheIsFull_withMoreFrequentlyReadEntries_doesNotPromote() {
+    for (int i = 0; i < HOT_ENTRIES; i++) {
+      Key key = new ObjectKey(i);
+      cache.putBuffer(key, data(i, ENTRY_SIZE));
+      read(key, TieredDiskCache.PROMOTION_FREQUENCY + 2);
+    }
+    Key infrequent = new ObjectKey("infrequent");
+    cache.putBuffer(infrequent, data(HOT_ENTRIES, ENTRY_SIZE));
+
+    read(infrequent, TieredDiskCache.PROMOTION_FREQUENCY);
+
+    assertThat(hot.get(infrequent)).isNull();
+    assertThat(hot.get(new ObjectKey(0))).isNotNull();
+  }
+
+  @Test
+  public void get_withDemotedEntryMissingFromColdCache_copiesEntryToColdCache()
+      throws IOException {
+    Key key = new ObjectKey(0);
+    ByteBuffer data = data(0, ENTRY_SIZE);
+    cache.putBuffer(key, data);
+    read(key, TieredDiskCache.PROMOTION_FREQUENCY);
+    cold.delete(key);
+
+    for (int i = 1; i <= HOT_ENTRIES; i++) {
+      Key other = new ObjectKey(i);
+      cache.putBuffer(other, data(i, ENTRY_SIZE));
+      read(other, TieredDiskCache.PROMOTION_FREQUENCY + 1);
+    }
+
+    assertThat(hot.get(key)).isNull();
+    assertArrayEquals(data.array(), Util.readFile(cold.get(key), ENTRY_SIZE));
+    assertArrayEquals(data.array(), Util.readFile(cache.get(key), ENTRY_SIZE));
+  }
+
+  @Test
+  public void delete_removesEntryFromBothCaches() {
+    Key key = new ObjectKey("test");
+    cache.putBuffer(key, data(1, ENTRY_SIZE));
+    read(key, TieredDiskCache.PROMOTION_FREQUENCY);
+
+    cache.delete(key);
+
+    assertThat(hot.get(key)).isNull();
+    assertThat(cold.get(key)).isNull();
+    assertThat(cache.getPromotedBytes()).isEqualTo(0L);
+  }
+
+  @Test
+  public void clear_removesEntriesFromBothCaches() {
+    Key promoted = new ObjectKey("promoted");
+    Key other = new ObjectKey("other");
+    cache.putBuffer(promoted, data(1, ENTRY_SIZE));
+    cache.putBuffer(other, data(2, ENTRY_SIZE));
+    read(promoted, TieredDiskCache.PROMOTION_FREQUENCY);
+
+    cache.clear();
+
+    assertThat(cache.get(promoted)).isNull();
+    assertThat(cache.get(other)).isNull();
+    assertThat(cache.getPromotedBytes()).isEqualTo(0L);
+  }
+
+  private void read(Key key, int times) {
+    for (int i = 0; i < times; i++) {
+      assertThat(cache.get(key)).isNotNull();
+    }
+  }
+
+  private static ByteBuffer data(int value, int size) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (value + i);
+    }
+    return ByteBuffer.wrap(data);
+  }
+}
@@ -0,0 +1,199 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.anyResource;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuResourceCacheTest {
+  private TinyLfuResourceCache cache;
+  private ResourceRemovedListener listener;
+
+  @Before
+  public void setUp() {
+    cache = new TinyLfuResourceCache(100);
+    listener = mock(ResourceRemovedListener.class);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_addsSizeOfResource() {
+    cache.put(new MockKey(), getResource(30));
+    cache.put(new MockKey(), getResource(20));
+
+    assertThat(cache.getCurrentSize()).isEqualTo(50L);
+  }
+
+  @Test
+  public void remove_returnsResourceAndSubtractsSize() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(30);
+    cache.put(key, resource);
+
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+    assertThat(cache.contains(key)).isFalse();
+    verify(listener, never()).onResourceRemoved(anyResource());
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeAndEvictsExistingItem() {
+    Key key = new MockKey();
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+    assertThat(cache.getCurrentSize()).isEqualTo(40L);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withResourceLargerThanCache_notifiesListenerAndDoesNotAdd() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(200);
+
+    cache.put(key, resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.contains(key)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsUntilUnderMaxSize() {
+    for (int i = 0; i < 10; i++) {
+      cache.put(new MockKey(), getResource(30));
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost(100L);
+  }
+
+  @Test
+  public void put_withScanOfNewResources_keepsFrequentlyRequestedResource() {
+    Key frequent = new MockKey();
+    Resource<?> frequentResource = getResource(10);
+    for (int i = 0; i < 3; i++) {
+      cache.remove(frequent);
+      cache.put(frequent, frequentResource);
+    }
+
+    for (int i = 0; i < 20; i++) {
+      Key key = new MockKey();
+      cache.remove(key);
+      cache.put(key, getResource(30));
+    }
+
+    assertThat(cache.contains(frequent)).isTrue();
+    verify(listener, never()).onResourceRemoved(frequentResource);
+    assertThat(cache.getCurrentSize()).isAtMost(100L);
+  }
+
+  @Test
+  public void put_withCandidateRequestedLessOftenThanVictim_evictsCandidate() {
+    Key first = new MockKey();
+    Key second = new MockKey();
+    Key third = new MockKey();
+    cache.remove(first);
+    cache.put(first, getResource(40));
+    cache.remove(second);
+    cache.put(second, getResource(40));
+    cache.remove(third);
+    Resource<?> thirdResource = getResource(40);
+
+    cache.put(third, thirdResource);
+
+    // The third resource doesn't fit in the window and isn't admitted because it hasn't been
+    // requested more often than the first.
+    verify(listener).onResourceRemoved(thirdResource);
+    assertThat(cache.contains(third)).isFalse();
+    assertThat(cache.contains(first)).isTrue();
+    assertThat(cache.contains(second)).isTrue();
+  }
+
+  @Test
+  public void clearMemory_evictsAllItems() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.clearMemory();
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void trimMemory_background_evictsAllItems() {
+    cache.put(new MockKey(), getResource(50));
+    cache.put(new MockKey(), getResource(40));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_trimsToHalfOfMaxSize() {
+    for (int i = 0; i < 9; i++) {
+      cache.put(new MockKey(), getResource(10));
+    }
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(50L);
+  }
+
+  @Test
+  public void setSizeMultiplier_trimsToNewMaxSize() {
+    for (int i = 0; i < 9; i++) {
+      cache.put(new MockKey(), getResource(10));
+    }
+
+    cache.setSizeMultiplier(0.3f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(30L);
+    assertThat(cache.getCurrentSize()).isAtMost(30L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withWindowFractionGreaterThanOne_throws() {
+    new TinyLfuResourceCache(100, 1.5f);
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+}
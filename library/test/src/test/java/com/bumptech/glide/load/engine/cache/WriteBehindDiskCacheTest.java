@@ -0,0 +1,307 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class WriteBehindDiskCacheTest {
+  private FakeDiskCache delegate;
+  private WriteBehindDiskCache cache;
+  private Key key;
+  private ByteBuffer data;
+
+  @Before
+  public void setUp() {
+    delegate = new FakeDiskCache();
+    cache = new WriteBehindDiskCache(delegate, 1024);
+    key = new ObjectKey("key");
+    data = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 });
+  }
+
+  @After
+  public void tearDown() {
+    delegate.unblock();
+  }
+
+  @Test
+  public void putBuffer_writesDataToDelegate() throws InterruptedException {
+    cache.putBuffer(key, data);
+
+    assertThat(delegate.awaitWrite(key)).isEqualTo(data);
+  }
+
+  @Test
+  public void getBuffer_whileWriteIsPending_returnsQueuedData() {
+    delegate.block();
+    cache.putBuffer(key, data);
+
+    ByteBuffer result = cache.getBuffer(key);
+
+    assertThat(result.isReadOnly()).isTrue();
+    assertThat(result).isEqualTo(data);
+  }
+
+  @Test
+  public void getBuffer_afterWrite_returnsDataFromDelegate() throws InterruptedException {
+    cache.putBuffer(key, data);
+    delegate.awaitWrite(key);
+    awaitQueueEmpty();
+
+    assertThat(cache.getBuffer(key)).isSameAs(delegate.buffers.get(key));
+  }
+
+  @Test
+  public void putChannel_whileWriteIsPending_returnsWrittenData() {
+    delegate.block();
+    cache.putChannel(key, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        try {
+          channel.write(data.duplicate());
+        } catch (IOException e) {
+          return false;
+        }
+        return true;
+      }
+    });
+
+    assertThat(cache.getBuffer(key)).isEqualTo(data);
+  }
+
+  @Test
+  public void putChannel_withWriterThatReturnsFalse_doesNotWrite() {
+    cache.putChannel(key, new ByteBufferDiskCache.ChannelWriter() {
+      @Override
+      public boolean write(@NonNull WritableByteChannel channel) {
+        return false;
+      }
+    });
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(cache.getQueuedBytes()).isEqualTo(0L);
+  }
+
+  @Test
+  public void putBuffer_withFullQueue_writesOnCallingThread() {
+    cache = new WriteBehindDiskCache(delegate, 0 /*maxQueuedBytes*/);
+
+    cache.putBuffer(key, data);
+
+    assertThat(delegate.buffers.get(key)).isEqualTo(data);
+  }
+
+  @Test
+  public void putChannel_withFullQueue_writesOnCallingThread() {
+    cache = new WriteBehindDiskCache(delegate, 0 /*maxQueuedBytes*/);
+
+    cache.putChannel(key, new ChunkedChannelWriter(data, true /*isSuccessful*/));
+
+    assertThat(delegate.buffers.get(key)).isEqualTo(data);
+    assertThat(cache.getWriterThread()).isNull();
+  }
+
+  @Test
+  public void putChannel_withDataLargerThanQueue_writesOnCallingThread() {
+    ByteBuffer large = ByteBuffer.wrap(new byte[4096]);
+    new Random(0).nextBytes(large.array());
+
+    cache.putChannel(key, new ChunkedChannelWriter(large, true /*isSuccessful*/));
+
+    assertThat(delegate.buffers.get(key)).isEqualTo(large);
+    assertThat(cache.getQueuedBytes()).isEqualTo(0L);
+  }
+
+  @Test
+  public void putChannel_withDataLargerThanQueueAndWriterThatReturnsFalse_doesNotWrite() {
+    ByteBuffer large = ByteBuffer.wrap(new byte[4096]);
+
+    cache.putChannel(key, new ChunkedChannelWriter(large, false /*isSuccessful*/));
+
+    assertThat(delegate.buffers.get(key)).isNull();
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void clear_stopsWriterThread() throws InterruptedException {
+    cache.putBuffer(key, data);
+    delegate.awaitWrite(key);
+    Thread writerThread = cache.getWriterThread();
+    assertThat(writerThread).isNotNull();
+
+    cache.clear();
+    writerThread.join(1000);
+
+    assertThat(writerThread.isAlive()).isFalse();
+    assertThat(cache.getWriterThread()).isNull();
+  }
+
+  @Test
+  public void get_whileWriteIsQueued_writesDataBeforeReturning() {
+    delegate.block();
+    Key busy = new ObjectKey("busy");
+    cache.putBuffer(busy, data);
+    cache.putBuffer(key, data);
+
+    File result = cache.get(key);
+
+    assertThat(result).isEqualTo(delegate.getFile(key));
+    assertThat(delegate.buffers.get(key)).isEqualTo(data);
+  }
+
+  @Test
+  public void delete_whileWriteIsQueued_removesQueuedData() {
+    delegate.block();
+    cache.putBuffer(new ObjectKey("busy"), data);
+    cache.putBuffer(key, data);
+
+    cache.delete(key);
+
+    assertThat(cache.getBuffer(key)).isNull();
+    delegate.unblock();
+    assertThat(delegate.buffers.get(key)).isNull();
+  }
+
+  @Test
+  public void put_withPlainDelegate_writesWithWriter() {
+    DiskCache plain = mock(DiskCache.class);
+    cache = new WriteBehindDiskCache(plain, 1024);
+
+    cache.putBuffer(key, data);
+
+    verify(plain, timeout(1000)).put(eq(key), any(DiskCache.Writer.class));
+  }
+
+  private void awaitQueueEmpty() throws InterruptedException {
+    for (int i = 0; i < 100 && cache.getQueuedBytes() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(cache.getQueuedBytes()).isEqualTo(0L);
+  }
+
+  private static final class ChunkedChannelWriter implements ByteBufferDiskCache.ChannelWriter {
+    private static final int CHUNK_SIZE = 100;
+    private final ByteBuffer data;
+    private final boolean isSuccessful;
+
+    ChunkedChannelWriter(ByteBuffer data, boolean isSuccessful) {
+      this.data = data;
+      this.isSuccessful = isSuccessful;
+    }
+
+    @Override
+    public boolean write(@NonNull WritableByteChannel channel) {
+      ByteBuffer toWrite = data.duplicate();
+      try {
+        while (toWrite.hasRemaining()) {
+          ByteBuffer chunk = toWrite.slice();
+          chunk.limit(Math.min(CHUNK_SIZE, chunk.remaining()));
+          toWrite.position(toWrite.position() + channel.write(chunk));
+        }
+      } catch (IOException e) {
+        return false;
+      }
+      return isSuccessful;
+    }
+  }
+
+  private static final class FakeDiskCache implements ByteBufferDiskCache {
+    final Map<Key, ByteBuffer> buffers =
+        Collections.synchronizedMap(new HashMap<Key, ByteBuffer>());
+    private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+    void block() {
+      blocked = new CountDownLatch(1);
+    }
+
+    void unblock() {
+      blocked.countDown();
+    }
+
+    ByteBuffer awaitWrite(Key key) throws InterruptedException {
+      for (int i = 0; i < 100 && !buffers.containsKey(key); i++) {
+        Thread.sleep(10);
+      }
+      return buffers.get(key);
+    }
+
+    File getFile(Key key) {
+      return new File(key.toString());
+    }
+
+    @Nullable
+    @Override
+    public ByteBuffer getBuffer(Key key) {
+      return buffers.get(key);
+    }
+
+    @Override
+    public void putChannel(Key key, ChannelWriter writer) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      if (writer.write(Channels.newChannel(os))) {
+        buffers.put(key, ByteBuffer.wrap(os.toByteArray()));
+      }
+    }
+
+    @Override
+    public void putBuffer(Key key, ByteBuffer data) {
+      // Only block the writer thread, so the test thread can always write.
+      if (Thread.currentThread().getName().startsWith("glide")) {
+        try {
+          blocked.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      buffers.put(key, data);
+    }
+
+    @Nullable
+    @Override
+    public File get(Key key) {
+      return buffers.containsKey(key) ? getFile(key) : null;
+    }
+
+    @Override
+    public void put(Key key, Writer writer) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(Key key) {
+      buffers.remove(key);
+    }
+
+    @Override
+    public void clear() {
+      buffers.clear();
+    }
+  }
+}
@@ -0,0 +1,348 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WorkStealingExecutorTest {
+  private static final long KEEP_ALIVE_TIME_MS = TimeUnit.SECONDS.toMillis(10);
+
+  private WorkStealingExecutor executor;
+  private FakeClock clock;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void execute_withSingleThread_runsQueuedTasksInPriorityOrder()
+      throws InterruptedException {
+    executor = newExecutor(1, 1, /*threadTimeMsPerTask=*/ 0);
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    for (int i = 5; i > 0; i--) {
+      executor.execute(new PriorityRunnable(i, resultPriorities));
+    }
+    release.countDown();
+
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(resultPriorities).containsExactly(1, 2, 3, 4, 5).inOrder();
+  }
+
+  @Test
+  public void execute_withMultipleThreads_runsAllTasks() throws InterruptedException {
+    executor = newExecutor(3, 3, /*threadTimeMsPerTask=*/ 0);
+    int taskCount = 1000;
+    final CountDownLatch latch = new CountDownLatch(taskCount);
+    for (int i = 0; i < taskCount; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          latch.countDown();
+        }
+      });
+    }
+
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void execute_fromBusyWorker_isStolenByIdleWorker() throws InterruptedException {
+    executor = newExecutor(2, 2, /*threadTimeMsPerTask=*/ 0);
+    final CountDownLatch secondWorkerStarted = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        secondWorkerStarted.countDown();
+      }
+    });
+    final CountDownLatch stolen = new CountDownLatch(1);
+    final Thread[] threads = new Thread[2];
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        threads[0] = Thread.currentThread();
+        try {
+          assertThat(secondWorkerStarted.await(5, TimeUnit.SECONDS)).isTrue();
+          // Queued on this worker's own queue, so only runs if the other worker steals it.
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              threads[1] = Thread.currentThread();
+              stolen.countDown();
+            }
+          });
+          assertThat(stolen.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    assertThat(stolen.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(threads[1]).isNotSameAs(threads[0]);
+  }
+
+  @Test
+  public void calculateTargetThreadCount_withCpuBoundTasks_returnsCoreThreadCount()
+      throws InterruptedException {
+    executor = newExecutor(2, 8, /*threadTimeMsPerTask=*/ 100);
+    runTasks(10);
+
+    assertThat(executor.calculateTargetThreadCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void calculateTargetThreadCount_withHalfBlockedTasks_returnsTwiceCoreThreadCount()
+      throws InterruptedException {
+    executor = newExecutor(2, 8, /*threadTimeMsPerTask=*/ 50);
+    runTasks(10);
+
+    assertThat(executor.calculateTargetThreadCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void calculateTargetThreadCount_withBlockedTasks_returnsMaximumThreadCount()
+      throws InterruptedException {
+    executor = newExecutor(2, 8, /*threadTimeMsPerTask=*/ 0);
+    runTasks(10);
+
+    assertThat(executor.calculateTargetThreadCount()).isEqualTo(8);
+  }
+
+  @Test
+  public void execute_withBlockedTasks_addsThreadsUpToMaximumThreadCount()
+      throws InterruptedException {
+    executor = newExecutor(1, 3, /*threadTimeMsPerTask=*/ 0);
+    runTasks(1);
+
+    final CountDownLatch started = new CountDownLatch(3);
+    final CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 4; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+
+    try {
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(executor.getLiveThreadCount()).isEqualTo(3);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void execute_withTaskThatThrows_replacesThreadAndRunsLaterTasks()
+      throws InterruptedException {
+    executor = newExecutor(1, 1, /*threadTimeMsPerTask=*/ 0);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        throw new RuntimeException("Test");
+      }
+    });
+    final CountDownLatch latch = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void shutdownNow_returnsQueuedTasks() throws InterruptedException {
+    executor = newExecutor(1, 1, /*threadTimeMsPerTask=*/ 0);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    Runnable queued = new Runnable() {
+      @Override
+      public void run() {
+        // Do nothing.
+      }
+    };
+    executor.execute(queued);
+
+    List<Runnable> result = executor.shutdownNow();
+
+    assertThat(result).containsExactly(queued);
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.isTerminated()).isTrue();
+  }
+
+  @Test
+  public void remove_withQueuedTask_removesTask() throws InterruptedException {
+    executor = newExecutor(1, 1, /*threadTimeMsPerTask=*/ 0);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    Runnable queued = new Runnable() {
+      @Override
+      public void run() {
+        // Do nothing.
+      }
+    };
+    executor.execute(queued);
+
+    assertThat(executor.remove(queued)).isTrue();
+    assertThat(executor.remove(queued)).isFalse();
+    assertThat(executor.shutdownNow()).isEmpty();
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void execute_afterShutdown_throws() {
+    executor = newExecutor(1, 1, /*threadTimeMsPerTask=*/ 0);
+    executor.shutdown();
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // Do nothing.
+      }
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withMaximumLessThanCore_throws() {
+    newExecutor(2, 1, /*threadTimeMsPerTask=*/ 0);
+  }
+
+  private void runTasks(int count) throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(count);
+    for (int i = 0; i < count; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          clock.advance(/*wallTimeMs=*/ 100);
+          latch.countDown();
+        }
+      });
+    }
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    // The latch is counted down before the task's times are recorded.
+    Thread.sleep(50);
+  }
+
+  private WorkStealingExecutor newExecutor(
+      int coreThreadCount, int maximumThreadCount, long threadTimeMsPerTask) {
+    clock = new FakeClock(threadTimeMsPerTask);
+    return new WorkStealingExecutor(coreThreadCount, maximumThreadCount, KEEP_ALIVE_TIME_MS,
+        Executors.defaultThreadFactory(), clock);
+  }
+
+  /**
+   * Adds the time tasks say they've spent to the real time on each thread, of which only the given
+   * amount per task is counted as thread time.
+   */
+  private static final class FakeClock implements WorkStealingExecutor.Clock {
+    private final ThreadLocal<long[]> advancedTimesMs = new ThreadLocal<long[]>() {
+      @Override
+      protected long[] initialValue() {
+        return new long[2];
+      }
+    };
+    private final long threadTimeMsPerTask;
+
+    FakeClock(long threadTimeMsPerTask) {
+      this.threadTimeMsPerTask = threadTimeMsPerTask;
+    }
+
+    void advance(long wallTimeMs) {
+      long[] times = advancedTimesMs.get();
+      times[0] += wallTimeMs;
+      times[1] += threadTimeMsPerTask;
+    }
+
+    @Override
+    public long uptimeMillis() {
+      return System.currentTimeMillis() + advancedTimesMs.get()[0];
+    }
+
+    @Override
+    public long currentThreadTimeMillis() {
+      return advancedTimesMs.get()[1];
+    }
+  }
+
+  private static final class PriorityRunnable implements Runnable, Comparable<PriorityRunnable> {
+    private final int priority;
+    private final List<Integer> result;
+
+    PriorityRunnable(int priority, List<Integer> result) {
+      this.priority = priority;
+      this.result = result;
+    }
+
+    @Override
+    public int compareTo(@NonNull PriorityRunnable another) {
+      return priority - another.priority;
+    }
+
+    @Override
+    public void run() {
+      result.add(priority);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DecodeHistogramTest {
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private DecodeHistogram histogram;
+
+  @Before
+  public void setUp() {
+    histogram = newHistogram();
+  }
+
+  @After
+  public void tearDown() {
+    // Ignore the result, the file may not exist.
+    //noinspection ResultOfMethodCallIgnored
+    histogram.getFile().delete();
+  }
+
+  @Test
+  public void record_withBitmapAndBitmapDrawable_countsBoth() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 50, Bitmap.Config.ARGB_8888);
+    histogram.record(bitmap);
+    histogram.record(new BitmapDrawable(RuntimeEnvironment.application.getResources(), bitmap));
+
+    PreFillType[] types = getPreFillTypes(histogram);
+    assertThat(types).hasLength(1);
+    assertThat(types[0]).isEqualTo(new PreFillType(100, 50, Bitmap.Config.ARGB_8888, 2));
+  }
+
+  @Test
+  public void record_withOtherResource_ignoresResource() {
+    histogram.record(new Object());
+
+    assertThat(getPreFillTypes(histogram)).isEmpty();
+  }
+
+  @Test
+  public void getPreFillTypes_returnsMostCommonSizesFirst() {
+    record(histogram, 10, 10, Bitmap.Config.RGB_565, 1);
+    record(histogram, 20, 20, Bitmap.Config.ARGB_8888, 3);
+    record(histogram, 30, 30, Bitmap.Config.ARGB_8888, 2);
+
+    PreFillType[] types = getPreFillTypes(histogram);
+    assertThat(types).asList().containsExactly(
+        new PreFillType(20, 20, Bitmap.Config.ARGB_8888, 3),
+        new PreFillType(30, 30, Bitmap.Config.ARGB_8888, 2),
+        new PreFillType(10, 10, Bitmap.Config.RGB_565, 1)).inOrder();
+  }
+
+  @Test
+  public void getPreFillTypes_withManySizes_returnsMaxPreFillTypes() {
+    for (int i = 1; i <= DecodeHistogram.MAX_PRE_FILL_TYPES + 1; i++) {
+      record(histogram, i, i, Bitmap.Config.ARGB_8888, i);
+    }
+
+    PreFillType[] types = getPreFillTypes(histogram);
+    assertThat(types).hasLength(DecodeHistogram.MAX_PRE_FILL_TYPES);
+    assertThat(types[0].getWidth()).isEqualTo(DecodeHistogram.MAX_PRE_FILL_TYPES + 1);
+  }
+
+  @Test
+  public void record_withMaxBuckets_replacesLowestCountWithNewSize() {
+    record(histogram, 1, 1, Bitmap.Config.ARGB_8888, 3);
+    for (int i = 2; i <= DecodeHistogram.MAX_BUCKETS; i++) {
+      record(histogram, i, i, Bitmap.Config.ARGB_8888, 2);
+    }
+    int newSize = DecodeHistogram.MAX_BUCKETS + 1;
+    record(histogram, newSize, newSize, Bitmap.Config.ARGB_8888, 4);
+
+    PreFillType[] types = getPreFillTypes(histogram);
+    // The new size starts from the count of the bucket it replaced.
+    assertThat(types[0])
+        .isEqualTo(new PreFillType(newSize, newSize, Bitmap.Config.ARGB_8888, 2 + 4));
+    assertThat(types[1]).isEqualTo(new PreFillType(1, 1, Bitmap.Config.ARGB_8888, 3));
+    assertThat(types[2].getWeight()).isEqualTo(2);
+  }
+
+  @Test
+  public void load_withMaxBuckets_replacesLowerCountsWithHigherSavedCounts() {
+    record(histogram, 1000, 1000, Bitmap.Config.ARGB_8888, 20);
+    histogram.save();
+
+    DecodeHistogram loaded = newHistogram();
+    for (int i = 1; i <= DecodeHistogram.MAX_BUCKETS; i++) {
+      record(loaded, i, i, Bitmap.Config.ARGB_8888, 1);
+    }
+    assertThat(loaded.load()).isTrue();
+
+    assertThat(getPreFillTypes(loaded)[0])
+        .isEqualTo(new PreFillType(1000, 1000, Bitmap.Config.ARGB_8888, 10));
+  }
+
+  @Test
+  public void record_afterSaveInterval_savesCounts() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, DecodeHistogram.SAVE_INTERVAL - 1);
+    assertThat(histogram.getFile().exists()).isFalse();
+
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 1);
+
+    assertThat(histogram.getFile().exists()).isTrue();
+  }
+
+  @Test
+  public void load_afterSave_addsHalfOfSavedCounts() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 4);
+    record(histogram, 30, 40, Bitmap.Config.ARGB_8888, 9);
+    histogram.save();
+
+    DecodeHistogram loaded = newHistogram();
+    record(loaded, 10, 20, Bitmap.Config.RGB_565, 1);
+    assertThat(loaded.load()).isTrue();
+
+    assertThat(getPreFillTypes(loaded)).asList().containsExactly(
+        new PreFillType(30, 40, Bitmap.Config.ARGB_8888, 4),
+        new PreFillType(10, 20, Bitmap.Config.RGB_565, 3)).inOrder();
+  }
+
+  @Test
+  public void load_withSingleCount_dropsSize() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 1);
+    histogram.save();
+
+    DecodeHistogram loaded = newHistogram();
+    assertThat(loaded.load()).isFalse();
+    assertThat(getPreFillTypes(loaded)).isEmpty();
+  }
+
+  @Test
+  public void load_withoutFile_returnsFalse() {
+    assertThat(histogram.load()).isFalse();
+  }
+
+  @Test
+  public void load_withUnknownVersion_returnsFalse() throws IOException {
+    DataOutputStream os = new DataOutputStream(new FileOutputStream(histogram.getFile()));
+    try {
+      os.writeInt(Integer.MAX_VALUE);
+      os.writeInt(0);
+    } finally {
+      os.close();
+    }
+
+    assertThat(histogram.load()).isFalse();
+  }
+
+  @Test
+  public void load_withTruncatedFile_returnsFalse() throws IOException {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 4);
+    histogram.save();
+    RandomAccessFile file = new RandomAccessFile(histogram.getFile(), "rw");
+    try {
+      file.setLength(file.length() - 1);
+    } finally {
+      file.close();
+    }
+
+    DecodeHistogram loaded = newHistogram();
+    assertThat(loaded.load()).isFalse();
+    assertThat(getPreFillTypes(loaded)).isEmpty();
+  }
+
+  @Test
+  public void save_withoutNewCounts_doesNotWriteFile() {
+    histogram.save();
+
+    assertThat(histogram.getFile().exists()).isFalse();
+  }
+
+  @Test
+  public void trimMemory_uiHidden_savesCounts() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 2);
+
+    histogram.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(histogram.getFile().exists()).isTrue();
+  }
+
+  @Test
+  public void trimMemory_runningLow_savesCounts() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 2);
+
+    histogram.trimMemory(TRIM_MEMORY_RUNNING_LOW);
+
+    assertThat(histogram.getFile().exists()).isTrue();
+  }
+
+  @Test
+  public void trimMemory_runningModerate_doesNotSaveCounts() {
+    record(histogram, 10, 20, Bitmap.Config.RGB_565, 2);
+
+    histogram.trimMemory(TRIM_MEMORY_RUNNING_MODERATE);
+
+    assertThat(histogram.getFile().exists()).isFalse();
+  }
+
+  private static DecodeHistogram newHistogram() {
+    return new DecodeHistogram(RuntimeEnvironment.application, DIRECT_EXECUTOR);
+  }
+
+  private static void record(
+      DecodeHistogram histogram, int width, int height, Bitmap.Config config, int times) {
+    for (int i = 0; i < times; i++) {
+      histogram.record(width, height, config);
+    }
+  }
+
+  private static PreFillType[] getPreFillTypes(DecodeHistogram histogram) {
+    PreFillType.Builder[] builders = histogram.getPreFillTypes();
+    PreFillType[] result = new PreFillType[builders.length];
+    for (int i = 0; i < builders.length; i++) {
+      result[i] = builders[i].build();
+    }
+    return result;
+  }
+}
@@ -8,6 +8,7 @@ import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -47,4 +48,20 @@ public class StreamEncoderTest {
 
     assertEquals(fakeData, new String(data, "UTF-8"));
   }
+
+  @Test
+  public void encode_withChannel_writesDataFromInputStreamToChannel() throws IOException {
+    String fakeData = "SomeRandomFakeData";
+    ByteArrayInputStream is = new ByteArrayInputStream(fakeData.getBytes("UTF-8"));
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      encoder.encode(is, randomAccessFile.getChannel(), new Options());
+    } finally {
+      randomAccessFile.close();
+    }
+
+    byte[] data = ByteBufferUtil.toBytes(ByteBufferUtil.fromFile(file));
+
+    assertEquals(fakeData, new String(data, "UTF-8"));
+  }
 }
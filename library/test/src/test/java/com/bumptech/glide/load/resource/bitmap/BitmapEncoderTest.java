@@ -4,6 +4,7 @@ import static com.bumptech.glide.tests.Util.mockResource;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import android.graphics.Bitmap;
@@ -11,6 +12,7 @@ import com.bumptech.glide.load.EncodeStrategy;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
@@ -86,6 +88,18 @@ public class BitmapEncoderTest {
     assertContains(fakeBytes, Bitmap.CompressFormat.PNG.toString());
   }
 
+  @Test
+  public void testEncoderWritesPixelsWithRawPixels() throws IOException {
+    harness.options.set(BitmapEncoder.RAW_PIXELS, true);
+
+    harness.encode();
+
+    RawBitmapDecoder decoder =
+        new RawBitmapDecoder(mock(BitmapPool.class), harness.arrayPool,
+            new Lz4BlockCompressor(harness.arrayPool));
+    assertTrue(decoder.handles(ByteBufferUtil.fromFile(harness.file), harness.options));
+  }
+
   @Test
   public void testReturnsTrueFromWrite() {
     BitmapEncoder encoder = new BitmapEncoder(harness.arrayPool);
@@ -0,0 +1,133 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class Lz4BlockCompressorTest {
+  private Lz4BlockCompressor compressor;
+
+  @Before
+  public void setUp() {
+    compressor = new Lz4BlockCompressor(new LruArrayPool());
+  }
+
+  @Test
+  public void compress_withEmptyData_decompresses() throws IOException {
+    assertRoundTrips(new byte[0]);
+  }
+
+  @Test
+  public void compress_withShortData_decompresses() throws IOException {
+    assertRoundTrips(new byte[] { 1, 2, 3, 4, 5 });
+  }
+
+  @Test
+  public void compress_withRepeatedData_decompressesAndIsSmaller() throws IOException {
+    byte[] data = new byte[64 * 1024];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i % 4 == 3 ? 0xFF : i % 3);
+    }
+
+    int compressedLength = assertRoundTrips(data);
+
+    assertThat(compressedLength).isLessThan(data.length / 10);
+  }
+
+  @Test
+  public void compress_withRandomData_decompresses() throws IOException {
+    byte[] data = new byte[10000];
+    new Random(0).nextBytes(data);
+
+    assertRoundTrips(data);
+  }
+
+  @Test
+  public void compress_withLongLiteralsAndMatches_decompresses() throws IOException {
+    byte[] data = new byte[4000];
+    Random random = new Random(0);
+    // Alternate between runs of random bytes and zeros longer than 255 bytes.
+    for (int offset = 0; offset < data.length; offset += 1000) {
+      byte[] literals = new byte[300];
+      random.nextBytes(literals);
+      System.arraycopy(literals, 0, data, offset, literals.length);
+    }
+
+    assertRoundTrips(data);
+  }
+
+  @Test
+  public void compress_withOffset_decompresses() throws IOException {
+    byte[] data = new byte[1000];
+    Arrays.fill(data, 10, 990, (byte) 7);
+    byte[] compressed = new byte[5 + compressor.getMaxCompressedLength(980)];
+
+    int compressedLength = compressor.compress(data, 10, 980, compressed, 5);
+    byte[] result = new byte[990];
+    compressor.decompress(compressed, 5, compressedLength, result, 10, 980);
+
+    assertThat(Arrays.copyOfRange(result, 10, 990)).isEqualTo(Arrays.copyOfRange(data, 10, 990));
+  }
+
+  @Test
+  public void decompress_withWrongLength_throws() {
+    byte[] data = new byte[100];
+    byte[] compressed = new byte[compressor.getMaxCompressedLength(data.length)];
+    int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+    try {
+      compressor.decompress(compressed, 0, compressedLength, new byte[200], 0, 200);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void decompress_withTruncatedData_throws() {
+    byte[] data = new byte[100];
+    new Random(0).nextBytes(data);
+    byte[] compressed = new byte[compressor.getMaxCompressedLength(data.length)];
+    int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+    try {
+      compressor.decompress(compressed, 0, compressedLength - 10, new byte[100], 0, 100);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void decompress_withInvalidOffset_throws() {
+    // A token with no literals and a match at offset 0.
+    byte[] compressed = new byte[] { 0, 0, 0, 0 };
+
+    try {
+      compressor.decompress(compressed, 0, compressed.length, new byte[10], 0, 10);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  private int assertRoundTrips(byte[] data) throws IOException {
+    byte[] compressed = new byte[compressor.getMaxCompressedLength(data.length)];
+    int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+    byte[] result = new byte[data.length];
+
+    compressor.decompress(compressed, 0, compressedLength, result, 0, result.length);
+
+    assertThat(result).isEqualTo(data);
+    return compressedLength;
+  }
+}
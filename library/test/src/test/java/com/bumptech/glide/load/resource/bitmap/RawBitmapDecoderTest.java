@@ -0,0 +1,188 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class RawBitmapDecoderTest {
+  private final ArrayPool arrayPool = new LruArrayPool();
+  private final Options options = new Options();
+  private BitmapPool bitmapPool;
+  private RawBitmapDecoder decoder;
+  private RawBitmapEncoder encoder;
+  private File file;
+
+  @Before
+  public void setUp() {
+    bitmapPool = spy(new BitmapPoolAdapter());
+    Lz4BlockCompressor compressor = new Lz4BlockCompressor(arrayPool);
+    decoder = new RawBitmapDecoder(bitmapPool, arrayPool, compressor);
+    encoder = new RawBitmapEncoder(arrayPool, compressor);
+    file = new File(RuntimeEnvironment.application.getCacheDir(), "raw");
+  }
+
+  @After
+  public void tearDown() {
+    Util.deleteRecursive(file);
+  }
+
+  @Test
+  public void decode_withEncodedBitmap_returnsBitmapWithSamePixels() throws IOException {
+    Bitmap bitmap = Bitmap.createBitmap(50, 30, Bitmap.Config.ARGB_8888);
+    bitmap.eraseColor(Color.RED);
+    bitmap.setPixel(10, 20, Color.BLUE);
+    bitmap.setHasAlpha(false);
+
+    Resource<Bitmap> result =
+        decoder.decode(encode(bitmap), 100 /*width*/, 100 /*height*/, options);
+
+    Bitmap decoded = result.get();
+    assertThat(decoded.getWidth()).isEqualTo(50);
+    assertThat(decoded.getHeight()).isEqualTo(30);
+    assertThat(decoded.getConfig()).isEqualTo(Bitmap.Config.ARGB_8888);
+    assertThat(decoded.hasAlpha()).isFalse();
+    assertThat(decoded.getPixel(0, 0)).isEqualTo(Color.RED);
+    assertThat(decoded.getPixel(10, 20)).isEqualTo(Color.BLUE);
+  }
+
+  @Test
+  public void decode_withBitmapLargerThanOneBlock_returnsBitmapWithSamePixels()
+      throws IOException {
+    // 200 * 100 * 4 bytes spans two blocks.
+    Bitmap bitmap = Bitmap.createBitmap(200, 100, Bitmap.Config.ARGB_8888);
+    bitmap.eraseColor(Color.RED);
+    bitmap.setPixel(0, 0, Color.GREEN);
+    bitmap.setPixel(199, 99, Color.BLUE);
+
+    Resource<Bitmap> result =
+        decoder.decode(encode(bitmap), 100 /*width*/, 100 /*height*/, options);
+
+    Bitmap decoded = result.get();
+    assertThat(decoded.getPixel(0, 0)).isEqualTo(Color.GREEN);
+    assertThat(decoded.getPixel(100, 50)).isEqualTo(Color.RED);
+    assertThat(decoded.getPixel(199, 99)).isEqualTo(Color.BLUE);
+  }
+
+  @Test
+  public void handles_withEncodedBitmap_returnsTrue() throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+    assertThat(decoder.handles(data, options)).isTrue();
+  }
+
+  @Test
+  public void handles_withOtherData_returnsFalse() {
+    ByteBuffer data = ByteBuffer.wrap(new byte[] {
+        (byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    });
+
+    assertThat(decoder.handles(data, options)).isFalse();
+  }
+
+  @Test
+  public void handles_withDataFromOtherCompressor_returnsFalse() throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    data.put(5, (byte) (Lz4BlockCompressor.ID + 1));
+
+    assertThat(decoder.handles(data, options)).isFalse();
+  }
+
+  @Test
+  public void decode_withTruncatedData_throwsAndReturnsBitmapToPool() throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    data.limit(data.limit() - 1);
+
+    try {
+      decoder.decode(data, 10, 10, options);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected.
+    }
+    verify(bitmapPool).put(any(Bitmap.class));
+  }
+
+  @Test
+  public void decode_withZeroWidth_throwsWithoutObtainingBitmap() throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    data.putInt(8, 0);
+
+    assertDecodeFailsWithoutObtainingBitmap(data);
+  }
+
+  @Test
+  public void decode_withHugeDimensions_throwsWithoutObtainingBitmap() throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    data.putInt(8, Integer.MAX_VALUE);
+    data.putInt(12, Integer.MAX_VALUE);
+
+    assertDecodeFailsWithoutObtainingBitmap(data);
+  }
+
+  @Test
+  public void decode_withByteCountNotMatchingDimensions_throwsWithoutObtainingBitmap()
+      throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    data.putInt(16, 10 * 10 * 2);
+
+    assertDecodeFailsWithoutObtainingBitmap(data);
+  }
+
+  @Test
+  public void decode_withDimensionsLargerThanData_throwsWithoutObtainingBitmap()
+      throws IOException {
+    ByteBuffer data = encode(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    int width = 4096;
+    int height = 4096;
+    data.putInt(8, width);
+    data.putInt(12, height);
+    data.putInt(16, width * height * 4);
+
+    assertDecodeFailsWithoutObtainingBitmap(data);
+  }
+
+  private void assertDecodeFailsWithoutObtainingBitmap(ByteBuffer data) {
+    try {
+      decoder.decode(data, 10, 10, options);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected.
+    }
+    verify(bitmapPool, never()).getDirty(anyInt(), anyInt(), any(Bitmap.Config.class));
+  }
+
+  private ByteBuffer encode(Bitmap bitmap) throws IOException {
+    Resource<Bitmap> resource = mockResource();
+    when(resource.get()).thenReturn(bitmap);
+    assertThat(encoder.encode(resource, file, options)).isTrue();
+    return ByteBuffer.wrap(ByteBufferUtil.toBytes(ByteBufferUtil.fromFile(file)));
+  }
+}
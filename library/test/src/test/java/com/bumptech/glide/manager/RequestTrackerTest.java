@@ -4,9 +4,14 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.request.Reprioritizable;
 import com.bumptech.glide.request.Request;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,6 +33,23 @@ public class RequestTrackerTest {
     tracker = new RequestTracker();
   }
 
+  @Test
+  public void setPriority_withTrackedRequest_setsPriorityAndReturnsTrue() {
+    ReprioritizableRequest request = mock(ReprioritizableRequest.class);
+    tracker.addRequest(request);
+
+    assertThat(tracker.setPriority(request, Priority.LOW)).isTrue();
+    verify(request).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void setPriority_withUntrackedRequest_doesNothingAndReturnsFalse() {
+    ReprioritizableRequest request = mock(ReprioritizableRequest.class);
+
+    assertThat(tracker.setPriority(request, Priority.LOW)).isFalse();
+    verify(request, never()).setPriority(any(Priority.class));
+  }
+
   @Test
   public void clearRequests_doesNotRecycleRequests() {
     FakeRequest request = new FakeRequest();
@@ -382,6 +404,8 @@ public class RequestTrackerTest {
     assertThat(request.isRunning()).isTrue();
   }
 
+  interface ReprioritizableRequest extends Request, Reprioritizable { }
+
   private static final class FakeRequest implements Request {
     private boolean isRunning;
     private boolean isFailed;
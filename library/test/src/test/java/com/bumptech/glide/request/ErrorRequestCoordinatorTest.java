@@ -2,10 +2,12 @@ package com.bumptech.glide.request;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.bumptech.glide.Priority;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,6 +30,20 @@ public class ErrorRequestCoordinatorTest {
     coordinator.setRequests(primary, error);
   }
 
+  @Test
+  public void setPriority_keepsErrorPriorityRelativeToPrimary() {
+    ReprioritizableRequest reprioritizablePrimary = mock(ReprioritizableRequest.class);
+    ReprioritizableRequest reprioritizableError = mock(ReprioritizableRequest.class);
+    when(reprioritizablePrimary.getPriority()).thenReturn(Priority.HIGH);
+    when(reprioritizableError.getPriority()).thenReturn(Priority.NORMAL);
+    coordinator.setRequests(reprioritizablePrimary, reprioritizableError);
+
+    coordinator.setPriority(Priority.IMMEDIATE);
+
+    verify(reprioritizablePrimary).setPriority(Priority.IMMEDIATE);
+    verify(reprioritizableError).setPriority(Priority.HIGH);
+  }
+
   @Test
   public void begin_startsPrimary() {
     coordinator.begin();
@@ -576,4 +592,6 @@ public class ErrorRequestCoordinatorTest {
 
     assertThat(coordinator.canNotifyCleared(error)).isTrue();
   }
+
+  interface ReprioritizableRequest extends Request, Reprioritizable { }
 }
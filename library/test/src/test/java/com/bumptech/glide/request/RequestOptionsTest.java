@@ -604,6 +604,30 @@ public class RequestOptionsTest {
         .isNull();
   }
 
+  @Test
+  public void getDeadlineMs_byDefault_returnsZero() {
+    assertThat(options.getDeadlineMs()).isEqualTo(0);
+  }
+
+  @Test
+  public void getDeadlineMs_afterApplyingOptionsWithDeadline_returnsDeadline() {
+    assertThat(options.apply(new RequestOptions().deadline(100)).getDeadlineMs()).isEqualTo(100);
+  }
+
+  @Test
+  public void getDeadlineMs_afterApplyingOptionsWithoutDeadline_retainsDeadline() {
+    assertThat(options.deadline(100).apply(new RequestOptions()).getDeadlineMs()).isEqualTo(100);
+  }
+
+  @Test
+  public void equals_withDifferentDeadlines_isFalse() {
+    new EqualsTester()
+        .addEqualityGroup(new RequestOptions().deadline(100), new RequestOptions().deadline(100))
+        .addEqualityGroup(new RequestOptions().deadline(200))
+        .addEqualityGroup(new RequestOptions(), new RequestOptions().deadline(0))
+        .testEquals();
+  }
+
   @Test
   public void testEqualsHashCode() {
     Drawable first = new ColorDrawable(Color.RED);
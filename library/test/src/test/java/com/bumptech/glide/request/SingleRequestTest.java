@@ -8,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
@@ -247,6 +248,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class));
   }
 
@@ -281,6 +283,7 @@ public class SingleRequestTest {
             anyBoolean(),
             anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class)))
         .thenReturn(loadStatus);
 
@@ -293,6 +296,73 @@ public class SingleRequestTest {
     verify(loadStatus).cancel();
   }
 
+  @Test
+  public void testSetPriorityWhileRunningSetsPriorityOfLoad() {
+    Engine.LoadStatus loadStatus = mock(Engine.LoadStatus.class);
+
+    when(builder.engine
+        .load(
+            eq(builder.glideContext),
+            eq(builder.model),
+            eq(builder.signature),
+            anyInt(),
+            anyInt(),
+            eq(Object.class),
+            eq(List.class),
+            any(Priority.class),
+            any(DiskCacheStrategy.class),
+            eq(builder.transformations),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyLong(),
+            any(ResourceCallback.class)))
+        .thenReturn(loadStatus);
+
+    SingleRequest<List> request = builder.build();
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    request.setPriority(Priority.LOW);
+
+    verify(loadStatus).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void testSetPriorityBeforeBeginStartsLoadWithPriority() {
+    SingleRequest<List> request = builder.build();
+    request.setPriority(Priority.IMMEDIATE);
+
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    verify(builder.engine)
+        .load(
+            eq(builder.glideContext),
+            eq(builder.model),
+            eq(builder.signature),
+            anyInt(),
+            anyInt(),
+            eq(Object.class),
+            eq(List.class),
+            eq(Priority.IMMEDIATE),
+            any(DiskCacheStrategy.class),
+            eq(builder.transformations),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyLong(),
+            any(ResourceCallback.class));
+  }
+
   @Test
   public void testResourceIsRecycledOnClear() {
     SingleRequest<List> request = builder.build();
@@ -564,6 +634,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class)))
         .thenAnswer(new Answer<Object>() {
           @Override
@@ -699,6 +770,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class));
   }
 
@@ -737,6 +809,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class)))
         .thenAnswer(new CallResourceCallback(builder.resource));
     SingleRequest<List> request = builder.build();
@@ -781,6 +854,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class));
   }
 
@@ -814,6 +888,7 @@ public class SingleRequestTest {
             eq(true),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class));
   }
 
@@ -846,6 +921,7 @@ public class SingleRequestTest {
             eq(false),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class));
   }
 
@@ -7,10 +7,12 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.bumptech.glide.Priority;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -371,6 +373,34 @@ public class ThumbnailRequestCoordinatorTest {
     assertThat(coordinator.canNotifyCleared(full)).isFalse();
   }
 
+  @Test
+  public void testSetPriorityKeepsThumbPriorityRelativeToFull() {
+    ReprioritizableRequest reprioritizableFull = mock(ReprioritizableRequest.class);
+    ReprioritizableRequest reprioritizableThumb = mock(ReprioritizableRequest.class);
+    when(reprioritizableFull.getPriority()).thenReturn(Priority.NORMAL);
+    when(reprioritizableThumb.getPriority()).thenReturn(Priority.HIGH);
+    coordinator.setRequests(reprioritizableFull, reprioritizableThumb);
+
+    coordinator.setPriority(Priority.LOW);
+
+    verify(reprioritizableFull).setPriority(Priority.LOW);
+    verify(reprioritizableThumb).setPriority(Priority.NORMAL);
+  }
+
+  @Test
+  public void testSetPriorityLimitsThumbPriorityToImmediate() {
+    ReprioritizableRequest reprioritizableFull = mock(ReprioritizableRequest.class);
+    ReprioritizableRequest reprioritizableThumb = mock(ReprioritizableRequest.class);
+    when(reprioritizableFull.getPriority()).thenReturn(Priority.NORMAL);
+    when(reprioritizableThumb.getPriority()).thenReturn(Priority.HIGH);
+    coordinator.setRequests(reprioritizableFull, reprioritizableThumb);
+
+    coordinator.setPriority(Priority.IMMEDIATE);
+
+    verify(reprioritizableFull).setPriority(Priority.IMMEDIATE);
+    verify(reprioritizableThumb).setPriority(Priority.IMMEDIATE);
+  }
+
   @Test
   public void testIsEquivalentTo() {
     ThumbnailRequestCoordinator first = new ThumbnailRequestCoordinator();
@@ -391,4 +421,6 @@ public class ThumbnailRequestCoordinatorTest {
     assertFalse(third.isEquivalentTo(first));
     assertFalse(first.isEquivalentTo(third));
   }
+
+  interface ReprioritizableRequest extends Request, Reprioritizable { }
 }